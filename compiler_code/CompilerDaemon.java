@@ -0,0 +1,265 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import antlr4.*;
+import frontend.IdentifierTokenFactory;
+
+/**
+ * <h1>CompilerDaemon</h1>
+ *
+ * <p>A compiler that keeps running and compiles the requests of
+ * SubCClient over a local socket, so that each compilation doesn't pay
+ * for starting the JVM, loading the classes, and deserializing the
+ * lexer's and the parser's ATNs. The DFA caches that ANTLR builds while
+ * parsing are shared by all the lexers and parsers of the JVM, and so
+ * they stay warm from one request to the next. Every request gets its
+ * own lexer, parser, symbol tables, and compiler.</p>
+ *
+ * <p>A request is the daemon's token, the client's working directory,
+ * and the command-line arguments. The reply is whether or not the
+ * compilation succeeded and the output that the command line would have
+ * printed. The request -shutdown stops the daemon.</p>
+ *
+ * <p>The token is a random number that the daemon writes at startup to
+ * a file that only its user can read. Since any local user can connect
+ * to the port, a request without the token is refused, so that no one
+ * else can compile with the daemon user's permissions or stop it.</p>
+ */
+public class CompilerDaemon
+{
+    public static final int DEFAULT_PORT = 4747;
+    public static final String SHUTDOWN = "-shutdown";
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int READ_TIMEOUT_MILLIS = 10000;  // of each read
+    private static final int MAX_ARGUMENTS = 256;          // of a request
+    private static final int MAX_STRING_BYTES = 4096;      // of a request's string
+
+    private int port;                // the local port to listen on
+    private byte[] token;            // the token that requests must send
+    private ServerSocket server;     // the listening socket
+    private ExecutorService pool;    // threads that serve the requests
+
+    /**
+     * Constructor.
+     * @param port the local port to listen on.
+     */
+    public CompilerDaemon(int port)
+    {
+        this.port = port;
+        this.pool = Executors.newFixedThreadPool(
+                                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Serve requests until a shutdown request.
+     * @throws IOException if the port can't be opened.
+     */
+    public void serve() throws IOException
+    {
+        warmUp();
+
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        File tokenFile = SubCClient.tokenFile(port);
+
+        try
+        {
+            writeToken(tokenFile);
+            System.out.printf("Compiler daemon listening on port %d.\n", port);
+
+            while (true)
+            {
+                Socket socket = server.accept();
+                pool.submit(() -> serve(socket));
+            }
+        }
+        catch (SocketException ex)
+        {
+            // The server socket was closed by a shutdown request.
+        }
+        finally
+        {
+            pool.shutdown();
+            server.close();
+            Files.deleteIfExists(tokenFile.toPath());
+        }
+
+        System.out.println("Compiler daemon stopped.");
+    }
+
+    /**
+     * Create a random token and write it to the token file, which only
+     * the user can read, in a directory that only the user can access.
+     * @param tokenFile the token file.
+     * @throws IOException if the file can't be written.
+     */
+    private void writeToken(File tokenFile) throws IOException
+    {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) hex.append(String.format("%02x", b));
+        token = hex.toString().getBytes(StandardCharsets.UTF_8);
+
+        Path directory = tokenFile.getParentFile().toPath();
+        Path path = tokenFile.toPath();
+
+        Files.createDirectories(directory);
+        Files.deleteIfExists(path);
+
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+        {
+            Files.setPosixFilePermissions(directory,
+                            PosixFilePermissions.fromString("rwx------"));
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(
+                            PosixFilePermissions.fromString("rw-------")));
+        }
+        else
+        {
+            Files.createFile(path);  // protected by the home directory
+        }
+
+        Files.write(path, token);
+    }
+
+    /**
+     * Load the lexer and parser classes, which deserializes their ATNs.
+     */
+    private void warmUp()
+    {
+        SubCLexer lexer = new SubCLexer(CharStreams.fromString(""));
+        lexer.setTokenFactory(new IdentifierTokenFactory());
+        lexer.removeErrorListeners();
+        SubCParser parser = new SubCParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+    }
+
+    /**
+     * Serve a request.
+     * @param socket the client's socket.
+     */
+    private void serve(Socket socket)
+    {
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(s.getOutputStream())))
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            PrintStream ps = new PrintStream(output);
+            boolean succeeded;
+
+            // A client that stops sending can't hold a thread forever.
+            s.setSoTimeout(READ_TIMEOUT_MILLIS);
+
+            // Refuse the request before reading the rest of it
+            // if it doesn't have the token.
+            byte[] clientToken = readString(in, 2*TOKEN_BYTES)
+                                    .getBytes(StandardCharsets.UTF_8);
+
+            if (!MessageDigest.isEqual(clientToken, token))
+            {
+                ps.println("ERROR: Invalid compiler daemon token.");
+                succeeded = false;
+            }
+            else
+            {
+                File directory = new File(readString(in, MAX_STRING_BYTES));
+                int count = in.readInt();
+
+                if ((count < 0) || (count > MAX_ARGUMENTS))
+                {
+                    throw new IOException("Too many arguments: " + count);
+                }
+
+                String[] args = new String[count];
+                for (int i = 0; i < count; i++)
+                {
+                    args[i] = readString(in, MAX_STRING_BYTES);
+                }
+
+                if ((args.length == 1) && args[0].equalsIgnoreCase(SHUTDOWN))
+                {
+                    ps.println("Compiler daemon stopping.");
+                    succeeded = true;
+                    server.close();
+                }
+                else
+                {
+                    try
+                    {
+                        succeeded = SubC.run(args, directory, ps);
+                    }
+                    catch (Exception ex)
+                    {
+                        ps.printf("\nERROR: %s\n", ex);
+                        succeeded = false;
+                    }
+                }
+            }
+
+            ps.flush();
+            out.writeBoolean(succeeded);
+            out.writeInt(output.size());
+            output.writeTo(out);
+        }
+        catch (SocketTimeoutException ex)
+        {
+            // The client stopped sending; the socket is closed.
+        }
+        catch (IOException ex)
+        {
+            // The client went away or sent a bad request;
+            // nothing to reply to.
+        }
+    }
+
+    /**
+     * Read a string of a request, refusing it before allocating it
+     * if its length is too long.
+     * @param in the request's input stream.
+     * @param maxBytes the maximum length of the string's UTF-8 bytes.
+     * @return the string.
+     * @throws IOException if the string can't be read or is too long.
+     */
+    private static String readString(DataInputStream in, int maxBytes)
+        throws IOException
+    {
+        // The length that precedes the bytes.
+        in.mark(2);
+        int length = in.readUnsignedShort();
+
+        if (length > maxBytes)
+        {
+            throw new IOException("Request string too long: " + length);
+        }
+
+        in.reset();
+        return in.readUTF();
+    }
+}
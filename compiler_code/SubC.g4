@@ -5,6 +5,7 @@ grammar SubC;
     import java.util.HashMap;
     import intermediate.symtab.SymtabEntry;
     import intermediate.type.Typespec;
+    import intermediate.util.Operator;
 }
 
 program: programHeader functionDefinitions mainProgram  ;
@@ -65,7 +66,7 @@ caseBranch       : CASE caseConstantList ':' caseCompound ;
 caseConstantList : caseConstant ( ',' caseConstant )* ;
 caseCompound : statement* (BREAK SEMICOLON)?;
 defaultBranch    : 'default' ':' caseCompound;
-caseConstant    locals [ Typespec type = null, int value = 0 ]
+caseConstant    locals [ Typespec type = null, int value = 0, String string = null ]
     : constant ;
 
 
@@ -115,16 +116,17 @@ constant   locals [ Typespec type = null, Object value = null ]
     ;
 
 sign              : '-' | '+' ;
-number            : sign? unsignedNumber ;
+number            locals [ int intValue = 0, float realValue = 0.0f ]
+                  : sign? unsignedNumber ;
 unsignedNumber    : integerConstant | realConstant ;
 integerConstant   : INTEGER ;
 realConstant      : REAL;
 characterConstant : CHARACTER ;
 stringConstant    : STR ;
        
-relOp : '==' | '!='| '<' | '<=' | '>' | '>=' ;
-addOp :  '+' | '-' | OR ;
-mulOp :  '*' | '/' | MOD | AND ;
+relOp locals [ Operator op = null ] : '==' | '!='| '<' | '<=' | '>' | '>=' ;
+addOp locals [ Operator op = null ] :  '+' | '-' | OR ;
+mulOp locals [ Operator op = null ] :  '*' | '/' | MOD | AND ;
 
 MOD       : '%' ;
 AND       : '&&' ;
@@ -1,108 +1,410 @@
 import backend.compiler.Compiler;
+import intermediate.symtab.Symtab;
 import intermediate.symtab.SymtabEntry;
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 
 import antlr4.*;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 import frontend.*;
 import intermediate.util.BackendMode;
+import intermediate.util.CompileTimings;
+import intermediate.util.CompilerOptions;
 import static intermediate.util.BackendMode.*;
 
-public class SubC 
+public class SubC
 {
-    public static void main(String[] args) throws Exception 
+    public static void main(String[] args) throws Exception
     {
-        if (args.length != 2)
+        if ((args.length >= 1) && args[0].equalsIgnoreCase("-daemon"))
         {
-            System.out.println("USAGE: PascalJava option sourceFileName");
-            System.out.println("   option: -convert, -execute, or -compile");
+            int port = CompilerDaemon.DEFAULT_PORT;
+            if (args.length >= 2) port = Integer.parseInt(args[1]);
+
+            new CompilerDaemon(port).serve();
             return;
         }
-        
+
+        run(args, null, System.out);
+    }
+
+    /**
+     * Run the compiler with command-line arguments.
+     * @param args the arguments.
+     * @param directory the directory of relative source file names
+     *                  and of the output files, or null for the current one.
+     * @param out the stream for the listing and the diagnostics.
+     * @return true if every object file was created, else false.
+     */
+    static boolean run(String[] args, File directory, PrintStream out)
+        throws Exception
+    {
+        if (args.length < 2)
+        {
+            out.println("USAGE: PascalJava option [flags] sourceFileName ...");
+            out.println("   option: -convert, -execute, or -compile");
+            out.println("   flags:  -O        compile from the optimizing SSA form");
+            out.println("           -profile  print runtime statistics");
+            out.println("           -nolist   don't print the source listing");
+            out.println("           -xref     print the cross-reference table");
+            out.println("           -timings[=json]  report the time, CPU, " +
+                        "and allocations of each pass");
+            out.println("           -incremental  reuse the code of " +
+                        "unchanged functions");
+            out.println("           -memo=n   cache entries per memoized " +
+                        "function, 0 for none");
+            out.println("           -eval=n   steps per call evaluated " +
+                        "at compile time, 0 for none");
+            out.println("           -jobs=n   source files compiled " +
+                        "at once in a batch");
+            out.println("   Several source files or a directory of " +
+                        ".c files are compiled as a batch.");
+            out.println("   PascalJava -daemon [port] keeps a compiler " +
+                        "running for SubCClient.");
+            return false;
+        }
+
         String option = args[0];
-        String sourceFileName = args[1];
+        ArrayList<String> sourceFileNames = new ArrayList<String>();
+        CompilerOptions options = new CompilerOptions();
+        boolean batch = false;
+
+        options.setDirectory(directory);
+
+        for (int i = 1; i < args.length; i++)
+        {
+            if (!args[i].startsWith("-"))
+            {
+                File file = new File(args[i]);
+                if (!file.isAbsolute()) file = new File(directory, args[i]);
+
+                batch = batch || file.isDirectory() || !sourceFileNames.isEmpty();
+                sourceFileNames.addAll(sourceFiles(file));
+            }
+            else if (!options.parseFlag(args[i]))
+            {
+                out.println("ERROR: Invalid flag " + args[i]);
+                return false;
+            }
+        }
+
+        if (sourceFileNames.isEmpty())
+        {
+            out.println("ERROR: No source files.");
+            return false;
+        }
 
         BackendMode mode = EXECUTOR;
-        
+
         if      (option.equalsIgnoreCase("-convert")) mode = CONVERTER;
         else if (option.equalsIgnoreCase("-execute")) mode = EXECUTOR;
         else if (option.equalsIgnoreCase("-compile")) mode = COMPILER;
         else
         {
-            System.out.println("ERROR: Invalid option.");
-            System.out.println("   Valid options: -convert, -execute, or -compile");
+            out.println("ERROR: Invalid option.");
+            out.println("   Valid options: -convert, -execute, or -compile");
+        }
+
+        if (batch) return compileBatch(sourceFileNames, mode, options, out);
+        else       return compile(sourceFileNames.get(0), mode, options, out);
+    }
+
+    /**
+     * Get the source files named by a command-line argument.
+     * @param file a source file, or a directory of .c source files.
+     * @return the list of source file names, sorted for a directory.
+     */
+    private static ArrayList<String> sourceFiles(File file)
+    {
+        ArrayList<String> names = new ArrayList<String>();
+        File[] files = file.isDirectory() ? file.listFiles() : null;
+
+        if (files == null)
+        {
+            names.add(file.getPath());
+            return names;
+        }
+
+        Arrays.sort(files);
+        for (File f : files)
+        {
+            if (f.isFile() && f.getName().endsWith(".c")) names.add(f.getPath());
+        }
+
+        return names;
+    }
+
+    /**
+     * Compile a batch of source files concurrently. The output of each
+     * compilation is kept and printed in the order of the files,
+     * followed by a summary.
+     * @param sourceFileNames the source file names.
+     * @param mode the backend mode.
+     * @param options the compiler options.
+     * @param stdout the stream for the combined output.
+     * @return true if every object file was created, else false.
+     */
+    private static boolean compileBatch(ArrayList<String> sourceFileNames,
+                                        BackendMode mode,
+                                        CompilerOptions options,
+                                        PrintStream stdout)
+        throws InterruptedException
+    {
+        int jobs = Math.min(options.getJobs(), sourceFileNames.size());
+        ExecutorService pool = Executors.newFixedThreadPool(jobs);
+        ArrayList<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        ArrayList<ByteArrayOutputStream> outputs =
+                                        new ArrayList<ByteArrayOutputStream>();
+        long start = System.currentTimeMillis();
+
+        for (String sourceFileName : sourceFileNames)
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(output);
+
+            outputs.add(output);
+            results.add(pool.submit(() ->
+            {
+                try
+                {
+                    return compile(sourceFileName, mode, options, out);
+                }
+                catch (Exception ex)
+                {
+                    out.printf("\nERROR: %s\n", ex);
+                    return false;
+                }
+                finally
+                {
+                    out.flush();
+                }
+            }));
+        }
+
+        int failed = 0;
+        for (int i = 0; i < sourceFileNames.size(); i++)
+        {
+            boolean succeeded;
+            try
+            {
+                succeeded = results.get(i).get();
+            }
+            catch (ExecutionException ex)
+            {
+                succeeded = false;
+            }
+
+            stdout.printf("\n===== %s =====\n", sourceFileNames.get(i));
+            stdout.print(outputs.get(i).toString());
+            if (!succeeded) failed++;
+        }
+
+        pool.shutdown();
+
+        stdout.printf("\n%d source files compiled, %d failed, " +
+                      "in %d ms with %d jobs.\n",
+                      sourceFileNames.size() - failed, failed,
+                      System.currentTimeMillis() - start, jobs);
+        return failed == 0;
+    }
+
+    /**
+     * Compile a source file.
+     * @param sourceFileName the source file name.
+     * @param mode the backend mode.
+     * @param options the compiler options.
+     * @param out the stream for the listing and the diagnostics.
+     * @return true if the object file was created, else false.
+     */
+    private static boolean compile(String sourceFileName, BackendMode mode,
+                                   CompilerOptions options, PrintStream out)
+        throws Exception
+    {
+        CompileTimings timings = new CompileTimings(options.isTiming());
+
+        // Read the source file once for both the listing and the lexer.
+        SourceFile source;
+        timings.start("reading");
+        try
+        {
+            source = new SourceFile(sourceFileName);
+        }
+        catch (IOException ex)
+        {
+            out.printf("ERROR: Failed to open source file \"%s\".\n",
+                       sourceFileName);
+            out.printf("       %s\n", ex.getMessage());
+            return false;
+        }
+
+        try
+        {
+            return compile(source, mode, options, out, timings);
+        }
+        finally
+        {
+            timings.print(out, options.isTimingJson());
         }
-        
+    }
+
+    /**
+     * Compile the text of a source file.
+     * @param source the source file.
+     * @param mode the backend mode.
+     * @param options the compiler options.
+     * @param out the stream for the listing and the diagnostics.
+     * @param timings the timings of the passes.
+     * @return true if the object file was created, else false.
+     */
+    private static boolean compile(SourceFile source, BackendMode mode,
+                                   CompilerOptions options, PrintStream out,
+                                   CompileTimings timings)
+        throws Exception
+    {
         // Generate a source file listing.
-        new Listing(sourceFileName);
-        
-        // Create the input stream.
-        InputStream source = new FileInputStream(sourceFileName);
-        
-        // Create the character stream from the input stream.
-        CharStream cs = CharStreams.fromStream(source);
-        
-        // // Custom syntax error handler.
-         SyntaxErrorHandler syntaxErrorHandler = new SyntaxErrorHandler();
-        
-        // // Create a lexer which scans the character stream
-        // // to create a token stream.
+        if (options.isListing())
+        {
+            timings.start("listing");
+            new Listing(source).print(out);
+        }
+
+        // Create the character stream from the source text.
+        CharStream cs = source.getCharStream();
+
+        // Custom syntax error handler.
+        SyntaxErrorHandler syntaxErrorHandler = new SyntaxErrorHandler(out);
+
+        // Create a lexer which scans the character stream
+        // to create a token stream, interning the identifiers.
         SubCLexer lexer = new SubCLexer(cs);
-         lexer.removeErrorListeners();
-         lexer.addErrorListener(syntaxErrorHandler);
-         CommonTokenStream tokens = new CommonTokenStream(lexer);
-        
-        // // Create a parser which parses the token stream.
-         SubCParser parser = new SubCParser(tokens);
-        
-         // Pass 1: Check syntax and create the parse tree.
-         System.out.printf("\nPASS 1 Syntax: ");
-         parser.removeErrorListeners();
-         parser.addErrorListener(syntaxErrorHandler);
-         ParseTree tree = parser.program();
-        
-         int errorCount = syntaxErrorHandler.getCount();
-         if (errorCount > 0) 
-         {
-             System.out.printf("\nThere were %d syntax errors.\n", errorCount);
-             System.out.println("Object file not created or modified.");
-             return;
-         }
-         else
-         {
-             System.out.println("There were no syntax errors.");
-         }
-        
-        // // Pass 2: Semantic operations.
-         System.out.printf("\nPASS 2 Semantics:\n");
-         Semantics pass2 = new Semantics(mode);
-         pass2.visit(tree);
-        
-         errorCount = pass2.getErrorCount();
-         if (errorCount > 0)
-         {
-             System.out.printf("\nThere were %d semantic errors.\n", errorCount);
-             System.out.println("Object file not created or modified.");
-             return;
-         }
-         else {
-        	 System.out.printf("\nPass 2 semantic: There were no semantic errors.\n");
-         }
-
-
-        //         // Pass 3: Compile the Pascal program.
-                 System.out.printf("\nPASS 3 Compilation: ");
-                 SymtabEntry programId = pass2.getProgramId();
-                 Compiler pass3 = new Compiler(programId);
-                 pass3.visit(tree);
-                
-                 System.out.printf("Object file \"%s\" created.\n",
-                                   pass3.getObjectFileName());
-          
+        lexer.setTokenFactory(new IdentifierTokenFactory());
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(syntaxErrorHandler);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+
+        // Create a parser which parses the token stream.
+        SubCParser parser = new SubCParser(tokens);
+
+        // Pass 1: Check syntax and create the parse tree.
+        // First try the faster SLL prediction, which gives up at the
+        // first error. Only then reparse with full LL and report errors.
+        out.printf("\nPASS 1 Syntax: ");
+        timings.start("lexing");
+        tokens.fill();
+        timings.start("parsing");
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        ParseTree tree;
+        String stage = "SLL";
+
+        try
+        {
+            tree = parser.program();
+        }
+        catch (ParseCancellationException ex)
+        {
+            tokens.seek(0);
+            parser.reset();
+            parser.addErrorListener(syntaxErrorHandler);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            tree = parser.program();
+            stage = "LL";
+        }
+
+        int errorCount = syntaxErrorHandler.getCount();
+        if (errorCount > 0)
+        {
+            out.printf("\nThere were %d syntax errors.\n", errorCount);
+            out.println("Object file not created or modified.");
+            return false;
+        }
+        else
+        {
+            out.println("There were no syntax errors.");
+            out.printf("Parsed with %s prediction.\n", stage);
+        }
+
+        timings.stop();
+        timings.count("tokens", tokens.size());
+
+        // Pass 2: Semantic operations.
+        out.printf("\nPASS 2 Semantics:\n");
+        timings.start("semantics");
+        Semantics pass2 = new Semantics(mode, out);
+        pass2.setCrossReferencing(options.isCrossReferencing());
+        pass2.visit(tree);
+
+        timings.stop();
+
+        errorCount = pass2.getErrorCount();
+        if (errorCount > 0)
+        {
+            out.printf("\nThere were %d semantic errors.\n", errorCount);
+            out.println("Object file not created or modified.");
+            return false;
+        }
+        else
+        {
+            out.printf("\nPass 2 semantic: There were no semantic errors.\n");
+        }
+
+        // Trim the parse tree's child lists before the code generators
+        // walk the tree.
+        timings.start("compacting");
+        timings.count("parse tree nodes", TreeCompactor.compact(tree));
+        timings.count("symtab entries",
+                      symtabEntryCount(pass2.getProgramId()));
+
+        // Pass 3: Compile the program.
+        out.printf("\nPASS 3 Compilation: ");
+        timings.start("codegen");
+        SymtabEntry programId = pass2.getProgramId();
+        Compiler pass3 = new Compiler(programId, options, timings, out);
+        pass3.visit(tree);
+        timings.stop();
+        timings.count("instructions", pass3.getInstructionCount());
+
+        for (String objectFileName : pass3.getObjectFileNames())
+        {
+            out.printf("Object file \"%s\" created.\n", objectFileName);
+        }
+        return true;
+    }
+
+    /**
+     * Count the symbol table entries of a program and its functions.
+     * @param programId the program's symbol table entry.
+     * @return the count.
+     */
+    private static int symtabEntryCount(SymtabEntry programId)
+    {
+        Symtab programSymtab = programId.getRoutineSymtab();
+        int count = programSymtab.size();
+
+        for (SymtabEntry id : programSymtab.entries())
+        {
+            if (id.getKind() == SymtabEntry.Kind.FUNCTION)
+            {
+                count += id.getRoutineSymtab().size();
+            }
+        }
+
+        return count;
     }
 }
@@ -0,0 +1,90 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * <h1>SubCClient</h1>
+ *
+ * <p>A thin client that sends its command-line arguments to a running
+ * CompilerDaemon, prints the daemon's output, and exits with status 0
+ * if the compilation succeeded, 1 if it failed, or 2 if there is no
+ * daemon. It loads none of the compiler's classes.</p>
+ *
+ * <p>Each request starts with the daemon's token, which only the user
+ * who started the daemon can read from its token file.</p>
+ */
+public class SubCClient
+{
+    /**
+     * Get the token file of the daemon on a port. It's in a directory
+     * that only the user can access.
+     * @param port the daemon's port.
+     * @return the file.
+     */
+    static File tokenFile(int port)
+    {
+        return new File(new File(System.getProperty("user.home"), ".subc"),
+                        "daemon-" + port + ".token");
+    }
+
+    public static void main(String[] args)
+    {
+        int port = CompilerDaemon.DEFAULT_PORT;
+        int first = 0;
+
+        if ((args.length >= 1) && args[0].toLowerCase().startsWith("-port="))
+        {
+            port = Integer.parseInt(args[0].substring(6));
+            first = 1;
+        }
+
+        String token;
+        try
+        {
+            token = new String(Files.readAllBytes(tokenFile(port).toPath()),
+                               StandardCharsets.UTF_8).trim();
+        }
+        catch (IOException ex)
+        {
+            System.out.printf("ERROR: No compiler daemon token in %s.\n",
+                              tokenFile(port));
+            System.out.printf("       Start a daemon with: SubC -daemon %d\n", port);
+            System.exit(2);
+            return;
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(socket.getOutputStream()));
+             DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(socket.getInputStream())))
+        {
+            out.writeUTF(token);
+            out.writeUTF(System.getProperty("user.dir"));
+            out.writeInt(args.length - first);
+            for (int i = first; i < args.length; i++) out.writeUTF(args[i]);
+            out.flush();
+
+            boolean succeeded = in.readBoolean();
+            byte[] output = new byte[in.readInt()];
+            in.readFully(output);
+
+            System.out.write(output, 0, output.length);
+            System.out.flush();
+            System.exit(succeeded ? 0 : 1);
+        }
+        catch (IOException ex)
+        {
+            System.out.printf("ERROR: No compiler daemon on port %d.\n", port);
+            System.out.printf("       Start one with: SubC -daemon %d\n", port);
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package backend.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.regex.Pattern;
+
+import static backend.compiler.Instruction.*;
+
+/**
+ * <h1>BranchRelaxer</h1>
+ *
+ * <p>Rewrite the branches in the emitted code of a method that may be
+ * too far from their targets for a branch's 16-bit offset. A GOTO becomes
+ * a GOTO_W, and a conditional branch becomes the inverted branch around
+ * a GOTO_W to the target.</p>
+ *
+ * <p>The distances are measured with the largest size that each line
+ * of code can be assembled to. A rewritten branch is longer, which can
+ * push other branches out of range, so the rewriting repeats until all
+ * the branches that are left are surely in range.</p>
+ */
+public class BranchRelaxer
+{
+    public static final int MAX_BRANCH_OFFSET = Short.MAX_VALUE;
+
+    private static final int MAX_INSTRUCTION_SIZE = 5;  // of unknown instructions
+    private static final int SWITCH_ENTRY_SIZE    = 8;  // value and offset
+
+    private static final Pattern FIELDS = Pattern.compile("\\s+");
+
+    /**
+     * Relax the branches of the methods in a buffer of emitted code.
+     * @param code the code.
+     * @return the code with the far branches rewritten.
+     */
+    public static String relax(String code)
+    {
+        String separator = System.lineSeparator();
+        String[] lines = code.split(Pattern.quote(separator), -1);
+        ArrayList<String> relaxed = new ArrayList<String>(lines.length);
+        ArrayList<String> method = null;
+
+        for (String line : lines)
+        {
+            if (line.startsWith(".method")) method = new ArrayList<String>();
+
+            if (method == null) relaxed.add(line);
+            else                method.add(line);
+
+            if (line.startsWith(".end method"))
+            {
+                relaxed.addAll(relaxMethod(method));
+                method = null;
+            }
+        }
+
+        if (method != null) relaxed.addAll(method);
+
+        return String.join(separator, relaxed);
+    }
+
+    /**
+     * Relax the branches of a method.
+     * @param method the lines of the method's code.
+     * @return the lines with the far branches rewritten.
+     */
+    private static ArrayList<String> relaxMethod(ArrayList<String> method)
+    {
+        int count = method.size();
+        int[] sizes = new int[count];
+        Instruction[] branches = new Instruction[count];
+        String[] targets = new String[count];
+        int total = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            String line = method.get(i);
+
+            sizes[i] = maxSize(line);
+            total += sizes[i];
+
+            if (isInstruction(line))
+            {
+                String[] fields = fields(line);
+
+                branches[i] = branchOf(fields);
+                if (branches[i] != null) targets[i] = fields[1];
+            }
+        }
+
+        if (total <= MAX_BRANCH_OFFSET) return method;
+
+        boolean[] far = new boolean[count];
+        int[] positions = new int[count];
+        HashMap<String, Integer> labels = new HashMap<String, Integer>();
+        boolean changed = true;
+
+        while (changed)
+        {
+            changed = false;
+            labels.clear();
+
+            int position = 0;
+            for (int i = 0; i < count; i++)
+            {
+                String line = method.get(i);
+
+                positions[i] = position;
+                if (isLabel(line))
+                {
+                    labels.put(line.substring(0, line.indexOf(':')), position);
+                }
+
+                position += sizes[i];
+            }
+
+            for (int i = 0; i < count; i++)
+            {
+                Instruction branch = branches[i];
+                if ((branch == null) || far[i]) continue;
+
+                Integer target = labels.get(targets[i]);
+
+                if (   (target != null)
+                    && (Math.abs(target - positions[i]) > MAX_BRANCH_OFFSET))
+                {
+                    far[i] = true;
+                    sizes[i] = (branch == GOTO) ? GOTO_W.size()
+                                                : branch.size() + GOTO_W.size();
+                    changed = true;
+                }
+            }
+        }
+
+        ArrayList<String> relaxed = new ArrayList<String>(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            String line = method.get(i);
+
+            if (!far[i])
+            {
+                relaxed.add(line);
+                continue;
+            }
+
+            Instruction branch = branches[i];
+
+            if (branch == GOTO)
+            {
+                relaxed.add("\t" + GOTO_W + "\t" + targets[i]);
+            }
+            else
+            {
+                // Branch around the GOTO_W on the opposite condition.
+                String skip = "W" + i;
+
+                relaxed.add("\t" + inverse(branch) + "\t" + skip);
+                relaxed.add("\t" + GOTO_W + "\t" + targets[i]);
+                relaxed.add(skip + ":");
+            }
+        }
+
+        return relaxed;
+    }
+
+    /**
+     * Get the largest size that a line of code can be assembled to.
+     * @param line the line.
+     * @return the size in bytes.
+     */
+    private static int maxSize(String line)
+    {
+        if (line.startsWith("\t  ")) return SWITCH_ENTRY_SIZE;
+        if (!isInstruction(line))    return 0;  // label, directive, or comment
+
+        String[] fields = fields(line);
+        Instruction instruction = instructionOf(fields[0]);
+
+        if (instruction == null) return MAX_INSTRUCTION_SIZE;
+
+        switch (instruction)
+        {
+            case LDC:  return 3;  // LDC_W with a big constant pool
+            case IINC: return instruction.size(Integer.parseInt(fields[1]),
+                                               Integer.parseInt(fields[2]));
+            default:
+            {
+                return instruction.isLocal()
+                            ? instruction.size(Integer.parseInt(fields[1]))
+                            : instruction.size();
+            }
+        }
+    }
+
+    /**
+     * Split a line of code into its fields.
+     * @param line the line.
+     * @return the fields: the instruction and its operands.
+     */
+    private static String[] fields(String line)
+    {
+        return FIELDS.split(line.trim());
+    }
+
+    /**
+     * Return whether or not a line of code is an instruction.
+     * @param line the line.
+     * @return true if it is, else false.
+     */
+    private static boolean isInstruction(String line)
+    {
+        return line.startsWith("\t") && !line.startsWith("\t  ");
+    }
+
+    /**
+     * Return whether or not a line of code is a label.
+     * @param line the line.
+     * @return true if it is, else false.
+     */
+    private static boolean isLabel(String line)
+    {
+        return    !line.isEmpty() && !line.startsWith("\t")
+               && !line.startsWith(".") && !line.startsWith(";")
+               && line.trim().endsWith(":");
+    }
+
+    /**
+     * Get the instruction of an instruction name.
+     * @param name the name.
+     * @return the instruction, or null if it isn't one.
+     */
+    private static Instruction instructionOf(String name)
+    {
+        try
+        {
+            return Instruction.valueOf(name.toUpperCase());
+        }
+        catch (IllegalArgumentException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Get the branch instruction of a line of code.
+     * @param fields the fields of the line.
+     * @return the instruction, or null if it isn't a branch to a label.
+     */
+    private static Instruction branchOf(String[] fields)
+    {
+        if (fields.length != 2) return null;
+
+        Instruction instruction = instructionOf(fields[0]);
+        return (instruction == GOTO) || (inverse(instruction) != null)
+                    ? instruction : null;
+    }
+
+    /**
+     * Get the conditional branch with the opposite condition.
+     * @param branch the conditional branch.
+     * @return the opposite branch, or null if it isn't a conditional branch.
+     */
+    private static Instruction inverse(Instruction branch)
+    {
+        if (branch == null) return null;
+
+        switch (branch)
+        {
+            case IFEQ:      return IFNE;
+            case IFNE:      return IFEQ;
+            case IFLT:      return IFGE;
+            case IFGE:      return IFLT;
+            case IFGT:      return IFLE;
+            case IFLE:      return IFGT;
+            case IF_ICMPEQ: return IF_ICMPNE;
+            case IF_ICMPNE: return IF_ICMPEQ;
+            case IF_ICMPLT: return IF_ICMPGE;
+            case IF_ICMPGE: return IF_ICMPLT;
+            case IF_ICMPGT: return IF_ICMPLE;
+            case IF_ICMPLE: return IF_ICMPGT;
+            case IFNULL:    return IFNONNULL;
+            case IFNONNULL: return IFNULL;
+            default:        return null;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package backend.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import antlr4.SubCParser;
+import intermediate.symtab.SymtabEntry;
+
+import static intermediate.symtab.SymtabEntry.Kind.*;
+import static intermediate.symtab.SymtabEntry.Routine.*;
+
+/**
+ * <h1>ClassPartition</h1>
+ *
+ * <p>The partition of the functions of a program that is too big for
+ * one class into several classes. A class is limited in its estimated
+ * constant pool entries and in its count of functions. The functions that
+ * call each other the most are put together first, so that most calls
+ * stay within a class. The program class keeps the main method, and the
+ * JVM loads each class of functions when one of them is first called.</p>
+ */
+public class ClassPartition
+{
+    public static final int MAX_CLASS_ENTRIES   = 16384;  // of the 65535 allowed
+    public static final int MAX_CLASS_FUNCTIONS = 1024;
+
+    private static final int CLASS_ENTRIES    = 64;  // names and runtime references
+    private static final int FUNCTION_ENTRIES = 8;   // names and descriptors of methods
+    private static final int CALL_ENTRIES     = 4;   // reference to a called routine
+    private static final int STRING_ENTRIES   = 2;   // string and its text
+    private static final int NUMBER_ENTRIES   = 2;   // number too big for an operand
+
+    private static final int MAX_SHORT_DIGITS = 4;   // digits of a SIPUSH operand
+
+    private LinkedHashMap<SymtabEntry, String> classNames;  // class of each function
+    private ArrayList<String> names;                        // classes in order
+
+    /**
+     * The estimated constant pool entries of a function,
+     * and the declared functions that it calls.
+     */
+    private static class Estimate
+    {
+        private HashMap<SymtabEntry, Integer> calls;  // call sites by routine
+        private HashSet<String> strings;               // string literals
+        private HashSet<String> numbers;               // big number literals
+
+        private Estimate(ParseTree tree)
+        {
+            calls   = new HashMap<SymtabEntry, Integer>();
+            strings = new HashSet<String>();
+            numbers = new HashSet<String>();
+
+            scan(tree);
+        }
+
+        /**
+         * Scan a parse tree for calls and literals.
+         * @param tree the parse tree.
+         */
+        private void scan(ParseTree tree)
+        {
+            if (tree instanceof SubCParser.FunctionNameContext)
+            {
+                SymtabEntry routineId =
+                                ((SubCParser.FunctionNameContext) tree).entry;
+
+                if ((routineId != null) && (routineId.getKind() == FUNCTION))
+                {
+                    calls.merge(routineId, 1, Integer::sum);
+                }
+            }
+            else if (tree instanceof TerminalNode)
+            {
+                String text = tree.getText();
+
+                switch (((TerminalNode) tree).getSymbol().getType())
+                {
+                    case SubCParser.STR:  strings.add(text); break;
+                    case SubCParser.REAL: numbers.add(text); break;
+                    case SubCParser.INTEGER:
+                    {
+                        if (text.length() > MAX_SHORT_DIGITS) numbers.add(text);
+                        break;
+                    }
+                    default: break;
+                }
+            }
+
+            for (int i = 0; i < tree.getChildCount(); i++)
+            {
+                scan(tree.getChild(i));
+            }
+        }
+
+        /**
+         * Get the estimated constant pool entries.
+         * @return the count of entries.
+         */
+        private int entries()
+        {
+            return   FUNCTION_ENTRIES + CALL_ENTRIES*calls.size()
+                   + STRING_ENTRIES*strings.size()
+                   + NUMBER_ENTRIES*numbers.size();
+        }
+    }
+
+    /**
+     * Partition the functions of a program into classes
+     * if they don't fit into the program class.
+     * @param ctx the ProgramContext.
+     * @param programName the name of the program class.
+     * @return the partition, or null if the functions fit.
+     */
+    public static ClassPartition create(SubCParser.ProgramContext ctx,
+                                        String programName)
+    {
+        List<SubCParser.FunctionDefinitionContext> functCtxs =
+                                ctx.functionDefinitions().functionDefinition();
+        int count = functCtxs.size();
+        SymtabEntry[] routineIds = new SymtabEntry[count];
+        int[] entries = new int[count];
+        HashMap<SymtabEntry, Integer> indexes = new HashMap<SymtabEntry, Integer>();
+        int total = CLASS_ENTRIES;
+
+        for (int i = 0; i < count; i++)
+        {
+            routineIds[i] = functCtxs.get(i).functionName().entry;
+            indexes.put(routineIds[i], i);
+        }
+
+        // Estimate each function's entries, and count the calls
+        // between each pair of functions.
+        HashMap<Long, Integer> pairCalls = new HashMap<Long, Integer>();
+
+        for (int i = 0; i < count; i++)
+        {
+            Estimate estimate =
+                        new Estimate(functCtxs.get(i).compoundStatement());
+            entries[i] = estimate.entries();
+            total += entries[i];
+
+            for (SymtabEntry calleeId : estimate.calls.keySet())
+            {
+                Integer j = indexes.get(calleeId);
+
+                if (   (j != null) && (j != i)
+                    && (calleeId.getRoutineCode() == DECLARED))
+                {
+                    long pair = (long) Math.min(i, j)*count + Math.max(i, j);
+                    pairCalls.merge(pair, estimate.calls.get(calleeId),
+                                    Integer::sum);
+                }
+            }
+        }
+
+        if ((total <= MAX_CLASS_ENTRIES) && (count <= MAX_CLASS_FUNCTIONS))
+        {
+            return null;
+        }
+
+        return new ClassPartition(programName, routineIds, entries, pairCalls);
+    }
+
+    /**
+     * Constructor.
+     * @param programName the name of the program class.
+     * @param routineIds the functions in source order.
+     * @param entries the estimated constant pool entries of each function.
+     * @param pairCalls the count of calls between each pair of functions,
+     *                  keyed by the pair's indexes.
+     */
+    private ClassPartition(String programName, SymtabEntry[] routineIds,
+                           int[] entries, HashMap<Long, Integer> pairCalls)
+    {
+        int count = routineIds.length;
+        int capacity = MAX_CLASS_ENTRIES - CLASS_ENTRIES;
+
+        // Clusters of functions, each of which starts as one function.
+        int[] parents = new int[count];
+        int[] clusterEntries = entries.clone();
+        int[] clusterSizes = new int[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            parents[i] = i;
+            clusterSizes[i] = 1;
+        }
+
+        // Merge the clusters along the pairs with the most calls first.
+        ArrayList<Long> pairs = new ArrayList<Long>(pairCalls.keySet());
+        pairs.sort((a, b) -> !pairCalls.get(a).equals(pairCalls.get(b))
+                                    ? pairCalls.get(b) - pairCalls.get(a)
+                                    : Long.compare(a, b));
+
+        for (long pair : pairs)
+        {
+            int a = find(parents, (int) (pair/count));
+            int b = find(parents, (int) (pair%count));
+
+            if (   (a != b)
+                && (clusterEntries[a] + clusterEntries[b] <= capacity)
+                && (clusterSizes[a] + clusterSizes[b] <= MAX_CLASS_FUNCTIONS))
+            {
+                // The cluster keeps the index of its first function.
+                int root  = Math.min(a, b);
+                int other = Math.max(a, b);
+
+                parents[other] = root;
+                clusterEntries[root] += clusterEntries[other];
+                clusterSizes[root]   += clusterSizes[other];
+            }
+        }
+
+        // Pack the clusters into classes, the biggest clusters first.
+        ArrayList<Integer> roots = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) if (find(parents, i) == i) roots.add(i);
+
+        roots.sort((a, b) -> clusterEntries[a] != clusterEntries[b]
+                                    ? clusterEntries[b] - clusterEntries[a]
+                                    : a - b);
+
+        ArrayList<int[]> classes = new ArrayList<int[]>();  // entries, size
+        int[] classOfRoot = new int[count];
+
+        for (int root : roots)
+        {
+            int index = 0;
+
+            while (   (index < classes.size())
+                   && (   (classes.get(index)[0] + clusterEntries[root] > capacity)
+                       || (  classes.get(index)[1] + clusterSizes[root]
+                           > MAX_CLASS_FUNCTIONS)))
+            {
+                index++;
+            }
+
+            if (index == classes.size()) classes.add(new int[2]);
+            classes.get(index)[0] += clusterEntries[root];
+            classes.get(index)[1] += clusterSizes[root];
+            classOfRoot[root] = index;
+        }
+
+        // Number the classes in the source order of their first functions.
+        int[] numbers = new int[classes.size()];
+        Arrays.fill(numbers, -1);
+
+        classNames = new LinkedHashMap<SymtabEntry, String>();
+        names = new ArrayList<String>();
+
+        for (int i = 0; i < count; i++)
+        {
+            int index = classOfRoot[find(parents, i)];
+
+            if (numbers[index] < 0)
+            {
+                numbers[index] = names.size();
+                names.add(programName + "$" + (names.size() + 1));
+            }
+
+            classNames.put(routineIds[i], names.get(numbers[index]));
+        }
+    }
+
+    /**
+     * Find the cluster of a function.
+     * @param parents the parent of each function in its cluster.
+     * @param i the function's index.
+     * @return the index of the cluster's root.
+     */
+    private static int find(int[] parents, int i)
+    {
+        while (parents[i] != i)
+        {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+
+        return i;
+    }
+
+    /**
+     * Get the class of a function.
+     * @param routineId the function's symbol table entry.
+     * @return the class name, or null if it's not a declared function.
+     */
+    public String classOf(SymtabEntry routineId)
+    {
+        return classNames.get(routineId);
+    }
+
+    /**
+     * Get the names of the classes of the functions.
+     * @return the names, in the source order of their first functions.
+     */
+    public ArrayList<String> getClassNames() { return names; }
+}
@@ -4,6 +4,7 @@ import java.io.FileWriter;
 import java.io.PrintWriter;
 
 import antlr4.SubCParser;
+import intermediate.ir.IrConstant;
 import intermediate.symtab.*;
 import intermediate.symtab.SymtabEntry.Kind;
 import intermediate.type.*;
@@ -22,8 +23,6 @@ public class CodeGenerator
     protected Compiler compiler;
     
     protected String objectFileName;
-        
-    protected static int count = 0;
     
     /**
      * Constructor.
@@ -42,7 +41,8 @@ public class CodeGenerator
         try 
         {
             objectFileName = programName + "." + suffix;
-            objectFile = new PrintWriter(new FileWriter(objectFileName));
+            objectFile = new PrintWriter(new FileWriter(
+                    compiler.getOptions().outputFile(objectFileName)));
         }
         catch (Exception ex) 
         {
@@ -65,6 +65,20 @@ public class CodeGenerator
         this.localStack     = parent.localStack;
     }
     
+    /**
+     * Constructor for the base generator of a function's code,
+     * which goes into its own buffer instead of the object file.
+     * @param parent the program's base code generator.
+     * @param compiler the function's compiler.
+     * @param objectFile the function's buffer.
+     */
+    public CodeGenerator(CodeGenerator parent, Compiler compiler,
+                         PrintWriter objectFile)
+    {
+        this(parent, compiler);
+        this.objectFile = objectFile;
+    }
+    
     /**
      * Get the name of the object (Jasmin) file.
      * @return the name.
@@ -88,6 +102,12 @@ public class CodeGenerator
      */
     public LocalStack getLocalStack() { return localStack; }
 
+    /**
+     * Create a new label, numbered within the compilation.
+     * @return the label.
+     */
+    public Label newLabel() { return new Label(compiler.nextLabelIndex()); }
+
     // =====================
     // General code emitters
     // =====================
@@ -144,6 +164,7 @@ public class CodeGenerator
     {
         objectFile.println("\t  " + value + ": " + label);
         objectFile.flush();
+        compiler.countCode(8);
     }
 
     /**
@@ -154,6 +175,7 @@ public class CodeGenerator
     {
         objectFile.println("\t  " + value + ": " + label);
         objectFile.flush();
+        compiler.countCode(8);
     }
 
     /**
@@ -164,7 +186,7 @@ public class CodeGenerator
     {
         objectFile.println(directive.toString());
         objectFile.flush();
-        ++count;
+        compiler.countInstruction();
     }
 
     /**
@@ -176,7 +198,7 @@ public class CodeGenerator
     {
         objectFile.println(directive.toString() + " " + operand);
         objectFile.flush();
-        ++count;
+        compiler.countInstruction();
     }
 
     /**
@@ -188,7 +210,7 @@ public class CodeGenerator
     {
         objectFile.println(directive.toString() + " " + operand);
         objectFile.flush();
-        ++count;
+        compiler.countInstruction();
     }
 
     /**
@@ -202,7 +224,7 @@ public class CodeGenerator
         objectFile.println(directive.toString() + " " + operand1 +
                                                     " " + operand2);
         objectFile.flush();
-        ++count;
+        compiler.countInstruction();
     }
 
     /**
@@ -218,7 +240,7 @@ public class CodeGenerator
                                                 + " " + operand2
                                                 + " " + operand3);
         objectFile.flush();
-        ++count;
+        compiler.countInstruction();
     }
 
     /**
@@ -231,7 +253,7 @@ public class CodeGenerator
         objectFile.flush();
         
         localStack.increase(instruction.stackUse);
-        ++count;
+        compiler.countInstruction(instruction.size());
     }
 
     /**
@@ -245,7 +267,7 @@ public class CodeGenerator
         objectFile.flush();
         
         localStack.increase(instruction.stackUse);
-        ++count;
+        compiler.countInstruction(instruction.size());
     }
 
     /**
@@ -259,7 +281,7 @@ public class CodeGenerator
         objectFile.flush();
         
         localStack.increase(instruction.stackUse);
-        ++count;
+        compiler.countInstruction(instruction.size(operand));
     }
 
     /**
@@ -273,7 +295,7 @@ public class CodeGenerator
         objectFile.flush();
         
         localStack.increase(instruction.stackUse);
-        ++count;
+        compiler.countInstruction(instruction.size());
     }
 
     /**
@@ -287,7 +309,7 @@ public class CodeGenerator
         objectFile.flush();
         
         localStack.increase(instruction.stackUse);
-        ++count;
+        compiler.countInstruction(instruction.size());
     }
 
     /**
@@ -303,7 +325,7 @@ public class CodeGenerator
         objectFile.flush();
         
         localStack.increase(instruction.stackUse);
-        ++count;
+        compiler.countInstruction(instruction.size(operand1, operand2));
     }
 
     /**
@@ -319,7 +341,7 @@ public class CodeGenerator
         objectFile.flush();
         
         localStack.increase(instruction.stackUse);
-        ++count;
+        compiler.countInstruction(instruction.size());
     }
 
     // =====
@@ -366,12 +388,78 @@ public class CodeGenerator
     }
 
     /**
-     * Emit a load of a string constant value.
+     * Emit a load of a string constant value. A constant that is too long
+     * for the constant pool is loaded from its field in the program class,
+     * or else it's joined from its chunks.
      * @param value the constant value.
      */
     public void emitLoadConstant(String value)
     {
-        emit(LDC, "\"" + value + "\"");
+        if (!LongStrings.isLong(value))
+        {
+            emit(LDC, "\"" + value + "\"");
+            return;
+        }
+
+        String fieldName = compiler.getLongStrings().fieldOf(value);
+
+        if (fieldName != null)
+        {
+            emit(GETSTATIC, compiler.getProgramName() + "/" + fieldName,
+                 "Ljava/lang/String;");
+        }
+        else
+        {
+            emitJoinChunks(value);
+        }
+    }
+
+    /**
+     * Emit a load of a string constant from its text as is,
+     * such as a format string.
+     * @param quoted the text, with its quotes.
+     */
+    public void emitLoadQuotedConstant(String quoted)
+    {
+        emitLoadConstant(quoted.substring(1, quoted.length() - 1));
+    }
+
+    /**
+     * Emit code to join the chunks of a string constant
+     * that is too long for the constant pool.
+     * @param value the constant value.
+     */
+    public void emitJoinChunks(String value)
+    {
+        emit(NEW, "java/lang/StringBuilder");
+        emit(DUP);
+        emit(INVOKESPECIAL, "java/lang/StringBuilder/<init>()V");
+        localStack.decrease(1);
+
+        for (String chunk : LongStrings.chunks(value))
+        {
+            emit(LDC, "\"" + chunk + "\"");
+            emit(INVOKEVIRTUAL, "java/lang/StringBuilder/append(Ljava/lang/String;)" +
+                                "Ljava/lang/StringBuilder;");
+            localStack.decrease(1);
+        }
+
+        emit(INVOKEVIRTUAL, "java/lang/StringBuilder/toString()" +
+                            "Ljava/lang/String;");
+    }
+
+    /**
+     * Emit a load of a constant of the intermediate representation.
+     * @param constant the constant.
+     */
+    public void emitLoadConstant(IrConstant constant)
+    {
+        Object value = constant.getValue();
+
+        if      (value == null)           emit(ACONST_NULL);
+        else if (value instanceof String) emitLoadConstant((String) value);
+        else if (value instanceof Float)  emitLoadConstant((Float) value);
+        else                              emitLoadConstant(constant.intValue());
     }
 
     /**
@@ -420,7 +508,7 @@ public class CodeGenerator
         // Local variable.
         else 
         {
-            int slot =  variableId.getSlotNumber();
+            int slot = compiler.slotOf(variableId);
             emitLoadLocal(type, slot);
         }
     }
@@ -441,7 +529,8 @@ public class CodeGenerator
         }
 
         if (   (type == Predefined.integerType)
-            || (type == Predefined.charType))
+            || (type == Predefined.charType)
+            || (type == Predefined.booleanType))
         {
             switch (index) 
             {
@@ -506,7 +595,7 @@ public class CodeGenerator
                                                Typespec targetType)
     {
         int nestingLevel = targetId.getSymtab().getNestingLevel();
-        int slot = targetId.getSlotNumber();
+        int slot = compiler.slotOf(targetId);
         
         // Program variable.
         if (nestingLevel == 1) 
@@ -542,7 +631,8 @@ public class CodeGenerator
         }
 
         if (   (type == Predefined.integerType)
-            || (type == Predefined.charType))
+            || (type == Predefined.charType)
+            || (type == Predefined.booleanType))
         {
             switch (slot) 
             {
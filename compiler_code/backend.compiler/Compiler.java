@@ -1,8 +1,18 @@
 package backend.compiler;
 
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
 import antlr4.*;
+import intermediate.ir.IrInterpreter;
 import intermediate.symtab.*;
 import intermediate.symtab.Predefined;
+import intermediate.util.CompileTimings;
+import intermediate.util.CompilerOptions;
+
+import static intermediate.symtab.SymtabEntry.Routine.*;
 
 /**
  * Compile Pascal to Jasmin assembly language.
@@ -11,34 +21,105 @@ public class Compiler extends SubCBaseVisitor<Object>
 {
     private SymtabEntry programId;  // symbol table entry of the program name
     private String programName;     // the program name
+    private String className;       // the class of the code being compiled
+    private ClassPartition partition;  // classes of the functions, or null
+    private LongStrings longStrings;   // string constants kept in fields
+    private CompilerOptions options; // code generation options
+    private CompileTimings timings;  // pass timings and counts
+    private PrintStream out;         // the stream for warnings
     
     private CodeGenerator       code;            // base code generator
     private ProgramGenerator    programCode;     // program code generator
     private StatementGenerator  statementCode;   // statement code generator
     private ExpressionGenerator expressionCode;  // expression code generator
     
+    private int labelCount;        // labels created so far
+    private int instructionCount;  // instructions emitted so far
+    private int codeSize;          // bytecode bytes emitted so far
+
+    // Bytecode bytes of each statement emitted, and the splitter
+    // of the method being emitted if it's too big, else null.
+    private IdentityHashMap<SubCParser.StatementContext, Integer> statementSizes;
+    private IdentityHashMap<SubCParser.StatementContext, Integer> splitSizes;
+    private MethodSplitter splitter;
+    
     /**
      * Constructor for the base compiler.
      * @param programId the symtab entry for the program name.
      */
     public Compiler(SymtabEntry programId)
+    {
+        this(programId, new CompilerOptions());
+    }
+
+    /**
+     * Constructor for the base compiler.
+     * @param programId the symtab entry for the program name.
+     * @param options the code generation options.
+     */
+    public Compiler(SymtabEntry programId, CompilerOptions options)
+    {
+        this(programId, options, new CompileTimings(false));
+    }
+
+    /**
+     * Constructor for the base compiler.
+     * @param programId the symtab entry for the program name.
+     * @param options the code generation options.
+     * @param timings the timings to add the functions' work to.
+     */
+    public Compiler(SymtabEntry programId, CompilerOptions options,
+                    CompileTimings timings)
+    {
+        this(programId, options, timings, System.out);
+    }
+
+    /**
+     * Constructor for the base compiler.
+     * @param programId the symtab entry for the program name.
+     * @param options the code generation options.
+     * @param timings the timings to add the functions' work to.
+     * @param out the stream for warnings.
+     */
+    public Compiler(SymtabEntry programId, CompilerOptions options,
+                    CompileTimings timings, PrintStream out)
     {
         this.programId = programId;        
+        this.options   = options;
+        this.timings   = timings;
+        this.out       = out;
         programName = programId.getName();
+        className   = programName;
+        longStrings = new LongStrings();
         
         code = new CodeGenerator(programName, "j", this);
+        statementSizes = new IdentityHashMap<>();
     }
     
     /**
-     * Constructor for child compilers of procedures and functions.
+     * Constructor for child compilers of functions. Each has its own
+     * generators, label numbers, and buffer for the function's code,
+     * so functions can be compiled in parallel. They share the
+     * program's analysis of its functions.
      * @param parent the parent compiler.
+     * @param objectFile the buffer for the function's code.
      */
-    public Compiler(Compiler parent)
+    public Compiler(Compiler parent, PrintWriter objectFile)
     {
-        this.code        = parent.code;
-        this.programCode = parent.programCode;
         this.programId   = parent.programId;
         this.programName = parent.programName;
+        this.className   = parent.className;
+        this.partition   = parent.partition;
+        this.longStrings = parent.longStrings;
+        this.options     = parent.options;
+        this.timings     = parent.timings;
+        this.out         = parent.out;
+        this.splitSizes  = parent.splitSizes;
+        this.code        = new CodeGenerator(parent.code, this, objectFile);
+
+        createNewGenerators(code);
+        programCode.shareAnalysis(parent.programCode);
+        statementSizes = new IdentityHashMap<>();
     }
     
     
@@ -59,6 +140,281 @@ public class Compiler extends SubCBaseVisitor<Object>
      */
     public String getObjectFileName() { return code.getObjectFileName(); }
 
+    /**
+     * Get the names of all the object files: the program class's,
+     * followed by those of the classes of the functions, if any.
+     * @return the names.
+     */
+    public ArrayList<String> getObjectFileNames()
+    {
+        ArrayList<String> names = new ArrayList<String>();
+        names.add(getObjectFileName());
+
+        if (partition != null)
+        {
+            for (String name : partition.getClassNames()) names.add(name + ".j");
+        }
+
+        return names;
+    }
+
+    /**
+     * Set the partition of the functions into classes.
+     * @param partition the partition, or null if the program is one class.
+     */
+    void setPartition(ClassPartition partition) { this.partition = partition; }
+
+    /**
+     * Get the partition of the functions into classes.
+     * @return the partition, or null if the program is one class.
+     */
+    ClassPartition getPartition() { return partition; }
+
+    /**
+     * Get the name of the class of the code being compiled.
+     * @return the name.
+     */
+    public String getClassName() { return className; }
+
+    /**
+     * Set the name of the class of the code being compiled.
+     * @param className the name.
+     */
+    void setClassName(String className) { this.className = className; }
+
+    /**
+     * Get the name of the class of a routine's method. The input routines
+     * are in the program class, and a declared routine is in its class
+     * of the partition, or else in the class being compiled.
+     * @param routineId the routine's symbol table entry.
+     * @return the class name.
+     */
+    public String ownerOf(SymtabEntry routineId)
+    {
+        String owner = (partition != null) ? partition.classOf(routineId) : null;
+
+        if (owner != null) return owner;
+        return routineId.getRoutineCode() == DECLARED ? className : programName;
+    }
+
+    /**
+     * Get the directive of a method that code in other classes can call.
+     * It has package access if the functions are in several classes.
+     * @return the directive.
+     */
+    Directive sharedMethodDirective()
+    {
+        return partition != null ? Directive.METHOD_STATIC
+                                 : Directive.METHOD_PRIVATE_STATIC;
+    }
+
+    /**
+     * Get the directive of a field that code in other classes can access.
+     * It has package access if the functions are in several classes.
+     * @return the directive.
+     */
+    Directive sharedFieldDirective()
+    {
+        return partition != null ? Directive.FIELD_STATIC
+                                 : Directive.FIELD_PRIVATE_STATIC;
+    }
+
+    /**
+     * Get the directive of a final field that code in other classes
+     * can load. It has package access if the functions are in several
+     * classes.
+     * @return the directive.
+     */
+    Directive sharedConstantDirective()
+    {
+        return partition != null ? Directive.FIELD_STATIC_FINAL
+                                 : Directive.FIELD_PRIVATE_STATIC_FINAL;
+    }
+
+    /**
+     * Get the string constants that are too long for the constant pool
+     * and are kept in fields of the program class.
+     * @return the string constants.
+     */
+    LongStrings getLongStrings() { return longStrings; }
+
+    /**
+     * Get the index of the next label of this compilation.
+     * @return the index.
+     */
+    public int nextLabelIndex() { return ++labelCount; }
+
+    /**
+     * Continue the label numbers of another compiler, so that the code
+     * emitted into this compiler's buffer reads as if emitted by the other.
+     * @param other the other compiler.
+     */
+    public void continueLabels(Compiler other) { labelCount = other.labelCount; }
+
+    /**
+     * Count an emitted directive.
+     */
+    public void countInstruction() { ++instructionCount; }
+
+    /**
+     * Count an emitted instruction.
+     * @param size the instruction's size in bytes.
+     */
+    public void countInstruction(int size)
+    {
+        ++instructionCount;
+        codeSize += size;
+    }
+
+    /**
+     * Count emitted bytecode that is not an instruction of its own,
+     * such as a switch table entry.
+     * @param size the size in bytes.
+     */
+    public void countCode(int size) { codeSize += size; }
+
+    /**
+     * Get the size of the bytecode emitted so far.
+     * @return the size in bytes.
+     */
+    public int getCodeSize() { return codeSize; }
+
+    /**
+     * Add the instructions emitted by a child compiler.
+     * @param count the count of instructions.
+     */
+    public synchronized void addInstructionCount(int count)
+    {
+        instructionCount += count;
+    }
+
+    /**
+     * Emit the code of a function.
+     * @param ctx the FunctionDefinitionContext.
+     */
+    public void emitFunction(SubCParser.FunctionDefinitionContext ctx)
+    {
+        programCode.emitFunction(ctx);
+    }
+
+    /**
+     * Emit the code of the main method.
+     * @param ctx the ProgramContext.
+     */
+    public void emitMain(SubCParser.ProgramContext ctx)
+    {
+        programCode.emitMainMethod(ctx);
+    }
+
+    /**
+     * Emit the code of a helper method split from a method that is too big.
+     * @param parent the splitter of the method.
+     * @param region the statements of the helper method.
+     */
+    void emitHelper(MethodSplitter parent, MethodSplitter.Region region)
+    {
+        splitter = new MethodSplitter(programCode, this, parent);
+        splitter.emitHelperMethod(region);
+    }
+
+    /**
+     * Split the methods of this compilation that are too big for the JVM
+     * to compile, with the sizes of the statements measured by the
+     * same compilation without splitting.
+     * @param trial the compiler of the compilation without splitting.
+     */
+    public void splitMethods(Compiler trial)
+    {
+        splitSizes = trial.statementSizes;
+    }
+
+    /**
+     * Return whether or not methods that are too big are split.
+     * @return true if they are, else false.
+     */
+    public boolean isSplittingMethods() { return splitSizes != null; }
+
+    /**
+     * Get the size of the code of a statement measured without splitting.
+     * @param ctx the StatementContext.
+     * @return the size in bytes.
+     */
+    int statementSize(SubCParser.StatementContext ctx)
+    {
+        Integer size = splitSizes.get(ctx);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * Set the splitter of the method being emitted.
+     * @param splitter the splitter, or null if none.
+     */
+    void setSplitter(MethodSplitter splitter) { this.splitter = splitter; }
+
+    /**
+     * Get the local variables array slot of a variable in the method
+     * being emitted, which differs from the symbol table's in a helper
+     * method split from the variable's function.
+     * @param variableId the variable's symbol table entry.
+     * @return the slot number.
+     */
+    public int slotOf(SymtabEntry variableId)
+    {
+        return splitter != null ? splitter.slotOf(variableId)
+                                : variableId.getSlotNumber();
+    }
+
+    /**
+     * Get the count of instructions emitted so far.
+     * @return the count.
+     */
+    public int getInstructionCount() { return instructionCount; }
+
+    /**
+     * Get the code generation options.
+     * @return the options.
+     */
+    public CompilerOptions getOptions() { return options; }
+
+    /**
+     * Get the stream for warnings.
+     * @return the stream.
+     */
+    public PrintStream getOut() { return out; }
+
+    /**
+     * Get the pass timings and counts.
+     * @return the timings.
+     */
+    public CompileTimings getTimings() { return timings; }
+
+    /**
+     * Return whether or not code is generated from the SSA intermediate form.
+     * @return true if optimizing, else false.
+     */
+    public boolean isOptimizing() { return options.isOptimizing(); }
+
+    /**
+     * Get the interpreter that evaluates pure function calls at compile time.
+     * @return the interpreter, or null if compile-time evaluation is off.
+     */
+    public IrInterpreter getInterpreter()
+    {
+        return programCode != null ? programCode.getInterpreter() : null;
+    }
+
+
+    /**
+     * Emit code that jumps to a label if a condition has a given value.
+     * @param ctx the ExpressionContext of the condition.
+     * @param target the label to jump to.
+     * @param jumpIf the value of the condition that jumps.
+     */
+    public void emitBranch(SubCParser.ExpressionContext ctx, Label target,
+                           boolean jumpIf)
+    {
+        expressionCode.emitBranch(ctx, target, jumpIf);
+    }
 
     @Override
     public Object visitProgram(SubCParser.ProgramContext ctx)
@@ -80,12 +436,43 @@ public class Compiler extends SubCBaseVisitor<Object>
     @Override 
     public Object visitStatement(SubCParser.StatementContext ctx) 
     {
+        int start = codeSize;
+
         if (   (ctx.compoundStatement() == null) )
         {
             statementCode.emitComment(ctx);
         }
         
-        return visitChildren(ctx);
+        visitChildren(ctx);
+        statementSizes.put(ctx, codeSize - start);
+
+        return null;
+    }
+
+    @Override 
+    public Object visitStatementList(SubCParser.StatementListContext ctx) 
+    {
+        if (splitter != null) splitter.emitStatements(ctx.statement(), false);
+        else                  visitChildren(ctx);
+
+        return null;
+    }
+
+    @Override 
+    public Object visitCaseCompound(SubCParser.CaseCompoundContext ctx) 
+    {
+        if (splitter != null) splitter.emitStatements(ctx.statement(), false);
+        else                  visitChildren(ctx);
+
+        return null;
+    }
+
+    @Override 
+    public Object visitDeclarationStatement(
+                                    SubCParser.DeclarationStatementContext ctx) 
+    {
+        statementCode.emitDeclaration(ctx);
+        return null;
     }
 
     @Override 
@@ -14,7 +14,10 @@ public enum Directive
     END_CLASS(".end class"),
     SUPER(".super"),
     FIELD(".field"),
+    FIELD_STATIC(".field static"),
     FIELD_PRIVATE_STATIC(".field private static"),
+    FIELD_STATIC_FINAL(".field static final"),
+    FIELD_PRIVATE_STATIC_FINAL(".field private static final"),
     METHOD_PUBLIC(".method public"),
     METHOD_STATIC(".method static"),
     METHOD_PUBLIC_STATIC(".method public static"),
@@ -1,10 +1,15 @@
 package backend.compiler;
 
+import java.util.List;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+
 import antlr4.SubCParser;
 
 import intermediate.symtab.*;
 import intermediate.type.*;
 import intermediate.type.Typespec.Form;
+import intermediate.util.Operator;
 
 import static intermediate.type.Typespec.Form.*;
 import static backend.compiler.Instruction.*;
@@ -34,91 +39,107 @@ public class ExpressionGenerator extends CodeGenerator
      */
     public void emitExpression(SubCParser.ExpressionContext ctx)
     {
-        SubCParser.SimpleExpressionContext simpleCtx1 = 
-                                                ctx.simpleExpression().get(0);
         SubCParser.RelOpContext relOpCtx = ctx.relOp();
-        Typespec type1 = simpleCtx1.type;
-        emitSimpleExpression(simpleCtx1);
-        
-        // More than one simple expression?
-        if (relOpCtx != null)
+
+        // Only one simple expression?
+        if (relOpCtx == null)
         {
-            String op = relOpCtx.getText();
-            SubCParser.SimpleExpressionContext simpleCtx2 = 
-                                                ctx.simpleExpression().get(1);
-            Typespec type2 = simpleCtx2.type;
+            emitSimpleExpression(ctx.simpleExpression().get(0));
+            return;
+        }
 
-            boolean integerMode   = false;
-            boolean realMode      = false;
-            boolean characterMode = false;
+        Label trueLabel = newLabel();
+        Label exitLabel = newLabel();
 
-            if (   (type1 == Predefined.integerType)
-                && (type2 == Predefined.integerType)) 
-            {
-                integerMode = true;
-            }
-            else if (   (type1 == Predefined.realType) 
-                     || (type2 == Predefined.realType))
-            {
-                realMode = true;
-            }
-            else if (   (type1 == Predefined.charType) 
-                     && (type2 == Predefined.charType))
-            {
-                characterMode = true;
-            }
+        emitComparison(ctx, relOpCtx.op, trueLabel);
 
-            Label trueLabel = new Label();
-            Label exitLabel = new Label();
+        emit(ICONST_0); // false
+        emit(GOTO, exitLabel);
+        emitLabel(trueLabel);
+        emit(ICONST_1); // true
+        emitLabel(exitLabel);
 
-            if (integerMode || characterMode) 
-            {
-                emitSimpleExpression(simpleCtx2);
-                
-                if      (op.equals("==" )) emit(IF_ICMPEQ, trueLabel);
-                else if (op.equals("!=")) emit(IF_ICMPNE, trueLabel);
-                else if (op.equals("<" )) emit(IF_ICMPLT, trueLabel);
-                else if (op.equals("<=")) emit(IF_ICMPLE, trueLabel);
-                else if (op.equals(">" )) emit(IF_ICMPGT, trueLabel);
-                else if (op.equals(">=")) emit(IF_ICMPGE, trueLabel);
-            }
-            else if (realMode)
-            {
-                if (type1 == Predefined.integerType) emit(I2F);
-                emitSimpleExpression(simpleCtx2);
-                if (type2 == Predefined.integerType) emit(I2F);
-                
-                emit(FCMPG);
+        localStack.decrease(1);  // only one branch will be taken
+    }
 
-                if      (op.equals("==" )) emit(IFEQ, trueLabel);
-                else if (op.equals("!=")) emit(IFNE, trueLabel);
-                else if (op.equals("<" )) emit(IFLT, trueLabel);
-                else if (op.equals("<=")) emit(IFLE, trueLabel);
-                else if (op.equals(">" )) emit(IFGT, trueLabel);
-                else if (op.equals(">=")) emit(IFGE, trueLabel);
-            }
-            else  // stringMode
-            {
-                emitSimpleExpression(simpleCtx2);
-                emit(INVOKEVIRTUAL,
-                     "java/lang/String.compareTo(Ljava/lang/String;)I");
-                localStack.decrease(1);
-                
-                if      (op.equals("==" )) emit(IFEQ, trueLabel);
-                else if (op.equals("!=")) emit(IFNE, trueLabel);
-                else if (op.equals("<" )) emit(IFLT, trueLabel);
-                else if (op.equals("<=")) emit(IFLE, trueLabel);
-                else if (op.equals(">" )) emit(IFGT, trueLabel);
-                else if (op.equals(">=")) emit(IFGE, trueLabel);
-            }
+    /**
+     * Emit code that compares the two simple expressions of an
+     * expression and jumps to a label if they have a relation.
+     * @param ctx the ExpressionContext.
+     * @param op the relational operator.
+     * @param target the label to jump to.
+     */
+    private void emitComparison(SubCParser.ExpressionContext ctx, Operator op,
+                                Label target)
+    {
+        SubCParser.SimpleExpressionContext simpleCtx1 = 
+                                                ctx.simpleExpression().get(0);
+        SubCParser.SimpleExpressionContext simpleCtx2 = 
+                                                ctx.simpleExpression().get(1);
+        Typespec type1 = simpleCtx1.type;
+        Typespec type2 = simpleCtx2.type;
 
-            emit(ICONST_0); // false
-            emit(GOTO, exitLabel);
-            emitLabel(trueLabel);
-            emit(ICONST_1); // true
-            emitLabel(exitLabel);
+        boolean integerMode   = false;
+        boolean realMode      = false;
+        boolean characterMode = false;
+
+        if (   (type1 == Predefined.integerType)
+            && (type2 == Predefined.integerType)) 
+        {
+            integerMode = true;
+        }
+        else if (   (type1 == Predefined.realType) 
+                 || (type2 == Predefined.realType))
+        {
+            realMode = true;
+        }
+        else if (   (type1 == Predefined.charType) 
+                 && (type2 == Predefined.charType))
+        {
+            characterMode = true;
+        }
+
+        emitSimpleExpression(simpleCtx1);
+
+        if (integerMode || characterMode) 
+        {
+            emitSimpleExpression(simpleCtx2);
             
-            localStack.decrease(1);  // only one branch will be taken
+            if      (op == Operator.EQ) emit(IF_ICMPEQ, target);
+            else if (op == Operator.NE) emit(IF_ICMPNE, target);
+            else if (op == Operator.LT) emit(IF_ICMPLT, target);
+            else if (op == Operator.LE) emit(IF_ICMPLE, target);
+            else if (op == Operator.GT) emit(IF_ICMPGT, target);
+            else if (op == Operator.GE) emit(IF_ICMPGE, target);
+        }
+        else if (realMode)
+        {
+            if (type1 == Predefined.integerType) emit(I2F);
+            emitSimpleExpression(simpleCtx2);
+            if (type2 == Predefined.integerType) emit(I2F);
+            
+            emit(FCMPG);
+
+            if      (op == Operator.EQ) emit(IFEQ, target);
+            else if (op == Operator.NE) emit(IFNE, target);
+            else if (op == Operator.LT) emit(IFLT, target);
+            else if (op == Operator.LE) emit(IFLE, target);
+            else if (op == Operator.GT) emit(IFGT, target);
+            else if (op == Operator.GE) emit(IFGE, target);
+        }
+        else  // stringMode
+        {
+            emitSimpleExpression(simpleCtx2);
+            emit(INVOKEVIRTUAL,
+                 "java/lang/String.compareTo(Ljava/lang/String;)I");
+            localStack.decrease(1);
+            
+            if      (op == Operator.EQ) emit(IFEQ, target);
+            else if (op == Operator.NE) emit(IFNE, target);
+            else if (op == Operator.LT) emit(IFLT, target);
+            else if (op == Operator.LE) emit(IFLE, target);
+            else if (op == Operator.GT) emit(IFGT, target);
+            else if (op == Operator.GE) emit(IFGE, target);
         }
     }
     
@@ -134,7 +155,7 @@ public class ExpressionGenerator extends CodeGenerator
         // More than one simple expression?
         if (relOpCtx != null)
         {
-            String op = relOpCtx.getText();
+            Operator op = relOpCtx.op;
             SubCParser.SimpleExpressionContext simpleCtx2 = 
                                                 ctx.simpleExpression().get(1);
             Typespec type2 = simpleCtx2.type;
@@ -159,19 +180,19 @@ public class ExpressionGenerator extends CodeGenerator
                 characterMode = true;
             }
 
-            Label trueLabel = new Label();
-            Label exitLabel = new Label();
+            Label trueLabel = newLabel();
+            Label exitLabel = newLabel();
 
             if (integerMode || characterMode) 
             {
                 emitSimpleExpression(simpleCtx2);
                 
-                if      (op.equals("==" )) emit(IF_ICMPEQ, trueLabel);
-                else if (op.equals("!=")) emit(IF_ICMPNE, trueLabel);
-                else if (op.equals("<" )) emit(IF_ICMPLT, trueLabel);
-                else if (op.equals("<=")) emit(IF_ICMPLE, trueLabel);
-                else if (op.equals(">" )) emit(IF_ICMPGT, trueLabel);
-                else if (op.equals(">=")) emit(IF_ICMPGE, trueLabel);
+                if      (op == Operator.EQ) emit(IF_ICMPEQ, trueLabel);
+                else if (op == Operator.NE) emit(IF_ICMPNE, trueLabel);
+                else if (op == Operator.LT) emit(IF_ICMPLT, trueLabel);
+                else if (op == Operator.LE) emit(IF_ICMPLE, trueLabel);
+                else if (op == Operator.GT) emit(IF_ICMPGT, trueLabel);
+                else if (op == Operator.GE) emit(IF_ICMPGE, trueLabel);
             }
             else if (realMode)
             {
@@ -181,12 +202,12 @@ public class ExpressionGenerator extends CodeGenerator
                 
                 emit(FCMPG);
 
-                if      (op.equals("==" )) emit(IFEQ, trueLabel);
-                else if (op.equals("!=")) emit(IFNE, trueLabel);
-                else if (op.equals("<" )) emit(IFLT, trueLabel);
-                else if (op.equals("<=")) emit(IFLE, trueLabel);
-                else if (op.equals(">" )) emit(IFGT, trueLabel);
-                else if (op.equals(">=")) emit(IFGE, trueLabel);
+                if      (op == Operator.EQ) emit(IFEQ, trueLabel);
+                else if (op == Operator.NE) emit(IFNE, trueLabel);
+                else if (op == Operator.LT) emit(IFLT, trueLabel);
+                else if (op == Operator.LE) emit(IFLE, trueLabel);
+                else if (op == Operator.GT) emit(IFGT, trueLabel);
+                else if (op == Operator.GE) emit(IFGE, trueLabel);
             }
             else  // stringMode
             {
@@ -195,12 +216,12 @@ public class ExpressionGenerator extends CodeGenerator
                      "java/lang/String.compareTo(Ljava/lang/String;)I");
                 localStack.decrease(1);
                 
-                if      (op.equals("==" )) emit(IFEQ, trueLabel);
-                else if (op.equals("!=")) emit(IFNE, trueLabel);
-                else if (op.equals("<" )) emit(IFLT, trueLabel);
-                else if (op.equals("<=")) emit(IFLE, trueLabel);
-                else if (op.equals(">" )) emit(IFGT, trueLabel);
-                else if (op.equals(">=")) emit(IFGE, trueLabel);
+                if      (op == Operator.EQ) emit(IFEQ, trueLabel);
+                else if (op == Operator.NE) emit(IFNE, trueLabel);
+                else if (op == Operator.LT) emit(IFLT, trueLabel);
+                else if (op == Operator.LE) emit(IFLE, trueLabel);
+                else if (op == Operator.GT) emit(IFGT, trueLabel);
+                else if (op == Operator.GE) emit(IFGE, trueLabel);
             }
 
             emit(ICONST_0); // false
@@ -220,6 +241,12 @@ public class ExpressionGenerator extends CodeGenerator
      */
     public void emitSimpleExpression(SubCParser.SimpleExpressionContext ctx)
     {
+        if (isDisjunction(ctx))
+        {
+            emitShortCircuit(ctx.term(), IFNE);
+            return;
+        }
+
         int count = ctx.term().size();
         Boolean negate =    (ctx.sign() != null) 
                          && ctx.sign().getText().equals("-");
@@ -234,7 +261,7 @@ public class ExpressionGenerator extends CodeGenerator
         // Loop over the subsequent terms.
         for (int i = 1; i < count; i++)
         {
-            String op = ctx.addOp().get(i-1).getText().toLowerCase();
+            Operator op = ctx.addOp().get(i-1).op;
             SubCParser.TermContext termCtx2 = ctx.term().get(i);
             Typespec type2 = termCtx2.type;
 
@@ -256,7 +283,7 @@ public class ExpressionGenerator extends CodeGenerator
             {
                 emitTerm(termCtx2);
                 
-                if (op.equals("+")) emit(IADD);
+                if (op == Operator.ADD) emit(IADD);
                 else                emit(ISUB);
             }
             else if (realMode)
@@ -265,7 +292,7 @@ public class ExpressionGenerator extends CodeGenerator
                 emitTerm(termCtx2);
                 if (type2 == Predefined.integerType) emit(I2F);
                 
-                if (op.equals("+")) emit(FADD);
+                if (op == Operator.ADD) emit(FADD);
                 else                emit(FSUB);
             }
             else  // stringMode
@@ -296,6 +323,12 @@ public class ExpressionGenerator extends CodeGenerator
      */
     public void emitTerm(SubCParser.TermContext ctx)
     {
+        if (isConjunction(ctx))
+        {
+            emitShortCircuit(ctx.factor(), IFEQ);
+            return;
+        }
+
         int count = ctx.factor().size();
         
         // First factor.
@@ -306,7 +339,7 @@ public class ExpressionGenerator extends CodeGenerator
         // Loop over the subsequent factors.
         for (int i = 1; i < count; i++)
         {
-            String op = ctx.mulOp().get(i-1).getText().toLowerCase();
+            Operator op = ctx.mulOp().get(i-1).op;
             SubCParser.FactorContext factorCtx2 = ctx.factor().get(i);
             Typespec type2 = factorCtx2.type;
 
@@ -328,10 +361,9 @@ public class ExpressionGenerator extends CodeGenerator
             {
                 compiler.visit(factorCtx2);            
 
-                if      (op.equals("*"))   emit(IMUL);
-                else if (op.equals("/"))   emit(FDIV);
-                else if (op.equals("div")) emit(IDIV);
-                else if (op.equals("mod")) emit(IREM);
+                if      (op == Operator.MUL) emit(IMUL);
+                else if (op == Operator.DIV) emit(FDIV);
+                else if (op == Operator.MOD) emit(IREM);
             }
             else if (realMode)
             {
@@ -339,8 +371,8 @@ public class ExpressionGenerator extends CodeGenerator
                 compiler.visit(factorCtx2); 
                 if (type2 == Predefined.integerType) emit(I2F);
                 
-                if      (op.equals("*")) emit(FMUL);
-                else if (op.equals("/")) emit(FDIV);
+                if      (op == Operator.MUL) emit(FMUL);
+                else if (op == Operator.DIV) emit(FDIV);
             }
             else  // booleanMode
             {
@@ -350,6 +382,226 @@ public class ExpressionGenerator extends CodeGenerator
         }
     }
     
+    /**
+     * Emit code for the value of a chain of && or ||. The value of
+     * each operand but the last is left on the stack as the result
+     * if it decides the chain, else it's popped and the next operand
+     * is evaluated.
+     * @param operands the operand contexts.
+     * @param decides IFEQ for &&, IFNE for ||.
+     */
+    private void emitShortCircuit(List<? extends ParserRuleContext> operands,
+                                  Instruction decides)
+    {
+        Label exitLabel = newLabel();
+
+        compiler.visit(operands.get(0));
+
+        for (int i = 1; i < operands.size(); i++)
+        {
+            emit(DUP);
+            emit(decides, exitLabel);
+            emit(POP);
+            compiler.visit(operands.get(i));
+        }
+
+        emitLabel(exitLabel);
+    }
+
+    /**
+     * Emit code that jumps to a label if a condition has a given value,
+     * else falls through. The operands of && and || jump directly,
+     * so the right operand is skipped when the left one already
+     * decides the result.
+     * @param ctx the ExpressionContext of the condition.
+     * @param target the label to jump to.
+     * @param jumpIf the value of the condition that jumps.
+     */
+    public void emitBranch(SubCParser.ExpressionContext ctx, Label target,
+                           boolean jumpIf)
+    {
+        if (ctx.relOp() == null)
+        {
+            emitBranch(ctx.simpleExpression().get(0), target, jumpIf);
+        }
+        else
+        {
+            // Compare and branch directly, with the negated operator
+            // to jump when the relation is false. Each comparison
+            // tests a single result, so the negation is exact.
+            Operator op = ctx.relOp().op;
+            emitComparison(ctx, jumpIf ? op : op.negate(), target);
+        }
+    }
+
+    /**
+     * Emit code that jumps to a label if a simple expression
+     * has a given value.
+     * @param ctx the SimpleExpressionContext.
+     * @param target the label to jump to.
+     * @param jumpIf the value of the condition that jumps.
+     */
+    private void emitBranch(SubCParser.SimpleExpressionContext ctx,
+                            Label target, boolean jumpIf)
+    {
+        if (isDisjunction(ctx))
+        {
+            emitChainBranch(ctx.term(), true, target, jumpIf);
+        }
+        else if ((ctx.sign() == null) && (ctx.term().size() == 1))
+        {
+            emitBranch(ctx.term().get(0), target, jumpIf);
+        }
+        else
+        {
+            emitSimpleExpression(ctx);
+            emit(jumpIf ? IFNE : IFEQ, target);
+        }
+    }
+
+    /**
+     * Emit code that jumps to a label if a term has a given value.
+     * @param ctx the TermContext.
+     * @param target the label to jump to.
+     * @param jumpIf the value of the condition that jumps.
+     */
+    private void emitBranch(SubCParser.TermContext ctx, Label target,
+                            boolean jumpIf)
+    {
+        if (isConjunction(ctx))
+        {
+            emitChainBranch(ctx.factor(), false, target, jumpIf);
+        }
+        else if (ctx.factor().size() == 1)
+        {
+            emitBranch(ctx.factor().get(0), target, jumpIf);
+        }
+        else
+        {
+            emitTerm(ctx);
+            emit(jumpIf ? IFNE : IFEQ, target);
+        }
+    }
+
+    /**
+     * Emit code that jumps to a label if a factor has a given value.
+     * @param ctx the FactorContext.
+     * @param target the label to jump to.
+     * @param jumpIf the value of the condition that jumps.
+     */
+    private void emitBranch(SubCParser.FactorContext ctx, Label target,
+                            boolean jumpIf)
+    {
+        if (ctx instanceof SubCParser.ParenthesizedFactorContext)
+        {
+            emitBranch(((SubCParser.ParenthesizedFactorContext) ctx).expression(),
+                       target, jumpIf);
+        }
+        else if (ctx instanceof SubCParser.NotFactorContext)
+        {
+            emitBranch(((SubCParser.NotFactorContext) ctx).factor(),
+                       target, !jumpIf);
+        }
+        else
+        {
+            compiler.visit(ctx);
+            emit(jumpIf ? IFNE : IFEQ, target);
+        }
+    }
+
+    /**
+     * Emit code that jumps to a label if a chain of && or ||
+     * has a given value.
+     * @param operands the operand contexts.
+     * @param or true for ||, false for &&.
+     * @param target the label to jump to.
+     * @param jumpIf the value of the condition that jumps.
+     */
+    private void emitChainBranch(List<? extends ParserRuleContext> operands,
+                                 boolean or, Label target, boolean jumpIf)
+    {
+        int count = operands.size();
+
+        // Every operand jumps to the target when it alone decides
+        // the chain's value to be jumpIf.
+        if (or == jumpIf)
+        {
+            for (ParserRuleContext operand : operands)
+            {
+                emitOperandBranch(operand, target, jumpIf);
+            }
+        }
+
+        // Else each operand but the last skips the rest when it
+        // decides the other value, and the last one decides.
+        else
+        {
+            Label skipLabel = newLabel();
+
+            for (int i = 0; i < count - 1; i++)
+            {
+                emitOperandBranch(operands.get(i), skipLabel, or);
+            }
+
+            emitOperandBranch(operands.get(count - 1), target, jumpIf);
+            emitLabel(skipLabel);
+        }
+    }
+
+    /**
+     * Emit code that jumps to a label if an operand of a chain
+     * has a given value.
+     * @param operand the TermContext or FactorContext.
+     * @param target the label to jump to.
+     * @param jumpIf the value of the condition that jumps.
+     */
+    private void emitOperandBranch(ParserRuleContext operand, Label target,
+                                   boolean jumpIf)
+    {
+        if (operand instanceof SubCParser.TermContext)
+        {
+            emitBranch((SubCParser.TermContext) operand, target, jumpIf);
+        }
+        else
+        {
+            emitBranch((SubCParser.FactorContext) operand, target, jumpIf);
+        }
+    }
+
+    /**
+     * Return whether or not a simple expression is a chain of ||.
+     * @param ctx the SimpleExpressionContext.
+     * @return true if it is.
+     */
+    private boolean isDisjunction(SubCParser.SimpleExpressionContext ctx)
+    {
+        if ((ctx.sign() != null) || ctx.addOp().isEmpty()) return false;
+
+        for (SubCParser.AddOpContext opCtx : ctx.addOp())
+        {
+            if (opCtx.op != Operator.OR) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Return whether or not a term is a chain of &&.
+     * @param ctx the TermContext.
+     * @return true if it is.
+     */
+    private boolean isConjunction(SubCParser.TermContext ctx)
+    {
+        if (ctx.mulOp().isEmpty()) return false;
+
+        for (SubCParser.MulOpContext opCtx : ctx.mulOp())
+        {
+            if (opCtx.op != Operator.AND) return false;
+        }
+
+        return true;
+    }
+
     /**
      * Emit code for NOT.
      * @param ctx the NotFactorContext.
@@ -450,8 +702,7 @@ public class ExpressionGenerator extends CodeGenerator
      */
     public void emitLoadIntegerConstant(SubCParser.NumberContext intCtx)
     {
-        int value = Integer.parseInt(intCtx.getText());
-        emitLoadConstant(value);
+        emitLoadConstant(intCtx.intValue);
     }
     
     /**
@@ -460,7 +711,6 @@ public class ExpressionGenerator extends CodeGenerator
      */
     public void emitLoadRealConstant(SubCParser.NumberContext realCtx)
     {
-        float value = Float.parseFloat(realCtx.getText());
-        emitLoadConstant(value);
+        emitLoadConstant(realCtx.realValue);
     }
 }
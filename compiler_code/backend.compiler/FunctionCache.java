@@ -0,0 +1,356 @@
+package backend.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import antlr4.SubCParser;
+import intermediate.symtab.SymtabEntry;
+import intermediate.util.CompilerOptions;
+
+import static intermediate.symtab.SymtabEntry.Kind.*;
+import static intermediate.symtab.SymtabEntry.Routine.*;
+
+/**
+ * <h1>FunctionCache</h1>
+ *
+ * <p>The emitted code of the functions of a program, saved between
+ * compilations so that only the functions that changed are compiled
+ * again. A function's key is a hash of its source text together with
+ * the source texts of all the functions it can call, directly or through
+ * other functions, and of the compiler settings. So a function is also
+ * compiled again when a function that it depends on changes.</p>
+ *
+ * <p>A function that only moved in the source file keeps its key,
+ * and the line numbers in its statement comments are shifted.</p>
+ */
+public class FunctionCache
+{
+    private static final int VERSION = 2;  // cache file format version
+
+    private static final Pattern COMMENT_LINE =
+                                    Pattern.compile("(?m)^; (\\d{3,}) ");
+
+    private String fileName;  // cache file name
+    private String settings;  // compiler settings that affect the code
+    private PrintStream out;  // the stream for warnings
+
+    // Cached entries by function name, and the current functions' keys,
+    // start lines, and callees.
+    private HashMap<String, Entry> entries;
+    private HashMap<SymtabEntry, String> keys;
+    private HashMap<SymtabEntry, Integer> lines;
+    private LinkedHashMap<SymtabEntry, LinkedHashSet<SymtabEntry>> callees;
+
+    /**
+     * The cached code of a function.
+     */
+    public static class Entry
+    {
+        private String key;         // the function's key
+        private int line;           // the function's start line
+        private boolean memoized;   // true if the function is memoized
+        private String code;        // the emitted code
+
+        private Entry(String key, int line, boolean memoized, String code)
+        {
+            this.key      = key;
+            this.line     = line;
+            this.memoized = memoized;
+            this.code     = code;
+        }
+
+        /**
+         * Return whether or not the function was memoized.
+         * @return true if memoized, else false.
+         */
+        public boolean isMemoized() { return memoized; }
+    }
+
+    /**
+     * Constructor. Load the cache file, if any.
+     * @param programName the name of the program.
+     * @param options the code generation options.
+     * @param out the stream for warnings.
+     */
+    public FunctionCache(String programName, CompilerOptions options,
+                         PrintStream out)
+    {
+        this.out      = out;
+        this.fileName = options.outputFile(programName + ".cache").getPath();
+        this.settings = programName
+                        + " O=" + options.isOptimizing()
+                        + " profile=" + options.isProfiling()
+                        + " memo=" + options.getMemoCacheSize()
+                        + " eval=" + options.getEvalStepBudget();
+        this.entries  = new HashMap<String, Entry>();
+        this.keys     = new HashMap<SymtabEntry, String>();
+        this.lines    = new HashMap<SymtabEntry, Integer>();
+        this.callees  = new LinkedHashMap<SymtabEntry,
+                                          LinkedHashSet<SymtabEntry>>();
+
+        load();
+    }
+
+    /**
+     * Compute the keys of the functions of a program. If the functions
+     * are partitioned into classes, a key also depends on the classes
+     * of the function and of the functions it can call.
+     * @param ctx the ProgramContext.
+     * @param partition the partition of the functions, or null if none.
+     */
+    public void computeKeys(SubCParser.ProgramContext ctx,
+                            ClassPartition partition)
+    {
+        HashMap<SymtabEntry, String> texts = new HashMap<SymtabEntry, String>();
+
+        for (SubCParser.FunctionDefinitionContext functCtx :
+                            ctx.functionDefinitions().functionDefinition())
+        {
+            SymtabEntry routineId = functCtx.functionName().entry;
+            LinkedHashSet<SymtabEntry> called = new LinkedHashSet<SymtabEntry>();
+
+            findCallees(functCtx.compoundStatement(), called);
+            callees.put(routineId, called);
+            lines.put(routineId, functCtx.getStart().getLine());
+            texts.put(routineId, functCtx.getStart().getInputStream().getText(
+                        Interval.of(functCtx.getStart().getStartIndex(),
+                                    functCtx.getStop().getStopIndex())));
+        }
+
+        for (SymtabEntry routineId : callees.keySet())
+        {
+            StringBuilder buffer = new StringBuilder(settings);
+
+            for (SymtabEntry dependencyId : dependencies(routineId))
+            {
+                buffer.append('\0').append(dependencyId.getName())
+                      .append('\0').append(texts.get(dependencyId));
+
+                if (partition != null)
+                {
+                    buffer.append('\0').append(partition.classOf(dependencyId));
+                }
+            }
+
+            keys.put(routineId, digest(buffer.toString()));
+        }
+    }
+
+    /**
+     * Find the declared functions that are called in a parse tree.
+     * @param tree the parse tree.
+     * @param called the set of called functions to add to.
+     */
+    public static void findCallees(ParseTree tree,
+                                   LinkedHashSet<SymtabEntry> called)
+    {
+        if (tree instanceof SubCParser.FunctionNameContext)
+        {
+            SymtabEntry routineId = ((SubCParser.FunctionNameContext) tree).entry;
+
+            if (   (routineId != null) && (routineId.getKind() == FUNCTION)
+                && (routineId.getRoutineCode() == DECLARED))
+            {
+                called.add(routineId);
+            }
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++)
+        {
+            findCallees(tree.getChild(i), called);
+        }
+    }
+
+    /**
+     * Get the functions that a function can call, directly or through
+     * other functions, including itself.
+     * @param routineId the function's symbol table entry.
+     * @return the functions, in declaration order.
+     */
+    public ArrayList<SymtabEntry> dependencies(SymtabEntry routineId)
+    {
+        HashSet<SymtabEntry> reached = new HashSet<SymtabEntry>();
+        ArrayList<SymtabEntry> worklist = new ArrayList<SymtabEntry>();
+        reached.add(routineId);
+        worklist.add(routineId);
+
+        while (!worklist.isEmpty())
+        {
+            SymtabEntry id = worklist.remove(worklist.size() - 1);
+            LinkedHashSet<SymtabEntry> called = callees.get(id);
+            if (called == null) continue;
+
+            for (SymtabEntry calleeId : called)
+            {
+                if (reached.add(calleeId)) worklist.add(calleeId);
+            }
+        }
+
+        ArrayList<SymtabEntry> ordered = new ArrayList<SymtabEntry>();
+        for (SymtabEntry id : callees.keySet())
+        {
+            if (reached.contains(id)) ordered.add(id);
+        }
+
+        return ordered;
+    }
+
+    /**
+     * Look up the cached code of a function.
+     * @param routineId the function's symbol table entry.
+     * @return the entry, or null if the function must be compiled.
+     */
+    public Entry lookup(SymtabEntry routineId)
+    {
+        Entry entry = entries.get(routineId.getName());
+        String key = keys.get(routineId);
+
+        return (entry != null) && entry.key.equals(key) ? entry : null;
+    }
+
+    /**
+     * Get the code of a cached function, with the line numbers of its
+     * statement comments shifted to where the function is now.
+     * @param routineId the function's symbol table entry.
+     * @param entry the function's cache entry.
+     * @return the code.
+     */
+    public String getCode(SymtabEntry routineId, Entry entry)
+    {
+        int shift = lines.get(routineId) - entry.line;
+        if (shift == 0) return entry.code;
+
+        Matcher matcher = COMMENT_LINE.matcher(entry.code);
+        StringBuffer buffer = new StringBuffer();
+
+        while (matcher.find())
+        {
+            int line = Integer.parseInt(matcher.group(1)) + shift;
+            matcher.appendReplacement(buffer,
+                                      String.format("; %03d ", line));
+        }
+        matcher.appendTail(buffer);
+
+        return buffer.toString();
+    }
+
+    /**
+     * Enter the newly emitted code of a function.
+     * @param routineId the function's symbol table entry.
+     * @param memoized true if the function is memoized.
+     * @param code the emitted code.
+     */
+    public void store(SymtabEntry routineId, boolean memoized, String code)
+    {
+        entries.put(routineId.getName(),
+                    new Entry(keys.get(routineId), lines.get(routineId),
+                              memoized, code));
+    }
+
+    /**
+     * Save the entries of the current functions to the cache file.
+     * A failure to save only means no code is reused the next time.
+     */
+    public void save()
+    {
+        try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(fileName))))
+        {
+            out.writeInt(VERSION);
+            out.writeInt(keys.size());
+
+            for (SymtabEntry routineId : callees.keySet())
+            {
+                Entry entry = lookup(routineId);
+                byte[] code = (entry != null ? entry.code : "")
+                                    .getBytes(StandardCharsets.UTF_8);
+
+                out.writeUTF(routineId.getName());
+                out.writeUTF(entry != null ? entry.key : "");
+                out.writeInt(entry != null ? entry.line : 0);
+                out.writeBoolean((entry != null) && entry.memoized);
+                out.writeInt(code.length);
+                out.write(code);
+            }
+        }
+        catch (IOException ex)
+        {
+            this.out.printf("WARNING: Failed to save \"%s\".\n", fileName);
+        }
+    }
+
+    /**
+     * Load the entries from the cache file. A missing, unreadable,
+     * or outdated file leaves the cache empty.
+     */
+    private void load()
+    {
+        try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(fileName))))
+        {
+            if (in.readInt() != VERSION) return;
+
+            int size = in.readInt();
+            for (int i = 0; i < size; i++)
+            {
+                String name = in.readUTF();
+                String key = in.readUTF();
+                int line = in.readInt();
+                boolean memoized = in.readBoolean();
+                byte[] code = new byte[in.readInt()];
+                in.readFully(code);
+
+                entries.put(name, new Entry(key, line, memoized,
+                            new String(code, StandardCharsets.UTF_8)));
+            }
+        }
+        catch (IOException ex)
+        {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Compute the hexadecimal SHA-256 digest of a text.
+     * @param text the text.
+     * @return the digest.
+     */
+    static String digest(String text)
+    {
+        try
+        {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder();
+
+            for (byte b : md.digest(text.getBytes(StandardCharsets.UTF_8)))
+            {
+                hex.append(String.format("%02x", b));
+            }
+
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
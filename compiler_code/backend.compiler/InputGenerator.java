@@ -0,0 +1,591 @@
+package backend.compiler;
+
+import java.util.Collection;
+
+import intermediate.symtab.*;
+
+import static intermediate.symtab.SymtabEntry.Routine.*;
+import static backend.compiler.Directive.*;
+import static backend.compiler.Instruction.*;
+
+/**
+ * <h1>InputGenerator</h1>
+ *
+ * <p>Emit the runtime reader behind the input routines readInt, readDouble,
+ * readChar, and readLine. It reads System.in in large blocks into a byte
+ * buffer and parses numbers straight from the bytes, so reading a number
+ * allocates nothing. The buffer is allocated by the first read.</p>
+ *
+ * <p>A number ends at the first byte that can't continue it, which is left
+ * to be read next. readInt and readDouble skip leading white space and
+ * return zero at the end of the input. readChar reads one byte and returns
+ * zero at the end of the input. readLine returns the rest of the line
+ * without its line terminator, or null at the end of the input.</p>
+ */
+public class InputGenerator extends CodeGenerator
+{
+    private static final int BUFFER_SIZE = 65536;  // bytes per block read
+    private static final int LINE_SIZE   = 128;    // initial line buffer size
+
+    /**
+     * Constructor.
+     * @param parent the parent generator.
+     * @param compiler the compiler to use.
+     */
+    public InputGenerator(CodeGenerator parent, Compiler compiler)
+    {
+        super(parent, compiler);
+    }
+
+    /**
+     * Emit the field directives of the reader.
+     * @param routineIds the input routines that the program calls.
+     */
+    public void emitFields(Collection<SymtabEntry> routineIds)
+    {
+        emitDirective(FIELD_PRIVATE_STATIC, "_in",    "[B");
+        emitDirective(FIELD_PRIVATE_STATIC, "_inPos", "I");
+        emitDirective(FIELD_PRIVATE_STATIC, "_inLen", "I");
+
+        for (SymtabEntry routineId : routineIds)
+        {
+            if (routineId.getRoutineCode() == READ_LINE)
+            {
+                emitDirective(FIELD_PRIVATE_STATIC, "_line", "[B");
+            }
+        }
+    }
+
+    /**
+     * Emit the methods of the reader.
+     * @param routineIds the input routines that the program calls.
+     */
+    public void emitMethods(Collection<SymtabEntry> routineIds)
+    {
+        emitRead();
+
+        for (SymtabEntry routineId : routineIds)
+        {
+            switch (routineId.getRoutineCode())
+            {
+                case READ_INT:    emitReadInt(routineId);    break;
+                case READ_DOUBLE: emitReadDouble(routineId); break;
+                case READ_CHAR:   emitReadChar(routineId);   break;
+                case READ_LINE:   emitReadLine(routineId);   break;
+                default: break;
+            }
+        }
+    }
+
+    /**
+     * Emit the method _read()I, which returns the next byte of the input,
+     * or -1 at the end. It refills the buffer when it's used up.
+     */
+    private void emitRead()
+    {
+        Label fillLabel  = newLabel();
+        Label readyLabel = newLabel();
+
+        emitHeader("Runtime reader: next byte of input, or -1", "_read()I");
+
+        emitGetField("_inPos", "I");
+        emitGetField("_inLen", "I");
+        emit(IF_ICMPLT, readyLabel);
+
+        emitGetField("_in", "[B");
+        emit(IFNONNULL, fillLabel);
+        emitLoadConstant(BUFFER_SIZE);
+        emit(NEWARRAY, "byte");
+        emitPutField("_in", "[B");
+
+        emitLabel(fillLabel);
+        emit(GETSTATIC, "java/lang/System/in Ljava/io/InputStream;");
+        emitGetField("_in", "[B");
+        emit(INVOKEVIRTUAL, "java/io/InputStream/read([B)I");
+        localStack.decrease(1);
+        emit(DUP);
+        emitPutField("_inLen", "I");
+        emit(ICONST_0);
+        emitPutField("_inPos", "I");
+        emit(IFGT, readyLabel);
+        emit(ICONST_M1);
+        emit(IRETURN);
+
+        emitLabel(readyLabel);
+        emitGetField("_in", "[B");
+        emitGetField("_inPos", "I");
+        emit(DUP);
+        emit(ICONST_1);
+        emit(IADD);
+        emitPutField("_inPos", "I");
+        emit(BALOAD);
+        emitLoadConstant(255);
+        emit(IAND);
+        emit(IRETURN);
+
+        emitFooter(0);
+    }
+
+    /**
+     * Emit the readInt method.
+     * @param routineId the symbol table entry of the routine.
+     */
+    private void emitReadInt(SymtabEntry routineId)
+    {
+        int charSlot     = 0;  // current byte
+        int negativeSlot = 1;  // 1 if there was a minus sign
+        int valueSlot    = 2;  // value so far
+
+        Label doneLabel     = newLabel();
+        Label positiveLabel = newLabel();
+        Label loopLabel     = newLabel();
+
+        emitHeader("Runtime reader: " + routineId.getName(),
+                   routineId.getName() + "()I");
+
+        emitSkipWhiteSpace(charSlot, ICONST_0, IRETURN);
+        emitSign(charSlot, negativeSlot);
+
+        emitLoadConstant(0);
+        emitStoreInt(valueSlot);
+
+        emitLabel(loopLabel);
+        emitIfNotDigit(charSlot, doneLabel);
+        emitLoadInt(valueSlot);
+        emitLoadConstant(10);
+        emit(IMUL);
+        emitDigitValue(charSlot);
+        emit(IADD);
+        emitStoreInt(valueSlot);
+        emitReadByte(charSlot);
+        emit(GOTO, loopLabel);
+
+        emitLabel(doneLabel);
+        emitUnread(charSlot);
+        emitLoadInt(valueSlot);
+        emitLoadInt(negativeSlot);
+        emit(IFEQ, positiveLabel);
+        emit(INEG);
+        emitLabel(positiveLabel);
+        emit(IRETURN);
+
+        emitFooter(3);
+    }
+
+    /**
+     * Emit the readDouble method. Up to nine significant digits are
+     * accumulated in an integer, and the result is scaled by the power
+     * of ten of the decimal point and the exponent, if any.
+     * @param routineId the symbol table entry of the routine.
+     */
+    private void emitReadDouble(SymtabEntry routineId)
+    {
+        int charSlot     = 0;  // current byte
+        int negativeSlot = 1;  // 1 if there was a minus sign
+        int valueSlot    = 2;  // significant digits so far
+        int scaleSlot    = 3;  // power of ten to scale the digits by
+        int countSlot    = 4;  // count of significant digits
+        int expSignSlot  = 5;  // 1 if the exponent is negative
+        int exponentSlot = 6;  // exponent
+
+        Label integerLabel  = newLabel();
+        Label pointLabel    = newLabel();
+        Label fractionLabel = newLabel();
+        Label exponentLabel = newLabel();
+        Label expDigitLabel = newLabel();
+        Label expDoneLabel  = newLabel();
+        Label scaleLabel    = newLabel();
+        Label positiveLabel = newLabel();
+
+        emitHeader("Runtime reader: " + routineId.getName(),
+                   routineId.getName() + "()F");
+
+        emitSkipWhiteSpace(charSlot, FCONST_0, FRETURN);
+        emitSign(charSlot, negativeSlot);
+
+        emitLoadConstant(0);
+        emitStoreInt(valueSlot);
+        emitLoadConstant(0);
+        emitStoreInt(scaleSlot);
+        emitLoadConstant(0);
+        emitStoreInt(countSlot);
+
+        // Integer part.
+        emitLabel(integerLabel);
+        emitIfNotDigit(charSlot, pointLabel);
+        emitAccumulateDigit(charSlot, valueSlot, scaleSlot, countSlot, false);
+        emitReadByte(charSlot);
+        emit(GOTO, integerLabel);
+
+        // Fraction part.
+        emitLabel(pointLabel);
+        emitLoadInt(charSlot);
+        emitLoadConstant('.');
+        emit(IF_ICMPNE, exponentLabel);
+        emitReadByte(charSlot);
+        emitLabel(fractionLabel);
+        emitIfNotDigit(charSlot, exponentLabel);
+        emitAccumulateDigit(charSlot, valueSlot, scaleSlot, countSlot, true);
+        emitReadByte(charSlot);
+        emit(GOTO, fractionLabel);
+
+        // Exponent part.
+        emitLabel(exponentLabel);
+        emitLoadInt(charSlot);
+        emitLoadConstant('e');
+        emit(IF_ICMPEQ, expDigitLabel);
+        emitLoadInt(charSlot);
+        emitLoadConstant('E');
+        emit(IF_ICMPNE, scaleLabel);
+        emitLabel(expDigitLabel);
+        emitReadByte(charSlot);
+        emitSign(charSlot, expSignSlot);
+        emitLoadConstant(0);
+        emitStoreInt(exponentSlot);
+
+        Label expLoopLabel = newLabel();
+        emitLabel(expLoopLabel);
+        emitIfNotDigit(charSlot, expDoneLabel);
+        emitLoadInt(exponentSlot);
+        emitLoadConstant(10);
+        emit(IMUL);
+        emitDigitValue(charSlot);
+        emit(IADD);
+        emitStoreInt(exponentSlot);
+        emitReadByte(charSlot);
+        emit(GOTO, expLoopLabel);
+
+        emitLabel(expDoneLabel);
+        Label addLabel = newLabel();
+        emitLoadInt(scaleSlot);
+        emitLoadInt(exponentSlot);
+        emitLoadInt(expSignSlot);
+        emit(IFEQ, addLabel);
+        emit(INEG);
+        emitLabel(addLabel);
+        emit(IADD);
+        emitStoreInt(scaleSlot);
+
+        // value * 10^scale, computed in double precision.
+        emitLabel(scaleLabel);
+        emitUnread(charSlot);
+        emitLoadInt(valueSlot);
+        emit(I2D);
+        emitLoadConstant(10);
+        emit(I2D);
+        emitLoadInt(scaleSlot);
+        emit(I2D);
+        emit(INVOKESTATIC, "java/lang/Math/pow(DD)D");
+        emit(DMUL);
+        emit(D2F);
+        emitLoadInt(negativeSlot);
+        emit(IFEQ, positiveLabel);
+        emit(FNEG);
+        emitLabel(positiveLabel);
+        emit(FRETURN);
+
+        emitFooter(7);
+    }
+
+    /**
+     * Emit the readChar method.
+     * @param routineId the symbol table entry of the routine.
+     */
+    private void emitReadChar(SymtabEntry routineId)
+    {
+        Label readyLabel = newLabel();
+
+        emitHeader("Runtime reader: " + routineId.getName(),
+                   routineId.getName() + "()C");
+
+        emit(INVOKESTATIC, programName + "/_read()I");
+        localStack.increase(1);
+        emit(DUP);
+        emit(IFGE, readyLabel);
+        emit(POP);
+        emit(ICONST_0);
+        emitLabel(readyLabel);
+        emit(IRETURN);
+
+        emitFooter(0);
+    }
+
+    /**
+     * Emit the readLine method. The bytes of the line are collected
+     * in a buffer that doubles in size whenever it's full.
+     * @param routineId the symbol table entry of the routine.
+     */
+    private void emitReadLine(SymtabEntry routineId)
+    {
+        int charSlot   = 0;  // current byte
+        int lengthSlot = 1;  // length of the line so far
+
+        Label startLabel = newLabel();
+        Label loopLabel  = newLabel();
+        Label storeLabel = newLabel();
+        Label doneLabel  = newLabel();
+        Label makeLabel  = newLabel();
+
+        emitHeader("Runtime reader: " + routineId.getName(),
+                   routineId.getName() + "()Ljava/lang/String;");
+
+        emitGetField("_line", "[B");
+        emit(IFNONNULL, startLabel);
+        emitLoadConstant(LINE_SIZE);
+        emit(NEWARRAY, "byte");
+        emitPutField("_line", "[B");
+
+        emitLabel(startLabel);
+        emitLoadConstant(0);
+        emitStoreInt(lengthSlot);
+        emitReadByte(charSlot);
+        emitLoadInt(charSlot);
+        emit(IFGE, loopLabel);
+        emit(ACONST_NULL);
+        emit(ARETURN);
+
+        emitLabel(loopLabel);
+        emitLoadInt(charSlot);
+        emitLoadConstant('\n');
+        emit(IF_ICMPEQ, doneLabel);
+        emitLoadInt(charSlot);
+        emit(IFLT, doneLabel);
+
+        emitLoadInt(lengthSlot);
+        emitGetField("_line", "[B");
+        emit(ARRAYLENGTH);
+        emit(IF_ICMPLT, storeLabel);
+        emitGetField("_line", "[B");
+        emitLoadInt(lengthSlot);
+        emit(ICONST_2);
+        emit(IMUL);
+        emit(INVOKESTATIC, "java/util/Arrays/copyOf([BI)[B");
+        localStack.decrease(1);
+        emitPutField("_line", "[B");
+
+        emitLabel(storeLabel);
+        emitGetField("_line", "[B");
+        emitLoadInt(lengthSlot);
+        emitLoadInt(charSlot);
+        emit(BASTORE);
+        emit(IINC, lengthSlot, 1);
+        emitReadByte(charSlot);
+        emit(GOTO, loopLabel);
+
+        // Drop the carriage return of a CR LF line terminator.
+        emitLabel(doneLabel);
+        emitLoadInt(lengthSlot);
+        emit(IFLE, makeLabel);
+        emitGetField("_line", "[B");
+        emitLoadInt(lengthSlot);
+        emit(ICONST_1);
+        emit(ISUB);
+        emit(BALOAD);
+        emitLoadConstant('\r');
+        emit(IF_ICMPNE, makeLabel);
+        emit(IINC, lengthSlot, -1);
+
+        emitLabel(makeLabel);
+        emit(NEW, "java/lang/String");
+        emit(DUP);
+        emitGetField("_line", "[B");
+        emit(ICONST_0);
+        emitLoadInt(lengthSlot);
+        emit(INVOKESPECIAL, "java/lang/String/<init>([BII)V");
+        localStack.decrease(4);
+        emit(ARETURN);
+
+        emitFooter(2);
+    }
+
+    /**
+     * Emit code to skip white space. At the end of the input,
+     * return the default value.
+     * @param charSlot the slot of the current byte.
+     * @param zero the instruction that loads the default value.
+     * @param ret the return instruction.
+     */
+    private void emitSkipWhiteSpace(int charSlot, Instruction zero,
+                                    Instruction ret)
+    {
+        Label skipLabel  = newLabel();
+        Label foundLabel = newLabel();
+
+        emitLabel(skipLabel);
+        emitReadByte(charSlot);
+        emitLoadInt(charSlot);
+        emitLoadConstant(' ');
+        emit(IF_ICMPGT, foundLabel);
+        emitLoadInt(charSlot);
+        emit(IFGE, skipLabel);
+        emit(zero);
+        emit(ret);
+        emitLabel(foundLabel);
+    }
+
+    /**
+     * Emit code to consume an optional sign.
+     * @param charSlot the slot of the current byte.
+     * @param negativeSlot the slot to set to 1 if the sign is minus, else 0.
+     */
+    private void emitSign(int charSlot, int negativeSlot)
+    {
+        Label minusLabel   = newLabel();
+        Label consumeLabel = newLabel();
+        Label doneLabel    = newLabel();
+
+        emitLoadConstant(0);
+        emitStoreInt(negativeSlot);
+        emitLoadInt(charSlot);
+        emitLoadConstant('-');
+        emit(IF_ICMPEQ, minusLabel);
+        emitLoadInt(charSlot);
+        emitLoadConstant('+');
+        emit(IF_ICMPNE, doneLabel);
+        emit(GOTO, consumeLabel);
+        emitLabel(minusLabel);
+        emitLoadConstant(1);
+        emitStoreInt(negativeSlot);
+        emitLabel(consumeLabel);
+        emitReadByte(charSlot);
+        emitLabel(doneLabel);
+    }
+
+    /**
+     * Emit code to jump if the current byte isn't a decimal digit.
+     * @param charSlot the slot of the current byte.
+     * @param label the label to jump to.
+     */
+    private void emitIfNotDigit(int charSlot, Label label)
+    {
+        emitLoadInt(charSlot);
+        emitLoadConstant('0');
+        emit(IF_ICMPLT, label);
+        emitLoadInt(charSlot);
+        emitLoadConstant('9');
+        emit(IF_ICMPGT, label);
+    }
+
+    /**
+     * Emit code to load the value of the current digit byte.
+     * @param charSlot the slot of the current byte.
+     */
+    private void emitDigitValue(int charSlot)
+    {
+        emitLoadInt(charSlot);
+        emitLoadConstant('0');
+        emit(ISUB);
+    }
+
+    /**
+     * Emit code to add a digit of a real number to its significant digits.
+     * Leading zeros don't count as significant. Once there are nine,
+     * a further digit of the integer part only raises the scale.
+     * @param charSlot the slot of the current byte.
+     * @param valueSlot the slot of the significant digits.
+     * @param scaleSlot the slot of the power of ten.
+     * @param countSlot the slot of the count of significant digits.
+     * @param fraction true if the digit is after the decimal point.
+     */
+    private void emitAccumulateDigit(int charSlot, int valueSlot, int scaleSlot,
+                                     int countSlot, boolean fraction)
+    {
+        Label fullLabel = newLabel();
+        Label nextLabel = newLabel();
+
+        emitLoadInt(countSlot);
+        emitLoadConstant(9);
+        emit(IF_ICMPGE, fullLabel);
+        emitLoadInt(valueSlot);
+        emitLoadConstant(10);
+        emit(IMUL);
+        emitDigitValue(charSlot);
+        emit(IADD);
+        emitStoreInt(valueSlot);
+        if (fraction) emit(IINC, scaleSlot, -1);
+        emitLoadInt(valueSlot);
+        emit(IFEQ, nextLabel);
+        emit(IINC, countSlot, 1);
+        emit(GOTO, nextLabel);
+
+        emitLabel(fullLabel);
+        if (!fraction) emit(IINC, scaleSlot, 1);
+        emitLabel(nextLabel);
+    }
+
+    /**
+     * Emit code to read the next byte into a local variable.
+     * @param charSlot the slot of the local variable.
+     */
+    private void emitReadByte(int charSlot)
+    {
+        emit(INVOKESTATIC, programName + "/_read()I");
+        localStack.increase(1);
+        emitStoreInt(charSlot);
+    }
+
+    /**
+     * Emit code to leave the current byte to be read next,
+     * unless it's the end of the input.
+     * @param charSlot the slot of the current byte.
+     */
+    private void emitUnread(int charSlot)
+    {
+        Label endLabel = newLabel();
+
+        emitLoadInt(charSlot);
+        emit(IFLT, endLabel);
+        emitGetField("_inPos", "I");
+        emit(ICONST_1);
+        emit(ISUB);
+        emitPutField("_inPos", "I");
+        emitLabel(endLabel);
+    }
+
+    private void emitLoadInt(int slot)
+    {
+        emitLoadLocal(Predefined.integerType, slot);
+    }
+
+    private void emitStoreInt(int slot)
+    {
+        emitStoreLocal(Predefined.integerType, slot);
+    }
+
+    private void emitGetField(String fieldName, String descriptor)
+    {
+        emit(GETSTATIC, programName + "/" + fieldName, descriptor);
+    }
+
+    private void emitPutField(String fieldName, String descriptor)
+    {
+        emit(PUTSTATIC, programName + "/" + fieldName, descriptor);
+    }
+
+    /**
+     * Emit the header of a reader method.
+     * @param comment the comment above the method.
+     * @param signature the method name and signature.
+     */
+    private void emitHeader(String comment, String signature)
+    {
+        emitLine();
+        emitComment(comment);
+        emitDirective(compiler.sharedMethodDirective(), signature);
+        emitLine();
+    }
+
+    /**
+     * Emit the end of a reader method.
+     * @param localsCount the count of its local variables.
+     */
+    private void emitFooter(int localsCount)
+    {
+        emitLine();
+        emitDirective(LIMIT_LOCALS, localsCount);
+        emitDirective(LIMIT_STACK,  8);
+        emitDirective(END_METHOD);
+
+        localStack.reset();
+    }
+}
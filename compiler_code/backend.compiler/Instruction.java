@@ -39,13 +39,14 @@ public enum Instruction
     IADD(-1), FADD(-1), ISUB(-1), FSUB(-1), IMUL(-1), FMUL(-1),
     IDIV(-1), FDIV(-1), IREM(-1), FREM(-1), INEG(0),  FNEG(0),
     IINC(0),  IAND(-1), IOR(-1),  IXOR(-1),
+    ISHL(-1), ISHR(-1), IUSHR(-1), DMUL(-2),
 
     // Type conversion and checking
     I2F(0), I2C(0), I2D(0), F2I(0), F2D(0), D2F(0),
     CHECKCAST(0),
 
     // Objects and arrays
-    NEW(1), NEWARRAY(0), ANEWARRAY(0), MULTIANEWARRAY(0),
+    NEW(1), NEWARRAY(0), ANEWARRAY(0), MULTIANEWARRAY(0), ARRAYLENGTH(0),
     IALOAD(-1), FALOAD(-1), BALOAD(-1), CALOAD(-1), AALOAD(-1),
     IASTORE(-3), FASTORE(-3), BASTORE(-3), CASTORE(-3), AASTORE(-3),
 
@@ -53,7 +54,8 @@ public enum Instruction
     IFEQ(-1), IFNE(-1), IFLT(-1), IFLE(-1), IFGT(-1), IFGE(-1),
     IF_ICMPEQ(-2), IF_ICMPNE(-2), IF_ICMPLT(-2), 
     IF_ICMPLE(-2), IF_ICMPGT(-2), IF_ICMPGE(-2),
-    FCMPG(-1), GOTO(0), LOOKUPSWITCH(-1),
+    FCMPG(-1), GOTO(0), GOTO_W(0), LOOKUPSWITCH(-1),
+    IFNULL(-1), IFNONNULL(-1),
 
     // Call and return
     INVOKESTATIC(0), INVOKESPECIAL(0), 
@@ -63,10 +65,101 @@ public enum Instruction
     // No operation
     NOP(0);
     
+    public static final int MAX_NARROW_SLOT = 255;  // without WIDE
+
     public int stackUse;
     
     Instruction(int stackUse) { this.stackUse = stackUse; }
 
+    /**
+     * Get the size of the instruction in the bytecode, without the
+     * case entries of a LOOKUPSWITCH and the alignment padding before them.
+     * @return the size in bytes.
+     */
+    public int size()
+    {
+        switch (this)
+        {
+            case BIPUSH: case LDC:
+            case ILOAD:  case FLOAD:  case ALOAD:
+            case ISTORE: case FSTORE: case ASTORE:
+            case NEWARRAY:
+                return 2;
+
+            case MULTIANEWARRAY:
+                return 4;
+
+            case GOTO_W:
+                return 5;
+
+            case LOOKUPSWITCH:
+                return 12;
+
+            case SIPUSH:    case GETSTATIC: case PUTSTATIC:
+            case GETFIELD:  case PUTFIELD:  case NEW:
+            case ANEWARRAY: case CHECKCAST: case IINC:
+            case IFEQ: case IFNE: case IFLT: case IFLE: case IFGT: case IFGE:
+            case IF_ICMPEQ: case IF_ICMPNE: case IF_ICMPLT:
+            case IF_ICMPLE: case IF_ICMPGT: case IF_ICMPGE:
+            case GOTO: case IFNULL: case IFNONNULL:
+            case INVOKESTATIC:  case INVOKESPECIAL:
+            case INVOKEVIRTUAL: case INVOKENONVIRTUAL:
+                return 3;
+
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Get the size of the instruction with an operand. A local variable
+     * instruction with a slot number above 255 is assembled with the
+     * WIDE prefix and a 2-byte slot number.
+     * @param operand the operand.
+     * @return the size in bytes.
+     */
+    public int size(int operand)
+    {
+        return isLocal() && (operand > MAX_NARROW_SLOT) ? size() + 2 : size();
+    }
+
+    /**
+     * Get the size of the instruction with two operands. An IINC with a
+     * slot number above 255 or an increment outside a byte is assembled
+     * with the WIDE prefix and 2-byte operands.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @return the size in bytes.
+     */
+    public int size(int operand1, int operand2)
+    {
+        boolean wide =    (this == IINC)
+                       && (   (operand1 > MAX_NARROW_SLOT)
+                           || (operand2 < Byte.MIN_VALUE)
+                           || (operand2 > Byte.MAX_VALUE));
+
+        return wide ? 6 : size();
+    }
+
+    /**
+     * Return whether or not the instruction has a local variable's slot
+     * number as its operand.
+     * @return true if it does, else false.
+     */
+    public boolean isLocal()
+    {
+        switch (this)
+        {
+            case ILOAD:  case FLOAD:  case ALOAD:
+            case ISTORE: case FSTORE: case ASTORE:
+            case IINC:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
     /**
      * Generate the instruction text that is emitted.
      * @return the text.
@@ -0,0 +1,904 @@
+package backend.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+import intermediate.ir.*;
+import intermediate.ir.IrInstruction.Op;
+import intermediate.ir.IrInstruction.Relation;
+import intermediate.symtab.*;
+import intermediate.type.*;
+
+import static intermediate.ir.IrInstruction.Op.*;
+import static backend.compiler.Instruction.*;
+
+/**
+ * <h1>IrGenerator</h1>
+ *
+ * <p>Emit code for a function or the main program from its SSA
+ * control-flow graph. A value that is used once, by a later instruction
+ * of the same block, is left on the operand stack for its user. Every other
+ * value gets its own local variable, with the most frequently used values
+ * of the innermost loops getting the lowest slot numbers. PHI instructions
+ * become copies at the ends of the predecessor blocks: all the incoming
+ * values are loaded first and then stored, so PHIs that read each other
+ * still see the old values.</p>
+ */
+public class IrGenerator extends CodeGenerator
+{
+    private ControlFlowGraph cfg;                  // the graph to generate
+    private ArrayList<BasicBlock> layout;          // emitted block order
+    private HashMap<BasicBlock, Label> labels;     // label of each block
+    private HashMap<IrValue, Integer> slots;       // local variable slots
+    private HashSet<IrInstruction> stackValues;    // values left on the stack
+    private HashSet<IrInstruction> fusedCompares;  // CMPs fused into BRANCHes
+    private Label exitLabel;                       // main program's exit
+    private int maxStack;                          // operand stack estimate
+
+    /**
+     * Constructor.
+     * @param parent the parent generator.
+     * @param compiler the compiler to use.
+     */
+    public IrGenerator(CodeGenerator parent, Compiler compiler)
+    {
+        super(parent, compiler);
+    }
+
+    /**
+     * Get the maximum operand stack size needed by the generated code.
+     * @return the size.
+     */
+    public int getMaxStack() { return maxStack; }
+
+    /**
+     * Emit code for the body of a function, including its returns.
+     * @param cfg the function's control-flow graph.
+     */
+    public void emitRoutine(ControlFlowGraph cfg)
+    {
+        this.exitLabel = null;
+        emitGraph(cfg);
+    }
+
+    /**
+     * Emit code for the body of the main program. A return statement
+     * jumps to the end of the body, where the main method's epilogue follows.
+     * @param cfg the main program's control-flow graph.
+     */
+    public void emitMainBody(ControlFlowGraph cfg)
+    {
+        this.exitLabel = newLabel();
+        emitGraph(cfg);
+        emitLabel(exitLabel);
+    }
+
+    /**
+     * Emit code for a control-flow graph.
+     * @param cfg the graph.
+     */
+    private void emitGraph(ControlFlowGraph cfg)
+    {
+        this.cfg           = cfg;
+        this.layout        = cfg.reversePostorder();
+        this.labels        = new HashMap<BasicBlock, Label>();
+        this.slots         = new HashMap<IrValue, Integer>();
+        this.stackValues   = new HashSet<IrInstruction>();
+        this.fusedCompares = new HashSet<IrInstruction>();
+        this.maxStack      = 0;
+
+        for (BasicBlock block : layout) labels.put(block, newLabel());
+
+        chooseStackValues();
+        allocateSlots();
+
+        for (int i = 0; i < layout.size(); i++)
+        {
+            BasicBlock next = (i + 1 < layout.size()) ? layout.get(i + 1) : null;
+            emitBlock(layout.get(i), next);
+        }
+    }
+
+    /**
+     * Estimate the size of the code of an instruction: its operation
+     * and the loads and store of its operands and result.
+     * @param instruction the instruction.
+     * @return the estimated size in bytes.
+     */
+    public static int estimateSize(IrInstruction instruction)
+    {
+        int operands = instruction.getOperands().size();
+
+        switch (instruction.getOp())
+        {
+            case PARAM:  return 0;
+            case PHI:    return 4;  // copies along the incoming edges
+            case CMP:    return 12;
+            case CONCAT: return 14;
+            case CALL:   return 5 + 2*operands;
+            case PRINT:  return 12 + 8*operands;
+            case SWITCH: return 14 + 8*instruction.getCaseValues().size();
+            default:     return 3 + 2*operands;
+        }
+    }
+
+    // ===================
+    // Operand stack usage
+    // ===================
+
+    /**
+     * Choose the values that can stay on the operand stack until used.
+     * A candidate is used exactly once, by a later instruction of the same
+     * block. Then the stack is simulated through each block: an instruction
+     * can consume its stacked operands only if they are its leading operands
+     * and are on top of the stack in order. Otherwise those operands are
+     * stored in local variables instead, and the simulation repeats.
+     */
+    private void chooseStackValues()
+    {
+        for (BasicBlock block : layout)
+        {
+            for (IrInstruction instruction : block.getInstructions())
+            {
+                if (isStackCandidate(instruction)) stackValues.add(instruction);
+            }
+
+            while (!simulateStack(block)) {}
+        }
+
+        // Fuse a comparison into the branch that immediately follows it.
+        for (BasicBlock block : layout)
+        {
+            ArrayList<IrInstruction> instructions = block.getInstructions();
+            int size = instructions.size();
+            IrInstruction terminator = block.getTerminator();
+
+            if ((terminator.getOp() == BRANCH) && (size >= 2))
+            {
+                IrInstruction previous = instructions.get(size - 2);
+
+                if (   (previous.getOp() == CMP)
+                    && stackValues.contains(previous)
+                    && (terminator.getOperand(0) == previous))
+                {
+                    fusedCompares.add(previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return whether or not a value may be left on the operand stack.
+     * @param instruction the instruction that produces the value.
+     * @return true if it may, else false.
+     */
+    private boolean isStackCandidate(IrInstruction instruction)
+    {
+        Op op = instruction.getOp();
+
+        if (   !instruction.producesValue() || (op == PHI) || (op == PARAM)
+            || (instruction.useCount() != 1))
+        {
+            return false;
+        }
+
+        // The PRINT arguments are loaded in the middle of building the
+        // arguments array, so they can't be on the stack beforehand.
+        IrInstruction user = instruction.getUsers().get(0);
+        return    (user.getBlock() == instruction.getBlock())
+               && (user.getOp() != PHI) && (user.getOp() != PRINT);
+    }
+
+    /**
+     * Simulate the operand stack through a block.
+     * @param block the block.
+     * @return true if the chosen stack values work, false if some were
+     * dropped and the simulation must be repeated.
+     */
+    private boolean simulateStack(BasicBlock block)
+    {
+        ArrayList<IrInstruction> stack = new ArrayList<IrInstruction>();
+
+        for (IrInstruction instruction : block.getInstructions())
+        {
+            ArrayList<IrInstruction> stacked = new ArrayList<IrInstruction>();
+            for (IrValue operand : instruction.getOperands())
+            {
+                if (stackValues.contains(operand))
+                {
+                    stacked.add((IrInstruction) operand);
+                }
+            }
+
+            int count = stacked.size();
+            boolean leading = true;
+            for (int i = 0; i < count; i++)
+            {
+                leading = leading && (instruction.getOperand(i) == stacked.get(i));
+            }
+
+            boolean onTop =    (stack.size() >= count)
+                            && stack.subList(stack.size() - count, stack.size())
+                                    .equals(stacked);
+
+            if (!leading || !onTop)
+            {
+                stackValues.removeAll(stacked);
+                return false;
+            }
+
+            for (int i = 0; i < count; i++) stack.remove(stack.size() - 1);
+            if (stackValues.contains(instruction)) stack.add(instruction);
+        }
+
+        return true;
+    }
+
+    // ===============
+    // Local variables
+    // ===============
+
+    /**
+     * Assign local variable slots. Parameters keep their slots.
+     * Every other value that is not left on the stack gets a new slot,
+     * the most heavily used values first, where a use inside a loop
+     * counts ten times as much as a use outside of it. A value that only
+     * feeds a PHI shares the PHI's slot if that needs no copy.
+     */
+    private void allocateSlots()
+    {
+        LoopNest loops = new LoopNest(cfg, new DominatorTree(cfg));
+        final HashMap<IrValue, Long> weights = new HashMap<IrValue, Long>();
+        ArrayList<IrInstruction> values = new ArrayList<IrInstruction>();
+        ArrayList<IrInstruction> phiInputs = new ArrayList<IrInstruction>();
+
+        for (BasicBlock block : layout)
+        {
+            for (IrInstruction instruction : block.getInstructions())
+            {
+                if (instruction.getOp() == PARAM)
+                {
+                    slots.put(instruction, instruction.getEntry().getSlotNumber());
+                }
+                else if (canSharePhiSlot(instruction))
+                {
+                    phiInputs.add(instruction);
+                }
+                else if (   instruction.producesValue()
+                         && (instruction.useCount() > 0)
+                         && !stackValues.contains(instruction))
+                {
+                    values.add(instruction);
+                    weights.put(instruction, 0L);
+                }
+            }
+        }
+
+        for (IrInstruction value : values)
+        {
+            long weight = 1;
+            for (IrInstruction user : value.getUsers())
+            {
+                weight += (long) Math.pow(10, Math.min(loops.getLoopDepth(
+                                                        user.getBlock()), 6));
+            }
+            weights.put(value, weight);
+        }
+
+        Collections.sort(values, new Comparator<IrInstruction>()
+        {
+            public int compare(IrInstruction value1, IrInstruction value2)
+            {
+                return Long.compare(weights.get(value2), weights.get(value1));
+            }
+        });
+
+        for (IrInstruction value : values)
+        {
+            slots.put(value, localVariables.reserve());
+        }
+
+        for (IrInstruction value : phiInputs)
+        {
+            slots.put(value, slots.get(value.getUsers().get(0)));
+        }
+    }
+
+    /**
+     * Return whether or not a value can be stored directly into the slot
+     * of the PHI that is its only user. The value's block must jump to the
+     * PHI's block, and the PHI's old value must not be needed after the
+     * value is computed: not by a later instruction of the block, nor by
+     * another PHI along the same edge.
+     * @param value the value.
+     * @return true if it can, else false.
+     */
+    private boolean canSharePhiSlot(IrInstruction value)
+    {
+        if (   !value.producesValue() || (value.getOp() == PHI)
+            || (value.useCount() != 1))
+        {
+            return false;
+        }
+
+        IrInstruction phi = value.getUsers().get(0);
+        BasicBlock block = value.getBlock();
+        IrInstruction terminator = block.getTerminator();
+
+        if (   (phi.getOp() != PHI) || (terminator.getOp() != JUMP)
+            || (terminator.getTargets().get(0) != phi.getBlock()))
+        {
+            return false;
+        }
+
+        ArrayList<IrInstruction> instructions = block.getInstructions();
+        for (int i = instructions.indexOf(value) + 1; i < instructions.size(); i++)
+        {
+            if (instructions.get(i).getOperands().contains(phi)) return false;
+        }
+
+        int index = phi.getBlock().getPredecessors().indexOf(block);
+        for (IrInstruction other : phi.getBlock().getPhis())
+        {
+            if (other.getOperand(index) == phi) return false;
+        }
+
+        return true;
+    }
+
+    // =============
+    // Block emitter
+    // =============
+
+    /**
+     * Emit code for a basic block.
+     * @param block the block.
+     * @param next the block laid out after it, or null if none.
+     */
+    private void emitBlock(BasicBlock block, BasicBlock next)
+    {
+        if (!block.getPredecessors().isEmpty()) emitLabel(labels.get(block));
+
+        int depth = 0;  // values left on the stack
+
+        for (IrInstruction instruction : block.getInstructions())
+        {
+            Op op = instruction.getOp();
+            if (op == PHI) continue;
+
+            maxStack = Math.max(maxStack,
+                                depth + instruction.getOperands().size() + 4);
+
+            for (IrValue operand : instruction.getOperands())
+            {
+                if (stackValues.contains(operand)) depth--;
+            }
+
+            if (instruction.isTerminator())
+            {
+                emitTerminator(instruction, next);
+            }
+            else
+            {
+                emitInstruction(instruction);
+
+                if (stackValues.contains(instruction)) depth++;
+                else if (op == PARAM) {}  // already in its slot
+                else if (slots.containsKey(instruction))
+                {
+                    emitStoreLocal(instruction.getType(), slots.get(instruction));
+                }
+                else if (instruction.producesValue())
+                {
+                    emit(POP);  // unused result of a call
+                }
+            }
+        }
+    }
+
+    /**
+     * Emit code to push a value onto the operand stack, unless it's
+     * already there.
+     * @param value the value.
+     */
+    private void emitLoad(IrValue value)
+    {
+        if (value.isConstant())
+        {
+            emitLoadConstant((IrConstant) value);
+        }
+        else if (!stackValues.contains(value))
+        {
+            emitLoadLocal(value.getType(), slots.get(value));
+        }
+    }
+
+    /**
+     * Emit code for all the operands of an instruction.
+     * @param instruction the instruction.
+     */
+    private void emitOperands(IrInstruction instruction)
+    {
+        for (IrValue operand : instruction.getOperands()) emitLoad(operand);
+    }
+
+    /**
+     * Emit code for an instruction that is not a terminator.
+     * The result, if any, is left on the operand stack.
+     * @param instruction the instruction.
+     */
+    private void emitInstruction(IrInstruction instruction)
+    {
+        boolean real = TypeChecker.isReal(instruction.getType());
+
+        switch (instruction.getOp())
+        {
+            case PARAM: break;  // already in its slot
+
+            case ADD: emitOperands(instruction); emit(real ? FADD : IADD); break;
+            case SUB: emitOperands(instruction); emit(real ? FSUB : ISUB); break;
+            case MUL: emitOperands(instruction); emit(real ? FMUL : IMUL); break;
+            case DIV: emitOperands(instruction); emit(real ? FDIV : IDIV); break;
+            case REM: emitOperands(instruction); emit(real ? FREM : IREM); break;
+            case NEG: emitOperands(instruction); emit(real ? FNEG : INEG); break;
+            case AND: emitOperands(instruction); emit(IAND);               break;
+            case OR:  emitOperands(instruction); emit(IOR);                break;
+            case I2F: emitOperands(instruction); emit(Instruction.I2F);    break;
+
+            case NOT:
+            {
+                emitOperands(instruction);
+                emit(ICONST_1);
+                emit(IXOR);
+                break;
+            }
+
+            case CONCAT:
+            {
+                emitOperands(instruction);
+                emit(INVOKESTATIC, "java/lang/String/valueOf(Ljava/lang/Object;)" +
+                                   "Ljava/lang/String;");
+                emit(SWAP);
+                emit(INVOKESTATIC, "java/lang/String/valueOf(Ljava/lang/Object;)" +
+                                   "Ljava/lang/String;");
+                emit(SWAP);
+                emit(INVOKEVIRTUAL, "java/lang/String/concat(Ljava/lang/String;)" +
+                                    "Ljava/lang/String;");
+                localStack.decrease(1);
+                break;
+            }
+
+            case CMP:
+            {
+                emitCompare(instruction);
+
+                if (!fusedCompares.contains(instruction))
+                {
+                    Label trueLabel = newLabel();
+                    Label exitLabel = newLabel();
+
+                    emit(compareBranch(instruction, instruction.getRelation()),
+                         trueLabel);
+                    emit(ICONST_0);
+                    emit(GOTO, exitLabel);
+                    emitLabel(trueLabel);
+                    emit(ICONST_1);
+                    emitLabel(exitLabel);
+                    localStack.decrease(1);
+                }
+                break;
+            }
+
+            case HASH:
+            {
+                emitOperands(instruction);
+                emit(INVOKEVIRTUAL, "java/lang/String/hashCode()I");
+                break;
+            }
+
+            case CALL:  emitCall(instruction);  break;
+            case PRINT: emitPrint(instruction); break;
+
+            default: break;
+        }
+    }
+
+    /**
+     * Emit the operands of a comparison, reduced to a single integer
+     * for real and string comparisons. Strings are tested for equality
+     * with equals(), which is true if nonzero.
+     * @param cmp the CMP instruction.
+     */
+    private void emitCompare(IrInstruction cmp)
+    {
+        emitOperands(cmp);
+
+        Typespec type = cmp.getOperand(0).getType();
+
+        if (TypeChecker.isReal(type))
+        {
+            emit(FCMPG);
+        }
+        else if (isStringEquality(cmp))
+        {
+            emit(INVOKEVIRTUAL, "java/lang/String/equals(Ljava/lang/Object;)Z");
+            localStack.decrease(1);
+        }
+        else if (TypeChecker.isString(type))
+        {
+            emit(INVOKEVIRTUAL, "java/lang/String/compareTo(Ljava/lang/String;)I");
+            localStack.decrease(1);
+        }
+    }
+
+    /**
+     * Return whether or not a comparison tests strings for equality.
+     * @param cmp the CMP instruction.
+     * @return true if the relation is == or != on strings.
+     */
+    private boolean isStringEquality(IrInstruction cmp)
+    {
+        Relation relation = cmp.getRelation();
+
+        return    TypeChecker.isString(cmp.getOperand(0).getType())
+               && ((relation == Relation.EQ) || (relation == Relation.NE));
+    }
+
+    /**
+     * Return the conditional branch instruction that tests a relation
+     * after emitCompare().
+     * @param cmp the CMP instruction.
+     * @param relation the relation to test.
+     * @return the branch instruction.
+     */
+    private Instruction compareBranch(IrInstruction cmp, Relation relation)
+    {
+        Typespec type = cmp.getOperand(0).getType();
+
+        if (isStringEquality(cmp))
+        {
+            return relation == Relation.EQ ? IFNE : IFEQ;
+        }
+        else if (TypeChecker.isReal(type) || TypeChecker.isString(type))
+        {
+            switch (relation)
+            {
+                case EQ: return IFEQ;
+                case NE: return IFNE;
+                case LT: return IFLT;
+                case LE: return IFLE;
+                case GT: return IFGT;
+                default: return IFGE;
+            }
+        }
+        else
+        {
+            switch (relation)
+            {
+                case EQ: return IF_ICMPEQ;
+                case NE: return IF_ICMPNE;
+                case LT: return IF_ICMPLT;
+                case LE: return IF_ICMPLE;
+                case GT: return IF_ICMPGT;
+                default: return IF_ICMPGE;
+            }
+        }
+    }
+
+    /**
+     * Emit code for a function call.
+     * @param call the CALL instruction.
+     */
+    private void emitCall(IrInstruction call)
+    {
+        SymtabEntry routineId = call.getEntry();
+        StringBuilder signature = new StringBuilder();
+
+        signature.append(compiler.ownerOf(routineId)).append("/")
+                 .append(routineId.getName())
+                 .append("(");
+        for (SymtabEntry parmId : routineId.getRoutineParameters())
+        {
+            signature.append(typeDescriptor(parmId));
+        }
+        signature.append(")").append(typeDescriptor(routineId));
+
+        emitOperands(call);
+        emit(INVOKESTATIC, signature.toString());
+        localStack.decrease(call.getOperands().size());
+    }
+
+    /**
+     * Emit code for a print statement.
+     * @param print the PRINT instruction.
+     */
+    private void emitPrint(IrInstruction print)
+    {
+        ArrayList<IrValue> args = print.getOperands();
+
+        emit(GETSTATIC, "java/lang/System/out", "Ljava/io/PrintStream;");
+        emitLoadQuotedConstant(print.getText());
+
+        // Like the tree-walking generator, print the format as is
+        // if there are no arguments.
+        if (args.isEmpty())
+        {
+            emit(INVOKEVIRTUAL, "java/io/PrintStream/print(Ljava/lang/String;)V");
+            localStack.decrease(2);
+            return;
+        }
+
+        // Box the arguments into the arguments array.
+        emitLoadConstant(args.size());
+        emit(ANEWARRAY, "java/lang/Object");
+
+        for (int i = 0; i < args.size(); i++)
+        {
+            IrValue arg = args.get(i);
+            Typespec type = arg.getType();
+
+            emit(DUP);
+            emitLoadConstant(i);
+            emitLoad(arg);
+
+            if (TypeChecker.isBoolean(type))
+            {
+                emit(INVOKESTATIC, "java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;");
+            }
+            else if (!TypeChecker.isString(type))
+            {
+                emit(INVOKESTATIC, valueOfSignature(type));
+            }
+
+            emit(AASTORE);
+        }
+
+        emit(INVOKEVIRTUAL, "java/io/PrintStream/printf(Ljava/lang/String;" +
+                            "[Ljava/lang/Object;)Ljava/io/PrintStream;");
+        localStack.decrease(2);
+        emit(POP);
+    }
+
+    // ===========
+    // Terminators
+    // ===========
+
+    /**
+     * Emit code for a block terminator.
+     * @param terminator the terminator instruction.
+     * @param next the block laid out next, or null if none.
+     */
+    private void emitTerminator(IrInstruction terminator, BasicBlock next)
+    {
+        BasicBlock block = terminator.getBlock();
+
+        switch (terminator.getOp())
+        {
+            case JUMP:
+            {
+                BasicBlock target = terminator.getTargets().get(0);
+
+                emitPhiCopies(block, target);
+                if (target != next) emit(GOTO, labels.get(target));
+                break;
+            }
+
+            case BRANCH:
+            {
+                emitBranch(terminator, next);
+                break;
+            }
+
+            case SWITCH:
+            {
+                emitSwitch(terminator);
+                break;
+            }
+
+            case RETURN:
+            {
+                if (exitLabel != null)
+                {
+                    // Main program: continue with the epilogue.
+                    if (next != null) emit(GOTO, exitLabel);
+                }
+                else if (terminator.getOperands().isEmpty())
+                {
+                    emit(Instruction.RETURN);
+                }
+                else
+                {
+                    IrValue value = terminator.getOperand(0);
+                    emitLoad(value);
+                    emitReturnValue(cfg.getRoutineId().getType());
+                }
+                break;
+            }
+
+            default: break;
+        }
+    }
+
+    /**
+     * Emit a two-way branch. The target that is laid out next is reached
+     * by falling through, if it needs no PHI copies.
+     * @param branch the BRANCH instruction.
+     * @param next the block laid out next, or null if none.
+     */
+    private void emitBranch(IrInstruction branch, BasicBlock next)
+    {
+        BasicBlock block = branch.getBlock();
+        BasicBlock trueBlock  = branch.getTargets().get(0);
+        BasicBlock falseBlock = branch.getTargets().get(1);
+        IrValue condition = branch.getOperand(0);
+
+        LinkedHashMap<BasicBlock, Label> stubs =
+                                    new LinkedHashMap<BasicBlock, Label>();
+        Label trueLabel  = edgeLabel(block, trueBlock, stubs);
+        Label falseLabel = edgeLabel(block, falseBlock, stubs);
+
+        // Branch on the negated condition to fall through to the true block,
+        // unless the false edge has a stub, which the true branch can skip.
+        // Not for a real comparison, since its negation is false for NaN.
+        boolean negate =    (trueBlock == next) && (trueLabel == labels.get(next))
+                         && (trueBlock != falseBlock) && stubs.isEmpty()
+                         && !(   fusedCompares.contains(condition)
+                              && TypeChecker.isReal(((IrInstruction) condition)
+                                                    .getOperand(0).getType()));
+        Label branchLabel = negate ? falseLabel : trueLabel;
+        Label otherLabel  = negate ? trueLabel  : falseLabel;
+        BasicBlock other  = negate ? trueBlock  : falseBlock;
+
+        if (fusedCompares.contains(condition))
+        {
+            IrInstruction cmp = (IrInstruction) condition;
+            Relation relation = negate ? cmp.getRelation().negate()
+                                       : cmp.getRelation();
+
+            emit(compareBranch(cmp, relation), branchLabel);
+        }
+        else
+        {
+            emitLoad(condition);
+            emit(negate ? IFEQ : IFNE, branchLabel);
+        }
+
+        // Fall through to the other target, or to its stub if it comes
+        // first. Any stubs are laid out before the next block.
+        Label fallThroughLabel = stubs.isEmpty() ? labels.get(next)
+                                                 : stubs.values().iterator().next();
+        if (otherLabel != fallThroughLabel) emit(GOTO, otherLabel);
+
+        emitEdgeStubs(block, stubs);
+    }
+
+    /**
+     * Emit a switch on an integer or character value.
+     * @param switchInst the SWITCH instruction.
+     */
+    private void emitSwitch(IrInstruction switchInst)
+    {
+        BasicBlock block = switchInst.getBlock();
+        ArrayList<BasicBlock> targets = switchInst.getTargets();
+        ArrayList<Integer> values = switchInst.getCaseValues();
+        LinkedHashMap<BasicBlock, Label> stubs =
+                                    new LinkedHashMap<BasicBlock, Label>();
+
+        // Sort the cases by value.
+        ArrayList<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < values.size(); i++) order.add(i);
+        Collections.sort(order, new Comparator<Integer>()
+        {
+            public int compare(Integer i1, Integer i2)
+            {
+                return Integer.compare(values.get(i1), values.get(i2));
+            }
+        });
+
+        emitLoad(switchInst.getOperand(0));
+        emit(LOOKUPSWITCH);
+        for (int i : order)
+        {
+            emitLabel(values.get(i), edgeLabel(block, targets.get(i + 1), stubs));
+        }
+        emitLabel("default", edgeLabel(block, targets.get(0), stubs));
+
+        emitEdgeStubs(block, stubs);
+    }
+
+    /**
+     * Get the label to branch to along an edge. An edge into a block
+     * with PHIs goes to a stub that does the PHI copies first.
+     * @param block the source block.
+     * @param target the target block.
+     * @param stubs the stub labels of the edges that need them, to add to.
+     * @return the label.
+     */
+    private Label edgeLabel(BasicBlock block, BasicBlock target,
+                            LinkedHashMap<BasicBlock, Label> stubs)
+    {
+        if (!hasPhiCopies(block, target)) return labels.get(target);
+
+        Label stubLabel = stubs.get(target);
+        if (stubLabel == null)
+        {
+            stubLabel = newLabel();
+            stubs.put(target, stubLabel);
+        }
+
+        return stubLabel;
+    }
+
+    /**
+     * Emit the stubs of the edges that need PHI copies.
+     * @param block the source block.
+     * @param stubs the stub label of each target block.
+     */
+    private void emitEdgeStubs(BasicBlock block,
+                               LinkedHashMap<BasicBlock, Label> stubs)
+    {
+        for (BasicBlock target : stubs.keySet())
+        {
+            emitLabel(stubs.get(target));
+            emitPhiCopies(block, target);
+            emit(GOTO, labels.get(target));
+        }
+    }
+
+    /**
+     * Return whether or not an edge needs PHI copies.
+     * @param block the source block.
+     * @param target the target block.
+     * @return true if it does, else false.
+     */
+    private boolean hasPhiCopies(BasicBlock block, BasicBlock target)
+    {
+        int index = target.getPredecessors().indexOf(block);
+
+        for (IrInstruction phi : target.getPhis())
+        {
+            IrValue value = phi.getOperand(index);
+            if ((value != phi) && !slots.get(phi).equals(slots.get(value)))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Emit the PHI copies along an edge: load all the incoming values,
+     * then store them in reverse order.
+     * @param block the source block.
+     * @param target the target block.
+     */
+    private void emitPhiCopies(BasicBlock block, BasicBlock target)
+    {
+        int index = target.getPredecessors().indexOf(block);
+        ArrayList<IrInstruction> copies = new ArrayList<IrInstruction>();
+
+        for (IrInstruction phi : target.getPhis())
+        {
+            IrValue value = phi.getOperand(index);
+
+            if ((value != phi) && !slots.get(phi).equals(slots.get(value)))
+            {
+                emitLoad(value);
+                copies.add(phi);
+            }
+        }
+
+        maxStack = Math.max(maxStack, copies.size());
+
+        for (int i = copies.size() - 1; i >= 0; i--)
+        {
+            IrInstruction phi = copies.get(i);
+            emitStoreLocal(phi.getType(), slots.get(phi));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package backend.compiler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * <h1>LongStrings</h1>
+ *
+ * <p>The string constants of a program that are too long for one entry
+ * of the constant pool, whose UTF-8 text is limited to 65535 bytes.
+ * Such a string is split into chunks, which the class initializer joins
+ * once into a static final field of the program class. Each use of the
+ * string then loads the field.</p>
+ *
+ * <p>The strings are kept as the Jasmin-ready text of the constants,
+ * and a string is split only between its escape sequences. The size
+ * of the text is measured as if each escape sequence were its characters,
+ * which is never less than the size of the string it stands for.</p>
+ */
+public class LongStrings
+{
+    public static final int MAX_STRING_BYTES = 65535;  // of a constant pool entry
+
+    private static final int DIGEST_LENGTH = 16;  // hex digits of a field name
+
+    private LinkedHashMap<String, String> fieldNames;  // field of each string's text
+
+    /**
+     * Constructor.
+     */
+    public LongStrings()
+    {
+        fieldNames = new LinkedHashMap<String, String>();
+    }
+
+    /**
+     * Add a string constant, if it's too long for the constant pool.
+     * A field name depends only on the text, so the code of a function
+     * that loads the field can be reused when compiling incrementally.
+     * @param text the Jasmin-ready text of the constant.
+     */
+    public void add(String text)
+    {
+        if (isLong(text) && !fieldNames.containsKey(text))
+        {
+            String digest = FunctionCache.digest(text).substring(0, DIGEST_LENGTH);
+            fieldNames.put(text, "str$" + digest);
+        }
+    }
+
+    /**
+     * Get the field of a string constant.
+     * @param text the Jasmin-ready text of the constant.
+     * @return the field name, or null if the constant has no field.
+     */
+    public String fieldOf(String text) { return fieldNames.get(text); }
+
+    /**
+     * Get the texts of the string constants that have fields.
+     * @return the texts, in the order that they were added.
+     */
+    public ArrayList<String> getTexts()
+    {
+        return new ArrayList<String>(fieldNames.keySet());
+    }
+
+    /**
+     * Return whether or not there are string constants with fields.
+     * @return true if there are none, else false.
+     */
+    public boolean isEmpty() { return fieldNames.isEmpty(); }
+
+    /**
+     * Return whether or not a string constant can be too long
+     * for the constant pool.
+     * @param text the Jasmin-ready text of the constant.
+     * @return true if it can be, else false.
+     */
+    public static boolean isLong(String text)
+    {
+        // Every character takes at most 3 bytes.
+        return    (text.length() > MAX_STRING_BYTES/3)
+               && (utfLength(text, 0, text.length()) > MAX_STRING_BYTES);
+    }
+
+    /**
+     * Split the text of a string constant into chunks
+     * that each fit into the constant pool.
+     * @param text the Jasmin-ready text of the constant.
+     * @return the texts of the chunks, in order.
+     */
+    public static ArrayList<String> chunks(String text)
+    {
+        ArrayList<String> chunks = new ArrayList<String>();
+        int start = 0;
+        int bytes = 0;
+        int i = 0;
+
+        while (i < text.length())
+        {
+            int end = unitEnd(text, i);
+            int unitBytes = utfLength(text, i, end);
+
+            if (bytes + unitBytes > MAX_STRING_BYTES)
+            {
+                chunks.add(text.substring(start, i));
+                start = i;
+                bytes = 0;
+            }
+
+            bytes += unitBytes;
+            i = end;
+        }
+
+        chunks.add(text.substring(start));
+        return chunks;
+    }
+
+    /**
+     * Find the end of the unit of text that starts at an index and can't
+     * be split: an escape sequence, a surrogate pair, or a character.
+     * @param text the text.
+     * @param i the index.
+     * @return the index after the unit.
+     */
+    private static int unitEnd(String text, int i)
+    {
+        char ch = text.charAt(i);
+        int end = i + 1;
+
+        if ((ch == '\\') && (end < text.length()))
+        {
+            char next = text.charAt(end++);
+
+            // A Unicode escape has up to 4 hex digits,
+            // and an octal escape has up to 3 digits.
+            if (next == 'u')
+            {
+                while (   (end < text.length()) && (end < i + 6)
+                       && (Character.digit(text.charAt(end), 16) >= 0))
+                {
+                    end++;
+                }
+            }
+            else if (('0' <= next) && (next <= '7'))
+            {
+                while (   (end < text.length()) && (end < i + 4)
+                       && ('0' <= text.charAt(end)) && (text.charAt(end) <= '7'))
+                {
+                    end++;
+                }
+            }
+        }
+        else if (   Character.isHighSurrogate(ch) && (end < text.length())
+                 && Character.isLowSurrogate(text.charAt(end)))
+        {
+            end++;
+        }
+
+        return end;
+    }
+
+    /**
+     * Compute the length of part of a text in the modified UTF-8
+     * of the constant pool.
+     * @param text the text.
+     * @param start the index of the first character.
+     * @param end the index after the last character.
+     * @return the length in bytes.
+     */
+    private static int utfLength(String text, int start, int end)
+    {
+        int length = 0;
+
+        for (int i = start; i < end; i++)
+        {
+            char ch = text.charAt(i);
+
+            if      ((ch >= 0x0001) && (ch <= 0x007F)) length += 1;
+            else if (ch <= 0x07FF)                     length += 2;
+            else                                       length += 3;
+        }
+
+        return length;
+    }
+}
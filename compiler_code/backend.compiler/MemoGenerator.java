@@ -0,0 +1,453 @@
+package backend.compiler;
+
+import java.util.ArrayList;
+
+import intermediate.symtab.*;
+import intermediate.type.*;
+
+import static backend.compiler.Directive.*;
+import static backend.compiler.Instruction.*;
+
+/**
+ * <h1>MemoGenerator</h1>
+ *
+ * <p>Emit the bounded result cache of a memoized function. The function's
+ * own code becomes the method name$body, and the method name itself
+ * becomes a wrapper that looks up the arguments in the cache before
+ * calling name$body.</p>
+ *
+ * <p>The cache is a hash table of parallel static arrays, one array per
+ * parameter for the keys plus arrays for the results, the used flags,
+ * and the reference bits. A key is probed in a window of PROBE_WINDOW
+ * entries. A new result replaces an entry of its window with the clock
+ * (second chance) algorithm: entries whose reference bit is set by a hit
+ * since the last sweep are skipped once.</p>
+ */
+public class MemoGenerator extends CodeGenerator
+{
+    private static final int PROBE_WINDOW = 8;
+
+    private int size;    // cache entries, a power of 2
+    private int window;  // probe window size, a power of 2
+
+    /**
+     * Constructor.
+     * @param parent the parent generator.
+     * @param compiler the compiler to use.
+     */
+    public MemoGenerator(CodeGenerator parent, Compiler compiler)
+    {
+        super(parent, compiler);
+
+        int requested = compiler.getOptions().getMemoCacheSize();
+
+        size = 1;
+        while (size < requested) size <<= 1;
+        window = Math.min(PROBE_WINDOW, size);
+    }
+
+    /**
+     * Return whether or not the parameter and return types of a function
+     * allow it to be memoized: integer, character, or string parameters,
+     * and a return value.
+     * @param routineId the symbol table entry of the function.
+     * @return true if it can be memoized, else false.
+     */
+    public static boolean canMemoize(SymtabEntry routineId)
+    {
+        Typespec type = routineId.getType();
+        ArrayList<SymtabEntry> parmIds = routineId.getRoutineParameters();
+
+        if (   (type == null) || (type == Predefined.voidType)
+            || (parmIds == null) || parmIds.isEmpty())
+        {
+            return false;
+        }
+
+        for (SymtabEntry parmId : parmIds)
+        {
+            Typespec parmType = parmId.getType();
+
+            if (   !TypeChecker.isInteger(parmType)
+                && !TypeChecker.isChar(parmType)
+                && !TypeChecker.isString(parmType))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the name of the method that does the function's real work.
+     * @param routineId the symbol table entry of the function.
+     * @return the method name.
+     */
+    public static String bodyName(SymtabEntry routineId)
+    {
+        return routineId.getName() + "$body";
+    }
+
+    /**
+     * Emit the field directives of a function's cache.
+     * @param routineId the symbol table entry of the function.
+     */
+    public void emitCacheFields(SymtabEntry routineId)
+    {
+        String name = routineId.getName();
+        ArrayList<SymtabEntry> parmIds = routineId.getRoutineParameters();
+        Directive field = compiler.sharedFieldDirective();
+
+        emitDirective(field, name + "$used",  "[Z");
+        emitDirective(field, name + "$ref",   "[Z");
+        emitDirective(field, name + "$value",
+                      arrayDescriptor(routineId.getType()));
+
+        for (int i = 0; i < parmIds.size(); i++)
+        {
+            emitDirective(field, name + "$key" + i,
+                          arrayDescriptor(parmIds.get(i).getType()));
+        }
+
+        if (compiler.getOptions().isProfiling())
+        {
+            emitDirective(field, name + "$hits",   "I");
+            emitDirective(field, name + "$misses", "I");
+        }
+    }
+
+    /**
+     * Emit code to allocate the arrays of a function's cache.
+     * It belongs in the class initializer.
+     * @param routineId the symbol table entry of the function.
+     */
+    public void emitCacheAllocation(SymtabEntry routineId)
+    {
+        String name = routineId.getName();
+        ArrayList<SymtabEntry> parmIds = routineId.getRoutineParameters();
+
+        emitAllocateArray(name + "$used",  Predefined.booleanType);
+        emitAllocateArray(name + "$ref",   Predefined.booleanType);
+        emitAllocateArray(name + "$value", routineId.getType());
+
+        for (int i = 0; i < parmIds.size(); i++)
+        {
+            emitAllocateArray(name + "$key" + i, parmIds.get(i).getType());
+        }
+    }
+
+    /**
+     * Emit code to allocate one cache array.
+     * @param fieldName the name of the array's field.
+     * @param elmtType the type of the elements.
+     */
+    private void emitAllocateArray(String fieldName, Typespec elmtType)
+    {
+        emitLoadConstant(size);
+
+        if      (TypeChecker.isBoolean(elmtType)) emit(NEWARRAY, "boolean");
+        else if (TypeChecker.isReal(elmtType))    emit(NEWARRAY, "float");
+        else if (TypeChecker.isString(elmtType))  emit(ANEWARRAY, "java/lang/String");
+        else                                      emit(NEWARRAY, "int");
+
+        emit(PUTSTATIC, programName + "/" + fieldName, arrayDescriptor(elmtType));
+    }
+
+    /**
+     * Emit the wrapper method of a memoized function.
+     * @param routineId the symbol table entry of the function.
+     */
+    public void emitWrapper(SymtabEntry routineId)
+    {
+        String name = routineId.getName();
+        Typespec type = routineId.getType();
+        ArrayList<SymtabEntry> parmIds = routineId.getRoutineParameters();
+        int parmCount = parmIds.size();
+        boolean profile = compiler.getOptions().isProfiling();
+
+        StringBuilder parmDescriptors = new StringBuilder();
+        for (SymtabEntry parmId : parmIds)
+        {
+            parmDescriptors.append(typeDescriptor(parmId));
+        }
+        String returnDescriptor = typeDescriptor(routineId);
+        String signature = "(" + parmDescriptors + ")" + returnDescriptor;
+
+        emitLine();
+        emitComment("MEMOIZED FUNCTION " + name);
+        emitDirective(compiler.sharedMethodDirective(), name + signature);
+        emitLine();
+
+        for (SymtabEntry parmId : parmIds)
+        {
+            emitDirective(VAR, parmId.getSlotNumber() + " is " + parmId.getName(),
+                          typeDescriptor(parmId));
+        }
+
+        localVariables = new LocalVariables(parmCount - 1);
+        int baseSlot  = localVariables.reserve();  // first entry of the window
+        int indexSlot = localVariables.reserve();  // index into the window
+        int entrySlot = localVariables.reserve();  // current cache entry
+        int valueSlot = localVariables.reserve();  // computed result
+
+        Label probeLabel  = newLabel();
+        Label nextLabel   = newLabel();
+        Label missLabel   = newLabel();
+        Label victimLabel = newLabel();
+        Label storeLabel  = newLabel();
+
+        // Hash the arguments to the start of the probe window.
+        emitLine();
+        emitComment("Hash the arguments");
+        for (int i = 0; i < parmCount; i++)
+        {
+            SymtabEntry parmId = parmIds.get(i);
+
+            if (i > 0)
+            {
+                emitLoadConstant(31);
+                emit(IMUL);
+            }
+
+            emitLoadLocal(parmId.getType(), parmId.getSlotNumber());
+            if (TypeChecker.isString(parmId.getType()))
+            {
+                emit(INVOKESTATIC, "java/util/Objects/hashCode(Ljava/lang/Object;)I");
+            }
+
+            if (i > 0) emit(IADD);
+        }
+        emit(DUP);
+        emitLoadConstant(16);
+        emit(IUSHR);
+        emit(IXOR);
+        emitLoadConstant(size - 1);
+        emit(IAND);
+        emitStoreLocal(Predefined.integerType, baseSlot);
+
+        // Probe the window for the arguments.
+        emitLine();
+        emitComment("Look up the arguments");
+        emitLoadConstant(0);
+        emitStoreLocal(Predefined.integerType, indexSlot);
+        emitLabel(probeLabel);
+        emitLoadLocal(Predefined.integerType, indexSlot);
+        emitLoadConstant(window);
+        emit(IF_ICMPGE, missLabel);
+        emitLoadLocal(Predefined.integerType, baseSlot);
+        emitLoadLocal(Predefined.integerType, indexSlot);
+        emit(IADD);
+        emitLoadConstant(size - 1);
+        emit(IAND);
+        emitStoreLocal(Predefined.integerType, entrySlot);
+
+        emitLoadField(name + "$used", Predefined.booleanType);
+        emitLoadLocal(Predefined.integerType, entrySlot);
+        emit(BALOAD);
+        emit(IFEQ, nextLabel);
+
+        for (int i = 0; i < parmCount; i++)
+        {
+            SymtabEntry parmId = parmIds.get(i);
+            Typespec parmType = parmId.getType();
+
+            emitLoadField(name + "$key" + i, parmType);
+            emitLoadLocal(Predefined.integerType, entrySlot);
+
+            if (TypeChecker.isString(parmType))
+            {
+                emit(AALOAD);
+                emitLoadLocal(parmType, parmId.getSlotNumber());
+                emit(INVOKESTATIC, "java/util/Objects/equals(Ljava/lang/Object;" +
+                                   "Ljava/lang/Object;)Z");
+                emit(IFEQ, nextLabel);
+            }
+            else
+            {
+                emit(IALOAD);
+                emitLoadLocal(parmType, parmId.getSlotNumber());
+                emit(IF_ICMPNE, nextLabel);
+            }
+        }
+
+        // Hit: Set the reference bit and return the cached result.
+        emitLoadField(name + "$ref", Predefined.booleanType);
+        emitLoadLocal(Predefined.integerType, entrySlot);
+        emit(ICONST_1);
+        emit(BASTORE);
+        if (profile) emitIncrementCounter(name + "$hits");
+        emitLoadField(name + "$value", type);
+        emitLoadLocal(Predefined.integerType, entrySlot);
+        emit(arrayLoad(type));
+        emitReturnValue(type);
+
+        emitLabel(nextLabel);
+        emit(IINC, indexSlot, 1);
+        emit(GOTO, probeLabel);
+
+        // Miss: Compute the result.
+        emitLabel(missLabel);
+        if (profile) emitIncrementCounter(name + "$misses");
+        for (SymtabEntry parmId : parmIds)
+        {
+            emitLoadLocal(parmId.getType(), parmId.getSlotNumber());
+        }
+        emit(INVOKESTATIC, compiler.getClassName() + "/" + bodyName(routineId)
+                           + signature);
+        emitStoreLocal(type, valueSlot);
+
+        // Choose the entry to replace: an unused one, or else the first one
+        // whose reference bit is clear, clearing the bits along the way.
+        emitLine();
+        emitComment("Replace an entry of the window");
+        emitLoadConstant(0);
+        emitStoreLocal(Predefined.integerType, indexSlot);
+        emitLabel(victimLabel);
+        emitLoadLocal(Predefined.integerType, baseSlot);
+        emitLoadLocal(Predefined.integerType, indexSlot);
+        emitLoadConstant(window - 1);
+        emit(IAND);
+        emit(IADD);
+        emitLoadConstant(size - 1);
+        emit(IAND);
+        emitStoreLocal(Predefined.integerType, entrySlot);
+
+        emitLoadField(name + "$used", Predefined.booleanType);
+        emitLoadLocal(Predefined.integerType, entrySlot);
+        emit(BALOAD);
+        emit(IFEQ, storeLabel);
+        emitLoadField(name + "$ref", Predefined.booleanType);
+        emitLoadLocal(Predefined.integerType, entrySlot);
+        emit(BALOAD);
+        emit(IFEQ, storeLabel);
+        emitLoadField(name + "$ref", Predefined.booleanType);
+        emitLoadLocal(Predefined.integerType, entrySlot);
+        emit(ICONST_0);
+        emit(BASTORE);
+        emit(IINC, indexSlot, 1);
+        emit(GOTO, victimLabel);
+
+        // Store the arguments and the result.
+        emitLabel(storeLabel);
+        emitLoadField(name + "$used", Predefined.booleanType);
+        emitLoadLocal(Predefined.integerType, entrySlot);
+        emit(ICONST_1);
+        emit(BASTORE);
+        emitLoadField(name + "$ref", Predefined.booleanType);
+        emitLoadLocal(Predefined.integerType, entrySlot);
+        emit(ICONST_0);
+        emit(BASTORE);
+
+        for (int i = 0; i < parmCount; i++)
+        {
+            SymtabEntry parmId = parmIds.get(i);
+
+            emitLoadField(name + "$key" + i, parmId.getType());
+            emitLoadLocal(Predefined.integerType, entrySlot);
+            emitLoadLocal(parmId.getType(), parmId.getSlotNumber());
+            emit(arrayStore(parmId.getType()));
+        }
+
+        emitLoadField(name + "$value", type);
+        emitLoadLocal(Predefined.integerType, entrySlot);
+        emitLoadLocal(type, valueSlot);
+        emit(arrayStore(type));
+
+        emitLoadLocal(type, valueSlot);
+        emitReturnValue(type);
+
+        emitLine();
+        emitDirective(LIMIT_LOCALS, localVariables.count());
+        emitDirective(LIMIT_STACK,  Math.max(8, parmCount + 4));
+        emitDirective(END_METHOD);
+
+        localStack.reset();
+    }
+
+    /**
+     * Emit code to print a memoized function's hit and miss counts.
+     * @param routineId the symbol table entry of the function.
+     */
+    public void emitStatistics(SymtabEntry routineId)
+    {
+        String name = routineId.getName();
+
+        emit(GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
+        emit(LDC, "\"[memo " + name + ": %d hits, %d misses]\\n\"");
+        emit(ICONST_2);
+        emit(ANEWARRAY, "java/lang/Object");
+        emit(DUP);
+        emit(ICONST_0);
+        emit(GETSTATIC, programName + "/" + name + "$hits", "I");
+        emit(INVOKESTATIC, "java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
+        emit(AASTORE);
+        emit(DUP);
+        emit(ICONST_1);
+        emit(GETSTATIC, programName + "/" + name + "$misses", "I");
+        emit(INVOKESTATIC, "java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
+        emit(AASTORE);
+        emit(INVOKEVIRTUAL, "java/io/PrintStream/printf(Ljava/lang/String;" +
+                            "[Ljava/lang/Object;)Ljava/io/PrintStream;");
+        emit(POP);
+    }
+
+    /**
+     * Emit code to load a cache array.
+     * @param fieldName the name of the array's field.
+     * @param elmtType the type of the elements.
+     */
+    private void emitLoadField(String fieldName, Typespec elmtType)
+    {
+        emit(GETSTATIC, programName + "/" + fieldName, arrayDescriptor(elmtType));
+    }
+
+    /**
+     * Emit code to increment a profile counter.
+     * @param fieldName the name of the counter's field.
+     */
+    private void emitIncrementCounter(String fieldName)
+    {
+        emit(GETSTATIC, programName + "/" + fieldName, "I");
+        emit(ICONST_1);
+        emit(IADD);
+        emit(PUTSTATIC, programName + "/" + fieldName, "I");
+    }
+
+    /**
+     * Get the descriptor of a cache array. Characters are kept as integers.
+     * @param elmtType the type of the elements.
+     * @return the descriptor.
+     */
+    private String arrayDescriptor(Typespec elmtType)
+    {
+        if      (TypeChecker.isBoolean(elmtType)) return "[Z";
+        else if (TypeChecker.isReal(elmtType))    return "[F";
+        else if (TypeChecker.isString(elmtType))  return "[Ljava/lang/String;";
+        else                                      return "[I";
+    }
+
+    /**
+     * Get the load instruction of a cache array.
+     * @param elmtType the type of the elements.
+     * @return the instruction.
+     */
+    private Instruction arrayLoad(Typespec elmtType)
+    {
+        if      (TypeChecker.isReal(elmtType))   return FALOAD;
+        else if (TypeChecker.isString(elmtType)) return AALOAD;
+        else                                     return IALOAD;
+    }
+
+    /**
+     * Get the store instruction of a cache array.
+     * @param elmtType the type of the elements.
+     * @return the instruction.
+     */
+    private Instruction arrayStore(Typespec elmtType)
+    {
+        if      (TypeChecker.isReal(elmtType))   return FASTORE;
+        else if (TypeChecker.isString(elmtType)) return AASTORE;
+        else                                     return IASTORE;
+    }
+}
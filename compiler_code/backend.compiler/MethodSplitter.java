@@ -0,0 +1,588 @@
+package backend.compiler;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import antlr4.SubCParser;
+import intermediate.ir.ControlFlowGraph;
+import intermediate.ir.GraphSplitter;
+import intermediate.ir.IrConstant;
+import intermediate.symtab.*;
+import intermediate.type.*;
+
+import static intermediate.symtab.SymtabEntry.Kind.*;
+import static backend.compiler.Directive.*;
+import static backend.compiler.Instruction.*;
+
+/**
+ * <h1>MethodSplitter</h1>
+ *
+ * <p>Split a method whose code is too big into helper methods. HotSpot
+ * doesn't compile a method bigger than HUGE_METHOD_LIMIT bytes, and the
+ * JVM rejects a method bigger than 64K bytes. Such a method is compiled
+ * again after it's compiled whole, with runs of its consecutive statements
+ * moved into private static helper methods named after it, such as main$1.
+ * The whole compilation measured the code of each statement.</p>
+ *
+ * <p>A function passes a helper the local variables that the helper shares
+ * with the rest of the function, and the helper returns the ones that it
+ * assigns: one as its value, and several in an Object array. The other
+ * variables of the helper's statements are its own. The main program's
+ * variables are fields, so its helpers have no parameters. A statement
+ * with a return can't be moved, but the statements nested in it can.</p>
+ *
+ * <p>The SSA form of a method is instead cut into a chain of pieces,
+ * each of which calls the next one at its end.</p>
+ */
+public class MethodSplitter extends CodeGenerator
+{
+    public static final int HUGE_METHOD_LIMIT = 8000;  // bytes
+    private static final int REGION_SIZE      = 4000;  // bytes per helper
+    private static final int MAX_CALLS        = 32;    // helpers per list
+    private static final int MAX_PARAMETERS   = 250;   // of 255 slots
+
+    private SymtabEntry routineId;   // the function, or null for main
+    private String methodName;       // name of the method being split
+    private boolean oversized;       // true if the method is too big
+
+    // The variables' slots in a helper method, or null in the function,
+    // and the counts of the variables' references in the whole function.
+    private HashMap<SymtabEntry, Integer> slots;
+    private HashMap<SymtabEntry, Integer> references;
+
+    private int helperCount;       // helpers split from this method
+    private StringBuilder helpers; // code of the helpers
+
+    /**
+     * The statements moved into a helper method.
+     */
+    static class Region
+    {
+        private ArrayList<SubCParser.StatementContext> statements;
+        private HashMap<SymtabEntry, Integer> counts;  // variable references
+        private HashSet<SymtabEntry> assigned;         // variables assigned
+        private int size;                              // code size in bytes
+        private int parameterCount;                    // variables shared
+
+        private String name;                      // helper method name
+        private String descriptor;                // helper method descriptor
+        private ArrayList<SymtabEntry> parameters;  // variables passed in
+        private ArrayList<SymtabEntry> results;     // variables returned
+        private ArrayList<SymtabEntry> locals;      // helper's own variables
+
+        private Region()
+        {
+            this.statements = new ArrayList<SubCParser.StatementContext>();
+            this.counts     = new HashMap<SymtabEntry, Integer>();
+            this.assigned   = new HashSet<SymtabEntry>();
+        }
+    }
+
+    /**
+     * Constructor for a method that is too big.
+     * @param parent the parent generator.
+     * @param compiler the compiler to use.
+     * @param routineId the symbol table entry of the function,
+     *                  or null for the main program.
+     * @param methodName the name of the method.
+     */
+    public MethodSplitter(CodeGenerator parent, Compiler compiler,
+                          SymtabEntry routineId, String methodName)
+    {
+        super(parent, compiler);
+
+        this.routineId  = routineId;
+        this.methodName = methodName;
+        this.oversized  = true;
+        this.helpers    = new StringBuilder();
+
+        compiler.setSplitter(this);
+    }
+
+    /**
+     * Constructor for a helper method.
+     * @param parent the parent generator.
+     * @param compiler the helper's compiler.
+     * @param caller the splitter of the method that calls the helper.
+     */
+    MethodSplitter(CodeGenerator parent, Compiler compiler, MethodSplitter caller)
+    {
+        super(parent, compiler);
+
+        this.routineId  = caller.routineId;
+        this.references = caller.references;
+        this.helpers    = new StringBuilder();
+    }
+
+    /**
+     * Split the SSA form of a method into a chain of pieces.
+     * @param cfg the method's graph, which keeps the first piece.
+     * @param methodName the name of the method.
+     * @return the graphs of the other pieces, in order.
+     */
+    public static ArrayList<ControlFlowGraph> splitGraph(ControlFlowGraph cfg,
+                                                         String methodName)
+    {
+        return new GraphSplitter(cfg).split(IrGenerator::estimateSize,
+                                            REGION_SIZE, MAX_PARAMETERS,
+                                            methodName);
+    }
+
+    /**
+     * Get the slot of a variable in the method being emitted.
+     * @param variableId the variable's symbol table entry.
+     * @return the slot number.
+     */
+    public int slotOf(SymtabEntry variableId)
+    {
+        Integer slot = (slots != null) ? slots.get(variableId) : null;
+        return slot != null ? slot : variableId.getSlotNumber();
+    }
+
+    /**
+     * Emit the statements of the method's body. A function's variables
+     * are first initialized, since a helper may return them before
+     * they're assigned.
+     * @param statements the statements.
+     */
+    public void emitBody(List<SubCParser.StatementContext> statements)
+    {
+        if (routineId != null)
+        {
+            Region body = new Region();
+            for (SubCParser.StatementContext stmtCtx : statements)
+            {
+                findReferences(stmtCtx, body);
+            }
+            references = body.counts;
+
+            for (SymtabEntry id : routineId.getRoutineSymtab().sortedEntries())
+            {
+                if (   (id.getKind() == VARIABLE) && (id.getType() != null)
+                    && (id.getType() != Predefined.voidType))
+                {
+                    emitLoadConstant(IrConstant.defaultValue(id.getType()));
+                    emitStoreLocal(id.getType(), id.getSlotNumber());
+                }
+            }
+        }
+
+        emitStatements(statements, true);
+    }
+
+    /**
+     * Emit the code of the helper methods after the method.
+     */
+    public void emitHelpers()
+    {
+        objectFile.print(helpers);
+        objectFile.flush();
+    }
+
+    /**
+     * Emit a list of statements. If the method is too big, runs of the
+     * statements are moved into helper methods: the statements of the
+     * method's body, and those of a nested list bigger than a helper.
+     * @param statements the statements.
+     * @param body true if they're the statements of the method's body.
+     */
+    public void emitStatements(List<SubCParser.StatementContext> statements,
+                               boolean body)
+    {
+        int size = 0;
+        for (SubCParser.StatementContext stmtCtx : statements)
+        {
+            size += compiler.statementSize(stmtCtx);
+        }
+
+        ArrayList<Region> regions = new ArrayList<Region>();
+        if (oversized && (body || (size > REGION_SIZE)))
+        {
+            regions = findRegions(statements,
+                                  Math.max(REGION_SIZE, size/MAX_CALLS));
+
+            // Moving the whole body would just make another such method,
+            // so split the statements nested in its statements instead.
+            if (   body && (regions.size() == 1)
+                && (regions.get(0).statements.size() == statements.size()))
+            {
+                regions.clear();
+            }
+        }
+
+        int next = 0;
+        for (Region region : regions)
+        {
+            while (statements.get(next) != region.statements.get(0))
+            {
+                compiler.visit(statements.get(next++));
+            }
+
+            emitCall(region);
+            next += region.statements.size();
+        }
+
+        while (next < statements.size()) compiler.visit(statements.get(next++));
+    }
+
+    /**
+     * Find the runs of statements to move into helpers. A run ends before
+     * it gets bigger than a helper or needs too many parameters.
+     * @param statements the statements.
+     * @param helperSize the size of a helper in bytes.
+     * @return the list of runs.
+     */
+    private ArrayList<Region> findRegions(
+                                List<SubCParser.StatementContext> statements,
+                                int helperSize)
+    {
+        ArrayList<Region> regions = new ArrayList<Region>();
+        Region region = null;
+
+        for (SubCParser.StatementContext stmtCtx : statements)
+        {
+            Region statement = new Region();
+            boolean movable = findReferences(stmtCtx, statement);
+            statement.statements.add(stmtCtx);
+            statement.size = compiler.statementSize(stmtCtx);
+            statement.parameterCount = parameters(statement).size();
+
+            if (!movable || (statement.parameterCount > MAX_PARAMETERS))
+            {
+                region = null;
+                continue;
+            }
+
+            if (   (region != null) && (region.size + statement.size <= helperSize)
+                && (joinedParameterCount(region, statement) <= MAX_PARAMETERS))
+            {
+                join(region, statement);
+                continue;
+            }
+
+            regions.add(statement);
+            region = statement;
+        }
+
+        return regions;
+    }
+
+    /**
+     * Join a region into the region that it follows. Only the second
+     * region's statements and variables are visited, so a run is found
+     * in time proportional to its statements.
+     * @param region1 the first region, which gets the joined statements.
+     * @param region2 the region that follows it.
+     */
+    private void join(Region region1, Region region2)
+    {
+        region1.parameterCount = joinedParameterCount(region1, region2);
+
+        region1.statements.addAll(region2.statements);
+        region2.counts.forEach((id, count) -> region1.counts.merge(id, count,
+                                                               Integer::sum));
+        region1.assigned.addAll(region2.assigned);
+        region1.size += region2.size;
+    }
+
+    /**
+     * Count the variables that two regions would share with the rest
+     * of the function if they were joined.
+     * @param region1 the first region.
+     * @param region2 the region that follows it.
+     * @return the count.
+     */
+    private int joinedParameterCount(Region region1, Region region2)
+    {
+        int count = region1.parameterCount;
+
+        for (Map.Entry<SymtabEntry, Integer> entry : region2.counts.entrySet())
+        {
+            SymtabEntry id = entry.getKey();
+            int before = region1.counts.getOrDefault(id, 0);
+
+            if ((before > 0) && isShared(id, before)) count--;
+            if (isShared(id, before + entry.getValue()))  count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Return whether or not a variable of a region is shared with the
+     * rest of the function: it's a parameter, or it's referenced elsewhere.
+     * @param id the variable's symbol table entry.
+     * @param count the count of its references in the region.
+     * @return true if it's shared, else false.
+     */
+    private boolean isShared(SymtabEntry id, int count)
+    {
+        return    (id.getKind() == VALUE_PARAMETER)
+               || (count < references.getOrDefault(id, 0));
+    }
+
+    /**
+     * Find the references to the function's local variables in a parse tree.
+     * @param tree the parse tree.
+     * @param region the region to add the references and assignments to.
+     * @return false if the tree contains a return statement, else true.
+     */
+    private boolean findReferences(ParseTree tree, Region region)
+    {
+        SubCParser.VariableContext assignedCtx = null;
+
+        if (tree instanceof SubCParser.ReturnStatementContext) return false;
+        else if (tree instanceof SubCParser.VariableContext)
+        {
+            SymtabEntry id = ((SubCParser.VariableContext) tree).entry;
+            if (isLocal(id)) region.counts.merge(id, 1, Integer::sum);
+        }
+        else if (tree instanceof SubCParser.AssignmentStatementContext)
+        {
+            SubCParser.AssignmentStatementContext ctx =
+                                    (SubCParser.AssignmentStatementContext) tree;
+            assignedCtx = (ctx.lhs() != null) ? ctx.lhs().variable()
+                                              : ctx.variable();
+        }
+        else if (tree instanceof SubCParser.ForIncrementStatementContext)
+        {
+            SubCParser.ForIncrementStatementContext ctx =
+                                    (SubCParser.ForIncrementStatementContext) tree;
+            assignedCtx = (ctx.lhs() != null) ? ctx.lhs().variable()
+                                              : ctx.variable();
+        }
+
+        if ((assignedCtx != null) && isLocal(assignedCtx.entry))
+        {
+            region.assigned.add(assignedCtx.entry);
+        }
+
+        boolean movable = true;
+        for (int i = 0; i < tree.getChildCount(); i++)
+        {
+            movable = findReferences(tree.getChild(i), region) && movable;
+        }
+
+        return movable;
+    }
+
+    /**
+     * Return whether or not a variable is a local variable or a parameter
+     * of the function.
+     * @param id the variable's symbol table entry.
+     * @return true if it is, else false.
+     */
+    private static boolean isLocal(SymtabEntry id)
+    {
+        return    (id != null)
+               && ((id.getKind() == VARIABLE) || (id.getKind() == VALUE_PARAMETER))
+               && (id.getSymtab() != null)
+               && (id.getSymtab().getNestingLevel() > 1);
+    }
+
+    /**
+     * Find the variables that a region shares with the rest of the function:
+     * the parameters, and the variables that are also referenced elsewhere.
+     * @param region the region.
+     * @return the variables, in slot order.
+     */
+    private ArrayList<SymtabEntry> parameters(Region region)
+    {
+        ArrayList<SymtabEntry> parameters = new ArrayList<SymtabEntry>();
+
+        region.counts.forEach((id, count) ->
+        {
+            if (isShared(id, count)) parameters.add(id);
+        });
+
+        sortBySlot(parameters);
+        return parameters;
+    }
+
+    /**
+     * Sort variables by their slots in the function.
+     * @param ids the variables' symbol table entries.
+     */
+    private static void sortBySlot(ArrayList<SymtabEntry> ids)
+    {
+        Collections.sort(ids, Comparator.comparingInt(SymtabEntry::getSlotNumber));
+    }
+
+    /**
+     * Emit a call of a region's helper method, after compiling the helper.
+     * @param region the region.
+     */
+    private void emitCall(Region region)
+    {
+        region.name       = methodName + "$" + (++helperCount);
+        region.parameters = parameters(region);
+        region.results    = new ArrayList<SymtabEntry>();
+        region.locals     = new ArrayList<SymtabEntry>();
+
+        for (SymtabEntry id : region.counts.keySet())
+        {
+            if (!region.parameters.contains(id)) region.locals.add(id);
+        }
+        for (SymtabEntry id : region.parameters)
+        {
+            if (region.assigned.contains(id)) region.results.add(id);
+        }
+        sortBySlot(region.locals);
+
+        StringBuilder descriptor = new StringBuilder("(");
+        for (SymtabEntry id : region.parameters)
+        {
+            descriptor.append(typeDescriptor(id));
+        }
+        descriptor.append(")");
+
+        int count = region.results.size();
+        if      (count == 0) descriptor.append("V");
+        else if (count == 1) descriptor.append(typeDescriptor(region.results.get(0)));
+        else                 descriptor.append("[Ljava/lang/Object;");
+        region.descriptor = descriptor.toString();
+
+        // Compile the helper into its own buffer.
+        StringWriter buffer = new StringWriter();
+        Compiler helperCompiler = new Compiler(compiler, new PrintWriter(buffer));
+        helperCompiler.emitHelper(this, region);
+        compiler.addInstructionCount(helperCompiler.getInstructionCount());
+        helpers.append(buffer.toString());
+
+        // Call the helper and store the returned variables.
+        for (SymtabEntry id : region.parameters)
+        {
+            emitLoadLocal(id.getType(), compiler.slotOf(id));
+        }
+        emit(INVOKESTATIC, compiler.getClassName() + "/"
+                           + region.name + region.descriptor);
+        localStack.decrease(region.parameters.size());
+        if (count > 0) localStack.increase(1);
+
+        if (count == 1)
+        {
+            SymtabEntry id = region.results.get(0);
+            emitStoreLocal(id.getType(), compiler.slotOf(id));
+        }
+        else if (count > 1)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                SymtabEntry id = region.results.get(i);
+                Typespec type = id.getType().baseType();
+
+                if (i < count - 1) emit(DUP);
+                emitLoadConstant(i);
+                emit(AALOAD);
+                emitCheckCastClass(type);
+                if (!TypeChecker.isString(type)) emit(INVOKEVIRTUAL, unboxSignature(type));
+                emitStoreLocal(type, compiler.slotOf(id));
+            }
+        }
+    }
+
+    /**
+     * Emit a helper method.
+     * @param region the region of the helper's statements.
+     */
+    void emitHelperMethod(Region region)
+    {
+        methodName = region.name;
+        oversized  = region.size > HUGE_METHOD_LIMIT;
+        slots      = new HashMap<SymtabEntry, Integer>();
+
+        for (SymtabEntry id : region.parameters) slots.put(id, slots.size());
+        for (SymtabEntry id : region.locals)     slots.put(id, slots.size());
+
+        emitLine();
+        emitComment("HELPER " + methodName);
+        emitDirective(METHOD_PRIVATE_STATIC, methodName + region.descriptor);
+        emitLine();
+
+        localVariables = new LocalVariables(slots.size() - 1);
+
+        // The helper's own variables start out with their default values.
+        for (SymtabEntry id : region.locals)
+        {
+            emitLoadConstant(IrConstant.defaultValue(id.getType()));
+            emitStoreLocal(id.getType(), slots.get(id));
+        }
+
+        emitStatements(region.statements, true);
+        emitLine();
+        emitReturn(region);
+
+        emitLine();
+        emitDirective(LIMIT_LOCALS, localVariables.count());
+        emitDirective(LIMIT_STACK,  Math.max(15, localStack.capacity()));
+        emitDirective(END_METHOD);
+
+        emitHelpers();
+    }
+
+    /**
+     * Emit the return of a helper method's assigned variables.
+     * @param region the region of the helper's statements.
+     */
+    private void emitReturn(Region region)
+    {
+        int count = region.results.size();
+
+        if (count == 0)
+        {
+            emit(RETURN);
+        }
+        else if (count == 1)
+        {
+            SymtabEntry id = region.results.get(0);
+            emitLoadLocal(id.getType(), slots.get(id));
+            emitReturnValue(id.getType());
+        }
+        else
+        {
+            emitLoadConstant(count);
+            emit(ANEWARRAY, "java/lang/Object");
+
+            for (int i = 0; i < count; i++)
+            {
+                SymtabEntry id = region.results.get(i);
+                Typespec type = id.getType().baseType();
+
+                emit(DUP);
+                emitLoadConstant(i);
+                emitLoadLocal(type, slots.get(id));
+                if (!TypeChecker.isString(type))
+                {
+                    emit(INVOKESTATIC, valueOfSignature(type));
+                }
+                emit(AASTORE);
+            }
+
+            emit(ARETURN);
+        }
+    }
+
+    /**
+     * Return the signature of the method that unboxes a scalar value.
+     * @param type the scalar type.
+     * @return the signature.
+     */
+    private String unboxSignature(Typespec type)
+    {
+        String typeName = type == Predefined.realType ? "float"
+                        : type == Predefined.charType ? "char"
+                        :                               "int";
+
+        return String.format("%s/%sValue()%s", objectTypeName(type),
+                             typeName, typeDescriptor(type));
+    }
+}
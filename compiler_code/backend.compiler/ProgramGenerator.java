@@ -1,16 +1,32 @@
 package backend.compiler;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.stream.Collectors;
+
+import org.antlr.v4.runtime.tree.ParseTree;
 
 import antlr4.SubCParser;
+import intermediate.ir.ConstantFolder;
+import intermediate.ir.ControlFlowGraph;
+import intermediate.ir.IrBuilder;
+import intermediate.ir.IrInterpreter;
+import intermediate.ir.PurityAnalysis;
 import intermediate.symtab.Predefined;
 import intermediate.symtab.Symtab;
 import intermediate.symtab.SymtabEntry;
 import intermediate.symtab.SymtabEntry.Kind;
 import intermediate.type.Typespec;
+import intermediate.util.CompileTimings;
 
 import static intermediate.symtab.SymtabEntry.Kind.*;
+import static intermediate.symtab.SymtabEntry.Routine.*;
 import static intermediate.type.Typespec.Form.*;
 import static backend.compiler.Directive.*;
 import static backend.compiler.Instruction.*;
@@ -20,6 +36,15 @@ public class ProgramGenerator extends CodeGenerator
     private SymtabEntry programId;   // symbol table entry of the program name
     private int programLocalsCount;  // count of program local variables
 
+    // SSA forms of the functions, and the functions to memoize.
+    private LinkedHashMap<SymtabEntry, ControlFlowGraph> functionGraphs;
+    private ArrayList<SymtabEntry> memoizedIds;
+    private MemoGenerator memoCode;
+    private IrInterpreter interpreter;  // compile-time evaluator, or null
+    private FunctionCache functionCache;  // reused code, or null if none
+    private LinkedHashSet<SymtabEntry> inputIds;  // input routines called
+    private InputGenerator inputCode;
+
     /**
      * Constructor.
      * @param the parent generator.
@@ -44,24 +69,414 @@ public class ProgramGenerator extends CodeGenerator
         
         localVariables = new LocalVariables(programLocalsCount);
         
+        analyzeFunctions(ctx);
         
         emitDirective(CLASS_PUBLIC, programName);
         emitDirective(SUPER, "java/lang/Object");
 
+        inputIds  = new LinkedHashSet<SymtabEntry>();
+        inputCode = new InputGenerator(this, compiler);
+        findInputRoutines(ctx);
+        findLongStrings(ctx);
+
         emitProgramVariables();
-        emitInputScanner();
+        emitClassInitializer();
+        emitInputRoutines();
         emitConstructor();
         //emitSubroutines(ctx.block().declarations().routinesPart());
-        if(ctx.functionDefinitions().functionDefinition().size() != 0)
-        {
-            for(SubCParser.FunctionDefinitionContext functCtx : ctx.functionDefinitions().functionDefinition())
-            emitFunction(functCtx);
-        }
+        emitFunctions(ctx.functionDefinitions().functionDefinition());
+        objectFile.print(mainCode(ctx));
 
-        emitMainMethod(ctx);
+        close();  // the object file
+
+        if (functionCache != null) functionCache.save();
     }
     
     
+    /**
+     * Get the interpreter that evaluates pure function calls at compile time.
+     * @return the interpreter, or null if compile-time evaluation is off.
+     */
+    public IrInterpreter getInterpreter() { return interpreter; }
+
+    /**
+     * Share the program's analysis of its functions with the generator
+     * of one function. The function gets its own interpreter and memo
+     * code generator, since functions are compiled in parallel.
+     * @param parent the program's generator.
+     */
+    public void shareAnalysis(ProgramGenerator parent)
+    {
+        programId      = parent.programId;
+        functionGraphs = parent.functionGraphs;
+        memoizedIds    = parent.memoizedIds;
+        memoCode       = new MemoGenerator(this, compiler);
+        interpreter    = (parent.interpreter != null) ? parent.interpreter.copy()
+                                                      : null;
+    }
+
+    /**
+     * Build the SSA forms of the functions when they're needed, fold
+     * their constant computations and pure calls with constant arguments,
+     * and choose the pure functions with branching recursion to memoize.
+     * When compiling incrementally, a function whose code is reused
+     * needs an SSA form only if a function compiled now can call it.
+     * @param ctx the ProgramContext.
+     */
+    private void analyzeFunctions(SubCParser.ProgramContext ctx)
+    {
+        functionGraphs = new LinkedHashMap<SymtabEntry, ControlFlowGraph>();
+        memoizedIds    = new ArrayList<SymtabEntry>();
+        memoCode       = new MemoGenerator(this, compiler);
+
+        compiler.setPartition(ClassPartition.create(ctx, programName));
+
+        if (compiler.getOptions().isIncremental())
+        {
+            functionCache = new FunctionCache(programName, compiler.getOptions(),
+                                              compiler.getOut());
+            functionCache.computeKeys(ctx, compiler.getPartition());
+        }
+
+        boolean memoize  = compiler.getOptions().getMemoCacheSize() > 0;
+        int evalBudget   = compiler.getOptions().getEvalStepBudget();
+        if (!memoize && (evalBudget == 0) && !compiler.isOptimizing()) return;
+
+        HashSet<SymtabEntry> neededIds = neededFunctions(ctx);
+
+        // Without -O, only the candidates need SSA forms.
+        if (!compiler.isOptimizing())
+        {
+            HashSet<SymtabEntry> candidateIds =
+                    candidateFunctions(ctx, memoize, evalBudget > 0);
+
+            if (neededIds != null) candidateIds.retainAll(neededIds);
+            neededIds = candidateIds;
+        }
+
+        for (SubCParser.FunctionDefinitionContext functCtx : 
+                            ctx.functionDefinitions().functionDefinition())
+        {
+            SymtabEntry routineId = functCtx.functionName().entry;
+
+            if ((neededIds == null) || neededIds.contains(routineId))
+            {
+                functionGraphs.put(routineId,
+                                   new IrBuilder().buildFunction(functCtx));
+            }
+        }
+
+        PurityAnalysis purity = new PurityAnalysis(functionGraphs.values());
+
+        if (evalBudget > 0)
+        {
+            interpreter = new IrInterpreter(functionGraphs, purity, evalBudget,
+                                            IrInterpreter.DEFAULT_DEPTH_BUDGET);
+
+            for (ControlFlowGraph cfg : functionGraphs.values())
+            {
+                new ConstantFolder(cfg, interpreter).run();
+            }
+
+            // Folded calls may have ended some recursions.
+            purity = new PurityAnalysis(functionGraphs.values());
+        }
+
+        if (!memoize) return;
+
+        for (SubCParser.FunctionDefinitionContext functCtx : 
+                            ctx.functionDefinitions().functionDefinition())
+        {
+            SymtabEntry routineId = functCtx.functionName().entry;
+            FunctionCache.Entry entry = (functionCache != null)
+                                            ? functionCache.lookup(routineId)
+                                            : null;
+
+            if (entry != null)
+            {
+                if (entry.isMemoized()) memoizedIds.add(routineId);
+            }
+            else if (   purity.isPure(routineId)
+                     && purity.isBranchingRecursive(routineId)
+                     && MemoGenerator.canMemoize(routineId))
+            {
+                memoizedIds.add(routineId);
+            }
+        }
+    }
+
+    /**
+     * Find the functions that need SSA forms when compiling incrementally:
+     * the functions compiled now, and the functions that they and the
+     * main program can call.
+     * @param ctx the ProgramContext.
+     * @return the set of functions, or null if all are needed.
+     */
+    private HashSet<SymtabEntry> neededFunctions(SubCParser.ProgramContext ctx)
+    {
+        if (functionCache == null) return null;
+
+        LinkedHashSet<SymtabEntry> rootIds = new LinkedHashSet<SymtabEntry>();
+        FunctionCache.findCallees(ctx.mainProgram(), rootIds);
+
+        for (SubCParser.FunctionDefinitionContext functCtx : 
+                            ctx.functionDefinitions().functionDefinition())
+        {
+            SymtabEntry routineId = functCtx.functionName().entry;
+            if (functionCache.lookup(routineId) == null) rootIds.add(routineId);
+        }
+
+        HashSet<SymtabEntry> neededIds = new HashSet<SymtabEntry>();
+        for (SymtabEntry routineId : rootIds)
+        {
+            neededIds.addAll(functionCache.dependencies(routineId));
+        }
+
+        return neededIds;
+    }
+
+    /**
+     * Find the functions that can be memoized or evaluated at compile time
+     * by the tree-walking code generator, and the functions that they can
+     * call. A candidate for memoization is in a cycle of calls, and its
+     * recursion branches: it has more than one recursive call or one
+     * inside a loop. A candidate for evaluation is called somewhere with
+     * only literal arguments. The purity analysis of the SSA forms decides
+     * which of these candidates are actually memoized or evaluated.
+     * @param ctx the ProgramContext.
+     * @param memoize true if memoizing.
+     * @param evaluate true if evaluating calls at compile time.
+     * @return the set of functions.
+     */
+    private HashSet<SymtabEntry> candidateFunctions(SubCParser.ProgramContext ctx,
+                                                    boolean memoize,
+                                                    boolean evaluate)
+    {
+        LinkedHashMap<SymtabEntry, LinkedHashSet<SymtabEntry>> callees =
+                new LinkedHashMap<SymtabEntry, LinkedHashSet<SymtabEntry>>();
+
+        for (SubCParser.FunctionDefinitionContext functCtx : 
+                            ctx.functionDefinitions().functionDefinition())
+        {
+            LinkedHashSet<SymtabEntry> called = new LinkedHashSet<SymtabEntry>();
+            FunctionCache.findCallees(functCtx.compoundStatement(), called);
+            callees.put(functCtx.functionName().entry, called);
+        }
+
+        HashMap<SymtabEntry, HashSet<SymtabEntry>> reached =
+                new HashMap<SymtabEntry, HashSet<SymtabEntry>>();
+        for (SymtabEntry routineId : callees.keySet())
+        {
+            reached.put(routineId, reachable(callees, routineId));
+        }
+
+        HashSet<SymtabEntry> rootIds = new HashSet<SymtabEntry>();
+
+        if (evaluate) findLiteralCalls(ctx, new IrBuilder(), rootIds);
+
+        if (memoize)
+        {
+            for (SubCParser.FunctionDefinitionContext functCtx : 
+                                ctx.functionDefinitions().functionDefinition())
+            {
+                SymtabEntry routineId = functCtx.functionName().entry;
+                if (!reached.get(routineId).contains(routineId)) continue;
+
+                // The functions that can call back to this one.
+                HashSet<SymtabEntry> cycleIds = new HashSet<SymtabEntry>();
+                for (SymtabEntry calleeId : reached.get(routineId))
+                {
+                    if (reached.get(calleeId).contains(routineId))
+                    {
+                        cycleIds.add(calleeId);
+                    }
+                }
+
+                if (recursiveCalls(functCtx.compoundStatement(),
+                                   cycleIds, false) > 1)
+                {
+                    rootIds.add(routineId);
+                }
+            }
+        }
+
+        HashSet<SymtabEntry> candidateIds = new HashSet<SymtabEntry>();
+        for (SymtabEntry routineId : rootIds)
+        {
+            candidateIds.add(routineId);
+            candidateIds.addAll(reached.get(routineId));
+        }
+
+        return candidateIds;
+    }
+
+    /**
+     * Find the functions that a function can call, directly or through
+     * other functions.
+     * @param callees the functions that each function calls.
+     * @param routineId the function's symbol table entry.
+     * @return the set of functions, which includes the function itself
+     * only if it's recursive.
+     */
+    private static HashSet<SymtabEntry> reachable(
+                    HashMap<SymtabEntry, LinkedHashSet<SymtabEntry>> callees,
+                    SymtabEntry routineId)
+    {
+        HashSet<SymtabEntry> reached = new HashSet<SymtabEntry>();
+        ArrayList<SymtabEntry> worklist = new ArrayList<SymtabEntry>();
+        worklist.add(routineId);
+
+        while (!worklist.isEmpty())
+        {
+            SymtabEntry id = worklist.remove(worklist.size() - 1);
+            LinkedHashSet<SymtabEntry> called = callees.get(id);
+            if (called == null) continue;
+
+            for (SymtabEntry calleeId : called)
+            {
+                if (reached.add(calleeId)) worklist.add(calleeId);
+            }
+        }
+
+        return reached;
+    }
+
+    /**
+     * Find the declared functions that are called with only literal
+     * arguments, which the tree-walking code generator can evaluate.
+     * @param tree the parse tree to search.
+     * @param builder the builder that gets the values of literals.
+     * @param calledIds the set of functions to add to.
+     */
+    private static void findLiteralCalls(ParseTree tree, IrBuilder builder,
+                                         HashSet<SymtabEntry> calledIds)
+    {
+        if (tree instanceof SubCParser.FunctionCallContext)
+        {
+            SubCParser.FunctionCallContext callCtx =
+                                            (SubCParser.FunctionCallContext) tree;
+            SymtabEntry routineId = callCtx.functionName().entry;
+
+            if (   (routineId != null) && (routineId.getKind() == FUNCTION)
+                && (routineId.getRoutineCode() == DECLARED)
+                && !calledIds.contains(routineId))
+            {
+                ArrayList<SymtabEntry> parmIds = routineId.getRoutineParameters();
+                boolean literals = true;
+
+                if (callCtx.argumentList() != null)
+                {
+                    int i = 0;
+                    for (SubCParser.ArgumentContext argCtx :
+                                            callCtx.argumentList().argument())
+                    {
+                        literals =    literals
+                                   && (builder.literal(argCtx.expression(),
+                                           parmIds.get(i).getType()) != null);
+                        i++;
+                    }
+                }
+
+                if (literals) calledIds.add(routineId);
+            }
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++)
+        {
+            findLiteralCalls(tree.getChild(i), builder, calledIds);
+        }
+    }
+
+    /**
+     * Count the recursive calls in a parse tree. A call inside a loop
+     * counts as two, since it can be made more than once.
+     * @param tree the parse tree.
+     * @param cycleIds the functions that can call back to the caller.
+     * @param inLoop true if the tree is inside a loop.
+     * @return the count.
+     */
+    private static int recursiveCalls(ParseTree tree, HashSet<SymtabEntry> cycleIds,
+                                      boolean inLoop)
+    {
+        int count = 0;
+
+        if (   (tree instanceof SubCParser.FunctionNameContext)
+            && cycleIds.contains(((SubCParser.FunctionNameContext) tree).entry))
+        {
+            count = inLoop ? 2 : 1;
+        }
+
+        inLoop =    inLoop
+                 || (tree instanceof SubCParser.WhileStatementContext)
+                 || (tree instanceof SubCParser.ForStatementContext);
+
+        for (int i = 0; i < tree.getChildCount(); i++)
+        {
+            count += recursiveCalls(tree.getChild(i), cycleIds, inLoop);
+        }
+
+        return count;
+    }
+
+    /**
+     * Find the routines that read input which the program calls.
+     * @param tree the parse tree to search.
+     */
+    private void findInputRoutines(ParseTree tree)
+    {
+        if (tree instanceof SubCParser.FunctionNameContext)
+        {
+            SymtabEntry routineId = ((SubCParser.FunctionNameContext) tree).entry;
+
+            if (   (routineId != null) && (routineId.getKind() == FUNCTION)
+                && (routineId.getRoutineCode() != null)
+                && routineId.getRoutineCode().readsInput())
+            {
+                inputIds.add(routineId);
+            }
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++)
+        {
+            findInputRoutines(tree.getChild(i));
+        }
+    }
+
+    /**
+     * Find the string constants that are too long for the constant pool.
+     * A format string is loaded as is, and other string constants
+     * are converted first.
+     * @param tree the parse tree to search.
+     */
+    private void findLongStrings(ParseTree tree)
+    {
+        if (tree instanceof SubCParser.StringConstantContext)
+        {
+            String text = tree.getText();
+
+            compiler.getLongStrings().add(
+                tree.getParent() instanceof SubCParser.FormatStringContext
+                    ? text.substring(1, text.length() - 1)
+                    : compiler.convertString(text));
+            return;
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++)
+        {
+            findLongStrings(tree.getChild(i));
+        }
+    }
+
+    /**
+     * Return whether or not a function is memoized.
+     * @param routineId the symbol table entry of the function.
+     * @return true if memoized, else false.
+     */
+    private boolean isMemoized(SymtabEntry routineId)
+    {
+        return (memoizedIds != null) && memoizedIds.contains(routineId);
+    }
+
     /**
      * Emit field directives for the program variables.
      */
@@ -73,7 +488,7 @@ public class ProgramGenerator extends CodeGenerator
         ArrayList<SymtabEntry> ids = symtab.sortedEntries();
 
         emitLine();
-        emitDirective(FIELD_PRIVATE_STATIC, "_sysin", "Ljava/util/Scanner;");
+        if (!inputIds.isEmpty()) inputCode.emitFields(inputIds);
 
         // Loop over all the program's identifiers and
         // emit a .field directive for each variable.
@@ -85,23 +500,49 @@ public class ProgramGenerator extends CodeGenerator
                               typeDescriptor(id));
             }
         }
+
+        // The caches of the memoized functions.
+        for (SymtabEntry routineId : memoizedIds)
+        {
+            memoCode.emitCacheFields(routineId);
+        }
+
+        // The string constants that are too long for the constant pool.
+        LongStrings longStrings = compiler.getLongStrings();
+        for (String text : longStrings.getTexts())
+        {
+            emitDirective(compiler.sharedConstantDirective(),
+                          longStrings.fieldOf(text), "Ljava/lang/String;");
+        }
     }
     
     /**
-     * Emit code for the runtime input scanner.
+     * Emit the class initializer, if there are memo caches to allocate
+     * or long string constants to join.
      */
-    private void emitInputScanner()
+    private void emitClassInitializer()
     {
+        LongStrings longStrings = compiler.getLongStrings();
+        if (memoizedIds.isEmpty() && longStrings.isEmpty()) return;
+
         emitLine();
-        emitComment("Runtime input scanner");
+        emitComment(memoizedIds.isEmpty() ? "Long string constants"
+                                          : "Memo cache allocation");
         emitDirective(METHOD_STATIC, "<clinit>()V");
         emitLine();
-        
-        emit(NEW, "java/util/Scanner");
-        emit(DUP);
-        emit(GETSTATIC, "java/lang/System/in Ljava/io/InputStream;");
-        emit(INVOKESPECIAL, "java/util/Scanner/<init>(Ljava/io/InputStream;)V");
-        emit(PUTSTATIC, programName + "/_sysin Ljava/util/Scanner;");
+
+        for (SymtabEntry routineId : memoizedIds)
+        {
+            memoCode.emitCacheAllocation(routineId);
+        }
+
+        for (String text : longStrings.getTexts())
+        {
+            emitJoinChunks(text);
+            emit(PUTSTATIC, programName + "/" + longStrings.fieldOf(text),
+                 "Ljava/lang/String;");
+        }
+
         emit(RETURN);
         
         emitLine();
@@ -112,6 +553,14 @@ public class ProgramGenerator extends CodeGenerator
         localStack.reset();
     }
 
+    /**
+     * Emit the runtime reader methods, if the program reads input.
+     */
+    private void emitInputRoutines()
+    {
+        if (!inputIds.isEmpty()) inputCode.emitMethods(inputIds);
+    }
+
     /**
      * Emit code for the main program constructor.
      */
@@ -136,11 +585,43 @@ public class ProgramGenerator extends CodeGenerator
     }
 
 
+    /**
+     * Compile the main method into a buffer. Its labels continue the
+     * program's, as if it were emitted into the object file directly.
+     * If it's too big, it's compiled again, split into helper methods,
+     * and the branches that may be out of range are relaxed.
+     * @param ctx the ProgramContext.
+     * @return the main method's code.
+     */
+    private String mainCode(SubCParser.ProgramContext ctx)
+    {
+        StringWriter buffer = new StringWriter();
+        Compiler mainCompiler = new Compiler(compiler, new PrintWriter(buffer));
+        mainCompiler.continueLabels(compiler);
+        mainCompiler.emitMain(ctx);
+
+        boolean huge =    mainCompiler.getCodeSize()
+                       > MethodSplitter.HUGE_METHOD_LIMIT;
+        if (huge)
+        {
+            Compiler trialCompiler = mainCompiler;
+
+            buffer = new StringWriter();
+            mainCompiler = new Compiler(compiler, new PrintWriter(buffer));
+            mainCompiler.continueLabels(compiler);
+            mainCompiler.splitMethods(trialCompiler);
+            mainCompiler.emitMain(ctx);
+        }
+
+        compiler.addInstructionCount(mainCompiler.getInstructionCount());
+        return huge ? BranchRelaxer.relax(buffer.toString()) : buffer.toString();
+    }
+
     /**
      * Emit code for the program body as the main method.
      * @param ctx the ProgramContext.
      */
-    private void emitMainMethod(SubCParser.ProgramContext ctx)
+    public void emitMainMethod(SubCParser.ProgramContext ctx)
     {
         emitLine();
         emitComment("MAIN");
@@ -149,6 +630,28 @@ public class ProgramGenerator extends CodeGenerator
 
         emitMainPrologue(programId);
 
+        // Optimizing: Emit code from the SSA form of the main program.
+        if (compiler.isOptimizing())
+        {
+            ControlFlowGraph cfg = new IrBuilder().buildMain(ctx);
+            if (interpreter != null) new ConstantFolder(cfg, interpreter).run();
+
+            ArrayList<ControlFlowGraph> pieces = compiler.isSplittingMethods()
+                                        ? MethodSplitter.splitGraph(cfg, "main")
+                                        : new ArrayList<ControlFlowGraph>();
+
+            localVariables = new LocalVariables(programLocalsCount);
+
+            IrGenerator irCode = new IrGenerator(this, compiler);
+            emitLine();
+            irCode.emitMainBody(cfg);
+
+            emitMainEpilogue(Math.max(10, localVariables.count()),
+                             Math.max(15, irCode.getMaxStack()));
+            emitPieces(pieces);
+            return;
+        }
+
         // Emit code to allocate any arrays, records, and strings.
         StructuredDataGenerator structureCode = 
                                     new StructuredDataGenerator(this, compiler);
@@ -156,9 +659,18 @@ public class ProgramGenerator extends CodeGenerator
 
         // Emit code for the compound statement.
         emitLine();
-        compiler.visit(ctx.mainProgram().compoundStatement());
+        MethodSplitter splitter = null;
+
+        if (compiler.isSplittingMethods())
+        {
+            splitter = new MethodSplitter(this, compiler, null, "main");
+            splitter.emitBody(ctx.mainProgram().compoundStatement()
+                                 .statementList().statement());
+        }
+        else compiler.visit(ctx.mainProgram().compoundStatement());
         
-        emitMainEpilogue();
+        emitMainEpilogue(10, Math.max(15, localStack.capacity()));
+        if (splitter != null) splitter.emitHelpers();
     }
 
     /**
@@ -181,9 +693,21 @@ public class ProgramGenerator extends CodeGenerator
 
     /**
      * Emit the main method epilogue.
+     * @param localsLimit the size of the local variables array.
+     * @param stackLimit the size of the operand stack.
      */
-    private void emitMainEpilogue()
+    private void emitMainEpilogue(int localsLimit, int stackLimit)
     {
+        // Print the memoized functions' cache statistics.
+        if (compiler.getOptions().isProfiling())
+        {
+            for (SymtabEntry routineId : memoizedIds)
+            {
+                emitLine();
+                memoCode.emitStatistics(routineId);
+            }
+        }
+
         // Print the execution time.
         emitLine();
         emit(INVOKESTATIC, "java/time/Instant/now()Ljava/time/Instant;");
@@ -215,48 +739,230 @@ public class ProgramGenerator extends CodeGenerator
         emit(RETURN);
         emitLine();
 
-        emitDirective(LIMIT_LOCALS, 10);
-        emitDirective(LIMIT_STACK,  15);
+        emitDirective(LIMIT_LOCALS, localsLimit);
+        emitDirective(LIMIT_STACK,  stackLimit);
         emitDirective(END_METHOD);
-        
-        close();  // the object file
     }
 
     /**
-     * Emit code for a declared procedure or function
-     * @param routineId the symbol table entry of the routine's name.
+     * Emit the code of the declared functions. Each function is compiled
+     * in parallel into its own buffer by its own compiler, and then the
+     * buffers are emitted in source order, into the object file of the
+     * function's class if the functions are partitioned into classes.
+     * When compiling incrementally, an unchanged function's code is reused,
+     * and a changed function's code is saved for the next compilation.
+     * @param functCtxs the FunctionDefinitionContexts.
+     */
+    private void emitFunctions(
+                        List<SubCParser.FunctionDefinitionContext> functCtxs)
+    {
+        List<String> codes = functCtxs.parallelStream()
+                                      .map(this::functionCode)
+                                      .collect(Collectors.toList());
+        ClassPartition partition = compiler.getPartition();
+        LinkedHashMap<String, StringBuilder> classCodes =
+                                    new LinkedHashMap<String, StringBuilder>();
+
+        if (partition != null)
+        {
+            for (String className : partition.getClassNames())
+            {
+                classCodes.put(className, new StringBuilder());
+            }
+        }
+
+        for (int i = 0; i < functCtxs.size(); i++)
+        {
+            SymtabEntry routineId = functCtxs.get(i).functionName().entry;
+
+            if (   (functionCache != null)
+                && (functionCache.lookup(routineId) == null))
+            {
+                functionCache.store(routineId, isMemoized(routineId),
+                                    codes.get(i));
+            }
+
+            if (partition == null) objectFile.print(codes.get(i));
+            else classCodes.get(partition.classOf(routineId)).append(codes.get(i));
+        }
+
+        objectFile.flush();
+
+        for (String className : classCodes.keySet())
+        {
+            emitFunctionClass(className, classCodes.get(className).toString());
+        }
+    }
+
+    /**
+     * Emit a class of functions into its own object file.
+     * @param className the name of the class.
+     * @param code the code of its functions.
+     */
+    private void emitFunctionClass(String className, String code)
+    {
+        CodeGenerator classCode = new CodeGenerator(className, "j", compiler);
+
+        classCode.emitDirective(CLASS_PUBLIC, className);
+        classCode.emitDirective(SUPER, "java/lang/Object");
+        classCode.objectFile.print(code);
+        classCode.close();
+    }
+
+    /**
+     * Compile a function into a buffer. If the function is too big,
+     * it's compiled again, split into helper methods, and the branches
+     * that may be out of range are relaxed.
+     * @param ctx the FunctionDefinitionContext.
+     * @return the function's code.
+     */
+    private String functionCode(SubCParser.FunctionDefinitionContext ctx)
+    {
+        SymtabEntry routineId = ctx.functionName().entry;
+        FunctionCache.Entry entry = (functionCache != null)
+                                        ? functionCache.lookup(routineId)
+                                        : null;
+        CompileTimings timings = compiler.getTimings();
+
+        if (entry != null)
+        {
+            timings.countFunction(routineId.getName(), -1);
+            return functionCache.getCode(routineId, entry);
+        }
+
+        long[] usage = timings.threadUsage();
+        StringWriter buffer = new StringWriter();
+        Compiler functionCompiler = new Compiler(compiler,
+                                                 new PrintWriter(buffer));
+        functionCompiler.setClassName(compiler.ownerOf(routineId));
+        functionCompiler.emitFunction(ctx);
+
+        boolean huge =    functionCompiler.getCodeSize()
+                       > MethodSplitter.HUGE_METHOD_LIMIT;
+        if (huge)
+        {
+            Compiler trialCompiler = functionCompiler;
+
+            buffer = new StringWriter();
+            functionCompiler = new Compiler(compiler, new PrintWriter(buffer));
+            functionCompiler.setClassName(compiler.ownerOf(routineId));
+            functionCompiler.splitMethods(trialCompiler);
+            functionCompiler.emitFunction(ctx);
+        }
+
+        int count = functionCompiler.getInstructionCount();
+        compiler.addInstructionCount(count);
+        timings.countFunction(routineId.getName(), count);
+        timings.addThreadUsage(usage);
+
+        return huge ? BranchRelaxer.relax(buffer.toString()) : buffer.toString();
+    }
+
+    /**
+     * Emit code for a declared procedure or function. A memoized function's
+     * code goes into its body method, followed by its caching wrapper.
+     * @param ctx the FunctionDefinitionContext.
      */
     public void emitFunction(SubCParser.FunctionDefinitionContext ctx)
     {
         SymtabEntry routineId = ctx.functionName().entry;
         Symtab routineSymtab = routineId.getRoutineSymtab();
+        boolean memoized = isMemoized(routineId);
+        String methodName = memoized ? MemoGenerator.bodyName(routineId)
+                                     : routineId.getName();
+        ArrayList<ControlFlowGraph> pieces = new ArrayList<ControlFlowGraph>();
+        MethodSplitter splitter = null;
 
-        emitRoutineHeader(routineId);
+        emitRoutineHeader(routineId, methodName);
         emitRoutineLocals(routineId);
 
-        // Generate code to allocate any arrays, records, and strings.
-        StructuredDataGenerator structuredCode = 
+        // Optimizing: Emit code from the SSA form of the function,
+        // which needs local variables only for the parameters and its values.
+        if (compiler.isOptimizing())
+        {
+            ControlFlowGraph cfg = (functionGraphs != null)
+                                        ? functionGraphs.get(routineId) : null;
+            boolean shared = (cfg != null);
+            if (!shared) cfg = new IrBuilder().buildFunction(ctx);
+
+            // Split a private copy of a shared graph, which the
+            // interpreter may be reading for other functions.
+            if (compiler.isSplittingMethods())
+            {
+                if (shared) cfg = cfg.copy();
+                pieces = MethodSplitter.splitGraph(cfg, methodName);
+            }
+
+            localVariables = new LocalVariables(
+                                routineId.getRoutineParameters().size() - 1);
+
+            IrGenerator irCode = new IrGenerator(this, compiler);
+            emitLine();
+            irCode.emitRoutine(cfg);
+
+            emitRoutineEpilogue(Math.max(15, irCode.getMaxStack()));
+        }
+        else
+        {
+            // Generate code to allocate any arrays, records, and strings.
+            StructuredDataGenerator structuredCode = 
                                     new StructuredDataGenerator(this, compiler);
-        structuredCode.emitData(routineId);
+            structuredCode.emitData(routineId);
                 
-        localVariables = new LocalVariables(routineSymtab.getMaxSlotNumber());
+            localVariables = new LocalVariables(routineSymtab.getMaxSlotNumber());
 
-        // Emit code for the compound statement.
-        SubCParser.CompoundStatementContext stmtCtx = 
-            (SubCParser.CompoundStatementContext) routineId.getExecutable();
-        compiler.visit(stmtCtx);
+            // Emit code for the compound statement.
+            SubCParser.CompoundStatementContext stmtCtx = 
+                (SubCParser.CompoundStatementContext) routineId.getExecutable();
+
+            if (compiler.isSplittingMethods())
+            {
+                splitter = new MethodSplitter(this, compiler, routineId, methodName);
+                splitter.emitBody(stmtCtx.statementList().statement());
+            }
+            else compiler.visit(stmtCtx);
         
-        emitRoutineReturn(routineId);
-        emitRoutineEpilogue();
+            emitRoutineReturn(routineId);
+            emitRoutineEpilogue(Math.max(15, localStack.capacity()));
+        }
+
+        if (memoized) memoCode.emitWrapper(routineId);
+
+        if (splitter != null) splitter.emitHelpers();
+        emitPieces(pieces);
+    }
+
+    /**
+     * Emit the pieces of a method split from its SSA form.
+     * @param pieces the graphs of the pieces.
+     */
+    private void emitPieces(ArrayList<ControlFlowGraph> pieces)
+    {
+        for (ControlFlowGraph cfg : pieces)
+        {
+            SymtabEntry pieceId = cfg.getRoutineId();
+
+            emitRoutineHeader(pieceId, pieceId.getName());
+            emitRoutineLocals(pieceId);
+
+            localVariables = new LocalVariables(
+                                pieceId.getRoutineParameters().size() - 1);
+
+            IrGenerator irCode = new IrGenerator(this, compiler);
+            emitLine();
+            irCode.emitRoutine(cfg);
+
+            emitRoutineEpilogue(Math.max(15, irCode.getMaxStack()));
+        }
     }
 
     /**
      * Emit the routine header.
      * @param routineId the symbol table entry of the routine's name.
+     * @param routineName the name of the routine's method.
      */
-    private void emitRoutineHeader(SymtabEntry routineId)
+    private void emitRoutineHeader(SymtabEntry routineId, String routineName)
     {
-        String routineName = routineId.getName();
         ArrayList<SymtabEntry> parmIds = routineId.getRoutineParameters();
         StringBuilder buffer = new StringBuilder();
 
@@ -279,7 +985,7 @@ public class ProgramGenerator extends CodeGenerator
         emitComment("FUNCTION " + routineName);
         
               
-        emitDirective(METHOD_PRIVATE_STATIC, buffer.toString());
+        emitDirective(compiler.sharedMethodDirective(), buffer.toString());
     }
 
     /**
@@ -333,12 +1039,13 @@ public class ProgramGenerator extends CodeGenerator
 
     /**
      * Emit the routine's epilogue.
+     * @param stackLimit the size of the operand stack.
      */
-    private void emitRoutineEpilogue()
+    private void emitRoutineEpilogue(int stackLimit)
     {
         emitLine();
         emitDirective(LIMIT_LOCALS, localVariables.count());
-        emitDirective(LIMIT_STACK,  15);
+        emitDirective(LIMIT_STACK,  stackLimit);
         emitDirective(END_METHOD);
     }
 }
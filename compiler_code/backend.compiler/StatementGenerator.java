@@ -4,10 +4,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import antlr4.*;
 import antlr4.SubCParser;
+import intermediate.ir.IrBuilder;
+import intermediate.ir.IrConstant;
+import intermediate.ir.IrInterpreter;
 import intermediate.symtab.*;
 import intermediate.type.*;
 import intermediate.type.Typespec.Form;
@@ -41,6 +46,12 @@ public class StatementGenerator extends CodeGenerator
      */
     public void emitAssignment(SubCParser.AssignmentStatementContext ctx)
     {
+        if (ctx.OP != null)
+        {
+            emitIncrement(ctx.variable(), ctx.OP.getText());
+            return;
+        }
+
         SubCParser.VariableContext   varCtx  = ctx.lhs().variable();
         SubCParser.ExpressionContext exprCtx = ctx.rhs().expression();
         SymtabEntry varId = varCtx.entry;
@@ -71,14 +82,11 @@ public class StatementGenerator extends CodeGenerator
     public void emitIf(SubCParser.IfStatementContext ctx)
     {
         boolean elseExists = ctx.falseStatement() != null;
-        Label nextLabel = new Label();
-        Label falseLabel = new Label();
+        Label nextLabel = newLabel();
+        Label falseLabel = newLabel();
 
-        compiler.visit(ctx.expression());
-        if(elseExists)
-            emit(IFEQ, falseLabel);
-        else
-            emit(IFEQ, nextLabel);
+        compiler.emitBranch(ctx.expression(),
+                            elseExists ? falseLabel : nextLabel, false);
 
         compiler.visit(ctx.trueStatement());
 
@@ -100,30 +108,61 @@ public class StatementGenerator extends CodeGenerator
      */
     public void emitSwitch(SubCParser.SwitchStatementContext ctx)
     {
+        boolean strings = TypeChecker.isString(ctx.expression().type);
+
         compiler.visit(ctx.expression());
+        if (strings)
+        {
+            emit(DUP);
+            emit(INVOKEVIRTUAL, "java/lang/String/hashCode()I");
+        }
         emit(LOOKUPSWITCH);
         ArrayList<Integer> caseConsts = new ArrayList<>();
         HashMap<Integer, Label> cases = new HashMap<>();
-        HashMap<Label, SubCParser.CaseBranchContext> branches = new HashMap<>();
+        LinkedHashMap<Label, SubCParser.CaseBranchContext> branches =
+                                                        new LinkedHashMap<>();
+        TreeMap<Integer, ArrayList<SubCParser.CaseConstantContext>> hashGroups =
+                                                                new TreeMap<>();
+        HashMap<SubCParser.CaseConstantContext, Label> stringCases = new HashMap<>();
         for(SubCParser.CaseBranchContext branch : ctx.switchBranchList().caseBranch()){
             if(branch.caseConstantList() != null){
-                Label newLabel = new Label();
+                Label newLabel = newLabel();
                 for(SubCParser.CaseConstantContext constant:  branch.caseConstantList().caseConstant())
                 {
-                    caseConsts.add(constant.value);
-                    cases.put(constant.value,newLabel);
+                    if (strings)
+                    {
+                        // Strings with the same hash code share a table entry.
+                        if (!hashGroups.containsKey(constant.value))
+                        {
+                            hashGroups.put(constant.value, new ArrayList<>());
+                        }
+                        hashGroups.get(constant.value).add(constant);
+                        stringCases.put(constant, newLabel);
+                    }
+                    else
+                    {
+                        caseConsts.add(constant.value);
+                        cases.put(constant.value,newLabel);
+                    }
                 }
                 branches.put(newLabel, branch);
             }
         }
         
-        Label defaultLabel = new Label();
-        Collections.sort(caseConsts);
-        for(Integer x: caseConsts){
-            emitLabel(x,cases.get(x));
+        Label defaultLabel = newLabel();
+        if (strings)
+        {
+            emitStringDispatch(hashGroups, stringCases, defaultLabel);
+        }
+        else
+        {
+            Collections.sort(caseConsts);
+            for(Integer x: caseConsts){
+                emitLabel(x,cases.get(x));
+            }
+            emitLabel("default", defaultLabel);
         }
-        emitLabel("default", defaultLabel);
-        Label breakLabel = new Label();
+        Label breakLabel = newLabel();
 
         for(Map.Entry<Label, SubCParser.CaseBranchContext> entry : branches.entrySet()){
             emitLabel(entry.getKey());
@@ -141,18 +180,79 @@ public class StatementGenerator extends CodeGenerator
         emitLabel(breakLabel);
     }
     
+    /**
+     * Emit the rest of the dispatch of a switch on strings, after the
+     * LOOKUPSWITCH on the hash code: its table, then the equals tests
+     * of the strings of each hash code. The string value stays on the
+     * stack until a test decides the branch.
+     * @param hashGroups the case constants grouped by hash code.
+     * @param stringCases the branch label of each case constant.
+     * @param defaultLabel the label of the default branch.
+     */
+    private void emitStringDispatch(
+            TreeMap<Integer, ArrayList<SubCParser.CaseConstantContext>> hashGroups,
+            HashMap<SubCParser.CaseConstantContext, Label> stringCases,
+            Label defaultLabel)
+    {
+        Label noMatchLabel = newLabel();
+        HashMap<Integer, Label> testLabels = new HashMap<>();
+
+        for (Integer hashCode : hashGroups.keySet())
+        {
+            Label testLabel = newLabel();
+            testLabels.put(hashCode, testLabel);
+            emitLabel(hashCode, testLabel);
+        }
+        emitLabel("default", noMatchLabel);
+
+        // Test the strings of each hash code.
+        LinkedHashMap<SubCParser.CaseConstantContext, Label> matchLabels =
+                                                        new LinkedHashMap<>();
+        for (Map.Entry<Integer, ArrayList<SubCParser.CaseConstantContext>> entry
+                                                        : hashGroups.entrySet())
+        {
+            emitLabel(testLabels.get(entry.getKey()));
+
+            for (SubCParser.CaseConstantContext constant : entry.getValue())
+            {
+                Label matchLabel = newLabel();
+                matchLabels.put(constant, matchLabel);
+
+                emit(DUP);
+                emitLoadConstant(constant.string);
+                emit(INVOKEVIRTUAL, "java/lang/String/equals(Ljava/lang/Object;)Z");
+                localStack.decrease(1);
+                emit(IFNE, matchLabel);
+            }
+
+            emit(GOTO, noMatchLabel);
+        }
+
+        // Pop the string value before going to the branch.
+        for (Map.Entry<SubCParser.CaseConstantContext, Label> entry
+                                                        : matchLabels.entrySet())
+        {
+            emitLabel(entry.getValue());
+            emit(POP);
+            emit(GOTO, stringCases.get(entry.getKey()));
+        }
+
+        emitLabel(noMatchLabel);
+        emit(POP);
+        emit(GOTO, defaultLabel);
+    }
+
     /**
      * Emit code for a WHILE statement.
      * @param ctx the WhileStatementContext.
      */
     public void emitWhile(SubCParser.WhileStatementContext ctx)
     {
-        Label loopTopLabel = new Label();
-        Label loopExitLabel = new Label();
+        Label loopTopLabel = newLabel();
+        Label loopExitLabel = newLabel();
 
         emitLabel(loopTopLabel);
-        compiler.visit(ctx.expression());        
-        emit(IFEQ, loopExitLabel);
+        compiler.emitBranch(ctx.expression(), loopExitLabel, false);
         compiler.visit(ctx.compoundStatement());
         emit(GOTO, loopTopLabel);
         emitLabel(loopExitLabel);
@@ -167,48 +267,75 @@ public class StatementGenerator extends CodeGenerator
     	
     	compiler.visit(ctx.forInitialization().assignmentStatement());
     	
-    	Label cmpLabel = new Label();
+    	Label cmpLabel = newLabel();
     	emitLabel(cmpLabel);
     	
-    	SubCParser.ExpressionContext expCtx1 = ctx.forControl().expression();
-    	SubCParser.SimpleExpressionContext simpleCtx1 = expCtx1.simpleExpression().get(0);
-		SubCParser.RelOpContext relOpCtx = expCtx1.relOp();
-			
-		compiler.visit(simpleCtx1);
-			
-		String op = relOpCtx.getText();
-		SubCParser.SimpleExpressionContext simpleCtx2 = 
-								expCtx1.simpleExpression().get(1);
-			
-		Label trueLabel = new Label();
-		compiler.visit(simpleCtx2);
-
-//		compiler.visit(simpleCtx2);
-		if      (op.equals("==" )) emit(IF_ICMPEQ, trueLabel);
-		else if (op.equals("!=")) emit(IF_ICMPNE, trueLabel);
-		else if (op.equals("<" )) emit(IF_ICMPLT, trueLabel);
-		else if (op.equals("<=")) emit(IF_ICMPLE, trueLabel);
-		else if (op.equals(">" )) emit(IF_ICMPGT, trueLabel);
-		else if (op.equals(">=")) emit(IF_ICMPGE, trueLabel);
-		
-		Label exitLabel = new Label();
-		emit(GOTO, exitLabel);
-			 
-		
-		emitLabel(trueLabel);
+    	Label exitLabel = newLabel();
+    	compiler.emitBranch(ctx.forControl().expression(), exitLabel, false);
 		
 		compiler.visit(ctx.compoundStatement());
-		SubCParser.ForIncrementStatementContext incCtx = ctx.forIncrementStatement();
-		compiler.visit(incCtx);
-		String name = compiler.getProgramName() + "/" + incCtx.lhs().variable().entry.getName();
-		emit(PUTSTATIC,name,"I");
-		emit(POP);
+		emitForIncrement(ctx.forIncrementStatement());
 		emit(GOTO, cmpLabel);
 
 	     emitLabel(exitLabel);
-	     
-	     localStack.decrease(1); 
-    	
+    }
+
+    /**
+     * Emit code to increment or decrement an integer variable.
+     * @param varCtx the VariableContext of the variable.
+     * @param op the operator, ++ or --.
+     */
+    private void emitIncrement(SubCParser.VariableContext varCtx, String op)
+    {
+        SymtabEntry varId = varCtx.entry;
+
+        compiler.visit(varCtx);
+        emit(ICONST_1);
+        emit(op.equals("++") ? IADD : ISUB);
+        emitStoreValue(varId, varId.getType());
+    }
+
+    /**
+     * Emit code for a declaration statement. A local variable is set
+     * to the default value that a program variable starts with, so that
+     * every path to a use of the variable stores to it first.
+     * @param ctx the DeclarationStatementContext.
+     */
+    public void emitDeclaration(SubCParser.DeclarationStatementContext ctx)
+    {
+        SymtabEntry varId = ctx.variable().entry;
+        Typespec varType  = varId.getType().baseType();
+
+        if (varId.getSymtab().getNestingLevel() == 1) return;
+
+        if      (varType == Predefined.realType)   emit(FCONST_0);
+        else if (varType == Predefined.stringType) emit(ACONST_NULL);
+        else                                       emit(ICONST_0);
+
+        emitStoreValue(varId, varId.getType());
+    }
+
+    /**
+     * Emit code for the increment of a FOR statement. The control
+     * variable can be a program variable or a local variable.
+     * @param ctx the ForIncrementStatementContext.
+     */
+    private void emitForIncrement(SubCParser.ForIncrementStatementContext ctx)
+    {
+        if (ctx.OP != null)
+        {
+            emitIncrement(ctx.variable(), ctx.OP.getText());
+        }
+        else
+        {
+            SymtabEntry varId = ctx.lhs().variable().entry;
+            SubCParser.ExpressionContext exprCtx = ctx.rhs().expression();
+
+            compiler.visit(exprCtx);
+            if (   (varId.getType() == Predefined.realType)
+                && (exprCtx.type.baseType() == Predefined.integerType)) emit(I2F);
+            emitStoreValue(varId, varId.getType());
+        }
     }
     
     /**
@@ -217,6 +344,14 @@ public class StatementGenerator extends CodeGenerator
      */
     public void emitFunctionCall(SubCParser.FunctionCallContext ctx)
     {
+        // A pure function called with literal arguments is evaluated now.
+        IrConstant result = evaluateCall(ctx);
+        if (result != null)
+        {
+            if (result.getType() != Predefined.voidType) emitLoadConstant(result);
+            return;
+        }
+
         String argTypes = "";
         SymtabEntry routineId = ctx.functionName().entry;
 		ArrayList<SymtabEntry> paramIds = routineId.getRoutineParameters();
@@ -242,10 +377,44 @@ public class StatementGenerator extends CodeGenerator
 
         }
         String returnType = typeDescriptor(routineId);
-        emit(INVOKESTATIC, programName + "/" + ctx.functionName().IDENTIFIER().getText() + "("
+        emit(INVOKESTATIC, compiler.ownerOf(routineId) + "/"
+                + routineId.getName() + "("
                 + argTypes + ")" + returnType);
     }
     
+    /**
+     * Evaluate a call at compile time if the function is pure
+     * and all the arguments are literals.
+     * @param ctx the FunctionCallContext.
+     * @return the constant result, or null if the call must be emitted.
+     */
+    private IrConstant evaluateCall(SubCParser.FunctionCallContext ctx)
+    {
+        IrInterpreter interpreter = compiler.getInterpreter();
+        if (interpreter == null) return null;
+
+        SymtabEntry routineId = ctx.functionName().entry;
+        ArrayList<SymtabEntry> parmIds = routineId.getRoutineParameters();
+        ArrayList<IrConstant> args = new ArrayList<IrConstant>();
+
+        if (ctx.argumentList() != null)
+        {
+            IrBuilder builder = new IrBuilder();
+            int i = 0;
+
+            for (SubCParser.ArgumentContext argCtx : ctx.argumentList().argument())
+            {
+                IrConstant arg = builder.literal(argCtx.expression(),
+                                                 parmIds.get(i++).getType());
+                if (arg == null) return null;
+
+                args.add(arg);
+            }
+        }
+
+        return interpreter.evaluateCall(routineId, args);
+    }
+
     /**
      * Emit code for a function call statement.
      * @param ctx the FunctionCallContext.
@@ -288,7 +457,7 @@ public class StatementGenerator extends CodeGenerator
         // WRITELN with no arguments.
         if (argsCtx == null) 
         {
-        	emit(LDC, format.getText());
+        	emitLoadQuotedConstant(format.getText());
             emit(INVOKEVIRTUAL, "java/io/PrintStream/print(Ljava/lang/String;)V");
             localStack.decrease(1);
         }
@@ -299,7 +468,7 @@ public class StatementGenerator extends CodeGenerator
             int exprCount = argsCtx.children.size();           
             
             // Load the format string.
-            emit (LDC, format.getText());
+            emitLoadQuotedConstant(format.getText());
             
             // Emit the arguments array.
             if (exprCount > 0)
@@ -122,8 +122,8 @@ public class StructuredDataGenerator extends CodeGenerator
     {
         int count = elmtType.getArrayElementCount();
         int tempIndex = localVariables.reserve();  // temporary loop variable
-        Label loopStartLabel = new Label();
-        Label loopExitLabel  = new Label();
+        Label loopStartLabel = newLabel();
+        Label loopExitLabel  = newLabel();
 
         // Initialize temporary variable to 0.
         emitLoadConstant(0);
@@ -0,0 +1,135 @@
+package benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <h1>Baselines</h1>
+ *
+ * <p>Hand-written Java equivalents of the runtime benchmark programs,
+ * the way javac would compile them, by program name. Each prints the
+ * same output as its program.</p>
+ */
+public class Baselines
+{
+    private static final LinkedHashMap<String, Runnable> BASELINES =
+                                        new LinkedHashMap<String, Runnable>();
+
+    static
+    {
+        BASELINES.put("Primes",   Baselines::primes);
+        BASELINES.put("Fib",      Baselines::fib);
+        BASELINES.put("Loops",    Baselines::loops);
+        BASELINES.put("Strings",  Baselines::strings);
+        BASELINES.put("Dispatch", Baselines::dispatch);
+        BASELINES.put("Large",    Baselines::large);
+    }
+
+    /**
+     * Get the baselines.
+     * @return the baselines by program name.
+     */
+    public static Map<String, Runnable> getBaselines() { return BASELINES; }
+
+    private static void primes()
+    {
+        int count = 0;
+        for (int n = 2; n < 200000; n++)
+        {
+            if (isPrime(n)) count++;
+        }
+        System.out.printf("%d primes\n", count);
+    }
+
+    private static boolean isPrime(int n)
+    {
+        for (int d = 2; d*d <= n; d++)
+        {
+            if (n%d == 0) return false;
+        }
+        return true;
+    }
+
+    private static void fib()
+    {
+        System.out.printf("fib(27) = %d\n", fib(27));
+    }
+
+    private static int fib(int n)
+    {
+        return n < 2 ? n : fib(n - 1) + fib(n - 2);
+    }
+
+    private static void loops()
+    {
+        int sum = 0;
+        for (int i = 0; i < 200; i++)
+        {
+            for (int j = 0; j < 200; j++)
+            {
+                for (int k = 0; k < 50; k++) sum += (i*j + k)%7;
+            }
+        }
+        System.out.printf("sum = %d\n", sum);
+    }
+
+    private static void strings()
+    {
+        String line = "";
+        for (int i = 0; i < 200; i++)
+        {
+            line = repeat("ab", 50) + "c";
+        }
+        System.out.printf("%s\n", line);
+    }
+
+    private static String repeat(String s, int n)
+    {
+        String r = "";
+        for (int i = 0; i < n; i++) r += s;
+        return r;
+    }
+
+    private static void dispatch()
+    {
+        int acc = 0;
+        for (int i = 0; i < 1000000; i++) acc = step(i%6, acc);
+        System.out.printf("acc = %d\n", acc);
+    }
+
+    private static int step(int op, int acc)
+    {
+        switch (op)
+        {
+            case 0:  return acc + 3;
+            case 1:  return acc*2;
+            case 2:  return acc - 7;
+            case 3:
+            case 4:  return acc%1000;
+            default: return acc + 1;
+        }
+    }
+
+    private static void large()
+    {
+        int total = 0;
+        for (int i = 0; i < 2000; i++) total = (total*31 + mix(i))%1000003;
+        System.out.printf("total = %d\n", total);
+    }
+
+    private static int mix(int n)
+    {
+        // The program's 20 variables, assigned by its 1200 statements.
+        int[] v = new int[20];
+        for (int i = 0; i < 20; i++) v[i] = n + i;
+
+        for (int k = 0; k < 1200; k++)
+        {
+            v[k%20] = (v[(k + 7)%20] + v[(k + 13)%20] + k)%1000;
+        }
+
+        int sum = 0;
+        for (int i = 0; i < 20; i++) sum += v[i];
+        return sum;
+    }
+}
@@ -0,0 +1,187 @@
+package benchmark;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import frontend.Semantics;
+import intermediate.util.CompilerOptions;
+
+/**
+ * <h1>BranchCheck</h1>
+ *
+ * <p>Compile conditions without -O and check the instructions that they
+ * branch with. A relational condition of an if, while, or for statement
+ * should compare and branch with a single instruction, which jumps when
+ * the condition is false, instead of computing a 0 or 1 and testing it.
+ * Each case is a function with one condition. If a case's function
+ * doesn't have its expected instruction, or it computes a boolean,
+ * the exit status is 1.</p>
+ *
+ * <p>USAGE: BranchCheck</p>
+ */
+public class BranchCheck
+{
+    private static final String SOURCE = String.join("\n",
+        "Program BranchCheck;",
+        "",
+        "int lessWhile(int a, int b)",
+        "{",
+        "    while (a < b)",
+        "    {",
+        "        a = a + b;",
+        "    }",
+        "    return a;",
+        "}",
+        "",
+        "int equalIf(int a, int b)",
+        "{",
+        "    int r = a;",
+        "    if (a == b)",
+        "    {",
+        "        r = b;",
+        "    }",
+        "    return r;",
+        "}",
+        "",
+        "int notLessIf(int a, int b)",
+        "{",
+        "    int r = a;",
+        "    if (!(a < b))",
+        "    {",
+        "        r = b;",
+        "    }",
+        "    return r;",
+        "}",
+        "",
+        "int lessFor(int n)",
+        "{",
+        "    int i;",
+        "    int s = n;",
+        "    for (i = 0; i < n; i++)",
+        "    {",
+        "        s = s + i;",
+        "    }",
+        "    return s;",
+        "}",
+        "",
+        "int bothLessIf(int a, int b, int c)",
+        "{",
+        "    int r = a;",
+        "    if ((a < b) && (b < c))",
+        "    {",
+        "        r = c;",
+        "    }",
+        "    return r;",
+        "}",
+        "",
+        "double greaterIf(double a, double b)",
+        "{",
+        "    double r = a;",
+        "    if (a > b)",
+        "    {",
+        "        r = b;",
+        "    }",
+        "    return r;",
+        "}",
+        "",
+        "int main()",
+        "{",
+        "    print(\"done\\n\");",
+        "}",
+        "");
+
+    // Each function and the instruction that its condition branches with.
+    private static final String[][] CASES =
+    {
+        { "lessWhile",  "if_icmpge" },
+        { "equalIf",    "if_icmpne" },
+        { "notLessIf",  "if_icmplt" },
+        { "lessFor",    "if_icmpge" },
+        { "bothLessIf", "if_icmpge" },
+        { "greaterIf",  "ifle"      },
+    };
+
+    // A condition's value computed as 0 or 1.
+    private static final Pattern BOOLEAN =
+                        Pattern.compile("\\ticonst_0\\s*\\n\\tgoto\\t");
+
+    public static void main(String[] args) throws Exception
+    {
+        Path directory = Files.createTempDirectory("branchcheck");
+        String code = compile(directory.toFile());
+        int failed = 0;
+
+        System.out.printf("%-12s %-10s %s\n", "Function", "Branch", "Result");
+
+        for (String[] c : CASES)
+        {
+            String method = methodOf(code, c[0]);
+            String result;
+
+            if      (method == null)                       result = "MISSING";
+            else if (BOOLEAN.matcher(method).find())       result = "BOOLEAN";
+            else if (!method.contains("\t" + c[1] + "\t")) result = "NO BRANCH";
+            else                                           result = "ok";
+
+            if (!result.equals("ok")) failed++;
+            System.out.printf("%-12s %-10s %s\n", c[0], c[1], result);
+        }
+
+        for (File file : directory.toFile().listFiles()) file.delete();
+        Files.delete(directory);
+
+        System.out.printf("\n%d of %d cases failed.\n", failed, CASES.length);
+        System.exit(failed > 0 ? 1 : 0);
+    }
+
+    /**
+     * Compile the cases into a directory without -O.
+     * @param directory the directory of the object file.
+     * @return the object file's code.
+     * @throws Exception if the object file can't be read.
+     */
+    private static String compile(File directory) throws Exception
+    {
+        CompilerOptions options = new CompilerOptions();
+        options.setDirectory(directory);
+
+        CommonTokenStream tokens = PassBenchmark.lex(SOURCE, "BranchCheck");
+        ParseTree tree = PassBenchmark.parse(tokens);
+        Semantics semantics = PassBenchmark.analyze(tree);
+        if (semantics.getErrorCount() > 0)
+        {
+            throw new IllegalStateException(
+                "BranchCheck has " + semantics.getErrorCount() +
+                " semantic errors");
+        }
+        PassBenchmark.generate(semantics, tree, options);
+
+        File objectFile = options.outputFile("BranchCheck.j");
+        return new String(Files.readAllBytes(objectFile.toPath()),
+                          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the code of a method from an object file.
+     * @param code the object file's code.
+     * @param name the method name.
+     * @return the code from its .method directive to its .end method
+     *         directive, or null if there is no such method.
+     */
+    private static String methodOf(String code, String name)
+    {
+        int start = code.indexOf(" " + name + "(");
+        if (start < 0) return null;
+
+        start = code.lastIndexOf(".method", start);
+        int end = code.indexOf(".end method", start);
+
+        return code.substring(start, end);
+    }
+}
@@ -0,0 +1,191 @@
+package benchmark;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+
+/**
+ * <h1>Harness</h1>
+ *
+ * <p>A small benchmark harness in the manner of JMH's average time mode.
+ * An operation is run in timed iterations. The warm-up iterations let
+ * the JIT compile the code and are discarded. Each measured iteration
+ * repeats the operation until its time is up and yields the average
+ * time per operation. The result is the mean over the iterations with
+ * a 99.9% confidence error, and the bytes allocated per operation,
+ * like the GC profiler's normalized allocation rate.</p>
+ *
+ * <p>Every result of the operation is consumed, so the JIT can't
+ * eliminate the work as dead code.</p>
+ */
+public class Harness
+{
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private int warmups;          // warm-up iterations
+    private int iterations;       // measured iterations
+    private long iterationNanos;  // minimum time of an iteration
+
+    private volatile Object sink;  // consumes the operations' results
+
+    /**
+     * The result of a benchmark.
+     */
+    public static class Result
+    {
+        private String name;        // benchmark name
+        private double nanosPerOp;  // mean time per operation
+        private double error;       // 99.9% confidence half-interval
+        private double bytesPerOp;  // bytes allocated per operation
+        private long operations;    // measured operations
+
+        /**
+         * Get the benchmark name.
+         * @return the name.
+         */
+        public String getName() { return name; }
+
+        /**
+         * Get the mean time per operation.
+         * @return the time in nanoseconds.
+         */
+        public double getNanosPerOp() { return nanosPerOp; }
+
+        /**
+         * Get the bytes allocated per operation.
+         * @return the bytes.
+         */
+        public double getBytesPerOp() { return bytesPerOp; }
+
+        /**
+         * Print the result as a row of the table.
+         * @param out the output stream.
+         */
+        public void print(PrintStream out)
+        {
+            double mbPerSecond = bytesPerOp/nanosPerOp*1e9/(1 << 20);
+
+            out.printf("%-40s %12.3f %10.3f %14.0f %10.1f %10d\n",
+                       name, nanosPerOp/1e6, error/1e6, bytesPerOp,
+                       mbPerSecond, operations);
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param warmups the number of warm-up iterations.
+     * @param iterations the number of measured iterations.
+     * @param iterationMillis the minimum time of an iteration.
+     */
+    public Harness(int warmups, int iterations, long iterationMillis)
+    {
+        this.warmups        = warmups;
+        this.iterations     = iterations;
+        this.iterationNanos = iterationMillis*1000000L;
+    }
+
+    /**
+     * Print the heading of the result table.
+     * @param out the output stream.
+     */
+    public static void printHeading(PrintStream out)
+    {
+        out.printf("%-40s %12s %10s %14s %10s %10s\n", "Benchmark",
+                   "ms/op", "error", "alloc B/op", "alloc MB/s", "ops");
+        out.printf("%-40s %12s %10s %14s %10s %10s\n", "---------",
+                   "-----", "-----", "----------", "----------", "---");
+    }
+
+    /**
+     * Run a benchmark.
+     * @param name the benchmark name.
+     * @param operation the operation to measure.
+     * @return the result.
+     * @throws Exception if the operation fails.
+     */
+    public Result run(String name, Callable<Object> operation)
+        throws Exception
+    {
+        for (int i = 0; i < warmups; i++) iteration(operation);
+
+        double[] times = new double[iterations];
+        long operations = 0;
+        long bytes = 0;
+
+        for (int i = 0; i < iterations; i++)
+        {
+            long[] sample = iteration(operation);
+
+            times[i]    = (double) sample[0]/sample[1];
+            operations += sample[1];
+            bytes      += sample[2];
+        }
+
+        Result result = new Result();
+        result.name       = name;
+        result.nanosPerOp = mean(times);
+        result.error      = error(times, result.nanosPerOp);
+        result.bytesPerOp = (double) bytes/operations;
+        result.operations = operations;
+
+        return result;
+    }
+
+    /**
+     * Run one iteration.
+     * @param operation the operation.
+     * @return the elapsed nanoseconds, the operation count,
+     *         and the allocated bytes.
+     * @throws Exception if the operation fails.
+     */
+    private long[] iteration(Callable<Object> operation) throws Exception
+    {
+        long threadId = Thread.currentThread().getId();
+        long bytes = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long elapsed;
+        long count = 0;
+
+        do
+        {
+            sink = operation.call();
+            count++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+
+        bytes = THREADS.getThreadAllocatedBytes(threadId) - bytes;
+        return new long[] { elapsed, count, bytes };
+    }
+
+    /**
+     * Compute the mean of samples.
+     * @param samples the samples.
+     * @return the mean.
+     */
+    private static double mean(double[] samples)
+    {
+        double sum = 0;
+        for (double sample : samples) sum += sample;
+
+        return sum/samples.length;
+    }
+
+    /**
+     * Compute the 99.9% confidence half-interval of the mean of samples,
+     * with the normal approximation of the t distribution.
+     * @param samples the samples.
+     * @param mean their mean.
+     * @return the half-interval.
+     */
+    private static double error(double[] samples, double mean)
+    {
+        if (samples.length < 2) return Double.NaN;
+
+        double squares = 0;
+        for (double sample : samples) squares += (sample - mean)*(sample - mean);
+
+        double deviation = Math.sqrt(squares/(samples.length - 1));
+        return 3.291*deviation/Math.sqrt(samples.length);
+    }
+}
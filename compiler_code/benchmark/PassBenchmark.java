@@ -0,0 +1,270 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import antlr4.SubCLexer;
+import antlr4.SubCParser;
+import backend.compiler.Compiler;
+import frontend.IdentifierTokenFactory;
+import frontend.Semantics;
+import frontend.TreeCompactor;
+import intermediate.util.CompilerOptions;
+
+import static intermediate.util.BackendMode.COMPILER;
+
+/**
+ * <h1>PassBenchmark</h1>
+ *
+ * <p>Benchmark the compiler's passes separately and end to end: the
+ * lexer, the parser, the semantic pass, and code generation. The
+ * inputs are the sample programs, or the source files and directories
+ * given on the command line, and generated programs of increasing
+ * size.</p>
+ *
+ * <p>USAGE: PassBenchmark [-warmup=n] [-iterations=n] [-time=ms]
+ * [-sizes=n,n,...] [-O] [sourceFile | directory] ...</p>
+ */
+public class PassBenchmark
+{
+    private static final PrintStream NO_OUTPUT = new PrintStream(
+        new OutputStream() { @Override public void write(int b) {} });
+
+    public static void main(String[] args) throws Exception
+    {
+        int warmups = 3;
+        int iterations = 5;
+        long millis = 500;
+        int[] sizes = { 1, 10, 100 };
+        boolean optimize = false;
+        ArrayList<File> sources = new ArrayList<File>();
+
+        for (String arg : args)
+        {
+            String flag = arg.toLowerCase();
+
+            if      (flag.startsWith("-warmup="))     warmups    = count(arg);
+            else if (flag.startsWith("-iterations=")) iterations = count(arg);
+            else if (flag.startsWith("-time="))       millis     = count(arg);
+            else if (flag.startsWith("-sizes="))
+            {
+                sizes = Arrays.stream(arg.substring(7).split(","))
+                              .mapToInt(Integer::parseInt).toArray();
+            }
+            else if (arg.equals("-O")) optimize = true;
+            else                       sources.add(new File(arg));
+        }
+
+        if (sources.isEmpty()) sources.add(samplePrograms());
+
+        // The inputs by name.
+        LinkedHashMap<String, String> inputs = new LinkedHashMap<String, String>();
+        for (File source : sources) addInputs(source, inputs);
+        for (int size : sizes)
+        {
+            String name = "Synthetic" + size;
+            inputs.put(name, SourceGenerator.generate(name, size));
+        }
+
+        CompilerOptions options = new CompilerOptions();
+        options.setOptimizing(optimize);
+        options.setListing(false);
+        options.setDirectory(Files.createTempDirectory("subc-bench").toFile());
+
+        Harness harness = new Harness(warmups, iterations, millis);
+        System.out.printf("Compiler pass benchmarks: %d warm-up and " +
+                          "%d measured iterations of %d ms%s\n\n",
+                          warmups, iterations, millis,
+                          optimize ? ", optimizing" : "");
+        Harness.printHeading(System.out);
+
+        for (Map.Entry<String, String> input : inputs.entrySet())
+        {
+            benchmark(harness, input.getKey(), input.getValue(), options);
+        }
+    }
+
+    /**
+     * Benchmark the passes over an input.
+     * @param harness the benchmark harness.
+     * @param name the input name.
+     * @param text the source text.
+     * @param options the compiler options.
+     * @throws Exception if a pass fails.
+     */
+    private static void benchmark(Harness harness, String name, String text,
+                                  CompilerOptions options)
+        throws Exception
+    {
+        // Each pass after the first runs on the output of the one before,
+        // which is computed once outside the measurement.
+        CommonTokenStream tokens = lex(text, name);
+        ParseTree tree = parse(tokens);
+        Semantics semantics = analyze(tree);
+        if (semantics.getErrorCount() > 0)
+        {
+            System.out.printf("%-40s has semantic errors\n", name);
+            return;
+        }
+        TreeCompactor.compact(tree);
+
+        harness.run(name + " lex", () -> lex(text, name)).print(System.out);
+        harness.run(name + " parse", () ->
+        {
+            tokens.seek(0);
+            return parse(tokens);
+        }).print(System.out);
+        harness.run(name + " semantics", () -> analyze(tree))
+               .print(System.out);
+        harness.run(name + " codegen", () -> generate(semantics, tree, options))
+               .print(System.out);
+        harness.run(name + " total", () ->
+        {
+            ParseTree t = parse(lex(text, name));
+            Semantics s = analyze(t);
+            TreeCompactor.compact(t);
+            return generate(s, t, options);
+        }).print(System.out);
+    }
+
+    /**
+     * Lex a source text into a filled token stream.
+     * @param text the source text.
+     * @param name the source name.
+     * @return the token stream.
+     */
+    static CommonTokenStream lex(String text, String name)
+    {
+        SubCLexer lexer = new SubCLexer(CharStreams.fromString(text, name));
+        lexer.setTokenFactory(new IdentifierTokenFactory());
+        lexer.removeErrorListeners();
+
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+
+        return tokens;
+    }
+
+    /**
+     * Parse a token stream the way the compiler does, with SLL
+     * prediction first and full LL only if that fails.
+     * @param tokens the token stream.
+     * @return the parse tree.
+     */
+    static ParseTree parse(CommonTokenStream tokens)
+    {
+        SubCParser parser = new SubCParser(tokens);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        try
+        {
+            return parser.program();
+        }
+        catch (ParseCancellationException ex)
+        {
+            tokens.seek(0);
+            parser.reset();
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            return parser.program();
+        }
+    }
+
+    /**
+     * Run the semantic pass over a parse tree.
+     * @param tree the parse tree.
+     * @return the semantic pass.
+     */
+    static Semantics analyze(ParseTree tree)
+    {
+        Semantics semantics = new Semantics(COMPILER, NO_OUTPUT);
+        semantics.visit(tree);
+
+        return semantics;
+    }
+
+    /**
+     * Generate the object file of an analyzed parse tree.
+     * @param semantics the semantic pass of the tree.
+     * @param tree the parse tree.
+     * @param options the compiler options.
+     * @return the compiler.
+     */
+    static Compiler generate(Semantics semantics, ParseTree tree,
+                             CompilerOptions options)
+    {
+        Compiler compiler = new Compiler(semantics.getProgramId(), options);
+        compiler.visit(tree);
+
+        return compiler;
+    }
+
+    /**
+     * Add the inputs of a source file or directory of .c files.
+     * @param source the file or directory.
+     * @param inputs the inputs to add to, by name.
+     * @throws IOException if a file can't be read.
+     */
+    private static void addInputs(File source, Map<String, String> inputs)
+        throws IOException
+    {
+        File[] files = source.isDirectory() ? source.listFiles()
+                                            : new File[] { source };
+        Arrays.sort(files);
+
+        for (File file : files)
+        {
+            if (file.isFile() && file.getName().endsWith(".c"))
+            {
+                inputs.put(file.getName(),
+                           new String(Files.readAllBytes(file.toPath()),
+                                      StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Find the sample programs directory from the current directory.
+     * @return the directory.
+     */
+    private static File samplePrograms()
+    {
+        for (String path : new String[] { "sample_programs",
+                                          "../sample_programs",
+                                          "../../sample_programs" })
+        {
+            File dir = new File(path);
+            if (dir.isDirectory()) return dir;
+        }
+
+        return new File("sample_programs");
+    }
+
+    /**
+     * Parse the count of a flag.
+     * @param flag the flag.
+     * @return the count.
+     */
+    private static int count(String flag)
+    {
+        return Integer.parseInt(flag.substring(flag.indexOf('=') + 1));
+    }
+}
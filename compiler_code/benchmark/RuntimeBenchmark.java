@@ -0,0 +1,313 @@
+package benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import backend.compiler.Compiler;
+import frontend.Semantics;
+import frontend.TreeCompactor;
+import intermediate.util.CompilerOptions;
+
+/**
+ * <h1>RuntimeBenchmark</h1>
+ *
+ * <p>Measure how fast the generated code runs compared to equivalent
+ * hand-written Java. Each program of the benchmark corpus is compiled
+ * at each optimization level, assembled, and loaded, and its main method
+ * is timed against its baseline in {@link Baselines}. The results are
+ * reported as the ratio of each level's time to the baseline's.</p>
+ *
+ * <p>The object files are assembled with Jasmin, which must be on the
+ * class path. The output of the programs is discarded while they're
+ * timed, after it's checked against the baseline's output.</p>
+ *
+ * <p>USAGE: RuntimeBenchmark [-warmup=n] [-iterations=n] [-time=ms]
+ * [corpus directory]</p>
+ */
+public class RuntimeBenchmark
+{
+    private static final String ASSEMBLER = "jasmin.Main";
+
+    // The optimization levels and their compiler flags. A level with +
+    // also memoizes pure functions and evaluates calls at compile time.
+    private static final String[][] LEVELS =
+    {
+        { "tree",  "-memo=0", "-eval=0" },
+        { "tree+" },
+        { "ssa",   "-O", "-memo=0", "-eval=0" },
+        { "ssa+",  "-O" },
+    };
+
+    private static final PrintStream NO_OUTPUT = new PrintStream(
+        new OutputStream() { @Override public void write(int b) {} });
+
+    public static void main(String[] args) throws Exception
+    {
+        int warmups = 3;
+        int iterations = 5;
+        long millis = 1000;
+        File corpus = null;
+
+        for (String arg : args)
+        {
+            String flag = arg.toLowerCase();
+
+            if      (flag.startsWith("-warmup="))     warmups    = count(arg);
+            else if (flag.startsWith("-iterations=")) iterations = count(arg);
+            else if (flag.startsWith("-time="))       millis     = count(arg);
+            else                                      corpus = new File(arg);
+        }
+
+        if (corpus == null) corpus = findCorpus();
+
+        Method assembler;
+        try
+        {
+            assembler = Class.forName(ASSEMBLER)
+                             .getMethod("main", String[].class);
+        }
+        catch (ClassNotFoundException ex)
+        {
+            System.out.println("ERROR: Jasmin (" + ASSEMBLER + ") is not " +
+                               "on the class path.");
+            System.exit(2);
+            return;
+        }
+
+        // Compile and load each program at each level.
+        PrintStream stdout = System.out;
+        LinkedHashMap<String, Method[]> programs =
+                                        new LinkedHashMap<String, Method[]>();
+
+        for (String name : Baselines.getBaselines().keySet())
+        {
+            File source = new File(corpus, name + ".c");
+            String text = new String(Files.readAllBytes(source.toPath()),
+                                     StandardCharsets.UTF_8);
+            Method[] mains = new Method[LEVELS.length];
+
+            for (int i = 0; i < LEVELS.length; i++)
+            {
+                mains[i] = load(name, text, LEVELS[i], assembler);
+            }
+
+            programs.put(name, mains);
+        }
+
+        Harness harness = new Harness(warmups, iterations, millis);
+        ArrayList<String> mismatches = new ArrayList<String>();
+
+        stdout.printf("Runtime benchmarks: %d warm-up and %d measured " +
+                      "iterations of %d ms\n\n", warmups, iterations, millis);
+        Harness.printHeading(stdout);
+
+        // Each line of the table, then the ratios.
+        StringBuilder ratios = new StringBuilder(
+                                    String.format("%-12s %10s", "program",
+                                                  "java ms"));
+        for (String[] level : LEVELS)
+        {
+            ratios.append(String.format(" %10s", level[0] + " x"));
+        }
+        ratios.append('\n');
+
+        for (Map.Entry<String, Method[]> program : programs.entrySet())
+        {
+            String name = program.getKey();
+            Runnable baseline = Baselines.getBaselines().get(name);
+            String expected = output(() -> { baseline.run(); return null; });
+
+            System.setOut(NO_OUTPUT);
+            Harness.Result base;
+            try
+            {
+                base = harness.run(name + " java",
+                                   () -> { baseline.run(); return null; });
+            }
+            finally
+            {
+                System.setOut(stdout);
+            }
+            base.print(stdout);
+            ratios.append(String.format("%-12s %10.3f", name,
+                                        base.getNanosPerOp()/1e6));
+
+            for (int i = 0; i < LEVELS.length; i++)
+            {
+                Method main = program.getValue()[i];
+                String level = LEVELS[i][0];
+
+                if (!stripTime(output(() -> run(main))).equals(expected))
+                {
+                    mismatches.add(name + " " + level);
+                }
+
+                System.setOut(NO_OUTPUT);
+                Harness.Result result;
+                try
+                {
+                    result = harness.run(name + " " + level, () -> run(main));
+                }
+                finally
+                {
+                    System.setOut(stdout);
+                }
+                result.print(stdout);
+                ratios.append(String.format(" %10.2f",
+                              result.getNanosPerOp()/base.getNanosPerOp()));
+            }
+
+            ratios.append('\n');
+        }
+
+        stdout.printf("\nTime relative to hand-written Java:\n\n%s", ratios);
+        for (String mismatch : mismatches)
+        {
+            stdout.printf("WARNING: The output of %s differs from " +
+                          "the baseline's.\n", mismatch);
+        }
+    }
+
+    /**
+     * Compile, assemble, and load a program.
+     * @param name the program name.
+     * @param text the source text.
+     * @param level the optimization level and its flags.
+     * @param assembler the assembler's main method.
+     * @return the main method of the loaded program.
+     * @throws Exception if the program fails to compile or load.
+     */
+    private static Method load(String name, String text, String[] level,
+                               Method assembler)
+        throws Exception
+    {
+        CompilerOptions options = new CompilerOptions();
+        for (int i = 1; i < level.length; i++) options.parseFlag(level[i]);
+        options.setListing(false);
+
+        File directory = Files.createTempDirectory("subc-run-" + level[0])
+                              .toFile();
+        options.setDirectory(directory);
+
+        ParseTree tree = PassBenchmark.parse(PassBenchmark.lex(text, name));
+        Semantics semantics = PassBenchmark.analyze(tree);
+        if (semantics.getErrorCount() > 0)
+        {
+            throw new IllegalStateException(name + " has semantic errors");
+        }
+        TreeCompactor.compact(tree);
+        Compiler compiler = PassBenchmark.generate(semantics, tree, options);
+
+        ArrayList<String> arguments = new ArrayList<String>();
+        arguments.add("-d");
+        arguments.add(directory.getPath());
+        for (String objectFileName : compiler.getObjectFileNames())
+        {
+            arguments.add(new File(directory, objectFileName).getPath());
+        }
+
+        output(() -> assembler.invoke(null, (Object)
+                         arguments.toArray(new String[0])));
+
+        String className = compiler.getObjectFileName().replace(".j", "");
+        URLClassLoader loader = new URLClassLoader(
+                                    new URL[] { directory.toURI().toURL() },
+                                    RuntimeBenchmark.class.getClassLoader());
+
+        return loader.loadClass(className).getMethod("main", String[].class);
+    }
+
+    /**
+     * Run the main method of a program.
+     * @param main the main method.
+     * @return null.
+     * @throws Exception if the program fails.
+     */
+    private static Object run(Method main) throws Exception
+    {
+        try
+        {
+            return main.invoke(null, (Object) new String[0]);
+        }
+        catch (InvocationTargetException ex)
+        {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Capture the standard output of an operation.
+     * @param op the operation.
+     * @return the output.
+     * @throws Exception if the operation fails.
+     */
+    private static String output(Callable<Object> op) throws Exception
+    {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        System.setOut(new PrintStream(bytes, true));
+        try
+        {
+            op.call();
+        }
+        finally
+        {
+            System.setOut(stdout);
+        }
+
+        return bytes.toString();
+    }
+
+    /**
+     * Remove the execution time that a program prints at the end.
+     * @param output the program's output.
+     * @return the output without the execution time.
+     */
+    private static String stripTime(String output)
+    {
+        int index = output.lastIndexOf("\n[");
+        return index >= 0 ? output.substring(0, index) : output;
+    }
+
+    /**
+     * Find the benchmark corpus directory from the current directory.
+     * @return the directory.
+     */
+    private static File findCorpus()
+    {
+        for (String path : new String[] { "benchmark/programs",
+                                          "compiler_code/benchmark/programs",
+                                          "programs" })
+        {
+            File dir = new File(path);
+            if (dir.isDirectory()) return dir;
+        }
+
+        return new File("benchmark/programs");
+    }
+
+    /**
+     * Parse the count of a flag.
+     * @param flag the flag.
+     * @return the count.
+     */
+    private static int count(String flag)
+    {
+        return Integer.parseInt(flag.substring(flag.indexOf('=') + 1));
+    }
+}
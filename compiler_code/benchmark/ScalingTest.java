@@ -0,0 +1,241 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import frontend.Semantics;
+import frontend.TreeCompactor;
+import intermediate.util.CompilerOptions;
+
+/**
+ * <h1>ScalingTest</h1>
+ *
+ * <p>Compile generated programs of sizes 1x to 1000x and check that the
+ * time of each pass grows no faster than linearly with the number of
+ * tokens. A pass's growth exponent between two sizes is the log of its
+ * time ratio over the log of their token ratio. A pass is flagged as
+ * super-linear if its exponent between the two largest sizes exceeds
+ * the limit, and then the exit status is 1.</p>
+ *
+ * <p>By default the number of functions grows. With -scale=statements,
+ * the statements per function grow instead, which exposes passes that
+ * are quadratic in the size of a function. With -scale=variables, the
+ * int variables per function grow, which exposes passes that are
+ * quadratic in the number of variables, and -scale=statements,variables
+ * grows both, which exposes passes whose work is the product of the
+ * two, such as a scan of every variable at every statement.</p>
+ *
+ * <p>USAGE: ScalingTest [-sizes=n,n,...]
+ * [-scale=functions|statements|variables|statements,variables]
+ * [-repeat=n] [-limit=x] [-O] [generator flags]</p>
+ */
+public class ScalingTest
+{
+    private static final String[] PASSES =
+        { "lexing", "parsing", "semantics", "codegen" };
+
+    private static final long MIN_NANOS = 20000000;  // shortest reliable time
+    private static final int BASE_VARIABLES = 16;    // extra variables at 1x
+    private static final int WARMUPS = 3;            // warm-up compilations
+
+    public static void main(String[] args) throws Exception
+    {
+        int[] sizes = { 1, 10, 100, 1000 };
+        boolean byFunctions = true;
+        boolean byStatements = false;
+        boolean byVariables = false;
+        int repeat = 3;
+        double limit = 1.3;
+        boolean optimize = false;
+        SourceGenerator generator = new SourceGenerator();
+        generator.setFunctions(2);
+
+        for (String arg : args)
+        {
+            String flag = arg.toLowerCase();
+
+            if (flag.startsWith("-sizes="))
+            {
+                sizes = Arrays.stream(arg.substring(7).split(","))
+                              .mapToInt(Integer::parseInt).toArray();
+            }
+            else if (flag.startsWith("-scale="))
+            {
+                byFunctions = byStatements = byVariables = false;
+
+                for (String dimension : flag.substring(7).split(","))
+                {
+                    if      (dimension.equals("functions"))  byFunctions  = true;
+                    else if (dimension.equals("statements")) byStatements = true;
+                    else if (dimension.equals("variables"))  byVariables  = true;
+                    else
+                    {
+                        System.out.println("ERROR: Invalid flag " + arg);
+                        System.exit(2);
+                    }
+                }
+            }
+            else if (flag.startsWith("-repeat="))
+            {
+                repeat = Integer.parseInt(arg.substring(8));
+            }
+            else if (flag.startsWith("-limit="))
+            {
+                limit = Double.parseDouble(arg.substring(7));
+            }
+            else if (arg.equals("-O")) optimize = true;
+            else if (!generator.parseFlag(arg))
+            {
+                System.out.println("ERROR: Invalid flag " + arg);
+                System.exit(2);
+            }
+        }
+
+        CompilerOptions options = new CompilerOptions();
+        options.setOptimizing(optimize);
+        options.setListing(false);
+        options.setDirectory(Files.createTempDirectory("subc-scale").toFile());
+
+        if (byVariables && (generator.getVariables() == 0))
+        {
+            generator.setVariables(BASE_VARIABLES);
+        }
+
+        int baseFunctions = generator.getFunctions();
+        int baseStatements = generator.getStatements();
+        int baseVariables = generator.getVariables();
+
+        ArrayList<String> scaled = new ArrayList<String>();
+        if (byFunctions)  scaled.add("functions");
+        if (byStatements) scaled.add("statements");
+        if (byVariables)  scaled.add("variables");
+
+        System.out.printf("Scaling the %s: %d functions of %d statements " +
+                          "and %d extra variables, expression depth %d, " +
+                          "nesting depth %d, %d%% strings at 1x%s\n\n",
+                          String.join(" and ", scaled),
+                          baseFunctions, baseStatements, baseVariables,
+                          generator.getExpressionDepth(),
+                          generator.getNestingDepth(),
+                          generator.getStringPercent(),
+                          optimize ? ", optimizing" : "");
+        System.out.printf("%6s %10s", "size", "tokens");
+        for (String pass : PASSES) System.out.printf(" %10s", pass + " ms");
+        System.out.println();
+
+        ArrayList<long[]> rows = new ArrayList<long[]>();
+
+        // The smallest size a few more times first, to warm up the compiler.
+        for (int i = -WARMUPS; i < sizes.length; i++)
+        {
+            int size = sizes[Math.max(i, 0)];
+
+            if (byFunctions)  generator.setFunctions(baseFunctions*size);
+            if (byStatements) generator.setStatements(baseStatements*size);
+            if (byVariables)  generator.setVariables(baseVariables*size);
+
+            String name = "Scale" + size;
+            long[] row = measure(name, generator.generate(name), options,
+                                 repeat);
+            if (i < 0) continue;
+
+            rows.add(row);
+            System.out.printf("%5dx %10d", size, row[0]);
+            for (int p = 1; p <= PASSES.length; p++)
+            {
+                System.out.printf(" %10.2f", row[p]/1e6);
+            }
+            System.out.println();
+        }
+
+        System.out.println();
+        System.out.printf("%-10s %s\n", "pass",
+                          "growth exponents between successive sizes");
+
+        boolean superLinear = false;
+        for (int p = 1; p <= PASSES.length; p++)
+        {
+            StringBuilder exponents = new StringBuilder();
+            double last = Double.NaN;
+
+            for (int i = 1; i < rows.size(); i++)
+            {
+                long[] smaller = rows.get(i - 1);
+                long[] larger = rows.get(i);
+
+                // Times too short to measure reliably aren't compared.
+                if (   (smaller[p] < MIN_NANOS) || (larger[p] < MIN_NANOS)
+                    || (larger[0] <= smaller[0]))
+                {
+                    exponents.append(String.format(" %6s", "-"));
+                    continue;
+                }
+
+                last = Math.log((double) larger[p]/smaller[p])
+                     / Math.log((double) larger[0]/smaller[0]);
+                exponents.append(String.format(" %6.2f", last));
+            }
+
+            boolean flagged = last > limit;
+            superLinear = superLinear || flagged;
+            System.out.printf("%-10s%s%s\n", PASSES[p - 1], exponents,
+                              flagged ? "   SUPER-LINEAR" : "");
+        }
+
+        System.out.printf("\n%s\n", superLinear
+            ? "FAILED: a pass grows faster than exponent " + limit + "."
+            : "PASSED: no pass grows faster than exponent " + limit + ".");
+        System.exit(superLinear ? 1 : 0);
+    }
+
+    /**
+     * Compile a program and time its passes.
+     * @param name the program name.
+     * @param text the source text.
+     * @param options the compiler options.
+     * @param repeat the number of compilations, of which the fastest
+     *               time of each pass is kept.
+     * @return the token count followed by the pass times in nanoseconds.
+     */
+    private static long[] measure(String name, String text,
+                                  CompilerOptions options, int repeat)
+    {
+        long[] row = new long[PASSES.length + 1];
+        Arrays.fill(row, Long.MAX_VALUE);
+
+        for (int r = 0; r < repeat; r++)
+        {
+            // Don't charge the garbage of the last compilation to this one.
+            System.gc();
+
+            long start = System.nanoTime();
+            CommonTokenStream tokens = PassBenchmark.lex(text, name);
+            long lexed = System.nanoTime();
+            ParseTree tree = PassBenchmark.parse(tokens);
+            long parsed = System.nanoTime();
+            Semantics semantics = PassBenchmark.analyze(tree);
+            if (semantics.getErrorCount() > 0)
+            {
+                throw new IllegalStateException(
+                    name + " has " + semantics.getErrorCount() +
+                    " semantic errors");
+            }
+            TreeCompactor.compact(tree);
+            long analyzed = System.nanoTime();
+            PassBenchmark.generate(semantics, tree, options);
+            long generated = System.nanoTime();
+
+            row[0] = tokens.size();
+            row[1] = Math.min(row[1], lexed - start);
+            row[2] = Math.min(row[2], parsed - lexed);
+            row[3] = Math.min(row[3], analyzed - parsed);
+            row[4] = Math.min(row[4], generated - analyzed);
+        }
+
+        return row;
+    }
+}
@@ -0,0 +1,426 @@
+package benchmark;
+
+import java.util.Random;
+
+/**
+ * <h1>SourceGenerator</h1>
+ *
+ * <p>Generate valid SubC programs of a configurable size and shape, as
+ * benchmark inputs that are larger than the sample programs: the number
+ * of functions, the statements per function, the extra int variables
+ * per function, the expression depth, the nesting depth of the if, while,
+ * for, and switch statements, and the share of string statements.</p>
+ *
+ * <p>The functions call each other as a binary tree rooted at the main
+ * program, with no loop around a call, so a generated program also
+ * runs in time linear in its size. Each function is generated from its
+ * own seed, so it's the same in programs of every size.</p>
+ */
+public class SourceGenerator
+{
+    private static final int BLOCK_STATEMENTS = 2;  // statements per nested block
+    private static final int LOOP_COUNT = 3;        // iterations of each loop
+    private static final int LITERALS = 16;         // different string literals
+
+    private int functions = 10;        // number of functions
+    private int statements = 8;        // top-level statements per function
+    private int variables = 0;         // extra int variables per function
+    private int expressionDepth = 3;   // operators per expression
+    private int nestingDepth = 2;      // nesting depth of the statements
+    private int stringPercent = 20;    // share of string statements
+    private long seed = 1;             // random seed
+
+    // The function being generated.
+    private Random random;
+    private StringBuilder text;
+    private int loopCount;
+
+    /**
+     * Generate a program with the default shape.
+     * @param name the program name.
+     * @param functions the number of functions.
+     * @return the source text.
+     */
+    public static String generate(String name, int functions)
+    {
+        SourceGenerator generator = new SourceGenerator();
+        generator.setFunctions(functions);
+
+        return generator.generate(name);
+    }
+
+    public int getFunctions() { return functions; }
+    public void setFunctions(int functions) { this.functions = functions; }
+
+    public int getStatements() { return statements; }
+    public void setStatements(int statements) { this.statements = statements; }
+
+    public int getVariables() { return variables; }
+    public void setVariables(int variables) { this.variables = variables; }
+
+    public int getExpressionDepth() { return expressionDepth; }
+    public void setExpressionDepth(int depth) { this.expressionDepth = depth; }
+
+    public int getNestingDepth() { return nestingDepth; }
+    public void setNestingDepth(int depth) { this.nestingDepth = depth; }
+
+    public int getStringPercent() { return stringPercent; }
+    public void setStringPercent(int percent) { this.stringPercent = percent; }
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    /**
+     * Parse a generator flag.
+     * @param flag the flag, such as -functions=100.
+     * @return true if it's a generator flag, else false.
+     */
+    public boolean parseFlag(String flag)
+    {
+        int index = flag.indexOf('=');
+        if (index < 0) return false;
+
+        String name = flag.substring(0, index).toLowerCase();
+        int value;
+        try
+        {
+            value = Integer.parseInt(flag.substring(index + 1));
+        }
+        catch (NumberFormatException ex)
+        {
+            return false;
+        }
+
+        if      (name.equals("-functions"))  functions       = value;
+        else if (name.equals("-statements")) statements      = value;
+        else if (name.equals("-variables"))  variables       = value;
+        else if (name.equals("-depth"))      expressionDepth = value;
+        else if (name.equals("-nesting"))    nestingDepth    = value;
+        else if (name.equals("-strings"))    stringPercent   = value;
+        else if (name.equals("-seed"))       seed            = value;
+        else return false;
+
+        return true;
+    }
+
+    /**
+     * Generate a program.
+     * @param name the program name.
+     * @return the source text.
+     */
+    public String generate(String name)
+    {
+        text = new StringBuilder();
+        text.append("Program ").append(name).append(";\n\n");
+
+        // A function is declared before the functions that call it.
+        for (int i = functions - 1; i >= 0; i--) function(i);
+
+        text.append("int main()\n")
+            .append("{\n")
+            .append("    int total = 0;\n")
+            .append("    string last = \"\";\n");
+        if (functions > 0)
+        {
+            call(0, "total", "last", "    ");
+        }
+        text.append("    print(\"%d %s\\n\", total, last);\n")
+            .append("}\n");
+
+        String source = text.toString();
+        text = null;
+
+        return source;
+    }
+
+    /**
+     * Generate a function. A function returns a string if it's
+     * string-heavy, else an int.
+     * @param index the function's index.
+     */
+    private void function(int index)
+    {
+        random = new Random(seed * 1000003 + index);
+        loopCount = 0;
+
+        boolean isString = random.nextInt(100) < stringPercent;
+
+        text.append(isString ? "string" : "int")
+            .append(" f").append(index).append("(string t, int n)\n")
+            .append("{\n")
+            .append("    int a = n;\n")
+            .append("    int b = ").append(index % 100).append(";\n")
+            .append("    string u = t;\n")
+            .append("    string v = \"s").append(index).append("\";\n");
+        for (int i = 0; i < variables; i++)
+        {
+            text.append("    int x").append(i).append(" = ").append(i % 10)
+                .append(";\n");
+        }
+
+        // Call the children in the call tree.
+        for (int child = 2*index + 1; child <= 2*index + 2; child++)
+        {
+            if (child < functions) call(child, "a", "u", "    ");
+        }
+
+        for (int i = 0; i < statements; i++) statement(1, "    ");
+
+        text.append("    return ").append(isString ? "u" : "a").append(";\n")
+            .append("}\n\n");
+    }
+
+    /**
+     * Generate a call of a function. The function is called with the
+     * result assigned or added to a variable of its return type.
+     * @param index the function's index.
+     * @param intTarget the int variable.
+     * @param stringTarget the string variable.
+     * @param indent the indentation.
+     */
+    private void call(int index, String intTarget, String stringTarget,
+                      String indent)
+    {
+        Random saved = random;
+        random = new Random(seed * 1000003 + index);
+        boolean isString = random.nextInt(100) < stringPercent;
+        random = saved;
+
+        String arguments = "(\"c" + index + "\", " + (index % 10) + ")";
+
+        text.append(indent);
+        if (isString)
+        {
+            text.append(stringTarget).append(" = f").append(index)
+                .append(arguments);
+        }
+        else
+        {
+            text.append(intTarget).append(" = ").append(intTarget)
+                .append(" + f").append(index).append(arguments);
+        }
+        text.append(";\n");
+    }
+
+    /**
+     * Generate a statement. Below the nesting depth, it may be a
+     * compound statement.
+     * @param depth the nesting depth of the statement.
+     * @param indent the indentation.
+     */
+    private void statement(int depth, String indent)
+    {
+        boolean isString = random.nextInt(100) < stringPercent;
+        int kind = depth <= nestingDepth ? random.nextInt(6) : 0;
+
+        switch (kind)
+        {
+            case 0:
+            case 1:  assignment(isString, indent); break;
+            case 2:  ifStatement(isString, depth, indent); break;
+            case 3:  whileStatement(depth, indent); break;
+            case 4:  forStatement(depth, indent); break;
+            default: switchStatement(isString, depth, indent); break;
+        }
+    }
+
+    /**
+     * Generate the statements of a nested block.
+     * @param depth the nesting depth of the block.
+     * @param indent the indentation of the braces.
+     */
+    private void block(int depth, String indent)
+    {
+        text.append(indent).append("{\n");
+        for (int i = 0; i < BLOCK_STATEMENTS; i++)
+        {
+            statement(depth + 1, indent + "    ");
+        }
+        text.append(indent).append("}\n");
+    }
+
+    private void assignment(boolean isString, String indent)
+    {
+        text.append(indent);
+        if (isString)
+        {
+            switch (random.nextInt(3))
+            {
+                case 0:  text.append("u = v;\n"); break;
+                case 1:  text.append("v = ").append(literal()).append(";\n"); break;
+                default: text.append("u = t;\n"); break;
+            }
+        }
+        else
+        {
+            text.append(intVariable(random.nextBoolean() ? "a" : "b"))
+                .append(" = ");
+            expression(expressionDepth);
+            text.append(";\n");
+        }
+    }
+
+    private void ifStatement(boolean isString, int depth, String indent)
+    {
+        text.append(indent).append("if (");
+        if (isString)
+        {
+            text.append("u == ").append(literal());
+        }
+        else
+        {
+            boolean isAnd = random.nextBoolean();
+
+            text.append(isAnd ? "((" : "(");
+            expression(expressionDepth);
+            text.append(") > ").append(random.nextInt(10));
+            if (isAnd)
+            {
+                text.append(") && (b < ").append(random.nextInt(100)).append(")");
+            }
+        }
+        text.append(")\n");
+        block(depth, indent);
+
+        if (random.nextBoolean())
+        {
+            text.append(indent).append("else\n");
+            block(depth, indent);
+        }
+    }
+
+    private void whileStatement(int depth, String indent)
+    {
+        String counter = "w" + loopCount++;
+
+        text.append(indent).append("int ").append(counter).append(" = 0;\n")
+            .append(indent).append("while (").append(counter).append(" < ")
+            .append(LOOP_COUNT).append(")\n")
+            .append(indent).append("{\n");
+        for (int i = 0; i < BLOCK_STATEMENTS; i++)
+        {
+            statement(depth + 1, indent + "    ");
+        }
+        text.append(indent).append("    ").append(counter).append(" = ")
+            .append(counter).append(" + 1;\n")
+            .append(indent).append("}\n");
+    }
+
+    private void forStatement(int depth, String indent)
+    {
+        String counter = "k" + loopCount++;
+
+        text.append(indent).append("for (int ").append(counter).append(" = 0; ")
+            .append(counter).append(" < ").append(LOOP_COUNT).append("; ")
+            .append(counter).append(" = ").append(counter).append(" + 1)\n");
+        block(depth, indent);
+    }
+
+    private void switchStatement(boolean isString, int depth, String indent)
+    {
+        String inner = indent + "    ";
+
+        text.append(indent).append("switch (")
+            .append(isString ? "u" : "a % 4").append(")\n")
+            .append(indent).append("{\n");
+
+        // The string case constants are three different literals.
+        int first = random.nextInt(LITERALS);
+        int second = (first + 1 + random.nextInt(LITERALS - 2)) % LITERALS;
+        int third = (first + LITERALS - 1) % LITERALS;
+
+        text.append(inner).append("case ");
+        if (isString)
+        {
+            text.append(literal(first)).append(", ").append(literal(second));
+        }
+        else
+        {
+            text.append("0");
+        }
+        text.append(":\n");
+        caseStatements(depth, inner + "    ", true);
+
+        text.append(inner).append("case ")
+            .append(isString ? literal(third) : "1, 2").append(":\n");
+        caseStatements(depth, inner + "    ", true);
+
+        text.append(inner).append("default:\n");
+        caseStatements(depth, inner + "    ", false);
+
+        text.append(indent).append("}\n");
+    }
+
+    private void caseStatements(int depth, String indent, boolean breaks)
+    {
+        for (int i = 0; i < BLOCK_STATEMENTS; i++) statement(depth + 1, indent);
+        if (breaks) text.append(indent).append("break;\n");
+    }
+
+    /**
+     * Generate an int expression with a number of operators. Each
+     * operator has an operand that's a variable or a constant, so the
+     * size of an expression is linear in its depth.
+     * @param depth the number of operators.
+     */
+    private void expression(int depth)
+    {
+        if (depth <= 0)
+        {
+            operand();
+            return;
+        }
+
+        int op = random.nextInt(4);
+        text.append("(");
+        expression(depth - 1);
+        switch (op)
+        {
+            case 0:  text.append(" + "); operand(); break;
+            case 1:  text.append(" - "); operand(); break;
+            case 2:  text.append(" * "); operand(); break;
+            default: text.append(" % ").append(random.nextInt(9) + 2); break;
+        }
+        text.append(")");
+    }
+
+    private void operand()
+    {
+        switch (random.nextInt(4))
+        {
+            case 0:  text.append(intVariable("a")); break;
+            case 1:  text.append(intVariable("b")); break;
+            case 2:  text.append("n"); break;
+            default: text.append(random.nextInt(10)); break;
+        }
+    }
+
+    /**
+     * Choose an int variable. With extra variables, an extra variable
+     * is chosen instead of the given one most of the time.
+     * @param fixed the variable without extra variables, a or b.
+     * @return the variable's name.
+     */
+    private String intVariable(String fixed)
+    {
+        if (variables == 0) return fixed;
+
+        int i = random.nextInt(variables + 1);
+        return (i < variables) ? "x" + i : fixed;
+    }
+
+    private String literal()
+    {
+        return literal(random.nextInt(LITERALS));
+    }
+
+    /**
+     * Get one of the string literals.
+     * @param index the literal's index.
+     * @return the literal, with its quotes.
+     */
+    private static String literal(int index)
+    {
+        return "\"" + (char) ('a' + index/4) + (char) ('a' + index%4) + "\"";
+    }
+}
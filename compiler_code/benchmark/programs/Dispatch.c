@@ -0,0 +1,37 @@
+Program Dispatch;
+
+/* Dispatch on a switch in a loop. */
+int step(int op, int acc)
+{
+    int r = acc;
+    switch (op)
+    {
+        case 0:
+            r = acc + 3;
+            break;
+        case 1:
+            r = acc * 2;
+            break;
+        case 2:
+            r = acc - 7;
+            break;
+        case 3, 4:
+            r = acc % 1000;
+            break;
+        default:
+            r = acc + 1;
+    }
+    return r;
+}
+
+int main()
+{
+    int acc = 0;
+    int i = 0;
+    while (i < 1000000)
+    {
+        acc = step(i % 6, acc);
+        i = i + 1;
+    }
+    print("acc = %d\n", acc);
+}
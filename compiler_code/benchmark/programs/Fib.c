@@ -0,0 +1,17 @@
+Program Fib;
+
+/* Naive doubly recursive Fibonacci. */
+int fib(int n)
+{
+    int f = n;
+    if (n >= 2)
+    {
+        f = fib(n - 1) + fib(n - 2);
+    }
+    return f;
+}
+
+int main()
+{
+    print("fib(27) = %d\n", fib(27));
+}
@@ -0,0 +1,1239 @@
+Program Large;
+
+/* One function too big for a method, split into helper methods. */
+int mix(int n)
+{
+    int v0 = n + 0;
+    int v1 = n + 1;
+    int v2 = n + 2;
+    int v3 = n + 3;
+    int v4 = n + 4;
+    int v5 = n + 5;
+    int v6 = n + 6;
+    int v7 = n + 7;
+    int v8 = n + 8;
+    int v9 = n + 9;
+    int v10 = n + 10;
+    int v11 = n + 11;
+    int v12 = n + 12;
+    int v13 = n + 13;
+    int v14 = n + 14;
+    int v15 = n + 15;
+    int v16 = n + 16;
+    int v17 = n + 17;
+    int v18 = n + 18;
+    int v19 = n + 19;
+    v0 = (v7 + v13 + 0) % 1000;
+    v1 = (v8 + v14 + 1) % 1000;
+    v2 = (v9 + v15 + 2) % 1000;
+    v3 = (v10 + v16 + 3) % 1000;
+    v4 = (v11 + v17 + 4) % 1000;
+    v5 = (v12 + v18 + 5) % 1000;
+    v6 = (v13 + v19 + 6) % 1000;
+    v7 = (v14 + v0 + 7) % 1000;
+    v8 = (v15 + v1 + 8) % 1000;
+    v9 = (v16 + v2 + 9) % 1000;
+    v10 = (v17 + v3 + 10) % 1000;
+    v11 = (v18 + v4 + 11) % 1000;
+    v12 = (v19 + v5 + 12) % 1000;
+    v13 = (v0 + v6 + 13) % 1000;
+    v14 = (v1 + v7 + 14) % 1000;
+    v15 = (v2 + v8 + 15) % 1000;
+    v16 = (v3 + v9 + 16) % 1000;
+    v17 = (v4 + v10 + 17) % 1000;
+    v18 = (v5 + v11 + 18) % 1000;
+    v19 = (v6 + v12 + 19) % 1000;
+    v0 = (v7 + v13 + 20) % 1000;
+    v1 = (v8 + v14 + 21) % 1000;
+    v2 = (v9 + v15 + 22) % 1000;
+    v3 = (v10 + v16 + 23) % 1000;
+    v4 = (v11 + v17 + 24) % 1000;
+    v5 = (v12 + v18 + 25) % 1000;
+    v6 = (v13 + v19 + 26) % 1000;
+    v7 = (v14 + v0 + 27) % 1000;
+    v8 = (v15 + v1 + 28) % 1000;
+    v9 = (v16 + v2 + 29) % 1000;
+    v10 = (v17 + v3 + 30) % 1000;
+    v11 = (v18 + v4 + 31) % 1000;
+    v12 = (v19 + v5 + 32) % 1000;
+    v13 = (v0 + v6 + 33) % 1000;
+    v14 = (v1 + v7 + 34) % 1000;
+    v15 = (v2 + v8 + 35) % 1000;
+    v16 = (v3 + v9 + 36) % 1000;
+    v17 = (v4 + v10 + 37) % 1000;
+    v18 = (v5 + v11 + 38) % 1000;
+    v19 = (v6 + v12 + 39) % 1000;
+    v0 = (v7 + v13 + 40) % 1000;
+    v1 = (v8 + v14 + 41) % 1000;
+    v2 = (v9 + v15 + 42) % 1000;
+    v3 = (v10 + v16 + 43) % 1000;
+    v4 = (v11 + v17 + 44) % 1000;
+    v5 = (v12 + v18 + 45) % 1000;
+    v6 = (v13 + v19 + 46) % 1000;
+    v7 = (v14 + v0 + 47) % 1000;
+    v8 = (v15 + v1 + 48) % 1000;
+    v9 = (v16 + v2 + 49) % 1000;
+    v10 = (v17 + v3 + 50) % 1000;
+    v11 = (v18 + v4 + 51) % 1000;
+    v12 = (v19 + v5 + 52) % 1000;
+    v13 = (v0 + v6 + 53) % 1000;
+    v14 = (v1 + v7 + 54) % 1000;
+    v15 = (v2 + v8 + 55) % 1000;
+    v16 = (v3 + v9 + 56) % 1000;
+    v17 = (v4 + v10 + 57) % 1000;
+    v18 = (v5 + v11 + 58) % 1000;
+    v19 = (v6 + v12 + 59) % 1000;
+    v0 = (v7 + v13 + 60) % 1000;
+    v1 = (v8 + v14 + 61) % 1000;
+    v2 = (v9 + v15 + 62) % 1000;
+    v3 = (v10 + v16 + 63) % 1000;
+    v4 = (v11 + v17 + 64) % 1000;
+    v5 = (v12 + v18 + 65) % 1000;
+    v6 = (v13 + v19 + 66) % 1000;
+    v7 = (v14 + v0 + 67) % 1000;
+    v8 = (v15 + v1 + 68) % 1000;
+    v9 = (v16 + v2 + 69) % 1000;
+    v10 = (v17 + v3 + 70) % 1000;
+    v11 = (v18 + v4 + 71) % 1000;
+    v12 = (v19 + v5 + 72) % 1000;
+    v13 = (v0 + v6 + 73) % 1000;
+    v14 = (v1 + v7 + 74) % 1000;
+    v15 = (v2 + v8 + 75) % 1000;
+    v16 = (v3 + v9 + 76) % 1000;
+    v17 = (v4 + v10 + 77) % 1000;
+    v18 = (v5 + v11 + 78) % 1000;
+    v19 = (v6 + v12 + 79) % 1000;
+    v0 = (v7 + v13 + 80) % 1000;
+    v1 = (v8 + v14 + 81) % 1000;
+    v2 = (v9 + v15 + 82) % 1000;
+    v3 = (v10 + v16 + 83) % 1000;
+    v4 = (v11 + v17 + 84) % 1000;
+    v5 = (v12 + v18 + 85) % 1000;
+    v6 = (v13 + v19 + 86) % 1000;
+    v7 = (v14 + v0 + 87) % 1000;
+    v8 = (v15 + v1 + 88) % 1000;
+    v9 = (v16 + v2 + 89) % 1000;
+    v10 = (v17 + v3 + 90) % 1000;
+    v11 = (v18 + v4 + 91) % 1000;
+    v12 = (v19 + v5 + 92) % 1000;
+    v13 = (v0 + v6 + 93) % 1000;
+    v14 = (v1 + v7 + 94) % 1000;
+    v15 = (v2 + v8 + 95) % 1000;
+    v16 = (v3 + v9 + 96) % 1000;
+    v17 = (v4 + v10 + 97) % 1000;
+    v18 = (v5 + v11 + 98) % 1000;
+    v19 = (v6 + v12 + 99) % 1000;
+    v0 = (v7 + v13 + 100) % 1000;
+    v1 = (v8 + v14 + 101) % 1000;
+    v2 = (v9 + v15 + 102) % 1000;
+    v3 = (v10 + v16 + 103) % 1000;
+    v4 = (v11 + v17 + 104) % 1000;
+    v5 = (v12 + v18 + 105) % 1000;
+    v6 = (v13 + v19 + 106) % 1000;
+    v7 = (v14 + v0 + 107) % 1000;
+    v8 = (v15 + v1 + 108) % 1000;
+    v9 = (v16 + v2 + 109) % 1000;
+    v10 = (v17 + v3 + 110) % 1000;
+    v11 = (v18 + v4 + 111) % 1000;
+    v12 = (v19 + v5 + 112) % 1000;
+    v13 = (v0 + v6 + 113) % 1000;
+    v14 = (v1 + v7 + 114) % 1000;
+    v15 = (v2 + v8 + 115) % 1000;
+    v16 = (v3 + v9 + 116) % 1000;
+    v17 = (v4 + v10 + 117) % 1000;
+    v18 = (v5 + v11 + 118) % 1000;
+    v19 = (v6 + v12 + 119) % 1000;
+    v0 = (v7 + v13 + 120) % 1000;
+    v1 = (v8 + v14 + 121) % 1000;
+    v2 = (v9 + v15 + 122) % 1000;
+    v3 = (v10 + v16 + 123) % 1000;
+    v4 = (v11 + v17 + 124) % 1000;
+    v5 = (v12 + v18 + 125) % 1000;
+    v6 = (v13 + v19 + 126) % 1000;
+    v7 = (v14 + v0 + 127) % 1000;
+    v8 = (v15 + v1 + 128) % 1000;
+    v9 = (v16 + v2 + 129) % 1000;
+    v10 = (v17 + v3 + 130) % 1000;
+    v11 = (v18 + v4 + 131) % 1000;
+    v12 = (v19 + v5 + 132) % 1000;
+    v13 = (v0 + v6 + 133) % 1000;
+    v14 = (v1 + v7 + 134) % 1000;
+    v15 = (v2 + v8 + 135) % 1000;
+    v16 = (v3 + v9 + 136) % 1000;
+    v17 = (v4 + v10 + 137) % 1000;
+    v18 = (v5 + v11 + 138) % 1000;
+    v19 = (v6 + v12 + 139) % 1000;
+    v0 = (v7 + v13 + 140) % 1000;
+    v1 = (v8 + v14 + 141) % 1000;
+    v2 = (v9 + v15 + 142) % 1000;
+    v3 = (v10 + v16 + 143) % 1000;
+    v4 = (v11 + v17 + 144) % 1000;
+    v5 = (v12 + v18 + 145) % 1000;
+    v6 = (v13 + v19 + 146) % 1000;
+    v7 = (v14 + v0 + 147) % 1000;
+    v8 = (v15 + v1 + 148) % 1000;
+    v9 = (v16 + v2 + 149) % 1000;
+    v10 = (v17 + v3 + 150) % 1000;
+    v11 = (v18 + v4 + 151) % 1000;
+    v12 = (v19 + v5 + 152) % 1000;
+    v13 = (v0 + v6 + 153) % 1000;
+    v14 = (v1 + v7 + 154) % 1000;
+    v15 = (v2 + v8 + 155) % 1000;
+    v16 = (v3 + v9 + 156) % 1000;
+    v17 = (v4 + v10 + 157) % 1000;
+    v18 = (v5 + v11 + 158) % 1000;
+    v19 = (v6 + v12 + 159) % 1000;
+    v0 = (v7 + v13 + 160) % 1000;
+    v1 = (v8 + v14 + 161) % 1000;
+    v2 = (v9 + v15 + 162) % 1000;
+    v3 = (v10 + v16 + 163) % 1000;
+    v4 = (v11 + v17 + 164) % 1000;
+    v5 = (v12 + v18 + 165) % 1000;
+    v6 = (v13 + v19 + 166) % 1000;
+    v7 = (v14 + v0 + 167) % 1000;
+    v8 = (v15 + v1 + 168) % 1000;
+    v9 = (v16 + v2 + 169) % 1000;
+    v10 = (v17 + v3 + 170) % 1000;
+    v11 = (v18 + v4 + 171) % 1000;
+    v12 = (v19 + v5 + 172) % 1000;
+    v13 = (v0 + v6 + 173) % 1000;
+    v14 = (v1 + v7 + 174) % 1000;
+    v15 = (v2 + v8 + 175) % 1000;
+    v16 = (v3 + v9 + 176) % 1000;
+    v17 = (v4 + v10 + 177) % 1000;
+    v18 = (v5 + v11 + 178) % 1000;
+    v19 = (v6 + v12 + 179) % 1000;
+    v0 = (v7 + v13 + 180) % 1000;
+    v1 = (v8 + v14 + 181) % 1000;
+    v2 = (v9 + v15 + 182) % 1000;
+    v3 = (v10 + v16 + 183) % 1000;
+    v4 = (v11 + v17 + 184) % 1000;
+    v5 = (v12 + v18 + 185) % 1000;
+    v6 = (v13 + v19 + 186) % 1000;
+    v7 = (v14 + v0 + 187) % 1000;
+    v8 = (v15 + v1 + 188) % 1000;
+    v9 = (v16 + v2 + 189) % 1000;
+    v10 = (v17 + v3 + 190) % 1000;
+    v11 = (v18 + v4 + 191) % 1000;
+    v12 = (v19 + v5 + 192) % 1000;
+    v13 = (v0 + v6 + 193) % 1000;
+    v14 = (v1 + v7 + 194) % 1000;
+    v15 = (v2 + v8 + 195) % 1000;
+    v16 = (v3 + v9 + 196) % 1000;
+    v17 = (v4 + v10 + 197) % 1000;
+    v18 = (v5 + v11 + 198) % 1000;
+    v19 = (v6 + v12 + 199) % 1000;
+    v0 = (v7 + v13 + 200) % 1000;
+    v1 = (v8 + v14 + 201) % 1000;
+    v2 = (v9 + v15 + 202) % 1000;
+    v3 = (v10 + v16 + 203) % 1000;
+    v4 = (v11 + v17 + 204) % 1000;
+    v5 = (v12 + v18 + 205) % 1000;
+    v6 = (v13 + v19 + 206) % 1000;
+    v7 = (v14 + v0 + 207) % 1000;
+    v8 = (v15 + v1 + 208) % 1000;
+    v9 = (v16 + v2 + 209) % 1000;
+    v10 = (v17 + v3 + 210) % 1000;
+    v11 = (v18 + v4 + 211) % 1000;
+    v12 = (v19 + v5 + 212) % 1000;
+    v13 = (v0 + v6 + 213) % 1000;
+    v14 = (v1 + v7 + 214) % 1000;
+    v15 = (v2 + v8 + 215) % 1000;
+    v16 = (v3 + v9 + 216) % 1000;
+    v17 = (v4 + v10 + 217) % 1000;
+    v18 = (v5 + v11 + 218) % 1000;
+    v19 = (v6 + v12 + 219) % 1000;
+    v0 = (v7 + v13 + 220) % 1000;
+    v1 = (v8 + v14 + 221) % 1000;
+    v2 = (v9 + v15 + 222) % 1000;
+    v3 = (v10 + v16 + 223) % 1000;
+    v4 = (v11 + v17 + 224) % 1000;
+    v5 = (v12 + v18 + 225) % 1000;
+    v6 = (v13 + v19 + 226) % 1000;
+    v7 = (v14 + v0 + 227) % 1000;
+    v8 = (v15 + v1 + 228) % 1000;
+    v9 = (v16 + v2 + 229) % 1000;
+    v10 = (v17 + v3 + 230) % 1000;
+    v11 = (v18 + v4 + 231) % 1000;
+    v12 = (v19 + v5 + 232) % 1000;
+    v13 = (v0 + v6 + 233) % 1000;
+    v14 = (v1 + v7 + 234) % 1000;
+    v15 = (v2 + v8 + 235) % 1000;
+    v16 = (v3 + v9 + 236) % 1000;
+    v17 = (v4 + v10 + 237) % 1000;
+    v18 = (v5 + v11 + 238) % 1000;
+    v19 = (v6 + v12 + 239) % 1000;
+    v0 = (v7 + v13 + 240) % 1000;
+    v1 = (v8 + v14 + 241) % 1000;
+    v2 = (v9 + v15 + 242) % 1000;
+    v3 = (v10 + v16 + 243) % 1000;
+    v4 = (v11 + v17 + 244) % 1000;
+    v5 = (v12 + v18 + 245) % 1000;
+    v6 = (v13 + v19 + 246) % 1000;
+    v7 = (v14 + v0 + 247) % 1000;
+    v8 = (v15 + v1 + 248) % 1000;
+    v9 = (v16 + v2 + 249) % 1000;
+    v10 = (v17 + v3 + 250) % 1000;
+    v11 = (v18 + v4 + 251) % 1000;
+    v12 = (v19 + v5 + 252) % 1000;
+    v13 = (v0 + v6 + 253) % 1000;
+    v14 = (v1 + v7 + 254) % 1000;
+    v15 = (v2 + v8 + 255) % 1000;
+    v16 = (v3 + v9 + 256) % 1000;
+    v17 = (v4 + v10 + 257) % 1000;
+    v18 = (v5 + v11 + 258) % 1000;
+    v19 = (v6 + v12 + 259) % 1000;
+    v0 = (v7 + v13 + 260) % 1000;
+    v1 = (v8 + v14 + 261) % 1000;
+    v2 = (v9 + v15 + 262) % 1000;
+    v3 = (v10 + v16 + 263) % 1000;
+    v4 = (v11 + v17 + 264) % 1000;
+    v5 = (v12 + v18 + 265) % 1000;
+    v6 = (v13 + v19 + 266) % 1000;
+    v7 = (v14 + v0 + 267) % 1000;
+    v8 = (v15 + v1 + 268) % 1000;
+    v9 = (v16 + v2 + 269) % 1000;
+    v10 = (v17 + v3 + 270) % 1000;
+    v11 = (v18 + v4 + 271) % 1000;
+    v12 = (v19 + v5 + 272) % 1000;
+    v13 = (v0 + v6 + 273) % 1000;
+    v14 = (v1 + v7 + 274) % 1000;
+    v15 = (v2 + v8 + 275) % 1000;
+    v16 = (v3 + v9 + 276) % 1000;
+    v17 = (v4 + v10 + 277) % 1000;
+    v18 = (v5 + v11 + 278) % 1000;
+    v19 = (v6 + v12 + 279) % 1000;
+    v0 = (v7 + v13 + 280) % 1000;
+    v1 = (v8 + v14 + 281) % 1000;
+    v2 = (v9 + v15 + 282) % 1000;
+    v3 = (v10 + v16 + 283) % 1000;
+    v4 = (v11 + v17 + 284) % 1000;
+    v5 = (v12 + v18 + 285) % 1000;
+    v6 = (v13 + v19 + 286) % 1000;
+    v7 = (v14 + v0 + 287) % 1000;
+    v8 = (v15 + v1 + 288) % 1000;
+    v9 = (v16 + v2 + 289) % 1000;
+    v10 = (v17 + v3 + 290) % 1000;
+    v11 = (v18 + v4 + 291) % 1000;
+    v12 = (v19 + v5 + 292) % 1000;
+    v13 = (v0 + v6 + 293) % 1000;
+    v14 = (v1 + v7 + 294) % 1000;
+    v15 = (v2 + v8 + 295) % 1000;
+    v16 = (v3 + v9 + 296) % 1000;
+    v17 = (v4 + v10 + 297) % 1000;
+    v18 = (v5 + v11 + 298) % 1000;
+    v19 = (v6 + v12 + 299) % 1000;
+    v0 = (v7 + v13 + 300) % 1000;
+    v1 = (v8 + v14 + 301) % 1000;
+    v2 = (v9 + v15 + 302) % 1000;
+    v3 = (v10 + v16 + 303) % 1000;
+    v4 = (v11 + v17 + 304) % 1000;
+    v5 = (v12 + v18 + 305) % 1000;
+    v6 = (v13 + v19 + 306) % 1000;
+    v7 = (v14 + v0 + 307) % 1000;
+    v8 = (v15 + v1 + 308) % 1000;
+    v9 = (v16 + v2 + 309) % 1000;
+    v10 = (v17 + v3 + 310) % 1000;
+    v11 = (v18 + v4 + 311) % 1000;
+    v12 = (v19 + v5 + 312) % 1000;
+    v13 = (v0 + v6 + 313) % 1000;
+    v14 = (v1 + v7 + 314) % 1000;
+    v15 = (v2 + v8 + 315) % 1000;
+    v16 = (v3 + v9 + 316) % 1000;
+    v17 = (v4 + v10 + 317) % 1000;
+    v18 = (v5 + v11 + 318) % 1000;
+    v19 = (v6 + v12 + 319) % 1000;
+    v0 = (v7 + v13 + 320) % 1000;
+    v1 = (v8 + v14 + 321) % 1000;
+    v2 = (v9 + v15 + 322) % 1000;
+    v3 = (v10 + v16 + 323) % 1000;
+    v4 = (v11 + v17 + 324) % 1000;
+    v5 = (v12 + v18 + 325) % 1000;
+    v6 = (v13 + v19 + 326) % 1000;
+    v7 = (v14 + v0 + 327) % 1000;
+    v8 = (v15 + v1 + 328) % 1000;
+    v9 = (v16 + v2 + 329) % 1000;
+    v10 = (v17 + v3 + 330) % 1000;
+    v11 = (v18 + v4 + 331) % 1000;
+    v12 = (v19 + v5 + 332) % 1000;
+    v13 = (v0 + v6 + 333) % 1000;
+    v14 = (v1 + v7 + 334) % 1000;
+    v15 = (v2 + v8 + 335) % 1000;
+    v16 = (v3 + v9 + 336) % 1000;
+    v17 = (v4 + v10 + 337) % 1000;
+    v18 = (v5 + v11 + 338) % 1000;
+    v19 = (v6 + v12 + 339) % 1000;
+    v0 = (v7 + v13 + 340) % 1000;
+    v1 = (v8 + v14 + 341) % 1000;
+    v2 = (v9 + v15 + 342) % 1000;
+    v3 = (v10 + v16 + 343) % 1000;
+    v4 = (v11 + v17 + 344) % 1000;
+    v5 = (v12 + v18 + 345) % 1000;
+    v6 = (v13 + v19 + 346) % 1000;
+    v7 = (v14 + v0 + 347) % 1000;
+    v8 = (v15 + v1 + 348) % 1000;
+    v9 = (v16 + v2 + 349) % 1000;
+    v10 = (v17 + v3 + 350) % 1000;
+    v11 = (v18 + v4 + 351) % 1000;
+    v12 = (v19 + v5 + 352) % 1000;
+    v13 = (v0 + v6 + 353) % 1000;
+    v14 = (v1 + v7 + 354) % 1000;
+    v15 = (v2 + v8 + 355) % 1000;
+    v16 = (v3 + v9 + 356) % 1000;
+    v17 = (v4 + v10 + 357) % 1000;
+    v18 = (v5 + v11 + 358) % 1000;
+    v19 = (v6 + v12 + 359) % 1000;
+    v0 = (v7 + v13 + 360) % 1000;
+    v1 = (v8 + v14 + 361) % 1000;
+    v2 = (v9 + v15 + 362) % 1000;
+    v3 = (v10 + v16 + 363) % 1000;
+    v4 = (v11 + v17 + 364) % 1000;
+    v5 = (v12 + v18 + 365) % 1000;
+    v6 = (v13 + v19 + 366) % 1000;
+    v7 = (v14 + v0 + 367) % 1000;
+    v8 = (v15 + v1 + 368) % 1000;
+    v9 = (v16 + v2 + 369) % 1000;
+    v10 = (v17 + v3 + 370) % 1000;
+    v11 = (v18 + v4 + 371) % 1000;
+    v12 = (v19 + v5 + 372) % 1000;
+    v13 = (v0 + v6 + 373) % 1000;
+    v14 = (v1 + v7 + 374) % 1000;
+    v15 = (v2 + v8 + 375) % 1000;
+    v16 = (v3 + v9 + 376) % 1000;
+    v17 = (v4 + v10 + 377) % 1000;
+    v18 = (v5 + v11 + 378) % 1000;
+    v19 = (v6 + v12 + 379) % 1000;
+    v0 = (v7 + v13 + 380) % 1000;
+    v1 = (v8 + v14 + 381) % 1000;
+    v2 = (v9 + v15 + 382) % 1000;
+    v3 = (v10 + v16 + 383) % 1000;
+    v4 = (v11 + v17 + 384) % 1000;
+    v5 = (v12 + v18 + 385) % 1000;
+    v6 = (v13 + v19 + 386) % 1000;
+    v7 = (v14 + v0 + 387) % 1000;
+    v8 = (v15 + v1 + 388) % 1000;
+    v9 = (v16 + v2 + 389) % 1000;
+    v10 = (v17 + v3 + 390) % 1000;
+    v11 = (v18 + v4 + 391) % 1000;
+    v12 = (v19 + v5 + 392) % 1000;
+    v13 = (v0 + v6 + 393) % 1000;
+    v14 = (v1 + v7 + 394) % 1000;
+    v15 = (v2 + v8 + 395) % 1000;
+    v16 = (v3 + v9 + 396) % 1000;
+    v17 = (v4 + v10 + 397) % 1000;
+    v18 = (v5 + v11 + 398) % 1000;
+    v19 = (v6 + v12 + 399) % 1000;
+    v0 = (v7 + v13 + 400) % 1000;
+    v1 = (v8 + v14 + 401) % 1000;
+    v2 = (v9 + v15 + 402) % 1000;
+    v3 = (v10 + v16 + 403) % 1000;
+    v4 = (v11 + v17 + 404) % 1000;
+    v5 = (v12 + v18 + 405) % 1000;
+    v6 = (v13 + v19 + 406) % 1000;
+    v7 = (v14 + v0 + 407) % 1000;
+    v8 = (v15 + v1 + 408) % 1000;
+    v9 = (v16 + v2 + 409) % 1000;
+    v10 = (v17 + v3 + 410) % 1000;
+    v11 = (v18 + v4 + 411) % 1000;
+    v12 = (v19 + v5 + 412) % 1000;
+    v13 = (v0 + v6 + 413) % 1000;
+    v14 = (v1 + v7 + 414) % 1000;
+    v15 = (v2 + v8 + 415) % 1000;
+    v16 = (v3 + v9 + 416) % 1000;
+    v17 = (v4 + v10 + 417) % 1000;
+    v18 = (v5 + v11 + 418) % 1000;
+    v19 = (v6 + v12 + 419) % 1000;
+    v0 = (v7 + v13 + 420) % 1000;
+    v1 = (v8 + v14 + 421) % 1000;
+    v2 = (v9 + v15 + 422) % 1000;
+    v3 = (v10 + v16 + 423) % 1000;
+    v4 = (v11 + v17 + 424) % 1000;
+    v5 = (v12 + v18 + 425) % 1000;
+    v6 = (v13 + v19 + 426) % 1000;
+    v7 = (v14 + v0 + 427) % 1000;
+    v8 = (v15 + v1 + 428) % 1000;
+    v9 = (v16 + v2 + 429) % 1000;
+    v10 = (v17 + v3 + 430) % 1000;
+    v11 = (v18 + v4 + 431) % 1000;
+    v12 = (v19 + v5 + 432) % 1000;
+    v13 = (v0 + v6 + 433) % 1000;
+    v14 = (v1 + v7 + 434) % 1000;
+    v15 = (v2 + v8 + 435) % 1000;
+    v16 = (v3 + v9 + 436) % 1000;
+    v17 = (v4 + v10 + 437) % 1000;
+    v18 = (v5 + v11 + 438) % 1000;
+    v19 = (v6 + v12 + 439) % 1000;
+    v0 = (v7 + v13 + 440) % 1000;
+    v1 = (v8 + v14 + 441) % 1000;
+    v2 = (v9 + v15 + 442) % 1000;
+    v3 = (v10 + v16 + 443) % 1000;
+    v4 = (v11 + v17 + 444) % 1000;
+    v5 = (v12 + v18 + 445) % 1000;
+    v6 = (v13 + v19 + 446) % 1000;
+    v7 = (v14 + v0 + 447) % 1000;
+    v8 = (v15 + v1 + 448) % 1000;
+    v9 = (v16 + v2 + 449) % 1000;
+    v10 = (v17 + v3 + 450) % 1000;
+    v11 = (v18 + v4 + 451) % 1000;
+    v12 = (v19 + v5 + 452) % 1000;
+    v13 = (v0 + v6 + 453) % 1000;
+    v14 = (v1 + v7 + 454) % 1000;
+    v15 = (v2 + v8 + 455) % 1000;
+    v16 = (v3 + v9 + 456) % 1000;
+    v17 = (v4 + v10 + 457) % 1000;
+    v18 = (v5 + v11 + 458) % 1000;
+    v19 = (v6 + v12 + 459) % 1000;
+    v0 = (v7 + v13 + 460) % 1000;
+    v1 = (v8 + v14 + 461) % 1000;
+    v2 = (v9 + v15 + 462) % 1000;
+    v3 = (v10 + v16 + 463) % 1000;
+    v4 = (v11 + v17 + 464) % 1000;
+    v5 = (v12 + v18 + 465) % 1000;
+    v6 = (v13 + v19 + 466) % 1000;
+    v7 = (v14 + v0 + 467) % 1000;
+    v8 = (v15 + v1 + 468) % 1000;
+    v9 = (v16 + v2 + 469) % 1000;
+    v10 = (v17 + v3 + 470) % 1000;
+    v11 = (v18 + v4 + 471) % 1000;
+    v12 = (v19 + v5 + 472) % 1000;
+    v13 = (v0 + v6 + 473) % 1000;
+    v14 = (v1 + v7 + 474) % 1000;
+    v15 = (v2 + v8 + 475) % 1000;
+    v16 = (v3 + v9 + 476) % 1000;
+    v17 = (v4 + v10 + 477) % 1000;
+    v18 = (v5 + v11 + 478) % 1000;
+    v19 = (v6 + v12 + 479) % 1000;
+    v0 = (v7 + v13 + 480) % 1000;
+    v1 = (v8 + v14 + 481) % 1000;
+    v2 = (v9 + v15 + 482) % 1000;
+    v3 = (v10 + v16 + 483) % 1000;
+    v4 = (v11 + v17 + 484) % 1000;
+    v5 = (v12 + v18 + 485) % 1000;
+    v6 = (v13 + v19 + 486) % 1000;
+    v7 = (v14 + v0 + 487) % 1000;
+    v8 = (v15 + v1 + 488) % 1000;
+    v9 = (v16 + v2 + 489) % 1000;
+    v10 = (v17 + v3 + 490) % 1000;
+    v11 = (v18 + v4 + 491) % 1000;
+    v12 = (v19 + v5 + 492) % 1000;
+    v13 = (v0 + v6 + 493) % 1000;
+    v14 = (v1 + v7 + 494) % 1000;
+    v15 = (v2 + v8 + 495) % 1000;
+    v16 = (v3 + v9 + 496) % 1000;
+    v17 = (v4 + v10 + 497) % 1000;
+    v18 = (v5 + v11 + 498) % 1000;
+    v19 = (v6 + v12 + 499) % 1000;
+    v0 = (v7 + v13 + 500) % 1000;
+    v1 = (v8 + v14 + 501) % 1000;
+    v2 = (v9 + v15 + 502) % 1000;
+    v3 = (v10 + v16 + 503) % 1000;
+    v4 = (v11 + v17 + 504) % 1000;
+    v5 = (v12 + v18 + 505) % 1000;
+    v6 = (v13 + v19 + 506) % 1000;
+    v7 = (v14 + v0 + 507) % 1000;
+    v8 = (v15 + v1 + 508) % 1000;
+    v9 = (v16 + v2 + 509) % 1000;
+    v10 = (v17 + v3 + 510) % 1000;
+    v11 = (v18 + v4 + 511) % 1000;
+    v12 = (v19 + v5 + 512) % 1000;
+    v13 = (v0 + v6 + 513) % 1000;
+    v14 = (v1 + v7 + 514) % 1000;
+    v15 = (v2 + v8 + 515) % 1000;
+    v16 = (v3 + v9 + 516) % 1000;
+    v17 = (v4 + v10 + 517) % 1000;
+    v18 = (v5 + v11 + 518) % 1000;
+    v19 = (v6 + v12 + 519) % 1000;
+    v0 = (v7 + v13 + 520) % 1000;
+    v1 = (v8 + v14 + 521) % 1000;
+    v2 = (v9 + v15 + 522) % 1000;
+    v3 = (v10 + v16 + 523) % 1000;
+    v4 = (v11 + v17 + 524) % 1000;
+    v5 = (v12 + v18 + 525) % 1000;
+    v6 = (v13 + v19 + 526) % 1000;
+    v7 = (v14 + v0 + 527) % 1000;
+    v8 = (v15 + v1 + 528) % 1000;
+    v9 = (v16 + v2 + 529) % 1000;
+    v10 = (v17 + v3 + 530) % 1000;
+    v11 = (v18 + v4 + 531) % 1000;
+    v12 = (v19 + v5 + 532) % 1000;
+    v13 = (v0 + v6 + 533) % 1000;
+    v14 = (v1 + v7 + 534) % 1000;
+    v15 = (v2 + v8 + 535) % 1000;
+    v16 = (v3 + v9 + 536) % 1000;
+    v17 = (v4 + v10 + 537) % 1000;
+    v18 = (v5 + v11 + 538) % 1000;
+    v19 = (v6 + v12 + 539) % 1000;
+    v0 = (v7 + v13 + 540) % 1000;
+    v1 = (v8 + v14 + 541) % 1000;
+    v2 = (v9 + v15 + 542) % 1000;
+    v3 = (v10 + v16 + 543) % 1000;
+    v4 = (v11 + v17 + 544) % 1000;
+    v5 = (v12 + v18 + 545) % 1000;
+    v6 = (v13 + v19 + 546) % 1000;
+    v7 = (v14 + v0 + 547) % 1000;
+    v8 = (v15 + v1 + 548) % 1000;
+    v9 = (v16 + v2 + 549) % 1000;
+    v10 = (v17 + v3 + 550) % 1000;
+    v11 = (v18 + v4 + 551) % 1000;
+    v12 = (v19 + v5 + 552) % 1000;
+    v13 = (v0 + v6 + 553) % 1000;
+    v14 = (v1 + v7 + 554) % 1000;
+    v15 = (v2 + v8 + 555) % 1000;
+    v16 = (v3 + v9 + 556) % 1000;
+    v17 = (v4 + v10 + 557) % 1000;
+    v18 = (v5 + v11 + 558) % 1000;
+    v19 = (v6 + v12 + 559) % 1000;
+    v0 = (v7 + v13 + 560) % 1000;
+    v1 = (v8 + v14 + 561) % 1000;
+    v2 = (v9 + v15 + 562) % 1000;
+    v3 = (v10 + v16 + 563) % 1000;
+    v4 = (v11 + v17 + 564) % 1000;
+    v5 = (v12 + v18 + 565) % 1000;
+    v6 = (v13 + v19 + 566) % 1000;
+    v7 = (v14 + v0 + 567) % 1000;
+    v8 = (v15 + v1 + 568) % 1000;
+    v9 = (v16 + v2 + 569) % 1000;
+    v10 = (v17 + v3 + 570) % 1000;
+    v11 = (v18 + v4 + 571) % 1000;
+    v12 = (v19 + v5 + 572) % 1000;
+    v13 = (v0 + v6 + 573) % 1000;
+    v14 = (v1 + v7 + 574) % 1000;
+    v15 = (v2 + v8 + 575) % 1000;
+    v16 = (v3 + v9 + 576) % 1000;
+    v17 = (v4 + v10 + 577) % 1000;
+    v18 = (v5 + v11 + 578) % 1000;
+    v19 = (v6 + v12 + 579) % 1000;
+    v0 = (v7 + v13 + 580) % 1000;
+    v1 = (v8 + v14 + 581) % 1000;
+    v2 = (v9 + v15 + 582) % 1000;
+    v3 = (v10 + v16 + 583) % 1000;
+    v4 = (v11 + v17 + 584) % 1000;
+    v5 = (v12 + v18 + 585) % 1000;
+    v6 = (v13 + v19 + 586) % 1000;
+    v7 = (v14 + v0 + 587) % 1000;
+    v8 = (v15 + v1 + 588) % 1000;
+    v9 = (v16 + v2 + 589) % 1000;
+    v10 = (v17 + v3 + 590) % 1000;
+    v11 = (v18 + v4 + 591) % 1000;
+    v12 = (v19 + v5 + 592) % 1000;
+    v13 = (v0 + v6 + 593) % 1000;
+    v14 = (v1 + v7 + 594) % 1000;
+    v15 = (v2 + v8 + 595) % 1000;
+    v16 = (v3 + v9 + 596) % 1000;
+    v17 = (v4 + v10 + 597) % 1000;
+    v18 = (v5 + v11 + 598) % 1000;
+    v19 = (v6 + v12 + 599) % 1000;
+    v0 = (v7 + v13 + 600) % 1000;
+    v1 = (v8 + v14 + 601) % 1000;
+    v2 = (v9 + v15 + 602) % 1000;
+    v3 = (v10 + v16 + 603) % 1000;
+    v4 = (v11 + v17 + 604) % 1000;
+    v5 = (v12 + v18 + 605) % 1000;
+    v6 = (v13 + v19 + 606) % 1000;
+    v7 = (v14 + v0 + 607) % 1000;
+    v8 = (v15 + v1 + 608) % 1000;
+    v9 = (v16 + v2 + 609) % 1000;
+    v10 = (v17 + v3 + 610) % 1000;
+    v11 = (v18 + v4 + 611) % 1000;
+    v12 = (v19 + v5 + 612) % 1000;
+    v13 = (v0 + v6 + 613) % 1000;
+    v14 = (v1 + v7 + 614) % 1000;
+    v15 = (v2 + v8 + 615) % 1000;
+    v16 = (v3 + v9 + 616) % 1000;
+    v17 = (v4 + v10 + 617) % 1000;
+    v18 = (v5 + v11 + 618) % 1000;
+    v19 = (v6 + v12 + 619) % 1000;
+    v0 = (v7 + v13 + 620) % 1000;
+    v1 = (v8 + v14 + 621) % 1000;
+    v2 = (v9 + v15 + 622) % 1000;
+    v3 = (v10 + v16 + 623) % 1000;
+    v4 = (v11 + v17 + 624) % 1000;
+    v5 = (v12 + v18 + 625) % 1000;
+    v6 = (v13 + v19 + 626) % 1000;
+    v7 = (v14 + v0 + 627) % 1000;
+    v8 = (v15 + v1 + 628) % 1000;
+    v9 = (v16 + v2 + 629) % 1000;
+    v10 = (v17 + v3 + 630) % 1000;
+    v11 = (v18 + v4 + 631) % 1000;
+    v12 = (v19 + v5 + 632) % 1000;
+    v13 = (v0 + v6 + 633) % 1000;
+    v14 = (v1 + v7 + 634) % 1000;
+    v15 = (v2 + v8 + 635) % 1000;
+    v16 = (v3 + v9 + 636) % 1000;
+    v17 = (v4 + v10 + 637) % 1000;
+    v18 = (v5 + v11 + 638) % 1000;
+    v19 = (v6 + v12 + 639) % 1000;
+    v0 = (v7 + v13 + 640) % 1000;
+    v1 = (v8 + v14 + 641) % 1000;
+    v2 = (v9 + v15 + 642) % 1000;
+    v3 = (v10 + v16 + 643) % 1000;
+    v4 = (v11 + v17 + 644) % 1000;
+    v5 = (v12 + v18 + 645) % 1000;
+    v6 = (v13 + v19 + 646) % 1000;
+    v7 = (v14 + v0 + 647) % 1000;
+    v8 = (v15 + v1 + 648) % 1000;
+    v9 = (v16 + v2 + 649) % 1000;
+    v10 = (v17 + v3 + 650) % 1000;
+    v11 = (v18 + v4 + 651) % 1000;
+    v12 = (v19 + v5 + 652) % 1000;
+    v13 = (v0 + v6 + 653) % 1000;
+    v14 = (v1 + v7 + 654) % 1000;
+    v15 = (v2 + v8 + 655) % 1000;
+    v16 = (v3 + v9 + 656) % 1000;
+    v17 = (v4 + v10 + 657) % 1000;
+    v18 = (v5 + v11 + 658) % 1000;
+    v19 = (v6 + v12 + 659) % 1000;
+    v0 = (v7 + v13 + 660) % 1000;
+    v1 = (v8 + v14 + 661) % 1000;
+    v2 = (v9 + v15 + 662) % 1000;
+    v3 = (v10 + v16 + 663) % 1000;
+    v4 = (v11 + v17 + 664) % 1000;
+    v5 = (v12 + v18 + 665) % 1000;
+    v6 = (v13 + v19 + 666) % 1000;
+    v7 = (v14 + v0 + 667) % 1000;
+    v8 = (v15 + v1 + 668) % 1000;
+    v9 = (v16 + v2 + 669) % 1000;
+    v10 = (v17 + v3 + 670) % 1000;
+    v11 = (v18 + v4 + 671) % 1000;
+    v12 = (v19 + v5 + 672) % 1000;
+    v13 = (v0 + v6 + 673) % 1000;
+    v14 = (v1 + v7 + 674) % 1000;
+    v15 = (v2 + v8 + 675) % 1000;
+    v16 = (v3 + v9 + 676) % 1000;
+    v17 = (v4 + v10 + 677) % 1000;
+    v18 = (v5 + v11 + 678) % 1000;
+    v19 = (v6 + v12 + 679) % 1000;
+    v0 = (v7 + v13 + 680) % 1000;
+    v1 = (v8 + v14 + 681) % 1000;
+    v2 = (v9 + v15 + 682) % 1000;
+    v3 = (v10 + v16 + 683) % 1000;
+    v4 = (v11 + v17 + 684) % 1000;
+    v5 = (v12 + v18 + 685) % 1000;
+    v6 = (v13 + v19 + 686) % 1000;
+    v7 = (v14 + v0 + 687) % 1000;
+    v8 = (v15 + v1 + 688) % 1000;
+    v9 = (v16 + v2 + 689) % 1000;
+    v10 = (v17 + v3 + 690) % 1000;
+    v11 = (v18 + v4 + 691) % 1000;
+    v12 = (v19 + v5 + 692) % 1000;
+    v13 = (v0 + v6 + 693) % 1000;
+    v14 = (v1 + v7 + 694) % 1000;
+    v15 = (v2 + v8 + 695) % 1000;
+    v16 = (v3 + v9 + 696) % 1000;
+    v17 = (v4 + v10 + 697) % 1000;
+    v18 = (v5 + v11 + 698) % 1000;
+    v19 = (v6 + v12 + 699) % 1000;
+    v0 = (v7 + v13 + 700) % 1000;
+    v1 = (v8 + v14 + 701) % 1000;
+    v2 = (v9 + v15 + 702) % 1000;
+    v3 = (v10 + v16 + 703) % 1000;
+    v4 = (v11 + v17 + 704) % 1000;
+    v5 = (v12 + v18 + 705) % 1000;
+    v6 = (v13 + v19 + 706) % 1000;
+    v7 = (v14 + v0 + 707) % 1000;
+    v8 = (v15 + v1 + 708) % 1000;
+    v9 = (v16 + v2 + 709) % 1000;
+    v10 = (v17 + v3 + 710) % 1000;
+    v11 = (v18 + v4 + 711) % 1000;
+    v12 = (v19 + v5 + 712) % 1000;
+    v13 = (v0 + v6 + 713) % 1000;
+    v14 = (v1 + v7 + 714) % 1000;
+    v15 = (v2 + v8 + 715) % 1000;
+    v16 = (v3 + v9 + 716) % 1000;
+    v17 = (v4 + v10 + 717) % 1000;
+    v18 = (v5 + v11 + 718) % 1000;
+    v19 = (v6 + v12 + 719) % 1000;
+    v0 = (v7 + v13 + 720) % 1000;
+    v1 = (v8 + v14 + 721) % 1000;
+    v2 = (v9 + v15 + 722) % 1000;
+    v3 = (v10 + v16 + 723) % 1000;
+    v4 = (v11 + v17 + 724) % 1000;
+    v5 = (v12 + v18 + 725) % 1000;
+    v6 = (v13 + v19 + 726) % 1000;
+    v7 = (v14 + v0 + 727) % 1000;
+    v8 = (v15 + v1 + 728) % 1000;
+    v9 = (v16 + v2 + 729) % 1000;
+    v10 = (v17 + v3 + 730) % 1000;
+    v11 = (v18 + v4 + 731) % 1000;
+    v12 = (v19 + v5 + 732) % 1000;
+    v13 = (v0 + v6 + 733) % 1000;
+    v14 = (v1 + v7 + 734) % 1000;
+    v15 = (v2 + v8 + 735) % 1000;
+    v16 = (v3 + v9 + 736) % 1000;
+    v17 = (v4 + v10 + 737) % 1000;
+    v18 = (v5 + v11 + 738) % 1000;
+    v19 = (v6 + v12 + 739) % 1000;
+    v0 = (v7 + v13 + 740) % 1000;
+    v1 = (v8 + v14 + 741) % 1000;
+    v2 = (v9 + v15 + 742) % 1000;
+    v3 = (v10 + v16 + 743) % 1000;
+    v4 = (v11 + v17 + 744) % 1000;
+    v5 = (v12 + v18 + 745) % 1000;
+    v6 = (v13 + v19 + 746) % 1000;
+    v7 = (v14 + v0 + 747) % 1000;
+    v8 = (v15 + v1 + 748) % 1000;
+    v9 = (v16 + v2 + 749) % 1000;
+    v10 = (v17 + v3 + 750) % 1000;
+    v11 = (v18 + v4 + 751) % 1000;
+    v12 = (v19 + v5 + 752) % 1000;
+    v13 = (v0 + v6 + 753) % 1000;
+    v14 = (v1 + v7 + 754) % 1000;
+    v15 = (v2 + v8 + 755) % 1000;
+    v16 = (v3 + v9 + 756) % 1000;
+    v17 = (v4 + v10 + 757) % 1000;
+    v18 = (v5 + v11 + 758) % 1000;
+    v19 = (v6 + v12 + 759) % 1000;
+    v0 = (v7 + v13 + 760) % 1000;
+    v1 = (v8 + v14 + 761) % 1000;
+    v2 = (v9 + v15 + 762) % 1000;
+    v3 = (v10 + v16 + 763) % 1000;
+    v4 = (v11 + v17 + 764) % 1000;
+    v5 = (v12 + v18 + 765) % 1000;
+    v6 = (v13 + v19 + 766) % 1000;
+    v7 = (v14 + v0 + 767) % 1000;
+    v8 = (v15 + v1 + 768) % 1000;
+    v9 = (v16 + v2 + 769) % 1000;
+    v10 = (v17 + v3 + 770) % 1000;
+    v11 = (v18 + v4 + 771) % 1000;
+    v12 = (v19 + v5 + 772) % 1000;
+    v13 = (v0 + v6 + 773) % 1000;
+    v14 = (v1 + v7 + 774) % 1000;
+    v15 = (v2 + v8 + 775) % 1000;
+    v16 = (v3 + v9 + 776) % 1000;
+    v17 = (v4 + v10 + 777) % 1000;
+    v18 = (v5 + v11 + 778) % 1000;
+    v19 = (v6 + v12 + 779) % 1000;
+    v0 = (v7 + v13 + 780) % 1000;
+    v1 = (v8 + v14 + 781) % 1000;
+    v2 = (v9 + v15 + 782) % 1000;
+    v3 = (v10 + v16 + 783) % 1000;
+    v4 = (v11 + v17 + 784) % 1000;
+    v5 = (v12 + v18 + 785) % 1000;
+    v6 = (v13 + v19 + 786) % 1000;
+    v7 = (v14 + v0 + 787) % 1000;
+    v8 = (v15 + v1 + 788) % 1000;
+    v9 = (v16 + v2 + 789) % 1000;
+    v10 = (v17 + v3 + 790) % 1000;
+    v11 = (v18 + v4 + 791) % 1000;
+    v12 = (v19 + v5 + 792) % 1000;
+    v13 = (v0 + v6 + 793) % 1000;
+    v14 = (v1 + v7 + 794) % 1000;
+    v15 = (v2 + v8 + 795) % 1000;
+    v16 = (v3 + v9 + 796) % 1000;
+    v17 = (v4 + v10 + 797) % 1000;
+    v18 = (v5 + v11 + 798) % 1000;
+    v19 = (v6 + v12 + 799) % 1000;
+    v0 = (v7 + v13 + 800) % 1000;
+    v1 = (v8 + v14 + 801) % 1000;
+    v2 = (v9 + v15 + 802) % 1000;
+    v3 = (v10 + v16 + 803) % 1000;
+    v4 = (v11 + v17 + 804) % 1000;
+    v5 = (v12 + v18 + 805) % 1000;
+    v6 = (v13 + v19 + 806) % 1000;
+    v7 = (v14 + v0 + 807) % 1000;
+    v8 = (v15 + v1 + 808) % 1000;
+    v9 = (v16 + v2 + 809) % 1000;
+    v10 = (v17 + v3 + 810) % 1000;
+    v11 = (v18 + v4 + 811) % 1000;
+    v12 = (v19 + v5 + 812) % 1000;
+    v13 = (v0 + v6 + 813) % 1000;
+    v14 = (v1 + v7 + 814) % 1000;
+    v15 = (v2 + v8 + 815) % 1000;
+    v16 = (v3 + v9 + 816) % 1000;
+    v17 = (v4 + v10 + 817) % 1000;
+    v18 = (v5 + v11 + 818) % 1000;
+    v19 = (v6 + v12 + 819) % 1000;
+    v0 = (v7 + v13 + 820) % 1000;
+    v1 = (v8 + v14 + 821) % 1000;
+    v2 = (v9 + v15 + 822) % 1000;
+    v3 = (v10 + v16 + 823) % 1000;
+    v4 = (v11 + v17 + 824) % 1000;
+    v5 = (v12 + v18 + 825) % 1000;
+    v6 = (v13 + v19 + 826) % 1000;
+    v7 = (v14 + v0 + 827) % 1000;
+    v8 = (v15 + v1 + 828) % 1000;
+    v9 = (v16 + v2 + 829) % 1000;
+    v10 = (v17 + v3 + 830) % 1000;
+    v11 = (v18 + v4 + 831) % 1000;
+    v12 = (v19 + v5 + 832) % 1000;
+    v13 = (v0 + v6 + 833) % 1000;
+    v14 = (v1 + v7 + 834) % 1000;
+    v15 = (v2 + v8 + 835) % 1000;
+    v16 = (v3 + v9 + 836) % 1000;
+    v17 = (v4 + v10 + 837) % 1000;
+    v18 = (v5 + v11 + 838) % 1000;
+    v19 = (v6 + v12 + 839) % 1000;
+    v0 = (v7 + v13 + 840) % 1000;
+    v1 = (v8 + v14 + 841) % 1000;
+    v2 = (v9 + v15 + 842) % 1000;
+    v3 = (v10 + v16 + 843) % 1000;
+    v4 = (v11 + v17 + 844) % 1000;
+    v5 = (v12 + v18 + 845) % 1000;
+    v6 = (v13 + v19 + 846) % 1000;
+    v7 = (v14 + v0 + 847) % 1000;
+    v8 = (v15 + v1 + 848) % 1000;
+    v9 = (v16 + v2 + 849) % 1000;
+    v10 = (v17 + v3 + 850) % 1000;
+    v11 = (v18 + v4 + 851) % 1000;
+    v12 = (v19 + v5 + 852) % 1000;
+    v13 = (v0 + v6 + 853) % 1000;
+    v14 = (v1 + v7 + 854) % 1000;
+    v15 = (v2 + v8 + 855) % 1000;
+    v16 = (v3 + v9 + 856) % 1000;
+    v17 = (v4 + v10 + 857) % 1000;
+    v18 = (v5 + v11 + 858) % 1000;
+    v19 = (v6 + v12 + 859) % 1000;
+    v0 = (v7 + v13 + 860) % 1000;
+    v1 = (v8 + v14 + 861) % 1000;
+    v2 = (v9 + v15 + 862) % 1000;
+    v3 = (v10 + v16 + 863) % 1000;
+    v4 = (v11 + v17 + 864) % 1000;
+    v5 = (v12 + v18 + 865) % 1000;
+    v6 = (v13 + v19 + 866) % 1000;
+    v7 = (v14 + v0 + 867) % 1000;
+    v8 = (v15 + v1 + 868) % 1000;
+    v9 = (v16 + v2 + 869) % 1000;
+    v10 = (v17 + v3 + 870) % 1000;
+    v11 = (v18 + v4 + 871) % 1000;
+    v12 = (v19 + v5 + 872) % 1000;
+    v13 = (v0 + v6 + 873) % 1000;
+    v14 = (v1 + v7 + 874) % 1000;
+    v15 = (v2 + v8 + 875) % 1000;
+    v16 = (v3 + v9 + 876) % 1000;
+    v17 = (v4 + v10 + 877) % 1000;
+    v18 = (v5 + v11 + 878) % 1000;
+    v19 = (v6 + v12 + 879) % 1000;
+    v0 = (v7 + v13 + 880) % 1000;
+    v1 = (v8 + v14 + 881) % 1000;
+    v2 = (v9 + v15 + 882) % 1000;
+    v3 = (v10 + v16 + 883) % 1000;
+    v4 = (v11 + v17 + 884) % 1000;
+    v5 = (v12 + v18 + 885) % 1000;
+    v6 = (v13 + v19 + 886) % 1000;
+    v7 = (v14 + v0 + 887) % 1000;
+    v8 = (v15 + v1 + 888) % 1000;
+    v9 = (v16 + v2 + 889) % 1000;
+    v10 = (v17 + v3 + 890) % 1000;
+    v11 = (v18 + v4 + 891) % 1000;
+    v12 = (v19 + v5 + 892) % 1000;
+    v13 = (v0 + v6 + 893) % 1000;
+    v14 = (v1 + v7 + 894) % 1000;
+    v15 = (v2 + v8 + 895) % 1000;
+    v16 = (v3 + v9 + 896) % 1000;
+    v17 = (v4 + v10 + 897) % 1000;
+    v18 = (v5 + v11 + 898) % 1000;
+    v19 = (v6 + v12 + 899) % 1000;
+    v0 = (v7 + v13 + 900) % 1000;
+    v1 = (v8 + v14 + 901) % 1000;
+    v2 = (v9 + v15 + 902) % 1000;
+    v3 = (v10 + v16 + 903) % 1000;
+    v4 = (v11 + v17 + 904) % 1000;
+    v5 = (v12 + v18 + 905) % 1000;
+    v6 = (v13 + v19 + 906) % 1000;
+    v7 = (v14 + v0 + 907) % 1000;
+    v8 = (v15 + v1 + 908) % 1000;
+    v9 = (v16 + v2 + 909) % 1000;
+    v10 = (v17 + v3 + 910) % 1000;
+    v11 = (v18 + v4 + 911) % 1000;
+    v12 = (v19 + v5 + 912) % 1000;
+    v13 = (v0 + v6 + 913) % 1000;
+    v14 = (v1 + v7 + 914) % 1000;
+    v15 = (v2 + v8 + 915) % 1000;
+    v16 = (v3 + v9 + 916) % 1000;
+    v17 = (v4 + v10 + 917) % 1000;
+    v18 = (v5 + v11 + 918) % 1000;
+    v19 = (v6 + v12 + 919) % 1000;
+    v0 = (v7 + v13 + 920) % 1000;
+    v1 = (v8 + v14 + 921) % 1000;
+    v2 = (v9 + v15 + 922) % 1000;
+    v3 = (v10 + v16 + 923) % 1000;
+    v4 = (v11 + v17 + 924) % 1000;
+    v5 = (v12 + v18 + 925) % 1000;
+    v6 = (v13 + v19 + 926) % 1000;
+    v7 = (v14 + v0 + 927) % 1000;
+    v8 = (v15 + v1 + 928) % 1000;
+    v9 = (v16 + v2 + 929) % 1000;
+    v10 = (v17 + v3 + 930) % 1000;
+    v11 = (v18 + v4 + 931) % 1000;
+    v12 = (v19 + v5 + 932) % 1000;
+    v13 = (v0 + v6 + 933) % 1000;
+    v14 = (v1 + v7 + 934) % 1000;
+    v15 = (v2 + v8 + 935) % 1000;
+    v16 = (v3 + v9 + 936) % 1000;
+    v17 = (v4 + v10 + 937) % 1000;
+    v18 = (v5 + v11 + 938) % 1000;
+    v19 = (v6 + v12 + 939) % 1000;
+    v0 = (v7 + v13 + 940) % 1000;
+    v1 = (v8 + v14 + 941) % 1000;
+    v2 = (v9 + v15 + 942) % 1000;
+    v3 = (v10 + v16 + 943) % 1000;
+    v4 = (v11 + v17 + 944) % 1000;
+    v5 = (v12 + v18 + 945) % 1000;
+    v6 = (v13 + v19 + 946) % 1000;
+    v7 = (v14 + v0 + 947) % 1000;
+    v8 = (v15 + v1 + 948) % 1000;
+    v9 = (v16 + v2 + 949) % 1000;
+    v10 = (v17 + v3 + 950) % 1000;
+    v11 = (v18 + v4 + 951) % 1000;
+    v12 = (v19 + v5 + 952) % 1000;
+    v13 = (v0 + v6 + 953) % 1000;
+    v14 = (v1 + v7 + 954) % 1000;
+    v15 = (v2 + v8 + 955) % 1000;
+    v16 = (v3 + v9 + 956) % 1000;
+    v17 = (v4 + v10 + 957) % 1000;
+    v18 = (v5 + v11 + 958) % 1000;
+    v19 = (v6 + v12 + 959) % 1000;
+    v0 = (v7 + v13 + 960) % 1000;
+    v1 = (v8 + v14 + 961) % 1000;
+    v2 = (v9 + v15 + 962) % 1000;
+    v3 = (v10 + v16 + 963) % 1000;
+    v4 = (v11 + v17 + 964) % 1000;
+    v5 = (v12 + v18 + 965) % 1000;
+    v6 = (v13 + v19 + 966) % 1000;
+    v7 = (v14 + v0 + 967) % 1000;
+    v8 = (v15 + v1 + 968) % 1000;
+    v9 = (v16 + v2 + 969) % 1000;
+    v10 = (v17 + v3 + 970) % 1000;
+    v11 = (v18 + v4 + 971) % 1000;
+    v12 = (v19 + v5 + 972) % 1000;
+    v13 = (v0 + v6 + 973) % 1000;
+    v14 = (v1 + v7 + 974) % 1000;
+    v15 = (v2 + v8 + 975) % 1000;
+    v16 = (v3 + v9 + 976) % 1000;
+    v17 = (v4 + v10 + 977) % 1000;
+    v18 = (v5 + v11 + 978) % 1000;
+    v19 = (v6 + v12 + 979) % 1000;
+    v0 = (v7 + v13 + 980) % 1000;
+    v1 = (v8 + v14 + 981) % 1000;
+    v2 = (v9 + v15 + 982) % 1000;
+    v3 = (v10 + v16 + 983) % 1000;
+    v4 = (v11 + v17 + 984) % 1000;
+    v5 = (v12 + v18 + 985) % 1000;
+    v6 = (v13 + v19 + 986) % 1000;
+    v7 = (v14 + v0 + 987) % 1000;
+    v8 = (v15 + v1 + 988) % 1000;
+    v9 = (v16 + v2 + 989) % 1000;
+    v10 = (v17 + v3 + 990) % 1000;
+    v11 = (v18 + v4 + 991) % 1000;
+    v12 = (v19 + v5 + 992) % 1000;
+    v13 = (v0 + v6 + 993) % 1000;
+    v14 = (v1 + v7 + 994) % 1000;
+    v15 = (v2 + v8 + 995) % 1000;
+    v16 = (v3 + v9 + 996) % 1000;
+    v17 = (v4 + v10 + 997) % 1000;
+    v18 = (v5 + v11 + 998) % 1000;
+    v19 = (v6 + v12 + 999) % 1000;
+    v0 = (v7 + v13 + 1000) % 1000;
+    v1 = (v8 + v14 + 1001) % 1000;
+    v2 = (v9 + v15 + 1002) % 1000;
+    v3 = (v10 + v16 + 1003) % 1000;
+    v4 = (v11 + v17 + 1004) % 1000;
+    v5 = (v12 + v18 + 1005) % 1000;
+    v6 = (v13 + v19 + 1006) % 1000;
+    v7 = (v14 + v0 + 1007) % 1000;
+    v8 = (v15 + v1 + 1008) % 1000;
+    v9 = (v16 + v2 + 1009) % 1000;
+    v10 = (v17 + v3 + 1010) % 1000;
+    v11 = (v18 + v4 + 1011) % 1000;
+    v12 = (v19 + v5 + 1012) % 1000;
+    v13 = (v0 + v6 + 1013) % 1000;
+    v14 = (v1 + v7 + 1014) % 1000;
+    v15 = (v2 + v8 + 1015) % 1000;
+    v16 = (v3 + v9 + 1016) % 1000;
+    v17 = (v4 + v10 + 1017) % 1000;
+    v18 = (v5 + v11 + 1018) % 1000;
+    v19 = (v6 + v12 + 1019) % 1000;
+    v0 = (v7 + v13 + 1020) % 1000;
+    v1 = (v8 + v14 + 1021) % 1000;
+    v2 = (v9 + v15 + 1022) % 1000;
+    v3 = (v10 + v16 + 1023) % 1000;
+    v4 = (v11 + v17 + 1024) % 1000;
+    v5 = (v12 + v18 + 1025) % 1000;
+    v6 = (v13 + v19 + 1026) % 1000;
+    v7 = (v14 + v0 + 1027) % 1000;
+    v8 = (v15 + v1 + 1028) % 1000;
+    v9 = (v16 + v2 + 1029) % 1000;
+    v10 = (v17 + v3 + 1030) % 1000;
+    v11 = (v18 + v4 + 1031) % 1000;
+    v12 = (v19 + v5 + 1032) % 1000;
+    v13 = (v0 + v6 + 1033) % 1000;
+    v14 = (v1 + v7 + 1034) % 1000;
+    v15 = (v2 + v8 + 1035) % 1000;
+    v16 = (v3 + v9 + 1036) % 1000;
+    v17 = (v4 + v10 + 1037) % 1000;
+    v18 = (v5 + v11 + 1038) % 1000;
+    v19 = (v6 + v12 + 1039) % 1000;
+    v0 = (v7 + v13 + 1040) % 1000;
+    v1 = (v8 + v14 + 1041) % 1000;
+    v2 = (v9 + v15 + 1042) % 1000;
+    v3 = (v10 + v16 + 1043) % 1000;
+    v4 = (v11 + v17 + 1044) % 1000;
+    v5 = (v12 + v18 + 1045) % 1000;
+    v6 = (v13 + v19 + 1046) % 1000;
+    v7 = (v14 + v0 + 1047) % 1000;
+    v8 = (v15 + v1 + 1048) % 1000;
+    v9 = (v16 + v2 + 1049) % 1000;
+    v10 = (v17 + v3 + 1050) % 1000;
+    v11 = (v18 + v4 + 1051) % 1000;
+    v12 = (v19 + v5 + 1052) % 1000;
+    v13 = (v0 + v6 + 1053) % 1000;
+    v14 = (v1 + v7 + 1054) % 1000;
+    v15 = (v2 + v8 + 1055) % 1000;
+    v16 = (v3 + v9 + 1056) % 1000;
+    v17 = (v4 + v10 + 1057) % 1000;
+    v18 = (v5 + v11 + 1058) % 1000;
+    v19 = (v6 + v12 + 1059) % 1000;
+    v0 = (v7 + v13 + 1060) % 1000;
+    v1 = (v8 + v14 + 1061) % 1000;
+    v2 = (v9 + v15 + 1062) % 1000;
+    v3 = (v10 + v16 + 1063) % 1000;
+    v4 = (v11 + v17 + 1064) % 1000;
+    v5 = (v12 + v18 + 1065) % 1000;
+    v6 = (v13 + v19 + 1066) % 1000;
+    v7 = (v14 + v0 + 1067) % 1000;
+    v8 = (v15 + v1 + 1068) % 1000;
+    v9 = (v16 + v2 + 1069) % 1000;
+    v10 = (v17 + v3 + 1070) % 1000;
+    v11 = (v18 + v4 + 1071) % 1000;
+    v12 = (v19 + v5 + 1072) % 1000;
+    v13 = (v0 + v6 + 1073) % 1000;
+    v14 = (v1 + v7 + 1074) % 1000;
+    v15 = (v2 + v8 + 1075) % 1000;
+    v16 = (v3 + v9 + 1076) % 1000;
+    v17 = (v4 + v10 + 1077) % 1000;
+    v18 = (v5 + v11 + 1078) % 1000;
+    v19 = (v6 + v12 + 1079) % 1000;
+    v0 = (v7 + v13 + 1080) % 1000;
+    v1 = (v8 + v14 + 1081) % 1000;
+    v2 = (v9 + v15 + 1082) % 1000;
+    v3 = (v10 + v16 + 1083) % 1000;
+    v4 = (v11 + v17 + 1084) % 1000;
+    v5 = (v12 + v18 + 1085) % 1000;
+    v6 = (v13 + v19 + 1086) % 1000;
+    v7 = (v14 + v0 + 1087) % 1000;
+    v8 = (v15 + v1 + 1088) % 1000;
+    v9 = (v16 + v2 + 1089) % 1000;
+    v10 = (v17 + v3 + 1090) % 1000;
+    v11 = (v18 + v4 + 1091) % 1000;
+    v12 = (v19 + v5 + 1092) % 1000;
+    v13 = (v0 + v6 + 1093) % 1000;
+    v14 = (v1 + v7 + 1094) % 1000;
+    v15 = (v2 + v8 + 1095) % 1000;
+    v16 = (v3 + v9 + 1096) % 1000;
+    v17 = (v4 + v10 + 1097) % 1000;
+    v18 = (v5 + v11 + 1098) % 1000;
+    v19 = (v6 + v12 + 1099) % 1000;
+    v0 = (v7 + v13 + 1100) % 1000;
+    v1 = (v8 + v14 + 1101) % 1000;
+    v2 = (v9 + v15 + 1102) % 1000;
+    v3 = (v10 + v16 + 1103) % 1000;
+    v4 = (v11 + v17 + 1104) % 1000;
+    v5 = (v12 + v18 + 1105) % 1000;
+    v6 = (v13 + v19 + 1106) % 1000;
+    v7 = (v14 + v0 + 1107) % 1000;
+    v8 = (v15 + v1 + 1108) % 1000;
+    v9 = (v16 + v2 + 1109) % 1000;
+    v10 = (v17 + v3 + 1110) % 1000;
+    v11 = (v18 + v4 + 1111) % 1000;
+    v12 = (v19 + v5 + 1112) % 1000;
+    v13 = (v0 + v6 + 1113) % 1000;
+    v14 = (v1 + v7 + 1114) % 1000;
+    v15 = (v2 + v8 + 1115) % 1000;
+    v16 = (v3 + v9 + 1116) % 1000;
+    v17 = (v4 + v10 + 1117) % 1000;
+    v18 = (v5 + v11 + 1118) % 1000;
+    v19 = (v6 + v12 + 1119) % 1000;
+    v0 = (v7 + v13 + 1120) % 1000;
+    v1 = (v8 + v14 + 1121) % 1000;
+    v2 = (v9 + v15 + 1122) % 1000;
+    v3 = (v10 + v16 + 1123) % 1000;
+    v4 = (v11 + v17 + 1124) % 1000;
+    v5 = (v12 + v18 + 1125) % 1000;
+    v6 = (v13 + v19 + 1126) % 1000;
+    v7 = (v14 + v0 + 1127) % 1000;
+    v8 = (v15 + v1 + 1128) % 1000;
+    v9 = (v16 + v2 + 1129) % 1000;
+    v10 = (v17 + v3 + 1130) % 1000;
+    v11 = (v18 + v4 + 1131) % 1000;
+    v12 = (v19 + v5 + 1132) % 1000;
+    v13 = (v0 + v6 + 1133) % 1000;
+    v14 = (v1 + v7 + 1134) % 1000;
+    v15 = (v2 + v8 + 1135) % 1000;
+    v16 = (v3 + v9 + 1136) % 1000;
+    v17 = (v4 + v10 + 1137) % 1000;
+    v18 = (v5 + v11 + 1138) % 1000;
+    v19 = (v6 + v12 + 1139) % 1000;
+    v0 = (v7 + v13 + 1140) % 1000;
+    v1 = (v8 + v14 + 1141) % 1000;
+    v2 = (v9 + v15 + 1142) % 1000;
+    v3 = (v10 + v16 + 1143) % 1000;
+    v4 = (v11 + v17 + 1144) % 1000;
+    v5 = (v12 + v18 + 1145) % 1000;
+    v6 = (v13 + v19 + 1146) % 1000;
+    v7 = (v14 + v0 + 1147) % 1000;
+    v8 = (v15 + v1 + 1148) % 1000;
+    v9 = (v16 + v2 + 1149) % 1000;
+    v10 = (v17 + v3 + 1150) % 1000;
+    v11 = (v18 + v4 + 1151) % 1000;
+    v12 = (v19 + v5 + 1152) % 1000;
+    v13 = (v0 + v6 + 1153) % 1000;
+    v14 = (v1 + v7 + 1154) % 1000;
+    v15 = (v2 + v8 + 1155) % 1000;
+    v16 = (v3 + v9 + 1156) % 1000;
+    v17 = (v4 + v10 + 1157) % 1000;
+    v18 = (v5 + v11 + 1158) % 1000;
+    v19 = (v6 + v12 + 1159) % 1000;
+    v0 = (v7 + v13 + 1160) % 1000;
+    v1 = (v8 + v14 + 1161) % 1000;
+    v2 = (v9 + v15 + 1162) % 1000;
+    v3 = (v10 + v16 + 1163) % 1000;
+    v4 = (v11 + v17 + 1164) % 1000;
+    v5 = (v12 + v18 + 1165) % 1000;
+    v6 = (v13 + v19 + 1166) % 1000;
+    v7 = (v14 + v0 + 1167) % 1000;
+    v8 = (v15 + v1 + 1168) % 1000;
+    v9 = (v16 + v2 + 1169) % 1000;
+    v10 = (v17 + v3 + 1170) % 1000;
+    v11 = (v18 + v4 + 1171) % 1000;
+    v12 = (v19 + v5 + 1172) % 1000;
+    v13 = (v0 + v6 + 1173) % 1000;
+    v14 = (v1 + v7 + 1174) % 1000;
+    v15 = (v2 + v8 + 1175) % 1000;
+    v16 = (v3 + v9 + 1176) % 1000;
+    v17 = (v4 + v10 + 1177) % 1000;
+    v18 = (v5 + v11 + 1178) % 1000;
+    v19 = (v6 + v12 + 1179) % 1000;
+    v0 = (v7 + v13 + 1180) % 1000;
+    v1 = (v8 + v14 + 1181) % 1000;
+    v2 = (v9 + v15 + 1182) % 1000;
+    v3 = (v10 + v16 + 1183) % 1000;
+    v4 = (v11 + v17 + 1184) % 1000;
+    v5 = (v12 + v18 + 1185) % 1000;
+    v6 = (v13 + v19 + 1186) % 1000;
+    v7 = (v14 + v0 + 1187) % 1000;
+    v8 = (v15 + v1 + 1188) % 1000;
+    v9 = (v16 + v2 + 1189) % 1000;
+    v10 = (v17 + v3 + 1190) % 1000;
+    v11 = (v18 + v4 + 1191) % 1000;
+    v12 = (v19 + v5 + 1192) % 1000;
+    v13 = (v0 + v6 + 1193) % 1000;
+    v14 = (v1 + v7 + 1194) % 1000;
+    v15 = (v2 + v8 + 1195) % 1000;
+    v16 = (v3 + v9 + 1196) % 1000;
+    v17 = (v4 + v10 + 1197) % 1000;
+    v18 = (v5 + v11 + 1198) % 1000;
+    v19 = (v6 + v12 + 1199) % 1000;
+    return v0 + v1 + v2 + v3 + v4 + v5 + v6 + v7 + v8 + v9 + v10 + v11 + v12 + v13 + v14 + v15 + v16 + v17 + v18 + v19;
+}
+
+int main()
+{
+    int total = 0;
+    int i = 0;
+    while (i < 2000)
+    {
+        total = (total * 31 + mix(i)) % 1000003;
+        i = i + 1;
+    }
+    print("total = %d\n", total);
+}
@@ -0,0 +1,24 @@
+Program Loops;
+
+/* Triply nested counting loops. */
+int main()
+{
+    int sum = 0;
+    int i = 0;
+    while (i < 200)
+    {
+        int j = 0;
+        while (j < 200)
+        {
+            int k = 0;
+            while (k < 50)
+            {
+                sum = sum + (i * j + k) % 7;
+                k = k + 1;
+            }
+            j = j + 1;
+        }
+        i = i + 1;
+    }
+    print("sum = %d\n", sum);
+}
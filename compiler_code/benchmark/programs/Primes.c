@@ -0,0 +1,29 @@
+Program Primes;
+
+/* Count the primes below a limit by trial division. */
+int isprime(int n)
+{
+    int prime = 1;
+    int d = 2;
+    while ((d * d <= n) && (prime == 1))
+    {
+        if (n % d == 0)
+        {
+            prime = 0;
+        }
+        d = d + 1;
+    }
+    return prime;
+}
+
+int main()
+{
+    int count = 0;
+    int n = 2;
+    while (n < 200000)
+    {
+        count = count + isprime(n);
+        n = n + 1;
+    }
+    print("%d primes\n", count);
+}
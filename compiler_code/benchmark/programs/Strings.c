@@ -0,0 +1,27 @@
+Program Strings;
+
+/* Build a string by repeated concatenation. */
+string repeat(string s, int n)
+{
+    string r = "";
+    int i = 0;
+    while (i < n)
+    {
+        r = r + s;
+        i = i + 1;
+    }
+    return r;
+}
+
+int main()
+{
+    string line = "";
+    int i = 0;
+    while (i < 200)
+    {
+        line = repeat("ab", 50);
+        line = line + "c";
+        i = i + 1;
+    }
+    print("%s\n", line);
+}
@@ -0,0 +1,71 @@
+package frontend;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * <h1>IdentifierToken</h1>
+ *
+ * <p>An identifier token that carries its interned identifier, so that
+ * the passes get the identifier's text and its lowercase name without
+ * creating new strings for every reference.</p>
+ */
+public class IdentifierToken extends CommonToken
+{
+    private static final long serialVersionUID = 0L;
+
+    private Identifier identifier;  // the interned identifier
+
+    /**
+     * A distinct identifier of a source file.
+     */
+    public static class Identifier
+    {
+        private String text;   // the text as written
+        private String name;   // the lowercase name, a canonical string
+
+        Identifier(String text)
+        {
+            this.text = text;
+            this.name = text.toLowerCase().intern();
+        }
+
+        /**
+         * Get the identifier's text as written.
+         * @return the text.
+         */
+        public String getText() { return text; }
+
+        /**
+         * Get the identifier's lowercase name. Equal names are
+         * the same string.
+         * @return the name.
+         */
+        public String getName() { return name; }
+    }
+
+    /**
+     * Constructor.
+     * @param source the token's source.
+     * @param type the token type.
+     * @param channel the token channel.
+     * @param start the start index in the character stream.
+     * @param stop the stop index in the character stream.
+     * @param identifier the interned identifier.
+     */
+    IdentifierToken(Pair<TokenSource, CharStream> source, int type,
+                    int channel, int start, int stop, Identifier identifier)
+    {
+        super(source, type, channel, start, stop);
+        this.identifier = identifier;
+        this.text = identifier.getText();
+    }
+
+    /**
+     * Get the identifier's lowercase name.
+     * @return the name.
+     */
+    public String getName() { return identifier.getName(); }
+}
@@ -0,0 +1,61 @@
+package frontend;
+
+import java.util.HashMap;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import antlr4.SubCLexer;
+
+/**
+ * <h1>IdentifierTokenFactory</h1>
+ *
+ * <p>The lexer's token factory, which interns the identifiers as they
+ * are scanned. Each distinct identifier text gets one Identifier with
+ * its lowercase name, shared by all its tokens. A factory is used by
+ * a single compilation.</p>
+ */
+public class IdentifierTokenFactory extends CommonTokenFactory
+{
+    private HashMap<String, IdentifierToken.Identifier> identifiers;
+
+    /**
+     * Constructor.
+     */
+    public IdentifierTokenFactory()
+    {
+        this.identifiers = new HashMap<String, IdentifierToken.Identifier>();
+    }
+
+    @Override
+    public CommonToken create(Pair<TokenSource, CharStream> source, int type,
+                              String text, int channel, int start, int stop,
+                              int line, int charPositionInLine)
+    {
+        if (type != SubCLexer.IDENTIFIER)
+        {
+            return super.create(source, type, text, channel, start, stop,
+                                line, charPositionInLine);
+        }
+
+        if (text == null) text = source.b.getText(Interval.of(start, stop));
+
+        IdentifierToken.Identifier identifier = identifiers.get(text);
+        if (identifier == null)
+        {
+            identifier = new IdentifierToken.Identifier(text);
+            identifiers.put(text, identifier);
+        }
+
+        IdentifierToken token = new IdentifierToken(source, type, channel,
+                                                    start, stop, identifier);
+        token.setLine(line);
+        token.setCharPositionInLine(charPositionInLine);
+
+        return token;
+    }
+}
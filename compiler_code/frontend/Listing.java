@@ -1,34 +1,55 @@
 package frontend;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 
 public class Listing
 {
-    public Listing(String sourceFileName) throws IOException
+    private static final int BUFFER_SIZE = 65536;  // characters
+
+    private SourceFile source;
+
+    public Listing(SourceFile source)
     {
-        try
-        {
-            BufferedReader br = new BufferedReader(new FileReader(sourceFileName));
-            
-            int lineNumber = 0;
-            String line = br.readLine();
-            
-            while (line != null)
-            {
-                System.out.printf("%03d %s\n", ++lineNumber, line);
-                line = br.readLine();
-            }
-            
-            br.close();
-        }
-        catch(IOException ex)
+        this.source = source;
+    }
+
+    /**
+     * Print the numbered source lines. The output is buffered
+     * and flushed at the end, and the stream is left open.
+     * @param out the output stream.
+     * @throws IOException if the output fails.
+     */
+    public void print(OutputStream out) throws IOException
+    {
+        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out),
+                                               BUFFER_SIZE);
+        String text = source.getText();
+        int length = text.length();
+        int lineNumber = 0;
+        int start = 0;
+
+        while (start < length)
         {
-            System.out.printf("ERROR: Failed to open source file \"%s\".\n",
-                              sourceFileName);
-            System.out.printf("       %s\n", ex.getMessage());
-            System.exit(-1);
+            // A line ends with LF, CR, or CR LF.
+            int end = start;
+            while ((end < length) && (text.charAt(end) != '\n')
+                                  && (text.charAt(end) != '\r')) end++;
+
+            String number = Integer.toString(++lineNumber);
+            for (int i = number.length(); i < 3; i++) bw.write('0');
+            bw.write(number);
+            bw.write(' ');
+            bw.write(text, start, end - start);
+            bw.write('\n');
+
+            if (   (end + 1 < length) && (text.charAt(end) == '\r')
+                && (text.charAt(end + 1) == '\n')) end++;
+            start = end + 1;
         }
+
+        bw.flush();
     }
 }
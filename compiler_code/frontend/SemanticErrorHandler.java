@@ -1,5 +1,7 @@
 package frontend;
 
+import java.io.PrintStream;
+
 import org.antlr.v4.runtime.ParserRuleContext;
 
 public class SemanticErrorHandler
@@ -35,6 +37,11 @@ public class SemanticErrorHandler
     }
     
     private int count = 0;
+    private PrintStream out;
+    
+    public SemanticErrorHandler() { this(System.out); }
+    
+    public SemanticErrorHandler(PrintStream out) { this.out = out; }
     
     /**
      * Get the count of semantic errors.
@@ -52,15 +59,15 @@ public class SemanticErrorHandler
     {
         if (count == 0)
         {
-            System.out.println("\n===== SEMANTIC ERRORS =====\n");
-            System.out.printf("%-4s %-40s %s\n", "Line", "Message", "Found near");
-            System.out.printf("%-4s %-40s %s\n", "----", "-------", "----------");
+            out.println("\n===== SEMANTIC ERRORS =====\n");
+            out.printf("%-4s %-40s %s\n", "Line", "Message", "Found near");
+            out.printf("%-4s %-40s %s\n", "----", "-------", "----------");
         }
         
         count++;
         
-        System.out.printf("%03d  %-40s \"%s\"\n", 
-                          lineNumber, code.message, text);
+        out.printf("%03d  %-40s \"%s\"\n", 
+                   lineNumber, code.message, text);
     }
     
     /**
@@ -1,8 +1,12 @@
 package frontend;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
 import antlr4.*;
 import antlr4.SubCParser.AssignmentStatementContext;
 import antlr4.SubCParser.ForIncrementStatementContext;
@@ -30,19 +34,39 @@ public class Semantics extends SubCBaseVisitor<Object>
     private SymtabStack symtabStack;
     private SymtabEntry programId;
     private SemanticErrorHandler error;
+    private PrintStream out;
+    private boolean crossReferencing;  // true to record the line numbers
     
     public Semantics(BackendMode mode)
+    {
+        this(mode, System.out);
+    }
+    
+    public Semantics(BackendMode mode, PrintStream out)
     {
         // Create and initialize the symbol table stack.
         this.symtabStack = new SymtabStack();
         Predefined.initialize(symtabStack);
         
         this.mode = mode;
-        this.error = new SemanticErrorHandler();
+        this.out = out;
+        this.error = new SemanticErrorHandler(out);
+        this.crossReferencing = false;
     }
     
     public SymtabEntry getProgramId() { return programId; }
     public int getErrorCount() { return error.getCount(); };
+
+    /**
+     * Set whether or not to record the source line numbers of the
+     * identifiers and print the cross-reference table. Otherwise,
+     * no line numbers are kept.
+     * @param crossReferencing true to cross-reference.
+     */
+    public void setCrossReferencing(boolean crossReferencing)
+    {
+        this.crossReferencing = crossReferencing;
+    }
     
     /**
      * Return the default value for a data type.
@@ -67,8 +91,11 @@ public class Semantics extends SubCBaseVisitor<Object>
         visit(ctx.functionDefinitions());
         visit(ctx.mainProgram().compoundStatement());
         // Print the cross-reference table.
-//        CrossReferencer crossReferencer = new CrossReferencer();
-//        crossReferencer.print(symtabStack);
+        if (crossReferencing)
+        {
+            CrossReferencer crossReferencer = new CrossReferencer(out);
+            crossReferencer.print(symtabStack);
+        }
 
         return null;
     }
@@ -97,7 +124,7 @@ public class Semantics extends SubCBaseVisitor<Object>
 
         SubCParser.VariableContext varCtx = ctx.variable();
         int lineNumber = varCtx.getStart().getLine();
-        String variableName = varCtx.variableIdentifier().IDENTIFIER().getText().toLowerCase();
+        String variableName = nameOf(varCtx.variableIdentifier().IDENTIFIER());
         SymtabEntry variableId = symtabStack.lookupLocal(variableName);
         if (variableId == null)
         {
@@ -120,7 +147,7 @@ public class Semantics extends SubCBaseVisitor<Object>
             error.flag(REDECLARED_IDENTIFIER, ctx);
         }
 
-        variableId.appendLineNumber(lineNumber);
+        if (crossReferencing) variableId.appendLineNumber(lineNumber);
         return null;
     }
   
@@ -131,7 +158,7 @@ public class Semantics extends SubCBaseVisitor<Object>
     	
         if (ctx.IDENTIFIER() != null)
         {
-            String constantName = ctx.IDENTIFIER().getText().toLowerCase();
+            String constantName = nameOf(ctx.IDENTIFIER());
             SymtabEntry constantId = symtabStack.lookup(constantName);
             
             if (constantId != null)
@@ -145,7 +172,10 @@ public class Semantics extends SubCBaseVisitor<Object>
                 ctx.type  = constantId.getType();
                 ctx.value = constantId.getValue();
                 
-                constantId.appendLineNumber(ctx.getStart().getLine());
+                if (crossReferencing)
+                {
+                    constantId.appendLineNumber(ctx.getStart().getLine());
+                }
             }
             else
             {
@@ -209,8 +239,10 @@ public class Semantics extends SubCBaseVisitor<Object>
         routineId = symtabStack.enterLocal(routineName, FUNCTION);
         routineId.setRoutineCode(DECLARED);
         idCtx.entry = routineId;
+        if (crossReferencing) routineId.appendLineNumber(idCtx.getStart().getLine());
 
         // Append to the parent routine's list of subroutines.
+        symtabStack.getLocalSymtab().getOwner().appendSubroutine(routineId);
 
         routineId.setRoutineSymtab(symtabStack.push());
         idCtx.entry = routineId;
@@ -281,7 +313,7 @@ public class Semantics extends SubCBaseVisitor<Object>
                                             	ctx.parameterIdentifier();
 
         int lineNumber = parmIdCtx.getStart().getLine();   
-        String parmName = parmIdCtx.IDENTIFIER().getText().toLowerCase();
+        String parmName = nameOf(parmIdCtx.IDENTIFIER());
         
         SymtabEntry parmId = symtabStack.lookupLocal(parmName);
         
@@ -299,7 +331,7 @@ public class Semantics extends SubCBaseVisitor<Object>
         parmIdCtx.type  = parmType;
             
         parameterSublist.add(parmId);
-        parmId.appendLineNumber(lineNumber);    
+        if (crossReferencing) parmId.appendLineNumber(lineNumber);
     
         return parameterSublist;
     }
@@ -325,7 +357,7 @@ public class Semantics extends SubCBaseVisitor<Object>
         if(ctx.TYPE != null)
         {
             int lineNumber = varCtx.getStart().getLine();
-            String variableName = varCtx.variableIdentifier().IDENTIFIER().getText().toLowerCase();
+            String variableName = nameOf(varCtx.variableIdentifier().IDENTIFIER());
             SymtabEntry variableId = symtabStack.lookupLocal(variableName);
             if (variableId == null)
             {
@@ -348,7 +380,7 @@ public class Semantics extends SubCBaseVisitor<Object>
                 error.flag(REDECLARED_IDENTIFIER, ctx);
             }
 
-            variableId.appendLineNumber(lineNumber);
+            if (crossReferencing) variableId.appendLineNumber(lineNumber);
         }
 
         SubCParser.LhsContext lhsCtx = ctx.lhs();
@@ -409,14 +441,14 @@ public class Semantics extends SubCBaseVisitor<Object>
         Form exprTypeForm = exprType.getForm();
         
         if ((exprTypeForm != SCALAR) 
-        		|| (exprType == Predefined.realType)
-        		|| (exprType == Predefined.stringType))
+        		|| (exprType == Predefined.realType))
         {
             error.flag(TYPE_MISMATCH, exprCtx);
             exprType = Predefined.integerType;
         }
         
-        HashSet<Integer> constants = new HashSet<>();
+        // Integer or character values, or strings.
+        HashSet<Object> constants = new HashSet<>();
         SubCParser.SwitchBranchListContext branchListCtx = ctx.switchBranchList();
         
         // Loop over the CASE branches.
@@ -440,6 +472,7 @@ public class Semantics extends SubCBaseVisitor<Object>
                     
                     caseConstCtx.type  = constCtx.type;
                     caseConstCtx.value = 0;
+                    Object constant = null;
                     
                     if (constCtx.type != exprType)
                     {
@@ -453,14 +486,29 @@ public class Semantics extends SubCBaseVisitor<Object>
                     {
                         caseConstCtx.value = (Character) constValue;
                     }
+                    else if (constCtx.type == Predefined.stringType)
+                    {
+                        // Dispatch on the hash code of the runtime string.
+                        String string = JasminStrings.unescape((String) constValue);
+                        
+                        if (string == null) error.flag(INVALID_CONSTANT, constCtx);
+                        else
+                        {
+                            caseConstCtx.string = (String) constValue;
+                            caseConstCtx.value  = string.hashCode();
+                            constant = string;
+                        }
+                    }
+                    
+                    if (constant == null) constant = caseConstCtx.value;
           
-                    if (constants.contains(caseConstCtx.value))
+                    if (constants.contains(constant))
                     {
                         error.flag(DUPLICATE_CASE_CONSTANT, constCtx);
                     }
                     else
                     {
-                        constants.add(caseConstCtx.value);
+                        constants.add(constant);
                     }
                 }
             }
@@ -468,6 +516,11 @@ public class Semantics extends SubCBaseVisitor<Object>
             if (stmtCtx != null) visit(stmtCtx);
         }
         
+        if (branchListCtx.defaultBranch() != null)
+        {
+            visit(branchListCtx.defaultBranch());
+        }
+        
         return null;
     }
 
@@ -500,7 +553,7 @@ public class Semantics extends SubCBaseVisitor<Object>
         visit(ctrCtx);
         Typespec controlType = ctrCtx.type;
         
-        String controlName = varCtx.getText().toLowerCase();
+        String controlName = nameOf(varCtx.variableIdentifier().IDENTIFIER());
        
         
         if (varCtx.entry != null)
@@ -554,8 +607,8 @@ public class Semantics extends SubCBaseVisitor<Object>
     	
         SubCParser.FunctionNameContext nameCtx = ctx.functionCall().functionName();
         SubCParser.ArgumentListContext listCtx = ctx.functionCall().argumentList();
-        String name = nameCtx.getText().toLowerCase();
-        SymtabEntry procedureId = symtabStack.lookup(name);
+        String name = nameOf(nameCtx.IDENTIFIER());
+        SymtabEntry procedureId = lookupRoutine(name);
         boolean badName = false;
         
         if (procedureId == null)
@@ -563,6 +616,10 @@ public class Semantics extends SubCBaseVisitor<Object>
             error.flag(UNDECLARED_IDENTIFIER, nameCtx);
             badName = true;
         }
+        else if (crossReferencing)
+        {
+            procedureId.appendLineNumber(nameCtx.getStart().getLine());
+        }
 
         
         // Bad procedure name. Do a simple arguments check and then leave.
@@ -595,8 +652,8 @@ public class Semantics extends SubCBaseVisitor<Object>
         SubCParser.FunctionCallContext callCtx = ctx.functionCall();
         SubCParser.FunctionNameContext nameCtx = callCtx.functionName();
         SubCParser.ArgumentListContext listCtx = callCtx.argumentList();
-        String name = callCtx.functionName().getText().toLowerCase();
-        SymtabEntry functionId = symtabStack.lookup(name);
+        String name = nameOf(nameCtx.IDENTIFIER());
+        SymtabEntry functionId = lookupRoutine(name);
         boolean badName = false;
         
         ctx.type = Predefined.integerType;
@@ -611,6 +668,10 @@ public class Semantics extends SubCBaseVisitor<Object>
             error.flag(NAME_MUST_BE_FUNCTION, nameCtx);
             badName = true;
         }
+        else if (crossReferencing)
+        {
+            functionId.appendLineNumber(nameCtx.getStart().getLine());
+        }
         
         // Bad function name. Do a simple arguments check and then leave.
         if (badName)
@@ -637,6 +698,47 @@ public class Semantics extends SubCBaseVisitor<Object>
         return null;
     }
     
+    /**
+     * Get the lowercase name of an identifier. An identifier token
+     * from the lexer's IdentifierTokenFactory already has its interned
+     * name, so no new string is created.
+     * @param node the identifier's terminal node.
+     * @return the name.
+     */
+    private static String nameOf(TerminalNode node)
+    {
+        Token token = node.getSymbol();
+
+        return (token instanceof IdentifierToken)
+                    ? ((IdentifierToken) token).getName()
+                    : token.getText().toLowerCase();
+    }
+
+    /**
+     * Look up the name of a called routine. Inside a function, the
+     * function's own name is hidden by its associated variable, so a
+     * recursive call resolves to the function that owns the variable.
+     * @param name the routine name.
+     * @return the symbol table entry, or null if not found.
+     */
+    private SymtabEntry lookupRoutine(String name)
+    {
+        SymtabEntry id = symtabStack.lookup(name);
+
+        if ((id != null) && (id.getKind() == VARIABLE))
+        {
+            SymtabEntry ownerId = id.getSymtab().getOwner();
+
+            if (   (ownerId != null) && (ownerId.getKind() == FUNCTION)
+                && ownerId.getName().equalsIgnoreCase(name))
+            {
+                return ownerId;
+            }
+        }
+
+        return id;
+    }
+
     /**
      * Perform semantic operations on procedure and function call arguments.
      * @param listCtx the ArgumentListContext.
@@ -695,6 +797,8 @@ public class Semantics extends SubCBaseVisitor<Object>
         // Second simple expression?
         if (relOpCtx != null)
         {
+            relOpCtx.op = Operator.of(relOpCtx.getText());
+
             SubCParser.SimpleExpressionContext simpleCtx2 = 
                                                 ctx.simpleExpression().get(1);
             visit(simpleCtx2);
@@ -736,13 +840,14 @@ public class Semantics extends SubCBaseVisitor<Object>
         // Loop over any subsequent terms.
         for (int i = 1; i < count; i++)
         {
-            String op = ctx.addOp().get(i-1).getText().toLowerCase();
+            SubCParser.AddOpContext opCtx = ctx.addOp().get(i-1);
+            Operator op = opCtx.op = Operator.of(opCtx.getText());
             SubCParser.TermContext termCtx2 = ctx.term().get(i);
             visit(termCtx2);
             Typespec termType2 = termCtx2.type;
             
             // Both operands boolean ==> boolean result. Else type mismatch.
-            if (op.equals("or"))
+            if (op == Operator.OR)
             {
                 if (!TypeChecker.isBoolean(termType1)) 
                 {
@@ -759,7 +864,7 @@ public class Semantics extends SubCBaseVisitor<Object>
                 
                 termType2 = Predefined.booleanType;
             }
-            else if (op.equals("+"))
+            else if (op == Operator.ADD)
             {
 //                 Both operands integer ==> integer result
                 if (TypeChecker.areBothInteger(termType1, termType2)) 
@@ -848,12 +953,13 @@ public class Semantics extends SubCBaseVisitor<Object>
         // Loop over any subsequent factors.
         for (int i = 1; i < count; i++)
         {
-            String op = ctx.mulOp().get(i-1).getText().toLowerCase();
+            SubCParser.MulOpContext opCtx = ctx.mulOp().get(i-1);
+            Operator op = opCtx.op = Operator.of(opCtx.getText());
             SubCParser.FactorContext factorCtx2 = ctx.factor().get(i);
             visit(factorCtx2);
             Typespec factorType2 = factorCtx2.type;
             
-            if(op.equals("*"))
+            if (op == Operator.MUL)
             {
                 // Both operands integer  ==> integer result
                 if (TypeChecker.areBothInteger(factorType1, factorType2)) 
@@ -883,7 +989,7 @@ public class Semantics extends SubCBaseVisitor<Object>
                     }
                 }
             }
-            else if (op.equals("/"))
+            else if (op == Operator.DIV)
             {
 //                // All integer and real operand combinations ==> real result
                 if (   TypeChecker.areBothInteger(factorType1, factorType2)
@@ -907,7 +1013,7 @@ public class Semantics extends SubCBaseVisitor<Object>
                     }
                 }
             }
-            else if (op.equals("div") || op.equals("mod"))
+            else if (op == Operator.MOD)
             {
                 // Both operands integer ==> integer result. Else type mismatch.
                 if (!TypeChecker.isInteger(factorType1))
@@ -921,7 +1027,7 @@ public class Semantics extends SubCBaseVisitor<Object>
                     factorType2 = Predefined.integerType;
                 }
             }
-            else if (op.equals("and"))
+            else if (op == Operator.AND)
             {
                 // Both operands boolean ==> boolean result. Else type mismatch.
                 if (!TypeChecker.isBoolean(factorType1))
@@ -975,7 +1081,7 @@ public class Semantics extends SubCBaseVisitor<Object>
                                     SubCParser.VariableIdentifierContext ctx) 
     {
     	
-        String variableName = ctx.IDENTIFIER().getText().toLowerCase();
+        String variableName = nameOf(ctx.IDENTIFIER());
         SymtabEntry variableId = symtabStack.lookup(variableName);
         
         if (variableId != null)
@@ -983,7 +1089,7 @@ public class Semantics extends SubCBaseVisitor<Object>
             int lineNumber = ctx.getStart().getLine();
             ctx.type = variableId.getType();
             ctx.entry = variableId;
-            variableId.appendLineNumber(lineNumber);
+            if (crossReferencing) variableId.appendLineNumber(lineNumber);
             
             Kind kind = variableId.getKind();
             switch (kind)
@@ -1018,6 +1124,16 @@ public class Semantics extends SubCBaseVisitor<Object>
 
         ctx.type = (integerCtx != null) ? Predefined.integerType
                                         : Predefined.realType;
+
+        // Convert the value once for the code generators.
+        if (integerCtx != null)
+        {
+            numberCtx.intValue = Integer.parseInt(numberCtx.getText());
+        }
+        else
+        {
+            numberCtx.realValue = Float.parseFloat(numberCtx.getText());
+        }
         
         return null;
     }
@@ -0,0 +1,77 @@
+package frontend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+
+/**
+ * <h1>SourceFile</h1>
+ *
+ * <p>The text of a source file, read once and shared by the listing
+ * and the lexer. A large file is memory-mapped instead of being copied
+ * through a read buffer.</p>
+ */
+public class SourceFile
+{
+    private static final long MAP_THRESHOLD = 1 << 20;  // bytes
+
+    private String name;  // source file name
+    private String text;  // source file text
+
+    /**
+     * Constructor.
+     * @param name the source file name.
+     * @throws IOException if the file can't be read.
+     */
+    public SourceFile(String name) throws IOException
+    {
+        this.name = name;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(name),
+                                                    StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            ByteBuffer bytes;
+
+            if (size >= MAP_THRESHOLD)
+            {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            else
+            {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining() && (channel.read(bytes) >= 0)) {}
+                bytes.flip();
+            }
+
+            text = StandardCharsets.UTF_8.decode(bytes).toString();
+        }
+    }
+
+    /**
+     * Get the source file name.
+     * @return the name.
+     */
+    public String getName() { return name; }
+
+    /**
+     * Get the source file text.
+     * @return the text.
+     */
+    public String getText() { return text; }
+
+    /**
+     * Create a character stream over the source text for the lexer.
+     * @return the character stream.
+     */
+    public CharStream getCharStream()
+    {
+        return CharStreams.fromString(text, name);
+    }
+}
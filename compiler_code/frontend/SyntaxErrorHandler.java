@@ -1,13 +1,20 @@
 package frontend;
 
+import java.io.PrintStream;
+
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 
 public class SyntaxErrorHandler extends BaseErrorListener
 {
-    private static int count = 0;
-    private static boolean first = true;
+    private int count = 0;
+    private boolean first = true;
+    private PrintStream out;
+    
+    public SyntaxErrorHandler() { this(System.out); }
+    
+    public SyntaxErrorHandler(PrintStream out) { this.out = out; }
     
     public int getCount() { return count; };
     
@@ -20,14 +27,14 @@ public class SyntaxErrorHandler extends BaseErrorListener
     {
         if (first)
         {
-            System.out.println("\n\n===== SYNTAX ERRORS =====\n");
-            System.out.printf("%-4s %-35s\n", "Line", "Message");
-            System.out.printf("%-4s %-35s\n", "----", "-------");
+            out.println("\n\n===== SYNTAX ERRORS =====\n");
+            out.printf("%-4s %-35s\n", "Line", "Message");
+            out.printf("%-4s %-35s\n", "----", "-------");
             
             first = false;
         }
         
         count++;
-        System.out.printf("%03d  %-35s\n", line, msg);
+        out.printf("%03d  %-35s\n", line, msg);
     }
 }
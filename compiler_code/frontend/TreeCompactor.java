@@ -0,0 +1,54 @@
+package frontend;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+/**
+ * <h1>TreeCompactor</h1>
+ *
+ * <p>Trim the child lists of a parse tree after the semantic pass.
+ * The parser grows each node's child list to ten entries while it adds
+ * the first child, and most nodes have only one or two children, so
+ * trimming the lists shrinks a large tree.</p>
+ *
+ * <p>Only the lists' spare capacity is released. Every node and token
+ * stays in the tree, which is still what the code generators walk,
+ * with the operators and the numeric constants that Semantics set.</p>
+ */
+public class TreeCompactor
+{
+    /**
+     * Trim the child lists of a parse tree.
+     * @param tree the root of the tree.
+     * @return the number of nodes of the tree.
+     */
+    public static int compact(ParseTree tree)
+    {
+        ArrayDeque<ParseTree> stack = new ArrayDeque<ParseTree>();
+        int count = 0;
+
+        stack.push(tree);
+        while (!stack.isEmpty())
+        {
+            ParseTree node = stack.pop();
+            count++;
+            if (!(node instanceof ParserRuleContext)) continue;
+
+            ParserRuleContext ctx = (ParserRuleContext) node;
+            if (ctx.children instanceof ArrayList)
+            {
+                ((ArrayList<ParseTree>) ctx.children).trimToSize();
+            }
+
+            for (int i = 0; i < ctx.getChildCount(); i++)
+            {
+                stack.push(ctx.getChild(i));
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,241 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static intermediate.ir.IrInstruction.Op.*;
+
+/**
+ * <h1>BasicBlock</h1>
+ *
+ * <p>A basic block of the control-flow graph: a list of instructions
+ * that starts with the block's PHI instructions and ends with a single
+ * terminator instruction.</p>
+ */
+public class BasicBlock
+{
+    private int id;                              // unique id within the graph
+    private ControlFlowGraph cfg;                // containing graph
+    private ArrayList<IrInstruction> instructions;
+    private ArrayList<BasicBlock> predecessors;  // unique predecessor blocks
+    private ArrayList<BasicBlock> successors;    // unique successor blocks
+
+    /**
+     * Constructor.
+     * @param cfg the containing control-flow graph.
+     * @param id the unique id within the graph.
+     */
+    BasicBlock(ControlFlowGraph cfg, int id)
+    {
+        this.cfg          = cfg;
+        this.id           = id;
+        this.instructions = new ArrayList<IrInstruction>();
+        this.predecessors = new ArrayList<BasicBlock>();
+        this.successors   = new ArrayList<BasicBlock>();
+    }
+
+    /**
+     * Get the unique id within the graph.
+     * @return the id.
+     */
+    public int getId() { return id; }
+
+    /**
+     * Get the name of the block in listings.
+     * @return the name.
+     */
+    public String getName() { return "B" + id; }
+
+    /**
+     * Get the containing control-flow graph.
+     * @return the graph.
+     */
+    public ControlFlowGraph getGraph() { return cfg; }
+
+    /**
+     * Get the instructions, PHI instructions first and terminator last.
+     * @return the list of instructions.
+     */
+    public ArrayList<IrInstruction> getInstructions() { return instructions; }
+
+    /**
+     * Get the predecessor blocks. PHI operands are in the same order.
+     * @return the list of predecessors.
+     */
+    public ArrayList<BasicBlock> getPredecessors() { return predecessors; }
+
+    /**
+     * Get the successor blocks.
+     * @return the list of successors.
+     */
+    public ArrayList<BasicBlock> getSuccessors() { return successors; }
+
+    /**
+     * Append an instruction.
+     * @param instruction the instruction to append.
+     */
+    public void append(IrInstruction instruction)
+    {
+        instruction.setBlock(this);
+        instruction.setId(cfg.nextValueId());
+        instructions.add(instruction);
+
+        for (BasicBlock target : instruction.getTargets()) addSuccessor(target);
+    }
+
+    /**
+     * Insert a PHI instruction after any existing ones.
+     * @param phi the PHI instruction.
+     */
+    public void insertPhi(IrInstruction phi)
+    {
+        phi.setBlock(this);
+        phi.setId(cfg.nextValueId());
+        instructions.add(getPhis().size(), phi);
+    }
+
+    /**
+     * Insert an instruction before another instruction of this block.
+     * @param instruction the instruction to insert.
+     * @param before the instruction to insert before.
+     */
+    public void insertBefore(IrInstruction instruction, IrInstruction before)
+    {
+        instruction.setBlock(this);
+        instruction.setId(cfg.nextValueId());
+        instructions.add(instructions.indexOf(before), instruction);
+    }
+
+    /**
+     * Remove an instruction and drop its operands.
+     * @param instruction the instruction to remove.
+     */
+    public void remove(IrInstruction instruction)
+    {
+        instructions.remove(instruction);
+        instruction.dropOperands();
+        instruction.setBlock(null);
+    }
+
+    /**
+     * Move the instructions from an index on to the end of another block,
+     * which also takes over this block's successors.
+     * @param index the index of the first instruction to move.
+     * @param block the other block.
+     */
+    void moveInstructions(int index, BasicBlock block)
+    {
+        List<IrInstruction> moved = instructions.subList(index, instructions.size());
+
+        for (IrInstruction instruction : moved)
+        {
+            instruction.setBlock(block);
+            block.instructions.add(instruction);
+        }
+        moved.clear();
+
+        for (BasicBlock successor : successors)
+        {
+            successor.predecessors.set(successor.predecessors.indexOf(this), block);
+            block.successors.add(successor);
+        }
+        successors.clear();
+    }
+
+    /**
+     * Move the block to another graph.
+     * @param cfg the other graph.
+     * @param id the block's unique id within the other graph.
+     */
+    void moveTo(ControlFlowGraph cfg, int id)
+    {
+        this.cfg = cfg;
+        this.id  = id;
+    }
+
+    /**
+     * Get the PHI instructions at the start of the block.
+     * @return the list of PHI instructions.
+     */
+    public ArrayList<IrInstruction> getPhis()
+    {
+        ArrayList<IrInstruction> phis = new ArrayList<IrInstruction>();
+
+        for (IrInstruction instruction : instructions)
+        {
+            if (instruction.getOp() != PHI) break;
+            phis.add(instruction);
+        }
+
+        return phis;
+    }
+
+    /**
+     * Get the terminator instruction.
+     * @return the terminator, or null if the block is still open.
+     */
+    public IrInstruction getTerminator()
+    {
+        if (instructions.isEmpty()) return null;
+
+        IrInstruction last = instructions.get(instructions.size() - 1);
+        return last.isTerminator() ? last : null;
+    }
+
+    /**
+     * Return whether or not the block has its terminator.
+     * @return true if terminated, else false.
+     */
+    public boolean isTerminated() { return getTerminator() != null; }
+
+    /**
+     * Add a control-flow edge to a successor block.
+     * @param successor the successor.
+     */
+    private void addSuccessor(BasicBlock successor)
+    {
+        if (!successors.contains(successor))
+        {
+            successors.add(successor);
+            successor.predecessors.add(this);
+        }
+    }
+
+    /**
+     * Remove a predecessor block together with its PHI operands.
+     * @param predecessor the predecessor to remove.
+     */
+    public void removePredecessor(BasicBlock predecessor)
+    {
+        int index = predecessors.indexOf(predecessor);
+        if (index < 0) return;
+
+        predecessors.remove(index);
+        predecessor.successors.remove(this);
+
+        for (IrInstruction phi : getPhis()) phi.removeOperand(index);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buffer = new StringBuilder(getName()).append(":");
+
+        if (!predecessors.isEmpty())
+        {
+            buffer.append("  ; preds");
+            for (BasicBlock pred : predecessors)
+            {
+                buffer.append(" ").append(pred.getName());
+            }
+        }
+        buffer.append("\n");
+
+        for (IrInstruction instruction : instructions)
+        {
+            buffer.append("    ").append(instruction).append("\n");
+        }
+
+        return buffer.toString();
+    }
+}
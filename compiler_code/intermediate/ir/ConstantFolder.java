@@ -0,0 +1,90 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+
+import intermediate.symtab.Predefined;
+
+import static intermediate.ir.IrInstruction.Op.*;
+
+/**
+ * <h1>ConstantFolder</h1>
+ *
+ * <p>Replace each instruction whose operands are all constants by its
+ * value, computed at compile time. This includes calls of pure functions
+ * with constant arguments, which run in the interpreter within its budgets.
+ * A call of a pure function that doesn't return a value is removed.
+ * Blocks are visited in reverse postorder so that a folded value can
+ * make its users foldable in the same sweep.</p>
+ */
+public class ConstantFolder
+{
+    private ControlFlowGraph cfg;         // the graph to fold
+    private IrInterpreter interpreter;    // compile-time evaluator
+
+    /**
+     * Constructor.
+     * @param cfg the control-flow graph.
+     * @param interpreter the interpreter that computes the values.
+     */
+    public ConstantFolder(ControlFlowGraph cfg, IrInterpreter interpreter)
+    {
+        this.cfg         = cfg;
+        this.interpreter = interpreter;
+    }
+
+    /**
+     * Fold the constant instructions.
+     * @return the number of instructions folded.
+     */
+    public int run()
+    {
+        int count = 0;
+
+        for (BasicBlock block : cfg.reversePostorder())
+        {
+            for (IrInstruction instruction :
+                        new ArrayList<IrInstruction>(block.getInstructions()))
+            {
+                if (!isFoldable(instruction)) continue;
+
+                IrConstant value = interpreter.evaluate(instruction);
+                if (value == null) continue;
+
+                if (value.getType() != Predefined.voidType)
+                {
+                    instruction.replaceAllUsesWith(value);
+                }
+
+                block.remove(instruction);
+                count++;
+            }
+        }
+
+        if (count > 0) new DeadCodeEliminator(cfg).run();
+        return count;
+    }
+
+    /**
+     * Return whether or not an instruction may be folded.
+     * @param instruction the instruction.
+     * @return true if its operands are all constants and it computes
+     * a value without printing or branching.
+     */
+    private boolean isFoldable(IrInstruction instruction)
+    {
+        IrInstruction.Op op = instruction.getOp();
+
+        if (   (op == PHI) || (op == PARAM) || (op == PRINT)
+            || instruction.isTerminator())
+        {
+            return false;
+        }
+
+        for (IrValue operand : instruction.getOperands())
+        {
+            if (!operand.isConstant()) return false;
+        }
+
+        return true;
+    }
+}
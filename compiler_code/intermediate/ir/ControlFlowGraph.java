@@ -0,0 +1,282 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import intermediate.symtab.SymtabEntry;
+
+/**
+ * <h1>ControlFlowGraph</h1>
+ *
+ * <p>The control-flow graph of the basic blocks of a function or of the
+ * main program, with its values in SSA form.</p>
+ */
+public class ControlFlowGraph
+{
+    private SymtabEntry routineId;        // symtab entry of the routine
+    private BasicBlock entry;             // entry block
+    private ArrayList<BasicBlock> blocks; // all the blocks
+    private int blockCount;               // for generating block ids
+    private int valueCount;               // for generating value ids
+
+    /**
+     * Constructor.
+     * @param routineId the symbol table entry of the function or program.
+     */
+    public ControlFlowGraph(SymtabEntry routineId)
+    {
+        this.routineId  = routineId;
+        this.blocks     = new ArrayList<BasicBlock>();
+        this.blockCount = 0;
+        this.valueCount = 0;
+        this.entry      = newBlock();
+    }
+
+    /**
+     * Get the symbol table entry of the function or program.
+     * @return the entry.
+     */
+    public SymtabEntry getRoutineId() { return routineId; }
+
+    /**
+     * Get the entry block.
+     * @return the block.
+     */
+    public BasicBlock getEntry() { return entry; }
+
+    /**
+     * Get all the blocks in creation order.
+     * @return the list of blocks.
+     */
+    public ArrayList<BasicBlock> getBlocks() { return blocks; }
+
+    /**
+     * Create a new empty block.
+     * @return the block.
+     */
+    public BasicBlock newBlock()
+    {
+        BasicBlock block = new BasicBlock(this, blockCount++);
+        blocks.add(block);
+
+        return block;
+    }
+
+    /**
+     * Copy the graph, such as to change a graph that other threads read.
+     * The copy's blocks and values have the same ids as the originals,
+     * and it has its own constants, since they keep track of their users.
+     * @return the copy.
+     */
+    public ControlFlowGraph copy()
+    {
+        ControlFlowGraph cfg = new ControlFlowGraph(routineId);
+        HashMap<BasicBlock, BasicBlock> blockCopies =
+                                        new HashMap<BasicBlock, BasicBlock>();
+        HashMap<IrValue, IrValue> valueCopies = new HashMap<IrValue, IrValue>();
+
+        cfg.blocks.clear();
+        cfg.blockCount = blockCount;
+        cfg.valueCount = valueCount;
+
+        for (BasicBlock block : blocks)
+        {
+            BasicBlock blockCopy = new BasicBlock(cfg, block.getId());
+            blockCopies.put(block, blockCopy);
+            cfg.blocks.add(blockCopy);
+
+            for (IrInstruction instruction : block.getInstructions())
+            {
+                IrInstruction copy = new IrInstruction(instruction.getOp(),
+                                                       instruction.getType());
+                copy.setBlock(blockCopy);
+                copy.setId(instruction.getId());
+                copy.setRelation(instruction.getRelation());
+                copy.setEntry(instruction.getEntry());
+                copy.setText(instruction.getText());
+                copy.getCaseValues().addAll(instruction.getCaseValues());
+
+                blockCopy.getInstructions().add(copy);
+                valueCopies.put(instruction, copy);
+            }
+        }
+
+        cfg.entry = blockCopies.get(entry);
+
+        // The edges and the operands, now that every block and
+        // every instruction has its copy. A PHI operand can be
+        // defined later in the graph.
+        for (BasicBlock block : blocks)
+        {
+            BasicBlock blockCopy = blockCopies.get(block);
+
+            for (BasicBlock pred : block.getPredecessors())
+            {
+                blockCopy.getPredecessors().add(blockCopies.get(pred));
+            }
+            for (BasicBlock succ : block.getSuccessors())
+            {
+                blockCopy.getSuccessors().add(blockCopies.get(succ));
+            }
+
+            for (IrInstruction instruction : block.getInstructions())
+            {
+                IrInstruction copy = (IrInstruction) valueCopies.get(instruction);
+
+                for (BasicBlock target : instruction.getTargets())
+                {
+                    copy.addTarget(blockCopies.get(target));
+                }
+
+                for (IrValue operand : instruction.getOperands())
+                {
+                    IrValue operandCopy = valueCopies.get(operand);
+
+                    if (operandCopy == null)
+                    {
+                        IrConstant constant = (IrConstant) operand;
+                        operandCopy = new IrConstant(constant.getType(),
+                                                     constant.getValue());
+                        valueCopies.put(operand, operandCopy);
+                    }
+
+                    copy.addOperand(operandCopy);
+                }
+            }
+        }
+
+        return cfg;
+    }
+
+    /**
+     * Move blocks of this graph to another graph.
+     * @param moved the blocks to move.
+     * @param cfg the other graph.
+     */
+    void moveBlocks(Collection<BasicBlock> moved, ControlFlowGraph cfg)
+    {
+        blocks.removeAll(new HashSet<BasicBlock>(moved));
+
+        for (BasicBlock block : moved)
+        {
+            block.moveTo(cfg, cfg.blockCount++);
+            cfg.blocks.add(block);
+        }
+    }
+
+    /**
+     * Generate the next value id.
+     * @return the id.
+     */
+    int nextValueId() { return valueCount++; }
+
+    /**
+     * Get the number of value ids generated so far.
+     * @return the count.
+     */
+    public int getValueCount() { return valueCount; }
+
+    /**
+     * Return the blocks reachable from the entry in reverse postorder,
+     * which places every block before its successors except along
+     * loop back edges.
+     * @return the ordered list of blocks.
+     */
+    public ArrayList<BasicBlock> reversePostorder()
+    {
+        return reversePostorder(false);
+    }
+
+    /**
+     * Return the blocks reachable from the entry in reverse postorder.
+     * Visiting the successors of each block last to first places the
+     * blocks of a loop before the code after the loop, as in the source.
+     * @param lastFirst true to visit the successors last to first.
+     * @return the ordered list of blocks.
+     */
+    public ArrayList<BasicBlock> reversePostorder(boolean lastFirst)
+    {
+        ArrayList<BasicBlock> order = new ArrayList<BasicBlock>();
+        HashSet<BasicBlock> visited = new HashSet<BasicBlock>();
+        ArrayList<BasicBlock> stack = new ArrayList<BasicBlock>();
+        ArrayList<Integer> next = new ArrayList<Integer>();
+
+        // Iterative depth-first search.
+        stack.add(entry);
+        next.add(0);
+        visited.add(entry);
+
+        while (!stack.isEmpty())
+        {
+            int top = stack.size() - 1;
+            BasicBlock block = stack.get(top);
+            int index = next.get(top);
+
+            int count = block.getSuccessors().size();
+
+            if (index < count)
+            {
+                next.set(top, index + 1);
+                BasicBlock successor = block.getSuccessors()
+                                            .get(lastFirst ? count - 1 - index
+                                                           : index);
+
+                if (visited.add(successor))
+                {
+                    stack.add(successor);
+                    next.add(0);
+                }
+            }
+            else
+            {
+                order.add(block);
+                stack.remove(top);
+                next.remove(top);
+            }
+        }
+
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Remove the blocks that cannot be reached from the entry,
+     * such as the code following a return statement.
+     */
+    public void removeUnreachableBlocks()
+    {
+        HashSet<BasicBlock> reachable =
+                            new HashSet<BasicBlock>(reversePostorder());
+
+        for (BasicBlock block : new ArrayList<BasicBlock>(blocks))
+        {
+            if (reachable.contains(block)) continue;
+
+            for (BasicBlock successor :
+                                new ArrayList<BasicBlock>(block.getSuccessors()))
+            {
+                successor.removePredecessor(block);
+            }
+            for (IrInstruction instruction : block.getInstructions())
+            {
+                instruction.dropOperands();
+            }
+
+            blocks.remove(block);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("; CFG ").append(routineId.getName()).append("\n");
+
+        for (BasicBlock block : reversePostorder()) buffer.append(block);
+
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+
+import static intermediate.ir.IrInstruction.Op.*;
+
+/**
+ * <h1>DeadCodeEliminator</h1>
+ *
+ * <p>Remove the instructions whose values are never used and that have
+ * no side effects. Removing an instruction can make its operands dead,
+ * so the elimination repeats until nothing more changes. A PHI that is
+ * used only by itself is also dead, and a PHI that merges a single value,
+ * such as after unreachable predecessors were removed, is replaced
+ * by that value.</p>
+ */
+public class DeadCodeEliminator
+{
+    private ControlFlowGraph cfg;  // the graph to clean up
+
+    /**
+     * Constructor.
+     * @param cfg the control-flow graph.
+     */
+    public DeadCodeEliminator(ControlFlowGraph cfg)
+    {
+        this.cfg = cfg;
+    }
+
+    /**
+     * Remove the dead instructions.
+     * @return the number of instructions removed.
+     */
+    public int run()
+    {
+        int removed = 0;
+        boolean changed = true;
+
+        while (changed)
+        {
+            changed = false;
+
+            for (BasicBlock block : cfg.getBlocks())
+            {
+                ArrayList<IrInstruction> instructions =
+                            new ArrayList<IrInstruction>(block.getInstructions());
+
+                // Backwards, so that operands are seen after their users.
+                for (int i = instructions.size() - 1; i >= 0; i--)
+                {
+                    IrInstruction instruction = instructions.get(i);
+
+                    if (isDead(instruction))
+                    {
+                        block.remove(instruction);
+                        removed++;
+                        changed = true;
+                    }
+                    else if (instruction.getOp() == PHI)
+                    {
+                        IrValue same = trivialValue(instruction);
+
+                        if (same != null)
+                        {
+                            instruction.replaceAllUsesWith(same);
+                            block.remove(instruction);
+                            removed++;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Return whether or not an instruction is dead.
+     * @param instruction the instruction.
+     * @return true if dead, else false.
+     */
+    private boolean isDead(IrInstruction instruction)
+    {
+        if (instruction.hasSideEffects()) return false;
+
+        for (IrInstruction user : instruction.getUsers())
+        {
+            if ((user != instruction) || (instruction.getOp() != PHI)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the single value merged by a PHI.
+     * @param phi the PHI instruction.
+     * @return the value, or null if the PHI merges several values.
+     */
+    private IrValue trivialValue(IrInstruction phi)
+    {
+        IrValue same = null;
+
+        for (IrValue operand : phi.getOperands())
+        {
+            if ((operand == same) || (operand == phi)) continue;
+            if (same != null) return null;
+
+            same = operand;
+        }
+
+        return same;
+    }
+}
@@ -0,0 +1,145 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * <h1>DominatorTree</h1>
+ *
+ * <p>The dominator tree of a control-flow graph. Block A dominates block B
+ * if every path from the entry to B passes through A. The immediate
+ * dominators are computed with the iterative algorithm of Cooper, Harvey,
+ * and Kennedy over the reverse postorder of the blocks.</p>
+ */
+public class DominatorTree
+{
+    private ArrayList<BasicBlock> order;                  // reverse postorder
+    private HashMap<BasicBlock, Integer> orderIndex;      // position in order
+    private HashMap<BasicBlock, BasicBlock> idoms;        // immediate dominators
+    private HashMap<BasicBlock, ArrayList<BasicBlock>> children;
+
+    /**
+     * Constructor.
+     * @param cfg the control-flow graph.
+     */
+    public DominatorTree(ControlFlowGraph cfg)
+    {
+        this.order      = cfg.reversePostorder();
+        this.orderIndex = new HashMap<BasicBlock, Integer>();
+        this.idoms      = new HashMap<BasicBlock, BasicBlock>();
+        this.children   = new HashMap<BasicBlock, ArrayList<BasicBlock>>();
+
+        for (int i = 0; i < order.size(); i++)
+        {
+            orderIndex.put(order.get(i), i);
+            children.put(order.get(i), new ArrayList<BasicBlock>());
+        }
+
+        computeImmediateDominators();
+
+        for (BasicBlock block : order)
+        {
+            BasicBlock idom = idoms.get(block);
+            if (idom != block) children.get(idom).add(block);
+        }
+    }
+
+    /**
+     * Iterate to a fixed point over the blocks in reverse postorder.
+     */
+    private void computeImmediateDominators()
+    {
+        BasicBlock entry = order.get(0);
+        idoms.put(entry, entry);
+
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+
+            for (int i = 1; i < order.size(); i++)
+            {
+                BasicBlock block = order.get(i);
+                BasicBlock newIdom = null;
+
+                for (BasicBlock pred : block.getPredecessors())
+                {
+                    if (!idoms.containsKey(pred)) continue;  // not processed yet
+
+                    newIdom = (newIdom == null) ? pred : intersect(pred, newIdom);
+                }
+
+                if (idoms.get(block) != newIdom)
+                {
+                    idoms.put(block, newIdom);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the nearest common dominator of two blocks.
+     * @param b1 the first block.
+     * @param b2 the second block.
+     * @return the common dominator.
+     */
+    private BasicBlock intersect(BasicBlock b1, BasicBlock b2)
+    {
+        while (b1 != b2)
+        {
+            while (orderIndex.get(b1) > orderIndex.get(b2)) b1 = idoms.get(b1);
+            while (orderIndex.get(b2) > orderIndex.get(b1)) b2 = idoms.get(b2);
+        }
+
+        return b1;
+    }
+
+    /**
+     * Get the reachable blocks in reverse postorder.
+     * @return the ordered list of blocks.
+     */
+    public ArrayList<BasicBlock> getOrder() { return order; }
+
+    /**
+     * Get the immediate dominator of a block.
+     * @param block the block.
+     * @return the immediate dominator, or null for the entry block.
+     */
+    public BasicBlock getImmediateDominator(BasicBlock block)
+    {
+        BasicBlock idom = idoms.get(block);
+        return idom != block ? idom : null;
+    }
+
+    /**
+     * Get the blocks immediately dominated by a block.
+     * @param block the block.
+     * @return the list of children in the dominator tree.
+     */
+    public ArrayList<BasicBlock> getChildren(BasicBlock block)
+    {
+        return children.get(block);
+    }
+
+    /**
+     * Return whether or not one block dominates another.
+     * Every block dominates itself.
+     * @param dominator the possible dominator.
+     * @param block the block.
+     * @return true if it dominates, else false.
+     */
+    public boolean dominates(BasicBlock dominator, BasicBlock block)
+    {
+        if (!idoms.containsKey(block)) return false;  // unreachable
+
+        while (true)
+        {
+            if (block == dominator) return true;
+
+            BasicBlock idom = idoms.get(block);
+            if (idom == block) return false;  // reached the entry
+            block = idom;
+        }
+    }
+}
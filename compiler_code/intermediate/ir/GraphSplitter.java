@@ -0,0 +1,349 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.function.ToIntFunction;
+
+import intermediate.symtab.Predefined;
+import intermediate.symtab.Symtab;
+import intermediate.symtab.SymtabEntry;
+import intermediate.type.Typespec;
+
+import static intermediate.ir.IrInstruction.Op.*;
+import static intermediate.symtab.SymtabEntry.Kind.*;
+import static intermediate.symtab.SymtabEntry.Routine.*;
+
+/**
+ * <h1>GraphSplitter</h1>
+ *
+ * <p>Split a control-flow graph that is too big for one method into
+ * a chain of graphs. A cut can be made in a block that no loop contains
+ * and that no edge jumps over, so the code after the cut is entered only
+ * through it. The code after a cut moves into a new graph, and the code
+ * before it ends by calling the new graph and returning the call's value.
+ * The values defined before a cut and used after it become the new
+ * graph's parameters.</p>
+ */
+public class GraphSplitter
+{
+    private ControlFlowGraph cfg;                  // the graph to split
+    private ArrayList<BasicBlock> layout;          // blocks in source-like reverse postorder
+    private HashMap<BasicBlock, Integer> positions;  // layout position of each block
+    private HashMap<IrInstruction, Integer> order;   // layout order of each instruction
+
+    /**
+     * A point to cut the graph before an instruction.
+     */
+    private static class Cut
+    {
+        private BasicBlock block;  // the block to cut
+        private int index;         // index of the first instruction after the cut
+        private int order;         // layout order of that instruction
+        private ArrayList<IrInstruction> liveIns;  // values used after the cut
+
+        private Cut(BasicBlock block, int index, int order)
+        {
+            this.block   = block;
+            this.index   = index;
+            this.order   = order;
+            this.liveIns = new ArrayList<IrInstruction>();
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param cfg the graph to split.
+     */
+    public GraphSplitter(ControlFlowGraph cfg)
+    {
+        this.cfg = cfg;
+    }
+
+    /**
+     * Split the graph into pieces of about a given size. The graph keeps
+     * the first piece, and each piece calls the next one at its end.
+     * @param sizeOf the size of the code of an instruction.
+     * @param pieceSize the size of a piece.
+     * @param maxParameters the most parameters that a piece can have.
+     * @param name the name of the pieces' routines, which is followed
+     *             by $1, $2, and so on.
+     * @return the graphs of the pieces after the first one, in order.
+     */
+    public ArrayList<ControlFlowGraph> split(ToIntFunction<IrInstruction> sizeOf,
+                                             int pieceSize, int maxParameters,
+                                             String name)
+    {
+        layout    = cfg.reversePostorder(true);
+        positions = new HashMap<BasicBlock, Integer>();
+        order     = new HashMap<IrInstruction, Integer>();
+
+        for (BasicBlock block : layout)
+        {
+            positions.put(block, positions.size());
+
+            for (IrInstruction instruction : block.getInstructions())
+            {
+                order.put(instruction, order.size());
+            }
+        }
+
+        ArrayList<Cut> cuts = chooseCuts(sizeOf, pieceSize);
+        findLiveIns(cuts);
+
+        for (int i = cuts.size() - 1; i >= 0; i--)
+        {
+            if (cuts.get(i).liveIns.size() > maxParameters) cuts.remove(i);
+        }
+
+        ArrayList<ControlFlowGraph> pieces = new ArrayList<ControlFlowGraph>();
+        for (int i = cuts.size() - 1; i >= 0; i--)
+        {
+            pieces.add(cut(cuts.get(i), name + "$" + (i + 1)));
+        }
+
+        Collections.reverse(pieces);
+        return pieces;
+    }
+
+    /**
+     * Choose the cuts: the first place where each piece reaches its size,
+     * unless the rest of the graph is smaller than half a piece.
+     * @param sizeOf the size of the code of an instruction.
+     * @param pieceSize the size of a piece.
+     * @return the cuts in layout order.
+     */
+    private ArrayList<Cut> chooseCuts(ToIntFunction<IrInstruction> sizeOf,
+                                      int pieceSize)
+    {
+        boolean[] jumpedOver = jumpedOverBlocks();
+        ArrayList<Cut> cuts = new ArrayList<Cut>();
+        int remaining = 0;
+        int size = 0;
+
+        for (IrInstruction instruction : order.keySet())
+        {
+            remaining += sizeOf.applyAsInt(instruction);
+        }
+
+        for (BasicBlock block : layout)
+        {
+            ArrayList<IrInstruction> instructions = block.getInstructions();
+            boolean cuttable = !jumpedOver[positions.get(block)];
+
+            for (int i = 0; i < instructions.size(); i++)
+            {
+                IrInstruction instruction = instructions.get(i);
+                IrInstruction.Op op = instruction.getOp();
+
+                if (   cuttable && (size >= pieceSize)
+                    && (remaining >= pieceSize/2)
+                    && (op != PHI) && (op != PARAM))
+                {
+                    cuts.add(new Cut(block, i, order.get(instruction)));
+                    size = 0;
+                }
+
+                int instructionSize = sizeOf.applyAsInt(instruction);
+                size      += instructionSize;
+                remaining -= instructionSize;
+            }
+        }
+
+        return cuts;
+    }
+
+    /**
+     * Find the blocks that can't be cut: the blocks of loops, where a back
+     * edge goes from a block to an earlier one, and the blocks between
+     * the ends of a forward edge.
+     * @return true for each layout position that can't be cut.
+     */
+    private boolean[] jumpedOverBlocks()
+    {
+        int[] starts = new int[layout.size() + 1];
+
+        for (BasicBlock block : layout)
+        {
+            int from = positions.get(block);
+
+            for (BasicBlock successor : block.getSuccessors())
+            {
+                int to = positions.get(successor);
+
+                if (to <= from)
+                {
+                    starts[to]++;
+                    starts[from + 1]--;
+                }
+                else if (to > from + 1)
+                {
+                    starts[from + 1]++;
+                    starts[to]--;
+                }
+            }
+        }
+
+        boolean[] jumpedOver = new boolean[layout.size()];
+        int edges = 0;
+
+        for (int i = 0; i < layout.size(); i++)
+        {
+            edges += starts[i];
+            jumpedOver[i] = edges > 0;
+        }
+
+        return jumpedOver;
+    }
+
+    /**
+     * Find the live-in values of each cut: the values defined before it
+     * and used after it. Since no edge crosses a cut backward, a value
+     * is live across a cut exactly when the cut lies between the value
+     * and its last use in layout order.
+     * @param cuts the cuts in layout order.
+     */
+    private void findLiveIns(ArrayList<Cut> cuts)
+    {
+        if (cuts.isEmpty()) return;
+
+        int[] cutOrders = new int[cuts.size()];
+        for (int i = 0; i < cuts.size(); i++) cutOrders[i] = cuts.get(i).order;
+
+        for (BasicBlock block : layout)
+        {
+            for (IrInstruction value : block.getInstructions())
+            {
+                if (!value.producesValue()) continue;
+
+                int defined = order.get(value);
+                int lastUse = defined;
+
+                for (IrInstruction user : value.getUsers())
+                {
+                    Integer used = order.get(user);
+                    if (used != null) lastUse = Math.max(lastUse, used);
+                }
+
+                // The cuts after the definition up to the last use.
+                int first = firstCutAfter(cutOrders, defined);
+                for (int i = first; (i < cuts.size()) && (cutOrders[i] <= lastUse); i++)
+                {
+                    cuts.get(i).liveIns.add(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the first cut after a layout order.
+     * @param cutOrders the sorted layout orders of the cuts.
+     * @param order the layout order.
+     * @return the index of the first cut after it.
+     */
+    private static int firstCutAfter(int[] cutOrders, int order)
+    {
+        int low = 0;
+        int high = cutOrders.length;
+
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (cutOrders[middle] <= order) low = middle + 1;
+            else                            high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * Cut the graph. The code after the cut moves into a new graph,
+     * and the code before it calls the new graph and returns.
+     * @param cut the cut.
+     * @param name the name of the new graph's routine.
+     * @return the new graph.
+     */
+    private ControlFlowGraph cut(Cut cut, String name)
+    {
+        SymtabEntry routineId = cfg.getRoutineId();
+        Typespec type = (routineId.getKind() == FUNCTION) ? routineId.getType()
+                                                          : Predefined.voidType;
+
+        // The routine of the new graph, with a parameter for each live-in.
+        SymtabEntry pieceId = new SymtabEntry(name, FUNCTION, routineId.getSymtab());
+        Symtab symtab = new Symtab(2);
+        ArrayList<SymtabEntry> parmIds = new ArrayList<SymtabEntry>();
+
+        pieceId.setRoutineCode(DECLARED);
+        pieceId.setRoutineSymtab(symtab);
+        pieceId.setType(type);
+        symtab.setOwner(pieceId);
+
+        ControlFlowGraph piece = new ControlFlowGraph(pieceId);
+        BasicBlock entry = piece.getEntry();
+        ArrayList<IrInstruction> params = new ArrayList<IrInstruction>();
+
+        for (IrInstruction value : cut.liveIns)
+        {
+            // A boolean is passed as an integer.
+            Typespec parmType = (value.getType() == Predefined.booleanType)
+                                        ? Predefined.integerType
+                                        : value.getType();
+            SymtabEntry parmId = symtab.enter("_p" + parmIds.size(),
+                                              VALUE_PARAMETER);
+            parmId.setSlotNumber(symtab.nextSlotNumber());
+            parmId.setType(parmType);
+            parmIds.add(parmId);
+
+            IrInstruction param = new IrInstruction(PARAM, value.getType());
+            param.setEntry(parmId);
+            entry.append(param);
+            params.add(param);
+        }
+        pieceId.setRoutineParameters(parmIds);
+
+        // Move the rest of the cut block and the blocks after it.
+        BasicBlock block = cut.block;
+        BasicBlock first = piece.newBlock();
+        ArrayList<BasicBlock> moved = new ArrayList<BasicBlock>();
+
+        block.moveInstructions(cut.index, first);
+        for (int i = positions.get(block) + 1; i < layout.size(); i++)
+        {
+            BasicBlock next = layout.get(i);
+            if (next.getGraph() == cfg) moved.add(next);
+        }
+        cfg.moveBlocks(moved, piece);
+
+        IrInstruction jump = new IrInstruction(JUMP, null);
+        jump.addTarget(first);
+        entry.append(jump);
+
+        // The moved code uses the parameters instead of the live-ins.
+        for (int i = 0; i < cut.liveIns.size(); i++)
+        {
+            IrInstruction value = cut.liveIns.get(i);
+
+            for (IrInstruction user : new ArrayList<IrInstruction>(value.getUsers()))
+            {
+                if (user.getBlock().getGraph() == piece)
+                {
+                    user.replaceOperand(value, params.get(i));
+                }
+            }
+        }
+
+        // Call the new graph and return its value.
+        IrInstruction call = new IrInstruction(CALL, type);
+        call.setEntry(pieceId);
+        for (IrInstruction value : cut.liveIns) call.addOperand(value);
+        block.append(call);
+
+        IrInstruction ret = new IrInstruction(RETURN, null);
+        if (type != Predefined.voidType) ret.addOperand(call);
+        block.append(ret);
+
+        return piece;
+    }
+}
@@ -0,0 +1,1335 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import antlr4.*;
+import intermediate.ir.IrInstruction.Op;
+import intermediate.ir.IrInstruction.Relation;
+import intermediate.symtab.*;
+import intermediate.type.*;
+import intermediate.util.Operator;
+
+import static intermediate.ir.IrInstruction.Op.*;
+
+/**
+ * <h1>IrBuilder</h1>
+ *
+ * <p>Lower the annotated parse tree of a function or of the main program
+ * into a control-flow graph in SSA form. SSA values are constructed
+ * on the fly while the tree is walked. Since every statement is
+ * structured, only the current value of each variable is kept: the
+ * assignments of a branch are undone after it's lowered, and PHI
+ * instructions merge the values where the branches join. A loop header
+ * gets a PHI for each variable that is assigned in the loop, and the PHIs
+ * that turn out to merge only one value are removed, as in the algorithm
+ * of Braun et al., "Simple and Efficient Construction of Static Single
+ * Assignment Form". The work is proportional to the assignments and
+ * merges, not to the variables times the blocks.</p>
+ */
+public class IrBuilder extends SubCBaseVisitor<Object>
+{
+    private ControlFlowGraph cfg;     // the graph being built
+    private BasicBlock current;       // the block being appended to
+
+    // Current value of each variable where the tree is being lowered.
+    private HashMap<SymtabEntry, IrValue> currentDefs;
+
+    // The values before the branches being lowered of the variables
+    // that they assigned, innermost branch last.
+    private ArrayList<LinkedHashMap<SymtabEntry, IrValue>> branchDefs;
+
+    // The values of the assigned variables along each edge into a block
+    // where branches join, by the block and then by the predecessor.
+    private HashMap<BasicBlock, LinkedHashMap<BasicBlock,
+                                LinkedHashMap<SymtabEntry, IrValue>>> edgeDefs;
+
+    // The variables whose current value is each PHI, so that
+    // a removed PHI is replaced only where it was recorded.
+    private HashMap<IrInstruction, ArrayList<SymtabEntry>> phiDefs;
+
+    /**
+     * Constructor.
+     */
+    public IrBuilder()
+    {
+        this.currentDefs = new HashMap<>();
+        this.branchDefs  = new ArrayList<>();
+        this.edgeDefs    = new HashMap<>();
+        this.phiDefs     = new HashMap<>();
+    }
+
+    /**
+     * Build the control-flow graph of a declared function.
+     * @param ctx the FunctionDefinitionContext.
+     * @return the control-flow graph.
+     */
+    public ControlFlowGraph buildFunction(SubCParser.FunctionDefinitionContext ctx)
+    {
+        SymtabEntry routineId = ctx.functionName().entry;
+        start(routineId);
+
+        // The incoming parameter values.
+        for (SymtabEntry parmId : routineId.getRoutineParameters())
+        {
+            IrInstruction param = new IrInstruction(PARAM, parmId.getType());
+            param.setEntry(parmId);
+            current.append(param);
+            writeVariable(parmId, param);
+        }
+
+        visit(ctx.compoundStatement());
+
+        // Falling off the end of the function.
+        if (!current.isTerminated())
+        {
+            IrInstruction ret = new IrInstruction(RETURN, null);
+            Typespec returnType = routineId.getType();
+
+            if (returnType != Predefined.voidType)
+            {
+                ret.addOperand(IrConstant.defaultValue(returnType));
+            }
+            current.append(ret);
+        }
+
+        return finish();
+    }
+
+    /**
+     * Build the control-flow graph of the main program's body.
+     * @param ctx the ProgramContext.
+     * @return the control-flow graph.
+     */
+    public ControlFlowGraph buildMain(SubCParser.ProgramContext ctx)
+    {
+        start(ctx.programHeader().programIdentifier().entry);
+
+        visit(ctx.mainProgram().compoundStatement());
+        if (!current.isTerminated()) current.append(new IrInstruction(RETURN, null));
+
+        return finish();
+    }
+
+    /**
+     * Get the value of an expression that is a single literal,
+     * possibly signed or parenthesized.
+     * @param ctx the ExpressionContext.
+     * @param type the datatype to convert the value to.
+     * @return the constant, or null if the expression is not a literal.
+     */
+    public IrConstant literal(SubCParser.ExpressionContext ctx, Typespec type)
+    {
+        if (ctx.relOp() != null) return null;
+
+        SubCParser.SimpleExpressionContext simpleCtx = ctx.simpleExpression().get(0);
+        if (simpleCtx.term().size() != 1) return null;
+
+        SubCParser.TermContext termCtx = simpleCtx.term().get(0);
+        if (termCtx.factor().size() != 1) return null;
+
+        SubCParser.FactorContext factorCtx = termCtx.factor().get(0);
+        IrConstant value;
+
+        if (   (factorCtx instanceof SubCParser.NumberFactorContext)
+            || (factorCtx instanceof SubCParser.CharacterFactorContext)
+            || (factorCtx instanceof SubCParser.StringFactorContext))
+        {
+            value = (IrConstant) visit(factorCtx);
+        }
+        else if (factorCtx instanceof SubCParser.ParenthesizedFactorContext)
+        {
+            value = literal(((SubCParser.ParenthesizedFactorContext) factorCtx)
+                                .expression(), null);
+        }
+        else return null;
+
+        if (value == null) return null;
+
+        if ((simpleCtx.sign() != null) && simpleCtx.sign().getText().equals("-"))
+        {
+            Object number = value.getValue();
+
+            if      (number instanceof Integer) number = -(Integer) number;
+            else if (number instanceof Float)   number = -(Float) number;
+            else return null;
+
+            value = new IrConstant(value.getType(), number);
+        }
+
+        return (type != null) ? (IrConstant) convert(value, type) : value;
+    }
+
+    /**
+     * Start a new graph.
+     * @param routineId the symbol table entry of the routine.
+     */
+    private void start(SymtabEntry routineId)
+    {
+        currentDefs.clear();
+        branchDefs.clear();
+        edgeDefs.clear();
+        phiDefs.clear();
+
+        cfg = new ControlFlowGraph(routineId);
+        current = cfg.getEntry();
+    }
+
+    /**
+     * Finish the graph: remove unreachable blocks and dead code.
+     * @return the graph.
+     */
+    private ControlFlowGraph finish()
+    {
+        cfg.removeUnreachableBlocks();
+        new DeadCodeEliminator(cfg).run();
+
+        return cfg;
+    }
+
+    // ==================
+    // SSA construction
+    // ==================
+
+    /**
+     * Record the current value of a variable.
+     * @param variableId the variable's symbol table entry.
+     * @param value the value.
+     */
+    private void writeVariable(SymtabEntry variableId, IrValue value)
+    {
+        // The first assignment in a branch saves the value before it.
+        if (!branchDefs.isEmpty())
+        {
+            LinkedHashMap<SymtabEntry, IrValue> saved =
+                                    branchDefs.get(branchDefs.size() - 1);
+            if (!saved.containsKey(variableId))
+            {
+                saved.put(variableId, currentDefs.get(variableId));
+            }
+        }
+
+        currentDefs.put(variableId, value);
+        recordDefinition(value, variableId);
+    }
+
+    /**
+     * Record that a PHI is a variable's current value.
+     * @param value the value.
+     * @param variableId the variable's symbol table entry.
+     */
+    private void recordDefinition(IrValue value, SymtabEntry variableId)
+    {
+        if (!(value instanceof IrInstruction)) return;
+
+        IrInstruction phi = (IrInstruction) value;
+        if (phi.getOp() != PHI) return;
+
+        ArrayList<SymtabEntry> variableIds = phiDefs.get(phi);
+        if (variableIds == null)
+        {
+            variableIds = new ArrayList<SymtabEntry>();
+            phiDefs.put(phi, variableIds);
+        }
+
+        variableIds.add(variableId);
+    }
+
+    /**
+     * Get the current value of a variable.
+     * @param variableId the variable's symbol table entry.
+     * @return the value, or the default value if it wasn't assigned.
+     */
+    private IrValue readVariable(SymtabEntry variableId)
+    {
+        IrValue value = currentDefs.get(variableId);
+
+        return (value != null) ? value
+                               : IrConstant.defaultValue(variableId.getType());
+    }
+
+    /**
+     * Start lowering a branch, whose assignments will be undone.
+     */
+    private void startBranch()
+    {
+        branchDefs.add(new LinkedHashMap<SymtabEntry, IrValue>());
+    }
+
+    /**
+     * End the current block of a branch with a jump to a block where
+     * branches join, and record the values of the variables that the
+     * branch assigned along the new edge.
+     * @param target the target block.
+     */
+    private void jumpFromBranch(BasicBlock target)
+    {
+        if (current.isTerminated()) return;
+
+        LinkedHashMap<BasicBlock, LinkedHashMap<SymtabEntry, IrValue>> edges =
+                                                        edgeDefs.get(target);
+        if (edges == null)
+        {
+            edges = new LinkedHashMap<BasicBlock,
+                                      LinkedHashMap<SymtabEntry, IrValue>>();
+            edgeDefs.put(target, edges);
+        }
+
+        LinkedHashMap<SymtabEntry, IrValue> values =
+                                    new LinkedHashMap<SymtabEntry, IrValue>();
+        for (SymtabEntry variableId : branchDefs.get(branchDefs.size() - 1).keySet())
+        {
+            values.put(variableId, readVariable(variableId));
+        }
+
+        edges.put(current, values);
+        jump(target);
+    }
+
+    /**
+     * Finish lowering a branch: undo its assignments.
+     */
+    private void endBranch()
+    {
+        LinkedHashMap<SymtabEntry, IrValue> saved =
+                                    branchDefs.remove(branchDefs.size() - 1);
+
+        for (Map.Entry<SymtabEntry, IrValue> entry : saved.entrySet())
+        {
+            if (entry.getValue() == null) currentDefs.remove(entry.getKey());
+            else                          currentDefs.put(entry.getKey(),
+                                                          entry.getValue());
+        }
+    }
+
+    /**
+     * Merge the values of the variables at a block where branches join.
+     * A variable that was assigned along an edge into the block gets
+     * a PHI, unless the value is the same along every edge. Along the
+     * other edges, each variable has its current value.
+     * @param block the block, whose predecessors are all known.
+     */
+    private void joinBranches(BasicBlock block)
+    {
+        LinkedHashMap<BasicBlock, LinkedHashMap<SymtabEntry, IrValue>> edges =
+                                                        edgeDefs.remove(block);
+        if (edges == null) return;
+
+        LinkedHashSet<SymtabEntry> variableIds = new LinkedHashSet<SymtabEntry>();
+        for (LinkedHashMap<SymtabEntry, IrValue> values : edges.values())
+        {
+            variableIds.addAll(values.keySet());
+        }
+
+        for (SymtabEntry variableId : variableIds)
+        {
+            IrValue value = readVariable(variableId);
+            ArrayList<IrValue> operands = new ArrayList<IrValue>();
+            boolean same = true;
+
+            for (BasicBlock pred : block.getPredecessors())
+            {
+                LinkedHashMap<SymtabEntry, IrValue> values = edges.get(pred);
+                IrValue operand = (values != null) && values.containsKey(variableId)
+                                      ? values.get(variableId) : value;
+
+                same = same && (operand == (operands.isEmpty() ? operand
+                                                               : operands.get(0)));
+                operands.add(operand);
+            }
+
+            if (operands.isEmpty()) continue;
+
+            if (same) writeVariable(variableId, operands.get(0));
+            else
+            {
+                IrInstruction phi = newPhi(variableId, block);
+                for (IrValue operand : operands) phi.addOperand(operand);
+
+                writeVariable(variableId, phi);
+            }
+        }
+    }
+
+    /**
+     * Start a loop at its header block: create a PHI for each variable
+     * that the loop assigns, with the value from before the loop, and
+     * start lowering the loop as a branch.
+     * @param headerBlock the header block, which is the current block.
+     * @param trees the parse trees of the loop's condition and body.
+     * @return the PHIs of the variables.
+     */
+    private LinkedHashMap<SymtabEntry, IrInstruction> startLoop(
+                                    BasicBlock headerBlock, ParseTree... trees)
+    {
+        LinkedHashSet<SymtabEntry> variableIds = new LinkedHashSet<SymtabEntry>();
+        for (ParseTree tree : trees) findAssignedVariables(tree, variableIds);
+
+        LinkedHashMap<SymtabEntry, IrInstruction> phis =
+                                    new LinkedHashMap<SymtabEntry, IrInstruction>();
+        for (SymtabEntry variableId : variableIds)
+        {
+            IrInstruction phi = newPhi(variableId, headerBlock);
+
+            // The value from before the loop.
+            phi.addOperand(readVariable(variableId));
+            phis.put(variableId, phi);
+            writeVariable(variableId, phi);
+        }
+
+        startBranch();
+        return phis;
+    }
+
+    /**
+     * End a loop at the end of its body: add the values along the back
+     * edge to the header PHIs, undo the body's assignments, and remove
+     * the PHIs that merge only one value.
+     * @param headerBlock the header block.
+     * @param phis the PHIs of the variables that the loop assigns.
+     */
+    private void endLoop(BasicBlock headerBlock,
+                         LinkedHashMap<SymtabEntry, IrInstruction> phis)
+    {
+        for (Map.Entry<SymtabEntry, IrInstruction> entry : phis.entrySet())
+        {
+            entry.getValue().addOperand(readVariable(entry.getKey()));
+        }
+
+        jump(headerBlock);
+        endBranch();
+
+        for (IrInstruction phi : phis.values())
+        {
+            if (phi.getBlock() != null) tryRemoveTrivialPhi(phi);
+        }
+    }
+
+    /**
+     * Find the variables that are assigned in a parse tree.
+     * @param tree the parse tree.
+     * @param variableIds the set of variables to add to.
+     */
+    private static void findAssignedVariables(ParseTree tree,
+                                              LinkedHashSet<SymtabEntry> variableIds)
+    {
+        if (tree instanceof SubCParser.LhsContext)
+        {
+            variableIds.add(((SubCParser.LhsContext) tree).variable().entry);
+        }
+        else if (   (tree instanceof SubCParser.AssignmentStatementContext)
+                 && (((SubCParser.AssignmentStatementContext) tree).OP != null))
+        {
+            variableIds.add(((SubCParser.AssignmentStatementContext) tree)
+                                .variable().entry);
+        }
+        else if (   (tree instanceof SubCParser.ForIncrementStatementContext)
+                 && (((SubCParser.ForIncrementStatementContext) tree).OP != null))
+        {
+            variableIds.add(((SubCParser.ForIncrementStatementContext) tree)
+                                .variable().entry);
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++)
+        {
+            findAssignedVariables(tree.getChild(i), variableIds);
+        }
+    }
+
+    /**
+     * Create an empty PHI instruction for a variable.
+     * @param variableId the variable's symbol table entry.
+     * @param block the block to contain the PHI.
+     * @return the PHI instruction.
+     */
+    private IrInstruction newPhi(SymtabEntry variableId, BasicBlock block)
+    {
+        IrInstruction phi = new IrInstruction(PHI, variableId.getType());
+        phi.setEntry(variableId);
+        block.insertPhi(phi);
+
+        return phi;
+    }
+
+    /**
+     * Remove a PHI whose operands are all the same value or the PHI itself.
+     * @param phi the PHI instruction.
+     * @return the PHI, or the value that replaced it.
+     */
+    private IrValue tryRemoveTrivialPhi(IrInstruction phi)
+    {
+        IrValue same = null;
+
+        for (IrValue operand : phi.getOperands())
+        {
+            if ((operand == same) || (operand == phi)) continue;
+            if (same != null) return phi;  // merges at least two values
+
+            same = operand;
+        }
+
+        if (same == null) same = IrConstant.defaultValue(phi.getType());
+
+        ArrayList<IrInstruction> phiUsers = new ArrayList<IrInstruction>();
+        for (IrInstruction user : phi.getUsers())
+        {
+            if ((user != phi) && (user.getOp() == PHI)) phiUsers.add(user);
+        }
+
+        phi.replaceAllUsesWith(same);
+        replaceDefinitions(phi, same);
+        phi.getBlock().remove(phi);
+
+        // Removing this PHI can make the PHIs that used it trivial.
+        for (IrInstruction user : phiUsers)
+        {
+            if (user.getBlock() != null) tryRemoveTrivialPhi(user);
+        }
+
+        return same;
+    }
+
+    /**
+     * Replace a removed PHI as the current value of the variables.
+     * Only the variables where the PHI was recorded are visited, and
+     * those that were assigned since then are skipped.
+     * @param phi the removed PHI.
+     * @param newValue the replacement value.
+     */
+    private void replaceDefinitions(IrInstruction phi, IrValue newValue)
+    {
+        ArrayList<SymtabEntry> variableIds = phiDefs.remove(phi);
+        if (variableIds == null) return;
+
+        for (SymtabEntry variableId : variableIds)
+        {
+            if (currentDefs.get(variableId) == phi)
+            {
+                currentDefs.put(variableId, newValue);
+                recordDefinition(newValue, variableId);
+            }
+        }
+    }
+
+    /**
+     * Create a new block.
+     * @return the block.
+     */
+    private BasicBlock newBlock()
+    {
+        return cfg.newBlock();
+    }
+
+    // ==================
+    // Control flow
+    // ==================
+
+    /**
+     * End the current block with a jump, unless it already ended.
+     * @param target the target block.
+     */
+    private void jump(BasicBlock target)
+    {
+        if (current.isTerminated()) return;
+
+        IrInstruction jump = new IrInstruction(JUMP, null);
+        jump.addTarget(target);
+        current.append(jump);
+    }
+
+    /**
+     * End the current block with a two-way branch.
+     * @param condition the boolean condition value.
+     * @param trueBlock the target if true.
+     * @param falseBlock the target if false.
+     */
+    private void branch(IrValue condition, BasicBlock trueBlock,
+                        BasicBlock falseBlock)
+    {
+        IrInstruction branch = new IrInstruction(BRANCH, null);
+        branch.addOperand(condition);
+        branch.addTarget(trueBlock);
+        branch.addTarget(falseBlock);
+        current.append(branch);
+    }
+
+    /**
+     * Branch on a condition. The operands of && and || jump straight
+     * to the targets, so the right operand is skipped when the left one
+     * already decides the result.
+     * @param ctx the ExpressionContext of the condition.
+     * @param trueBlock the target if true.
+     * @param falseBlock the target if false.
+     */
+    private void condition(SubCParser.ExpressionContext ctx,
+                           BasicBlock trueBlock, BasicBlock falseBlock)
+    {
+        if (ctx.relOp() == null)
+        {
+            condition(ctx.simpleExpression().get(0), trueBlock, falseBlock);
+        }
+        else branch((IrValue) visit(ctx), trueBlock, falseBlock);
+    }
+
+    /**
+     * Branch on a simple expression condition.
+     * @param ctx the SimpleExpressionContext.
+     * @param trueBlock the target if true.
+     * @param falseBlock the target if false.
+     */
+    private void condition(SubCParser.SimpleExpressionContext ctx,
+                           BasicBlock trueBlock, BasicBlock falseBlock)
+    {
+        int count = ctx.term().size();
+
+        if (isDisjunction(ctx))
+        {
+            // Each operand but the last falls through to the next if false.
+            for (int i = 0; i < count - 1; i++)
+            {
+                BasicBlock nextBlock = newBlock();
+                condition(ctx.term().get(i), trueBlock, nextBlock);
+                current = nextBlock;
+            }
+
+            condition(ctx.term().get(count - 1), trueBlock, falseBlock);
+        }
+        else if ((ctx.sign() == null) && (count == 1))
+        {
+            condition(ctx.term().get(0), trueBlock, falseBlock);
+        }
+        else branch((IrValue) visit(ctx), trueBlock, falseBlock);
+    }
+
+    /**
+     * Branch on a term condition.
+     * @param ctx the TermContext.
+     * @param trueBlock the target if true.
+     * @param falseBlock the target if false.
+     */
+    private void condition(SubCParser.TermContext ctx,
+                           BasicBlock trueBlock, BasicBlock falseBlock)
+    {
+        int count = ctx.factor().size();
+
+        if (isConjunction(ctx))
+        {
+            // Each operand but the last falls through to the next if true.
+            for (int i = 0; i < count - 1; i++)
+            {
+                BasicBlock nextBlock = newBlock();
+                condition(ctx.factor().get(i), nextBlock, falseBlock);
+                current = nextBlock;
+            }
+
+            condition(ctx.factor().get(count - 1), trueBlock, falseBlock);
+        }
+        else if (count == 1)
+        {
+            condition(ctx.factor().get(0), trueBlock, falseBlock);
+        }
+        else branch((IrValue) visit(ctx), trueBlock, falseBlock);
+    }
+
+    /**
+     * Branch on a factor condition.
+     * @param ctx the FactorContext.
+     * @param trueBlock the target if true.
+     * @param falseBlock the target if false.
+     */
+    private void condition(SubCParser.FactorContext ctx,
+                           BasicBlock trueBlock, BasicBlock falseBlock)
+    {
+        if (ctx instanceof SubCParser.ParenthesizedFactorContext)
+        {
+            condition(((SubCParser.ParenthesizedFactorContext) ctx).expression(),
+                      trueBlock, falseBlock);
+        }
+        else if (ctx instanceof SubCParser.NotFactorContext)
+        {
+            condition(((SubCParser.NotFactorContext) ctx).factor(),
+                      falseBlock, trueBlock);
+        }
+        else branch((IrValue) visit(ctx), trueBlock, falseBlock);
+    }
+
+    /**
+     * Return whether or not a simple expression is a chain of ||.
+     * @param ctx the SimpleExpressionContext.
+     * @return true if it is.
+     */
+    private boolean isDisjunction(SubCParser.SimpleExpressionContext ctx)
+    {
+        if ((ctx.sign() != null) || ctx.addOp().isEmpty()) return false;
+
+        for (SubCParser.AddOpContext opCtx : ctx.addOp())
+        {
+            if (opCtx.op != Operator.OR) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Return whether or not a term is a chain of &&.
+     * @param ctx the TermContext.
+     * @return true if it is.
+     */
+    private boolean isConjunction(SubCParser.TermContext ctx)
+    {
+        if (ctx.mulOp().isEmpty()) return false;
+
+        for (SubCParser.MulOpContext opCtx : ctx.mulOp())
+        {
+            if (opCtx.op != Operator.AND) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Evaluate a chain of && or || for its value: branch on it,
+     * then merge true and false with a PHI.
+     * @param ctx the SimpleExpressionContext or TermContext of the chain.
+     * @return the PHI of the boolean value.
+     */
+    private IrValue logicalValue(ParserRuleContext ctx)
+    {
+        BasicBlock trueBlock  = newBlock();
+        BasicBlock falseBlock = newBlock();
+        BasicBlock joinBlock  = newBlock();
+
+        if (ctx instanceof SubCParser.TermContext)
+        {
+            condition((SubCParser.TermContext) ctx, trueBlock, falseBlock);
+        }
+        else
+        {
+            condition((SubCParser.SimpleExpressionContext) ctx,
+                      trueBlock, falseBlock);
+        }
+
+        current = trueBlock;
+        jump(joinBlock);
+        current = falseBlock;
+        jump(joinBlock);
+
+        current = joinBlock;
+
+        IrInstruction phi = new IrInstruction(PHI, Predefined.booleanType);
+        for (BasicBlock pred : joinBlock.getPredecessors())
+        {
+            phi.addOperand(new IrConstant(Predefined.booleanType,
+                                          pred == trueBlock ? 1 : 0));
+        }
+        joinBlock.insertPhi(phi);
+
+        return phi;
+    }
+
+    // ==================
+    // Statements
+    // ==================
+
+    @Override
+    public Object visitAssignmentStatement(
+                                    SubCParser.AssignmentStatementContext ctx)
+    {
+        // variable++ or variable--
+        if (ctx.OP != null)
+        {
+            SubCParser.VariableContext varCtx = ctx.variable();
+            emitIncrement(varCtx.entry, ctx.OP.getText());
+            return null;
+        }
+
+        SymtabEntry varId = ctx.lhs().variable().entry;
+        IrValue value = (IrValue) visit(ctx.rhs().expression());
+
+        writeVariable(varId, convert(value, varId.getType()));
+        return null;
+    }
+
+    /**
+     * Lower an increment or decrement.
+     * @param varId the variable's symbol table entry.
+     * @param op the operator, ++ or --.
+     */
+    private void emitIncrement(SymtabEntry varId, String op)
+    {
+        IrValue value = readVariable(varId);
+        IrValue one = new IrConstant(Predefined.integerType, 1);
+        IrValue result = binary(op.equals("++") ? ADD : SUB,
+                                Predefined.integerType, value, one);
+
+        writeVariable(varId, result);
+    }
+
+    @Override
+    public Object visitIfStatement(SubCParser.IfStatementContext ctx)
+    {
+        BasicBlock trueBlock = newBlock();
+        BasicBlock nextBlock = newBlock();
+        BasicBlock falseBlock = (ctx.falseStatement() != null) ? newBlock()
+                                                                : nextBlock;
+
+        condition(ctx.expression(), trueBlock, falseBlock);
+
+        current = trueBlock;
+        startBranch();
+        visit(ctx.trueStatement());
+        jumpFromBranch(nextBlock);
+        endBranch();
+
+        if (falseBlock != nextBlock)
+        {
+            current = falseBlock;
+            startBranch();
+            visit(ctx.falseStatement());
+            jumpFromBranch(nextBlock);
+            endBranch();
+        }
+
+        current = nextBlock;
+        joinBranches(nextBlock);
+
+        return null;
+    }
+
+    @Override
+    public Object visitWhileStatement(SubCParser.WhileStatementContext ctx)
+    {
+        BasicBlock headerBlock = newBlock();
+        BasicBlock bodyBlock   = newBlock();
+        BasicBlock exitBlock   = newBlock();
+
+        jump(headerBlock);
+        current = headerBlock;
+
+        LinkedHashMap<SymtabEntry, IrInstruction> phis =
+            startLoop(headerBlock, ctx.expression(), ctx.compoundStatement());
+        condition(ctx.expression(), bodyBlock, exitBlock);
+
+        current = bodyBlock;
+        visit(ctx.compoundStatement());
+        endLoop(headerBlock, phis);
+
+        current = exitBlock;
+
+        return null;
+    }
+
+    @Override
+    public Object visitForStatement(SubCParser.ForStatementContext ctx)
+    {
+        visit(ctx.forInitialization().assignmentStatement());
+
+        BasicBlock headerBlock = newBlock();
+        BasicBlock bodyBlock   = newBlock();
+        BasicBlock exitBlock   = newBlock();
+
+        jump(headerBlock);
+        current = headerBlock;
+
+        LinkedHashMap<SymtabEntry, IrInstruction> phis =
+            startLoop(headerBlock, ctx.forControl(), ctx.compoundStatement(),
+                      ctx.forIncrementStatement());
+        condition(ctx.forControl().expression(), bodyBlock, exitBlock);
+
+        current = bodyBlock;
+        visit(ctx.compoundStatement());
+
+        // The increment.
+        SubCParser.ForIncrementStatementContext incCtx =
+                                                ctx.forIncrementStatement();
+        if (incCtx.OP != null)
+        {
+            emitIncrement(incCtx.variable().entry, incCtx.OP.getText());
+        }
+        else
+        {
+            SymtabEntry varId = incCtx.lhs().variable().entry;
+            IrValue value = (IrValue) visit(incCtx.rhs().expression());
+            writeVariable(varId, convert(value, varId.getType()));
+        }
+        endLoop(headerBlock, phis);
+
+        current = exitBlock;
+
+        return null;
+    }
+
+    @Override
+    public Object visitSwitchStatement(SubCParser.SwitchStatementContext ctx)
+    {
+        IrValue value = (IrValue) visit(ctx.expression());
+        SubCParser.SwitchBranchListContext listCtx = ctx.switchBranchList();
+        SubCParser.DefaultBranchContext defaultCtx = listCtx.defaultBranch();
+
+        BasicBlock exitBlock    = newBlock();
+        BasicBlock defaultBlock = (defaultCtx != null) ? newBlock() : exitBlock;
+
+        ArrayList<BasicBlock> caseBlocks = new ArrayList<BasicBlock>();
+        for (int i = 0; i < listCtx.caseBranch().size(); i++)
+        {
+            caseBlocks.add(newBlock());
+        }
+
+        if (TypeChecker.isString(value.getType()))
+        {
+            emitStringDispatch(value, listCtx, caseBlocks, defaultBlock);
+        }
+        else
+        {
+            IrInstruction switchInst = new IrInstruction(SWITCH, null);
+            switchInst.addOperand(value);
+            switchInst.addTarget(defaultBlock);
+
+            for (int i = 0; i < caseBlocks.size(); i++)
+            {
+                for (SubCParser.CaseConstantContext constCtx :
+                        listCtx.caseBranch().get(i).caseConstantList().caseConstant())
+                {
+                    switchInst.addCase(constCtx.value, caseBlocks.get(i));
+                }
+            }
+            current.append(switchInst);
+        }
+
+        // Each branch without a break falls through to the next one.
+        for (int i = 0; i < caseBlocks.size(); i++)
+        {
+            BasicBlock caseBlock = caseBlocks.get(i);
+            SubCParser.CaseCompoundContext stmtCtx =
+                                listCtx.caseBranch().get(i).caseCompound();
+
+            current = caseBlock;
+            emitCaseCompound(stmtCtx, exitBlock,
+                             i + 1 < caseBlocks.size() ? caseBlocks.get(i + 1)
+                                                       : defaultBlock);
+        }
+
+        if (defaultCtx != null)
+        {
+            current = defaultBlock;
+            emitCaseCompound(defaultCtx.caseCompound(), exitBlock, exitBlock);
+        }
+
+        current = exitBlock;
+        joinBranches(exitBlock);
+
+        return null;
+    }
+
+    /**
+     * Lower the dispatch of a switch on strings: switch on the hash code
+     * of the value, then compare the value with the strings of that hash.
+     * @param value the string value.
+     * @param listCtx the SwitchBranchListContext.
+     * @param caseBlocks the first block of each branch.
+     * @param defaultBlock the block if no string matches.
+     */
+    private void emitStringDispatch(IrValue value,
+                                    SubCParser.SwitchBranchListContext listCtx,
+                                    ArrayList<BasicBlock> caseBlocks,
+                                    BasicBlock defaultBlock)
+    {
+        IrInstruction hash = new IrInstruction(HASH, Predefined.integerType);
+        hash.addOperand(value);
+        current.append(hash);
+
+        IrInstruction switchInst = new IrInstruction(SWITCH, null);
+        switchInst.addOperand(hash);
+        switchInst.addTarget(defaultBlock);
+
+        // The case constants grouped by hash code.
+        LinkedHashMap<Integer, ArrayList<SubCParser.CaseConstantContext>> groups =
+            new LinkedHashMap<Integer, ArrayList<SubCParser.CaseConstantContext>>();
+        HashMap<SubCParser.CaseConstantContext, BasicBlock> targets =
+            new HashMap<SubCParser.CaseConstantContext, BasicBlock>();
+
+        for (int i = 0; i < caseBlocks.size(); i++)
+        {
+            for (SubCParser.CaseConstantContext constCtx :
+                    listCtx.caseBranch().get(i).caseConstantList().caseConstant())
+            {
+                if (!groups.containsKey(constCtx.value))
+                {
+                    groups.put(constCtx.value,
+                               new ArrayList<SubCParser.CaseConstantContext>());
+                }
+
+                groups.get(constCtx.value).add(constCtx);
+                targets.put(constCtx, caseBlocks.get(i));
+            }
+        }
+
+        LinkedHashMap<Integer, BasicBlock> testBlocks =
+                                        new LinkedHashMap<Integer, BasicBlock>();
+        for (Integer hashCode : groups.keySet())
+        {
+            BasicBlock testBlock = newBlock();
+            testBlocks.put(hashCode, testBlock);
+            switchInst.addCase(hashCode, testBlock);
+        }
+        current.append(switchInst);
+
+        // Each test block compares the value with a string of its hash code
+        // and falls to the next test, or finally to the default.
+        for (Integer hashCode : groups.keySet())
+        {
+            ArrayList<SubCParser.CaseConstantContext> group = groups.get(hashCode);
+            BasicBlock testBlock = testBlocks.get(hashCode);
+
+            for (int i = 0; i < group.size(); i++)
+            {
+                SubCParser.CaseConstantContext constCtx = group.get(i);
+                BasicBlock nextBlock = (i + 1 < group.size()) ? newBlock()
+                                                              : defaultBlock;
+
+                current = testBlock;
+
+                IrInstruction cmp = new IrInstruction(CMP, Predefined.booleanType);
+                cmp.setRelation(Relation.EQ);
+                cmp.addOperand(value);
+                cmp.addOperand(new IrConstant(Predefined.stringType,
+                                              constCtx.string));
+                current.append(cmp);
+                branch(cmp, targets.get(constCtx), nextBlock);
+
+                testBlock = nextBlock;
+            }
+        }
+    }
+
+    /**
+     * Lower the statements of a switch branch. The values that fall
+     * through from the previous branch are merged first.
+     * @param ctx the CaseCompoundContext.
+     * @param exitBlock the block after the switch statement.
+     * @param nextBlock the block to fall through to if there's no break.
+     */
+    private void emitCaseCompound(SubCParser.CaseCompoundContext ctx,
+                                  BasicBlock exitBlock, BasicBlock nextBlock)
+    {
+        startBranch();
+        joinBranches(current);
+
+        for (SubCParser.StatementContext stmtCtx : ctx.statement()) visit(stmtCtx);
+
+        jumpFromBranch(ctx.BREAK() != null ? exitBlock : nextBlock);
+        endBranch();
+    }
+
+    @Override
+    public Object visitReturnStatement(SubCParser.ReturnStatementContext ctx)
+    {
+        IrInstruction ret = new IrInstruction(RETURN, null);
+        Typespec returnType = cfg.getRoutineId().getType();
+
+        IrValue value = (ctx.expression() != null)
+                            ? (IrValue) visit(ctx.expression())
+                      : (ctx.functionCall() != null)
+                            ? emitCall(ctx.functionCall())
+                            : null;
+
+        // The main program and void functions return no value.
+        if (   (value != null) && (returnType != null)
+            && (returnType != Predefined.voidType))
+        {
+            ret.addOperand(convert(value, returnType));
+        }
+
+        current.append(ret);
+
+        // Any following statements are unreachable.
+        current = newBlock();
+
+        return null;
+    }
+
+    @Override
+    public Object visitFunctionCallStatement(
+                                SubCParser.FunctionCallStatementContext ctx)
+    {
+        emitCall(ctx.functionCall());
+        return null;
+    }
+
+    @Override
+    public Object visitPrintStatement(SubCParser.PrintStatementContext ctx)
+    {
+        IrInstruction print = new IrInstruction(PRINT, null);
+        print.setText(ctx.formatString().getText());
+
+        if (ctx.writeArguments() != null)
+        {
+            for (SubCParser.WriteArgumentContext argCtx :
+                                            ctx.writeArguments().writeArgument())
+            {
+                print.addOperand((IrValue) visit(argCtx.expression()));
+            }
+        }
+
+        current.append(print);
+        return null;
+    }
+
+    // ==================
+    // Expressions
+    // ==================
+
+    @Override
+    public Object visitExpression(SubCParser.ExpressionContext ctx)
+    {
+        SubCParser.SimpleExpressionContext simpleCtx1 =
+                                                ctx.simpleExpression().get(0);
+        IrValue value1 = (IrValue) visit(simpleCtx1);
+
+        if (ctx.relOp() == null) return value1;
+
+        SubCParser.SimpleExpressionContext simpleCtx2 =
+                                                ctx.simpleExpression().get(1);
+        IrValue value2 = (IrValue) visit(simpleCtx2);
+
+        // Compare reals if either operand is real.
+        Typespec compareType = operandType(value1.getType(), value2.getType());
+
+        IrInstruction cmp = new IrInstruction(CMP, Predefined.booleanType);
+        cmp.setRelation(Relation.of(ctx.relOp().op));
+        cmp.addOperand(convert(value1, compareType));
+        cmp.addOperand(convert(value2, compareType));
+        current.append(cmp);
+
+        return cmp;
+    }
+
+    @Override
+    public Object visitSimpleExpression(SubCParser.SimpleExpressionContext ctx)
+    {
+        if (isDisjunction(ctx)) return logicalValue(ctx);
+
+        IrValue value = (IrValue) visit(ctx.term().get(0));
+
+        if ((ctx.sign() != null) && ctx.sign().getText().equals("-"))
+        {
+            IrInstruction neg = new IrInstruction(NEG, value.getType());
+            neg.addOperand(value);
+            current.append(neg);
+            value = neg;
+        }
+
+        for (int i = 1; i < ctx.term().size(); i++)
+        {
+            Operator op = ctx.addOp().get(i - 1).op;
+            IrValue value2 = (IrValue) visit(ctx.term().get(i));
+
+            if (op == Operator.OR)
+            {
+                value = binary(OR, Predefined.booleanType, value, value2);
+            }
+            else
+            {
+                Typespec type = operandType(value.getType(), value2.getType());
+                Op irOp = TypeChecker.isString(type) ? CONCAT
+                        : op == Operator.ADD         ? ADD
+                        :                              SUB;
+
+                value = binary(irOp, type, value, value2);
+            }
+        }
+
+        return value;
+    }
+
+    @Override
+    public Object visitTerm(SubCParser.TermContext ctx)
+    {
+        if (isConjunction(ctx)) return logicalValue(ctx);
+
+        IrValue value = (IrValue) visit(ctx.factor().get(0));
+
+        for (int i = 1; i < ctx.factor().size(); i++)
+        {
+            Operator op = ctx.mulOp().get(i - 1).op;
+            IrValue value2 = (IrValue) visit(ctx.factor().get(i));
+
+            if (op == Operator.AND)
+            {
+                value = binary(AND, Predefined.booleanType, value, value2);
+            }
+            else if (op == Operator.DIV)
+            {
+                // Division always has a real result.
+                value = binary(DIV, Predefined.realType, value, value2);
+            }
+            else
+            {
+                Typespec type = operandType(value.getType(), value2.getType());
+                value = binary(op == Operator.MUL ? MUL : REM, type, value, value2);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Append a binary operation, converting the operands to its type.
+     * @param op the operation code.
+     * @param type the datatype of the operation.
+     * @param value1 the first operand.
+     * @param value2 the second operand.
+     * @return the result value.
+     */
+    private IrValue binary(Op op, Typespec type, IrValue value1, IrValue value2)
+    {
+        IrInstruction instruction = new IrInstruction(op, type);
+        instruction.addOperand(convert(value1, type));
+        instruction.addOperand(convert(value2, type));
+        current.append(instruction);
+
+        return instruction;
+    }
+
+    /**
+     * Return the datatype in which two operands are combined.
+     * @param type1 the first operand's datatype.
+     * @param type2 the second operand's datatype.
+     * @return real if either is real, else the first operand's datatype.
+     */
+    private Typespec operandType(Typespec type1, Typespec type2)
+    {
+        if (TypeChecker.isReal(type1) || TypeChecker.isReal(type2))
+        {
+            return Predefined.realType;
+        }
+        else if (TypeChecker.isChar(type1))
+        {
+            return Predefined.integerType;
+        }
+        else return type1;
+    }
+
+    /**
+     * Convert a value to a datatype, if needed.
+     * @param value the value.
+     * @param type the target datatype.
+     * @return the converted value.
+     */
+    private IrValue convert(IrValue value, Typespec type)
+    {
+        if (   TypeChecker.isReal(type)
+            && !TypeChecker.isReal(value.getType()))
+        {
+            if (value.isConstant())
+            {
+                return new IrConstant(type, ((IrConstant) value).floatValue());
+            }
+
+            IrInstruction i2f = new IrInstruction(I2F, type);
+            i2f.addOperand(value);
+            current.append(i2f);
+
+            return i2f;
+        }
+
+        return value;
+    }
+
+    @Override
+    public Object visitVariableFactor(SubCParser.VariableFactorContext ctx)
+    {
+        return readVariable(ctx.variable().entry);
+    }
+
+    @Override
+    public Object visitNumberFactor(SubCParser.NumberFactorContext ctx)
+    {
+        SubCParser.NumberContext numberCtx = ctx.number();
+
+        if (ctx.type == Predefined.integerType)
+        {
+            return new IrConstant(ctx.type, numberCtx.intValue);
+        }
+        else
+        {
+            return new IrConstant(ctx.type, numberCtx.realValue);
+        }
+    }
+
+    @Override
+    public Object visitCharacterFactor(SubCParser.CharacterFactorContext ctx)
+    {
+        return new IrConstant(Predefined.charType, ctx.getText().charAt(1));
+    }
+
+    @Override
+    public Object visitStringFactor(SubCParser.StringFactorContext ctx)
+    {
+        String text = ctx.getText();
+        String unquoted = text.substring(1, text.length() - 1);
+
+        return new IrConstant(Predefined.stringType,
+                              unquoted.replace("''", "'").replace("\"", "\\\""));
+    }
+
+    @Override
+    public Object visitFunctionCallFactor(
+                                    SubCParser.FunctionCallFactorContext ctx)
+    {
+        return emitCall(ctx.functionCall());
+    }
+
+    @Override
+    public Object visitNotFactor(SubCParser.NotFactorContext ctx)
+    {
+        IrValue value = (IrValue) visit(ctx.factor());
+
+        IrInstruction not = new IrInstruction(NOT, Predefined.booleanType);
+        not.addOperand(value);
+        current.append(not);
+
+        return not;
+    }
+
+    @Override
+    public Object visitParenthesizedFactor(
+                                    SubCParser.ParenthesizedFactorContext ctx)
+    {
+        return visit(ctx.expression());
+    }
+
+    /**
+     * Lower a function call, converting the arguments to the
+     * parameter datatypes.
+     * @param ctx the FunctionCallContext.
+     * @return the call instruction.
+     */
+    private IrValue emitCall(SubCParser.FunctionCallContext ctx)
+    {
+        SymtabEntry routineId = ctx.functionName().entry;
+        ArrayList<SymtabEntry> parmIds = routineId.getRoutineParameters();
+
+        IrInstruction call = new IrInstruction(CALL, routineId.getType());
+        call.setEntry(routineId);
+
+        if (ctx.argumentList() != null)
+        {
+            int i = 0;
+            for (SubCParser.ArgumentContext argCtx : ctx.argumentList().argument())
+            {
+                IrValue value = (IrValue) visit(argCtx.expression());
+                call.addOperand(convert(value, parmIds.get(i++).getType()));
+            }
+        }
+
+        current.append(call);
+        return call;
+    }
+}
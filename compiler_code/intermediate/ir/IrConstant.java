@@ -0,0 +1,87 @@
+package intermediate.ir;
+
+import intermediate.symtab.Predefined;
+import intermediate.type.Typespec;
+
+/**
+ * <h1>IrConstant</h1>
+ *
+ * <p>A constant value of the intermediate representation. Integer and
+ * boolean constants are Integer objects, real constants are Float objects,
+ * character constants are Character objects, and string constants hold
+ * the Jasmin-ready text of the literal without the enclosing quotes.
+ * The null string is represented by a null value.</p>
+ */
+public class IrConstant extends IrValue
+{
+    private Object value;  // the constant value
+
+    /**
+     * Constructor.
+     * @param type the datatype of the constant.
+     * @param value the constant value.
+     */
+    public IrConstant(Typespec type, Object value)
+    {
+        super(type);
+        this.value = value;
+    }
+
+    /**
+     * Get the constant value.
+     * @return the value.
+     */
+    public Object getValue() { return value; }
+
+    /**
+     * Get the constant value as an integer. Characters are converted to
+     * their character codes.
+     * @return the integer value.
+     */
+    public int intValue()
+    {
+        return value instanceof Character ? (Character) value
+                                          : ((Number) value).intValue();
+    }
+
+    /**
+     * Get the constant value as a real number.
+     * @return the real value.
+     */
+    public float floatValue()
+    {
+        return value instanceof Character ? (Character) value
+                                          : ((Number) value).floatValue();
+    }
+
+    @Override
+    public boolean isConstant() { return true; }
+
+    /**
+     * Create the default value of a datatype, the value of a variable
+     * that is read before it is assigned.
+     * @param type the datatype.
+     * @return the default constant.
+     */
+    public static IrConstant defaultValue(Typespec type)
+    {
+        type = type.baseType();
+
+        if      (type == Predefined.realType) return new IrConstant(type, 0.0f);
+        else if (type == Predefined.charType) return new IrConstant(type, '\0');
+        else if (type == Predefined.stringType) return new IrConstant(type, null);
+        else                                    return new IrConstant(type, 0);
+    }
+
+    @Override
+    public String getName()
+    {
+        if      (value == null)               return "null";
+        else if (value instanceof String)     return "\"" + value + "\"";
+        else if (value instanceof Character)  return "'" + value + "'";
+        else                                  return value.toString();
+    }
+
+    @Override
+    public String toString() { return getName(); }
+}
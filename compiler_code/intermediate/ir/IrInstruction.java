@@ -0,0 +1,367 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+
+import intermediate.symtab.Predefined;
+import intermediate.symtab.SymtabEntry;
+import intermediate.type.TypeChecker;
+import intermediate.type.Typespec;
+import intermediate.util.Operator;
+
+/**
+ * <h1>IrInstruction</h1>
+ *
+ * <p>An instruction of the intermediate representation. An instruction
+ * that produces a value is itself that value.</p>
+ */
+public class IrInstruction extends IrValue
+{
+    /**
+     * Instruction operation codes.
+     */
+    public enum Op
+    {
+        // Arithmetic and logical: the datatype selects the integer, real,
+        // or string form of the operation.
+        ADD, SUB, MUL, DIV, REM, NEG, AND, OR, NOT, CONCAT, I2F,
+
+        // Comparison with a relation. Produces a boolean.
+        CMP,
+
+        // Hash code of a string, to dispatch a switch on strings.
+        HASH,
+
+        // Incoming formal parameter value.
+        PARAM,
+
+        // Calls and output.
+        CALL, PRINT,
+
+        // SSA merge of the values reaching a block from its predecessors.
+        PHI,
+
+        // Block terminators.
+        JUMP, BRANCH, SWITCH, RETURN;
+
+        public String toString() { return super.toString().toLowerCase(); }
+    }
+
+    /**
+     * Comparison relations.
+     */
+    public enum Relation
+    {
+        EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        private String text;
+
+        /**
+         * Constructor.
+         * @param text the source text of the relational operator.
+         */
+        Relation(String text) { this.text = text; }
+
+        /**
+         * Get the relation of a relational operator.
+         * @param text the source text of the operator.
+         * @return the relation.
+         */
+        public static Relation of(String text)
+        {
+            for (Relation relation : values())
+            {
+                if (relation.text.equals(text)) return relation;
+            }
+
+            return null;
+        }
+
+        /**
+         * Get the relation of a relational operator.
+         * @param op the operator.
+         * @return the relation, or null if the operator isn't relational.
+         */
+        public static Relation of(Operator op)
+        {
+            switch (op)
+            {
+                case EQ: return EQ;
+                case NE: return NE;
+                case LT: return LT;
+                case LE: return LE;
+                case GT: return GT;
+                case GE: return GE;
+                default: return null;
+            }
+        }
+
+        /**
+         * Get the relation that is true exactly when this one is false.
+         * @return the negated relation.
+         */
+        public Relation negate()
+        {
+            switch (this)
+            {
+                case EQ: return NE;
+                case NE: return EQ;
+                case LT: return GE;
+                case LE: return GT;
+                case GT: return LE;
+                default: return LT;
+            }
+        }
+
+        public String toString() { return text; }
+    }
+
+    private int id;                           // unique id within the graph
+    private Op op;                            // operation code
+    private BasicBlock block;                 // containing basic block
+    private ArrayList<IrValue> operands;      // operand values
+    private ArrayList<BasicBlock> targets;    // branch targets
+    private ArrayList<Integer> caseValues;    // SWITCH values of the targets
+    private Relation relation;                // CMP relation
+    private SymtabEntry entry;                // PARAM, CALL, or PHI variable
+    private String text;                      // PRINT format string
+
+    /**
+     * Constructor.
+     * @param op the operation code.
+     * @param type the datatype of the result, or null if none.
+     */
+    public IrInstruction(Op op, Typespec type)
+    {
+        super(type);
+
+        this.op         = op;
+        this.operands   = new ArrayList<IrValue>();
+        this.targets    = new ArrayList<BasicBlock>();
+        this.caseValues = new ArrayList<Integer>();
+    }
+
+    /**
+     * Get the unique id within the control-flow graph.
+     * @return the id.
+     */
+    public int getId() { return id; }
+
+    /**
+     * Set the unique id within the control-flow graph.
+     * @param id the id to set.
+     */
+    void setId(int id) { this.id = id; }
+
+    /**
+     * Get the operation code.
+     * @return the code.
+     */
+    public Op getOp() { return op; }
+
+    /**
+     * Get the containing basic block.
+     * @return the block.
+     */
+    public BasicBlock getBlock() { return block; }
+
+    /**
+     * Set the containing basic block.
+     * @param block the block to set.
+     */
+    void setBlock(BasicBlock block) { this.block = block; }
+
+    /**
+     * Get the operand values.
+     * @return the list of operands.
+     */
+    public ArrayList<IrValue> getOperands() { return operands; }
+
+    /**
+     * Get an operand value.
+     * @param index the operand index.
+     * @return the operand.
+     */
+    public IrValue getOperand(int index) { return operands.get(index); }
+
+    /**
+     * Append an operand value.
+     * @param value the operand to append.
+     */
+    public void addOperand(IrValue value)
+    {
+        operands.add(value);
+        value.addUser(this);
+    }
+
+    /**
+     * Set an operand value.
+     * @param index the operand index.
+     * @param value the new operand.
+     */
+    public void setOperand(int index, IrValue value)
+    {
+        operands.get(index).removeUser(this);
+        operands.set(index, value);
+        value.addUser(this);
+    }
+
+    /**
+     * Remove an operand value.
+     * @param index the operand index.
+     */
+    public void removeOperand(int index)
+    {
+        operands.remove(index).removeUser(this);
+    }
+
+    /**
+     * Replace every occurrence of an operand value.
+     * @param oldValue the value to replace.
+     * @param newValue the replacement value.
+     */
+    public void replaceOperand(IrValue oldValue, IrValue newValue)
+    {
+        for (int i = 0; i < operands.size(); i++)
+        {
+            if (operands.get(i) == oldValue) setOperand(i, newValue);
+        }
+    }
+
+    /**
+     * Drop all the operands, such as before the instruction is deleted.
+     */
+    public void dropOperands()
+    {
+        for (IrValue operand : operands) operand.removeUser(this);
+        operands.clear();
+    }
+
+    /**
+     * Get the branch targets. A SWITCH has its default target first.
+     * @return the list of targets.
+     */
+    public ArrayList<BasicBlock> getTargets() { return targets; }
+
+    /**
+     * Append a branch target.
+     * @param target the target block.
+     */
+    public void addTarget(BasicBlock target) { targets.add(target); }
+
+    /**
+     * Get the SWITCH case values, aligned with the targets after the default.
+     * @return the list of case values.
+     */
+    public ArrayList<Integer> getCaseValues() { return caseValues; }
+
+    /**
+     * Append a SWITCH case.
+     * @param value the case value.
+     * @param target the target block.
+     */
+    public void addCase(int value, BasicBlock target)
+    {
+        caseValues.add(value);
+        targets.add(target);
+    }
+
+    /**
+     * Get the CMP relation.
+     * @return the relation.
+     */
+    public Relation getRelation() { return relation; }
+
+    /**
+     * Set the CMP relation.
+     * @param relation the relation to set.
+     */
+    public void setRelation(Relation relation) { this.relation = relation; }
+
+    /**
+     * Get the symbol table entry of a PARAM, CALL, or PHI.
+     * @return the entry.
+     */
+    public SymtabEntry getEntry() { return entry; }
+
+    /**
+     * Set the symbol table entry of a PARAM, CALL, or PHI.
+     * @param entry the entry to set.
+     */
+    public void setEntry(SymtabEntry entry) { this.entry = entry; }
+
+    /**
+     * Get the PRINT format string.
+     * @return the format string, including its quotes.
+     */
+    public String getText() { return text; }
+
+    /**
+     * Set the PRINT format string.
+     * @param text the format string to set.
+     */
+    public void setText(String text) { this.text = text; }
+
+    /**
+     * Return whether or not the instruction ends a basic block.
+     * @return true if a terminator, else false.
+     */
+    public boolean isTerminator()
+    {
+        return    (op == Op.JUMP)   || (op == Op.BRANCH)
+               || (op == Op.SWITCH) || (op == Op.RETURN);
+    }
+
+    /**
+     * Return whether or not the instruction produces a value.
+     * @return true if it does, else false.
+     */
+    public boolean producesValue()
+    {
+        return    (type != null) && (type != Predefined.voidType)
+               && (op != Op.PRINT) && !isTerminator();
+    }
+
+    /**
+     * Return whether or not the instruction must be kept even if its
+     * value is never used. Integer division can throw an exception.
+     * @return true if it has side effects, else false.
+     */
+    public boolean hasSideEffects()
+    {
+        return    (op == Op.CALL) || (op == Op.PRINT) || isTerminator()
+               || (   ((op == Op.DIV) || (op == Op.REM))
+                   && TypeChecker.isInteger(type));
+    }
+
+    @Override
+    public String getName() { return "%" + id; }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buffer = new StringBuilder();
+
+        if (producesValue()) buffer.append(getName()).append(" = ");
+        buffer.append(op);
+        if (relation != null) buffer.append(" ").append(relation);
+        if (entry != null)    buffer.append(" ").append(entry.getName());
+        if (text != null)     buffer.append(" ").append(text);
+
+        for (int i = 0; i < operands.size(); i++)
+        {
+            buffer.append(i == 0 ? " " : ", ").append(operands.get(i).getName());
+        }
+
+        for (int i = 0; i < targets.size(); i++)
+        {
+            buffer.append(i == 0 ? " -> " : ", ");
+            if ((op == Op.SWITCH) && (i > 0))
+            {
+                buffer.append(caseValues.get(i - 1)).append(": ");
+            }
+            buffer.append(targets.get(i).getName());
+        }
+
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,477 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import intermediate.symtab.Predefined;
+import intermediate.symtab.SymtabEntry;
+import intermediate.type.TypeChecker;
+import intermediate.type.Typespec;
+import intermediate.util.JasminStrings;
+
+/**
+ * <h1>IrInterpreter</h1>
+ *
+ * <p>Evaluate pure functions and instructions at compile time by
+ * interpreting their SSA forms. An evaluation gives up, and the code
+ * stays as it is, if it runs more instructions than the step budget,
+ * nests calls deeper than the recursion budget, or would fail at runtime,
+ * such as an integer division by zero.</p>
+ *
+ * <p>During the evaluation, integer, character, and boolean values are
+ * Integer objects, real values are Float objects, and string values are
+ * the runtime strings rather than the Jasmin-ready text of the constants.</p>
+ */
+public class IrInterpreter
+{
+    public static final int DEFAULT_STEP_BUDGET  = 1000000;
+    public static final int DEFAULT_DEPTH_BUDGET = 200;
+
+    private Map<SymtabEntry, ControlFlowGraph> graphs;  // function SSA forms
+    private PurityAnalysis purity;                      // which are pure
+    private int stepBudget;   // max instructions per evaluation
+    private int depthBudget;  // max call nesting per evaluation
+    private int steps;        // instructions run by the current evaluation
+
+    /**
+     * Thrown to give up an evaluation.
+     */
+    private static class GiveUp extends Exception
+    {
+        private static final long serialVersionUID = 0L;
+    }
+
+    /**
+     * Constructor.
+     * @param graphs the control-flow graphs of the functions.
+     * @param purity the purity analysis of the functions.
+     * @param stepBudget the maximum number of instructions per evaluation.
+     * @param depthBudget the maximum call nesting per evaluation.
+     */
+    public IrInterpreter(Map<SymtabEntry, ControlFlowGraph> graphs,
+                         PurityAnalysis purity, int stepBudget, int depthBudget)
+    {
+        this.graphs      = graphs;
+        this.purity      = purity;
+        this.stepBudget  = stepBudget;
+        this.depthBudget = depthBudget;
+    }
+
+    /**
+     * Create an interpreter with the same functions and budgets.
+     * An interpreter isn't thread-safe, but its copies can run
+     * concurrently since evaluation doesn't change the SSA forms.
+     * @return the new interpreter.
+     */
+    public IrInterpreter copy()
+    {
+        return new IrInterpreter(graphs, purity, stepBudget, depthBudget);
+    }
+
+    /**
+     * Evaluate a call of a function with constant arguments.
+     * @param routineId the symbol table entry of the function.
+     * @param args the argument constants, already converted
+     *             to the parameter types.
+     * @return the constant result, a constant of the void type if the
+     * function doesn't return a value, or null if the call can't be
+     * evaluated.
+     */
+    public IrConstant evaluateCall(SymtabEntry routineId, List<IrConstant> args)
+    {
+        steps = 0;
+
+        try
+        {
+            ArrayList<Object> values = new ArrayList<Object>();
+            for (IrConstant arg : args) values.add(internalValue(arg));
+
+            Object result = call(routineId, values, 0);
+            return constant(routineId.getType(), result);
+        }
+        catch (GiveUp ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate an instruction whose operands are all constants.
+     * @param instruction the instruction.
+     * @return the constant result, a constant of the void type for a call
+     * that doesn't return a value, or null if it can't be evaluated.
+     */
+    public IrConstant evaluate(IrInstruction instruction)
+    {
+        steps = 0;
+
+        try
+        {
+            Object result = compute(instruction,
+                                    new HashMap<IrValue, Object>(), 0);
+            return constant(instruction.getType(), result);
+        }
+        catch (GiveUp ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Call a pure function.
+     * @param routineId the symbol table entry of the function.
+     * @param args the argument values.
+     * @param depth the current call nesting.
+     * @return the return value, or null if none.
+     * @throws GiveUp if the call can't be evaluated.
+     */
+    private Object call(SymtabEntry routineId, List<Object> args, int depth)
+        throws GiveUp
+    {
+        ControlFlowGraph cfg = graphs.get(routineId);
+
+        if (   (cfg == null) || !purity.isPure(routineId)
+            || (depth >= depthBudget))
+        {
+            throw new GiveUp();
+        }
+
+        ArrayList<SymtabEntry> parmIds = routineId.getRoutineParameters();
+        HashMap<IrValue, Object> values = new HashMap<IrValue, Object>();
+        BasicBlock block = cfg.getEntry();
+        BasicBlock pred  = null;
+
+        while (true)
+        {
+            // Enter the block: all its PHIs take their incoming values at once.
+            if (pred != null)
+            {
+                int index = block.getPredecessors().indexOf(pred);
+                ArrayList<IrInstruction> phis = block.getPhis();
+                ArrayList<Object> incoming = new ArrayList<Object>();
+
+                for (IrInstruction phi : phis)
+                {
+                    incoming.add(valueOf(phi.getOperand(index), values));
+                }
+                for (int i = 0; i < phis.size(); i++)
+                {
+                    values.put(phis.get(i), incoming.get(i));
+                }
+            }
+
+            BasicBlock next = null;
+
+            for (IrInstruction instruction : block.getInstructions())
+            {
+                if (++steps > stepBudget) throw new GiveUp();
+
+                switch (instruction.getOp())
+                {
+                    case PHI: break;
+
+                    case PARAM:
+                    {
+                        int index = parmIds.indexOf(instruction.getEntry());
+                        values.put(instruction, args.get(index));
+                        break;
+                    }
+
+                    case JUMP:
+                    {
+                        next = instruction.getTargets().get(0);
+                        break;
+                    }
+
+                    case BRANCH:
+                    {
+                        boolean condition =
+                            intValue(valueOf(instruction.getOperand(0), values)) != 0;
+                        next = instruction.getTargets().get(condition ? 0 : 1);
+                        break;
+                    }
+
+                    case SWITCH:
+                    {
+                        int value = intValue(valueOf(instruction.getOperand(0),
+                                                     values));
+                        int index = instruction.getCaseValues().indexOf(value);
+                        next = instruction.getTargets().get(index + 1);
+                        break;
+                    }
+
+                    case RETURN:
+                    {
+                        if (instruction.getOperands().isEmpty()) return null;
+
+                        Object value = valueOf(instruction.getOperand(0), values);
+                        return TypeChecker.isChar(routineId.getType())
+                                    ? intValue(value) & 0xFFFF : value;
+                    }
+
+                    default:
+                    {
+                        values.put(instruction,
+                                   compute(instruction, values, depth));
+                        break;
+                    }
+                }
+            }
+
+            if (next == null) throw new GiveUp();  // no terminator
+
+            pred  = block;
+            block = next;
+        }
+    }
+
+    /**
+     * Compute the value of an instruction that is not a terminator.
+     * @param instruction the instruction.
+     * @param values the values computed so far.
+     * @param depth the current call nesting.
+     * @return the value.
+     * @throws GiveUp if the instruction can't be evaluated.
+     */
+    private Object compute(IrInstruction instruction,
+                           HashMap<IrValue, Object> values, int depth)
+        throws GiveUp
+    {
+        ArrayList<Object> operands = new ArrayList<Object>();
+        for (IrValue operand : instruction.getOperands())
+        {
+            operands.add(valueOf(operand, values));
+        }
+
+        boolean real = TypeChecker.isReal(instruction.getType());
+
+        switch (instruction.getOp())
+        {
+            case ADD: case SUB: case MUL: case DIV: case REM:
+            {
+                if (real)
+                {
+                    float a = floatValue(operands.get(0));
+                    float b = floatValue(operands.get(1));
+
+                    switch (instruction.getOp())
+                    {
+                        case ADD: return a + b;
+                        case SUB: return a - b;
+                        case MUL: return a * b;
+                        case DIV: return a / b;
+                        default:  return a % b;
+                    }
+                }
+                else
+                {
+                    int a = intValue(operands.get(0));
+                    int b = intValue(operands.get(1));
+
+                    switch (instruction.getOp())
+                    {
+                        case ADD: return a + b;
+                        case SUB: return a - b;
+                        case MUL: return a * b;
+                        default:
+                        {
+                            if (b == 0) throw new GiveUp();
+                            return instruction.getOp() == IrInstruction.Op.DIV
+                                        ? a / b : a % b;
+                        }
+                    }
+                }
+            }
+
+            case NEG:
+            {
+                return real ? (Object) (-floatValue(operands.get(0)))
+                            : (Object) (-intValue(operands.get(0)));
+            }
+
+            case AND: return intValue(operands.get(0)) & intValue(operands.get(1));
+            case OR:  return intValue(operands.get(0)) | intValue(operands.get(1));
+            case NOT: return intValue(operands.get(0)) ^ 1;
+            case I2F: return (float) intValue(operands.get(0));
+
+            case CONCAT:
+            {
+                return String.valueOf(operands.get(0))
+                     + String.valueOf(operands.get(1));
+            }
+
+            case CMP:
+            {
+                int result = compare(instruction.getOperand(0).getType(),
+                                     operands.get(0), operands.get(1));
+                return test(instruction.getRelation(), result) ? 1 : 0;
+            }
+
+            case HASH:
+            {
+                if (operands.get(0) == null) throw new GiveUp();
+                return operands.get(0).hashCode();
+            }
+
+            case CALL:
+            {
+                return call(instruction.getEntry(), operands, depth + 1);
+            }
+
+            default: throw new GiveUp();  // PRINT, PARAM, PHI
+        }
+    }
+
+    /**
+     * Compare two values the way the generated code does.
+     * @param type the type of the values.
+     * @param value1 the first value.
+     * @param value2 the second value.
+     * @return negative, zero, or positive.
+     * @throws GiveUp if a string is null.
+     */
+    private int compare(Typespec type, Object value1, Object value2)
+        throws GiveUp
+    {
+        if (TypeChecker.isReal(type))
+        {
+            float a = floatValue(value1);
+            float b = floatValue(value2);
+
+            // Like FCMPG, NaN compares greater.
+            return a < b ? -1 : a == b ? 0 : 1;
+        }
+        else if (TypeChecker.isString(type))
+        {
+            if ((value1 == null) || (value2 == null)) throw new GiveUp();
+            return ((String) value1).compareTo((String) value2);
+        }
+        else
+        {
+            return Integer.compare(intValue(value1), intValue(value2));
+        }
+    }
+
+    /**
+     * Test a relation on the result of a comparison.
+     * @param relation the relation.
+     * @param result the comparison result.
+     * @return true if the relation holds, else false.
+     */
+    private boolean test(IrInstruction.Relation relation, int result)
+    {
+        switch (relation)
+        {
+            case EQ: return result == 0;
+            case NE: return result != 0;
+            case LT: return result <  0;
+            case LE: return result <= 0;
+            case GT: return result >  0;
+            default: return result >= 0;
+        }
+    }
+
+    /**
+     * Get the current value of an operand.
+     * @param operand the operand.
+     * @param values the values computed so far.
+     * @return the value.
+     * @throws GiveUp if the operand has no value.
+     */
+    private Object valueOf(IrValue operand, HashMap<IrValue, Object> values)
+        throws GiveUp
+    {
+        if (operand.isConstant()) return internalValue((IrConstant) operand);
+        if (!values.containsKey(operand)) throw new GiveUp();
+
+        return values.get(operand);
+    }
+
+    private int intValue(Object value) { return ((Number) value).intValue(); }
+
+    private float floatValue(Object value)
+    {
+        return ((Number) value).floatValue();
+    }
+
+    /**
+     * Convert a constant to its value during evaluation.
+     * @param constant the constant.
+     * @return the value.
+     * @throws GiveUp if a string constant has an unknown escape sequence.
+     */
+    private Object internalValue(IrConstant constant) throws GiveUp
+    {
+        Object value = constant.getValue();
+
+        if      (value instanceof Character) return (int) (Character) value;
+        else if (value instanceof String)    return unescape((String) value);
+        else                                 return value;
+    }
+
+    /**
+     * Convert a value back to a constant.
+     * @param type the type of the constant.
+     * @param value the value.
+     * @return the constant.
+     * @throws GiveUp if a string or a real value that isn't finite
+     *                 can't be written as Jasmin text.
+     */
+    private IrConstant constant(Typespec type, Object value) throws GiveUp
+    {
+        if ((type == null) || (type == Predefined.voidType))
+        {
+            return new IrConstant(Predefined.voidType, null);
+        }
+        else if (TypeChecker.isReal(type))
+        {
+            float real = floatValue(value);
+            if (Float.isNaN(real) || Float.isInfinite(real)) throw new GiveUp();
+
+            return new IrConstant(type, real);
+        }
+        else if (TypeChecker.isChar(type))
+        {
+            return new IrConstant(type, (char) intValue(value));
+        }
+        else if (TypeChecker.isString(type))
+        {
+            return new IrConstant(type, value != null ? escape((String) value)
+                                                      : null);
+        }
+        else
+        {
+            return new IrConstant(type, intValue(value));
+        }
+    }
+
+    /**
+     * Convert the Jasmin-ready text of a string constant to the runtime string.
+     * @param text the text.
+     * @return the string.
+     * @throws GiveUp if there is an unknown escape sequence.
+     */
+    private String unescape(String text) throws GiveUp
+    {
+        String string = JasminStrings.unescape(text);
+        if (string == null) throw new GiveUp();
+
+        return string;
+    }
+
+    /**
+     * Convert a runtime string to the Jasmin-ready text of a string constant.
+     * @param string the string.
+     * @return the text.
+     * @throws GiveUp if there is a character without an escape sequence.
+     */
+    private String escape(String string) throws GiveUp
+    {
+        String text = JasminStrings.escape(string);
+        if (text == null) throw new GiveUp();
+
+        return text;
+    }
+}
@@ -0,0 +1,85 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+
+import intermediate.type.Typespec;
+
+/**
+ * <h1>IrValue</h1>
+ *
+ * <p>A value of the mid-level intermediate representation. Every value
+ * is defined exactly once (SSA form) and keeps track of the instructions
+ * that use it.</p>
+ */
+public abstract class IrValue
+{
+    protected Typespec type;                  // datatype of the value
+    private ArrayList<IrInstruction> users;   // instructions that use the value
+
+    /**
+     * Constructor.
+     * @param type the datatype of the value.
+     */
+    protected IrValue(Typespec type)
+    {
+        this.type  = type;
+        this.users = new ArrayList<IrInstruction>();
+    }
+
+    /**
+     * Get the datatype of the value.
+     * @return the datatype.
+     */
+    public Typespec getType() { return type; }
+
+    /**
+     * Get the instructions that use this value. An instruction appears
+     * once for each of its operands that is this value.
+     * @return the list of users.
+     */
+    public ArrayList<IrInstruction> getUsers() { return users; }
+
+    /**
+     * Get the number of uses of this value.
+     * @return the count.
+     */
+    public int useCount() { return users.size(); }
+
+    /**
+     * Record a use of this value.
+     * @param user the instruction that uses it.
+     */
+    void addUser(IrInstruction user) { users.add(user); }
+
+    /**
+     * Forget one use of this value.
+     * @param user the instruction that no longer uses it.
+     */
+    void removeUser(IrInstruction user) { users.remove(user); }
+
+    /**
+     * Make every user of this value use another value instead.
+     * @param value the replacement value.
+     */
+    public void replaceAllUsesWith(IrValue value)
+    {
+        if (value == this) return;
+
+        for (IrInstruction user : new ArrayList<IrInstruction>(users))
+        {
+            user.replaceOperand(this, value);
+        }
+    }
+
+    /**
+     * Return whether or not this value is a constant.
+     * @return true if constant, else false.
+     */
+    public boolean isConstant() { return false; }
+
+    /**
+     * Return the name by which this value is referenced in listings.
+     * @return the name.
+     */
+    public abstract String getName();
+}
@@ -0,0 +1,174 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+/**
+ * <h1>LoopNest</h1>
+ *
+ * <p>The natural loops of a control-flow graph and how they nest.
+ * An edge from block B to block H is a back edge if H dominates B.
+ * The natural loop of H consists of H and every block that can reach
+ * a back edge into H without passing through H.</p>
+ */
+public class LoopNest
+{
+    /**
+     * A natural loop.
+     */
+    public static class Loop
+    {
+        private BasicBlock header;          // the loop header
+        private HashSet<BasicBlock> blocks; // all the blocks of the loop
+        private Loop parent;                // enclosing loop, or null
+        private ArrayList<Loop> children;   // immediately nested loops
+        private int depth;                  // 1 for an outermost loop
+
+        /**
+         * Constructor.
+         * @param header the loop header.
+         */
+        Loop(BasicBlock header)
+        {
+            this.header   = header;
+            this.blocks   = new HashSet<BasicBlock>();
+            this.children = new ArrayList<Loop>();
+            this.blocks.add(header);
+        }
+
+        public BasicBlock getHeader()         { return header; }
+        public HashSet<BasicBlock> getBlocks() { return blocks; }
+        public Loop getParent()               { return parent; }
+        public ArrayList<Loop> getChildren()  { return children; }
+        public int getDepth()                 { return depth; }
+
+        /**
+         * Return whether or not a block is in this loop or a nested loop.
+         * @param block the block.
+         * @return true if it is, else false.
+         */
+        public boolean contains(BasicBlock block) { return blocks.contains(block); }
+    }
+
+    private ArrayList<Loop> loops;                   // all loops, outermost first
+    private HashMap<BasicBlock, Loop> innermostLoops; // innermost loop of each block
+
+    /**
+     * Constructor.
+     * @param cfg the control-flow graph.
+     * @param dominators the dominator tree of the graph.
+     */
+    public LoopNest(ControlFlowGraph cfg, DominatorTree dominators)
+    {
+        LinkedHashMap<BasicBlock, Loop> headerLoops =
+                                        new LinkedHashMap<BasicBlock, Loop>();
+
+        // Find the back edges and collect the natural loop of each header.
+        for (BasicBlock block : dominators.getOrder())
+        {
+            for (BasicBlock successor : block.getSuccessors())
+            {
+                if (dominators.dominates(successor, block))
+                {
+                    Loop loop = headerLoops.get(successor);
+                    if (loop == null)
+                    {
+                        loop = new Loop(successor);
+                        headerLoops.put(successor, loop);
+                    }
+
+                    collectLoopBlocks(loop, block);
+                }
+            }
+        }
+
+        // Nest the loops: the parent of a loop is the smallest other loop
+        // that contains its header.
+        loops = new ArrayList<Loop>(headerLoops.values());
+        Collections.sort(loops, new Comparator<Loop>()
+        {
+            public int compare(Loop loop1, Loop loop2)
+            {
+                return loop2.blocks.size() - loop1.blocks.size();
+            }
+        });
+
+        innermostLoops = new HashMap<BasicBlock, Loop>();
+
+        for (Loop loop : loops)
+        {
+            for (Loop outer : loops)
+            {
+                if (   (outer != loop) && outer.contains(loop.header)
+                    && (outer.blocks.size() >= loop.blocks.size())
+                    && (   (loop.parent == null)
+                        || (outer.blocks.size() < loop.parent.blocks.size())))
+                {
+                    loop.parent = outer;
+                }
+            }
+        }
+
+        // Outermost loops come first, so each parent's depth is known.
+        for (Loop loop : loops)
+        {
+            loop.depth = (loop.parent == null) ? 1 : loop.parent.depth + 1;
+            if (loop.parent != null) loop.parent.children.add(loop);
+
+            for (BasicBlock block : loop.blocks) innermostLoops.put(block, loop);
+        }
+    }
+
+    /**
+     * Add the blocks that reach a back edge source to a loop.
+     * @param loop the loop.
+     * @param source the source block of the back edge.
+     */
+    private void collectLoopBlocks(Loop loop, BasicBlock source)
+    {
+        ArrayList<BasicBlock> worklist = new ArrayList<BasicBlock>();
+
+        if (loop.blocks.add(source)) worklist.add(source);
+
+        while (!worklist.isEmpty())
+        {
+            BasicBlock block = worklist.remove(worklist.size() - 1);
+
+            for (BasicBlock pred : block.getPredecessors())
+            {
+                if (loop.blocks.add(pred)) worklist.add(pred);
+            }
+        }
+    }
+
+    /**
+     * Get all the loops, outermost loops before the loops they contain.
+     * @return the list of loops.
+     */
+    public ArrayList<Loop> getLoops() { return loops; }
+
+    /**
+     * Get the innermost loop that contains a block.
+     * @param block the block.
+     * @return the loop, or null if the block is not in any loop.
+     */
+    public Loop getInnermostLoop(BasicBlock block)
+    {
+        return innermostLoops.get(block);
+    }
+
+    /**
+     * Get the loop nesting depth of a block.
+     * @param block the block.
+     * @return the depth, 0 if not in any loop.
+     */
+    public int getLoopDepth(BasicBlock block)
+    {
+        Loop loop = innermostLoops.get(block);
+        return loop != null ? loop.depth : 0;
+    }
+}
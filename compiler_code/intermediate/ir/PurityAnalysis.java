@@ -0,0 +1,201 @@
+package intermediate.ir;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+import intermediate.symtab.SymtabEntry;
+
+import static intermediate.ir.IrInstruction.Op.*;
+
+/**
+ * <h1>PurityAnalysis</h1>
+ *
+ * <p>Whole-program purity analysis over the SSA forms of the functions.
+ * A function is pure if it doesn't print and calls only pure functions.
+ * A function can't reach the program variables, so its assignments are
+ * always to its own locals. A call to a routine without an SSA form,
+ * such as a builtin, is assumed to be impure.</p>
+ *
+ * <p>Also find the recursive functions, the ones that can call themselves
+ * directly or through other functions. A recursive function branches
+ * if an activation can make more than one recursive call: it has two
+ * or more recursive call sites, or one inside a loop.</p>
+ */
+public class PurityAnalysis
+{
+    private HashMap<SymtabEntry, LinkedHashSet<SymtabEntry>> callees;
+    private HashSet<SymtabEntry> pure;
+    private HashSet<SymtabEntry> recursive;
+    private HashSet<SymtabEntry> branching;
+
+    /**
+     * Constructor.
+     * @param graphs the control-flow graphs of all the functions.
+     */
+    public PurityAnalysis(Collection<ControlFlowGraph> graphs)
+    {
+        this.callees   = new HashMap<SymtabEntry, LinkedHashSet<SymtabEntry>>();
+        this.pure      = new HashSet<SymtabEntry>();
+        this.recursive = new HashSet<SymtabEntry>();
+        this.branching = new HashSet<SymtabEntry>();
+
+        // Optimistically start with every function that doesn't print.
+        for (ControlFlowGraph cfg : graphs)
+        {
+            SymtabEntry routineId = cfg.getRoutineId();
+            LinkedHashSet<SymtabEntry> called = new LinkedHashSet<SymtabEntry>();
+            boolean prints = false;
+
+            for (BasicBlock block : cfg.getBlocks())
+            {
+                for (IrInstruction instruction : block.getInstructions())
+                {
+                    if      (instruction.getOp() == PRINT) prints = true;
+                    else if (instruction.getOp() == CALL)
+                    {
+                        called.add(instruction.getEntry());
+                    }
+                }
+            }
+
+            callees.put(routineId, called);
+            if (!prints) pure.add(routineId);
+        }
+
+        // Then remove the functions that call impure routines
+        // until nothing changes.
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+
+            for (SymtabEntry routineId : new ArrayList<SymtabEntry>(pure))
+            {
+                for (SymtabEntry calleeId : callees.get(routineId))
+                {
+                    if (!pure.contains(calleeId))
+                    {
+                        pure.remove(routineId);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        for (SymtabEntry routineId : callees.keySet())
+        {
+            if (reaches(routineId, routineId)) recursive.add(routineId);
+        }
+
+        for (ControlFlowGraph cfg : graphs)
+        {
+            if (recursive.contains(cfg.getRoutineId()) && branches(cfg))
+            {
+                branching.add(cfg.getRoutineId());
+            }
+        }
+    }
+
+    /**
+     * Return whether or not an activation of a recursive function
+     * can make more than one recursive call.
+     * @param cfg the function's control-flow graph.
+     * @return true if it can, else false.
+     */
+    private boolean branches(ControlFlowGraph cfg)
+    {
+        SymtabEntry routineId = cfg.getRoutineId();
+        LoopNest loops = null;
+        int count = 0;
+
+        for (BasicBlock block : cfg.getBlocks())
+        {
+            for (IrInstruction instruction : block.getInstructions())
+            {
+                if (instruction.getOp() != CALL) continue;
+
+                SymtabEntry calleeId = instruction.getEntry();
+                if ((calleeId != routineId) && !reaches(calleeId, routineId))
+                {
+                    continue;
+                }
+
+                if (loops == null) loops = new LoopNest(cfg, new DominatorTree(cfg));
+                if ((++count > 1) || (loops.getLoopDepth(block) > 0)) return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return whether or not one routine can call another,
+     * directly or through other routines.
+     * @param fromId the calling routine.
+     * @param toId the called routine.
+     * @return true if it can, else false.
+     */
+    private boolean reaches(SymtabEntry fromId, SymtabEntry toId)
+    {
+        HashSet<SymtabEntry> visited = new HashSet<SymtabEntry>();
+        ArrayList<SymtabEntry> worklist = new ArrayList<SymtabEntry>();
+        worklist.add(fromId);
+
+        while (!worklist.isEmpty())
+        {
+            SymtabEntry routineId = worklist.remove(worklist.size() - 1);
+            LinkedHashSet<SymtabEntry> called = callees.get(routineId);
+            if (called == null) continue;
+
+            for (SymtabEntry calleeId : called)
+            {
+                if (calleeId == toId) return true;
+                if (visited.add(calleeId)) worklist.add(calleeId);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return whether or not a function is pure.
+     * @param routineId the function's symbol table entry.
+     * @return true if pure, else false.
+     */
+    public boolean isPure(SymtabEntry routineId) { return pure.contains(routineId); }
+
+    /**
+     * Return whether or not a function can call itself.
+     * @param routineId the function's symbol table entry.
+     * @return true if recursive, else false.
+     */
+    public boolean isRecursive(SymtabEntry routineId)
+    {
+        return recursive.contains(routineId);
+    }
+
+    /**
+     * Return whether or not an activation of a recursive function
+     * can make more than one recursive call.
+     * @param routineId the function's symbol table entry.
+     * @return true if it can, else false.
+     */
+    public boolean isBranchingRecursive(SymtabEntry routineId)
+    {
+        return branching.contains(routineId);
+    }
+
+    /**
+     * Get the routines that a function calls directly.
+     * @param routineId the function's symbol table entry.
+     * @return the set of called routines, or null if not a function.
+     */
+    public LinkedHashSet<SymtabEntry> getCallees(SymtabEntry routineId)
+    {
+        return callees.get(routineId);
+    }
+}
@@ -16,6 +16,10 @@ import static intermediate.type.Typespec.Form.*;
  * <p>Enter the predefined Pascal types, identifiers, and constants
  * into the symbol table.</p>
  *
+ * <p>The predefined types and identifiers are created once and shared
+ * by all compilations, which only read them, so that compilations can
+ * run concurrently.</p>
+ *
  * <p>Copyright (c) 2009 by Ronald Mak</p>
  * <p>For instructional purposes only.  No warranties.</p>
  */
@@ -38,6 +42,19 @@ public class Predefined
     public static SymtabEntry stringId;
     public static SymtabEntry voidId;
     public static SymtabEntry printId;
+    public static SymtabEntry readIntId;
+    public static SymtabEntry readDoubleId;
+    public static SymtabEntry readCharId;
+    public static SymtabEntry readLineId;
+
+    // The symbol table of the predefined identifiers.
+    private static final Symtab predefinedSymtab = new Symtab(0);
+
+    static
+    {
+        initializeTypes(predefinedSymtab);
+        initializeStandardRoutines(predefinedSymtab);
+    }
 
     /**
      * Initialize a symbol table stack with predefined identifiers.
@@ -45,49 +62,48 @@ public class Predefined
      */
     public static void initialize(SymtabStack symTabStack)
     {
-        initializeTypes(symTabStack);
-        initializeStandardRoutines(symTabStack);
+        symTabStack.getLocalSymtab().enterAll(predefinedSymtab);
     }
 
     /**
      * Initialize the predefined types.
-     * @param symTabStack the symbol table stack to initialize.
+     * @param symtab the symbol table to initialize.
      */
-    private static void initializeTypes(SymtabStack symTabStack)
+    private static void initializeTypes(Symtab symtab)
     {
         // Type integer.
-        integerId = symTabStack.enterLocal("int", TYPE);
+        integerId = symtab.enter("int", TYPE);
         integerType = new Typespec(SCALAR);
         integerType.setIdentifier(integerId);
         integerId.setType(integerType);
 
         // Type real.
-        realId = symTabStack.enterLocal("real", TYPE);
+        realId = symtab.enter("real", TYPE);
         realType = new Typespec(SCALAR);
         realType.setIdentifier(realId);
         realId.setType(realType);
 
         // Type char.
-        charId = symTabStack.enterLocal("char", TYPE);
+        charId = symtab.enter("char", TYPE);
         charType = new Typespec(SCALAR);
         charType.setIdentifier(charId);
         charId.setType(charType);
 
         // Type string.
-        stringId = symTabStack.enterLocal("string", TYPE);
+        stringId = symtab.enter("string", TYPE);
         stringType = new Typespec(SCALAR);
         stringType.setIdentifier(stringId);
         stringId.setType(stringType);
         
         
         // Type string.
-        booleanId = symTabStack.enterLocal("bool", TYPE);
+        booleanId = symtab.enter("bool", TYPE);
         booleanType = new Typespec(SCALAR);
         booleanType.setIdentifier(booleanId);
         booleanId.setType(booleanType);
 
         // Type void.
-        voidId = symTabStack.enterLocal("void", TYPE);
+        voidId = symtab.enter("void", TYPE);
         voidType = new Typespec(VOID);
         voidType.setIdentifier(voidId);
         voidId.setType(voidType);
@@ -98,25 +114,40 @@ public class Predefined
 
     /**
      * Initialize the standard procedures and functions.
-     * @param symTabStack the symbol table stack to initialize.
+     * @param symtab the symbol table to initialize.
      */
-    private static void initializeStandardRoutines(SymtabStack symTabStack)
+    private static void initializeStandardRoutines(Symtab symtab)
     {
-        printId   = enterStandard(symTabStack, FUNCTION, "print",   PRINT);
+        printId   = enterStandard(symtab, FUNCTION, "print",   PRINT);
+
+        // Buffered input. The names are lowercase like all identifiers.
+        readIntId    = enterStandard(symtab, FUNCTION, "readint",
+                                     READ_INT);
+        readDoubleId = enterStandard(symtab, FUNCTION, "readdouble",
+                                     READ_DOUBLE);
+        readCharId   = enterStandard(symtab, FUNCTION, "readchar",
+                                     READ_CHAR);
+        readLineId   = enterStandard(symtab, FUNCTION, "readline",
+                                     READ_LINE);
+
+        readIntId.setType(integerType);
+        readDoubleId.setType(realType);
+        readCharId.setType(charType);
+        readLineId.setType(stringType);
     }
 
     /**
-     * Enter a standard procedure or function into the symbol table stack.
-     * @param symTabStack the symbol table stack to initialize.
+     * Enter a standard procedure or function into the symbol table.
+     * @param symtab the symbol table to initialize.
      * @param kind either PROCEDURE or FUNCTION.
      * @param name the procedure or function name.
      * @param routineCode the routine code.
      */
-    private static SymtabEntry enterStandard(SymtabStack symTabStack,
+    private static SymtabEntry enterStandard(Symtab symtab,
                                              Kind kind, String name,
                                              Routine routineCode)
     {
-        SymtabEntry routineId = symTabStack.enterLocal(name, kind);
+        SymtabEntry routineId = symtab.enter(name, kind);
         routineId.setRoutineCode(routineCode);
 
         return routineId;
@@ -2,8 +2,8 @@ package intermediate.symtab;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.TreeMap;
+import java.util.Comparator;
+import java.util.HashMap;
 
 import intermediate.symtab.SymtabEntry.Kind;
 
@@ -12,33 +12,24 @@ import static intermediate.symtab.SymtabEntry.Kind.*;
 /**
  * <h1>Symtab</h1>
  *
- * <p>The symbol table.</p>
+ * <p>The symbol table of a scope. Its entries are hashed by name.
+ * While it is on a symbol table stack, the stack also binds its
+ * names for lookups through all the scopes.</p>
  *
  * <p>Copyright (c) 2020 by Ronald Mak</p>
  * <p>For instructional purposes only.  No warranties.</p>
  */
 public class Symtab
-    extends TreeMap<String, SymtabEntry>
 {
-    private static final long serialVersionUID = 0L; 
-
     private int nestingLevel;       // scope nesting level
     private int slotNumber;         // local variables array slot number
     private int maxSlotNumber;      // max slot number value
     private SymtabEntry ownerId;    // symbol table entry of this symtab's owner
+    private HashMap<String, SymtabEntry> entries;  // entries by name
+    private SymtabStack stack;      // the stack this symtab is on, or null
+    private volatile ArrayList<SymtabEntry> sorted;  // sorted view, or null
     
     public static final String UNNAMED_PREFIX = "_unnamed_";
-    private static int unnamedIndex = 0;
-
-    /**
-     * Generate a name for an unnamed type.
-     * @return the name;
-     */
-    public static String generateUnnamedName()
-    {
-        unnamedIndex++;
-        return UNNAMED_PREFIX + unnamedIndex;
-    }
 
     /**
      * Constructor.
@@ -48,6 +39,9 @@ public class Symtab
     {
         this.nestingLevel = nestingLevel;
         this.slotNumber   = -1;
+        this.entries      = new HashMap<String, SymtabEntry>();
+        this.stack        = null;
+        this.sorted       = null;
     }
 
     /**
@@ -84,6 +78,18 @@ public class Symtab
      */
     public void setOwner(SymtabEntry ownerId) { this.ownerId = ownerId; }
 
+    /**
+     * Get the number of entries.
+     * @return the number.
+     */
+    public int size() { return entries.size(); }
+
+    /**
+     * Get the entries, in no particular order.
+     * @return the entries.
+     */
+    public Collection<SymtabEntry> entries() { return entries.values(); }
+
     /**
      * Create and enter a new entry into the symbol table.
      * @param name the name of the entry.
@@ -93,30 +99,63 @@ public class Symtab
     public SymtabEntry enter(String name, Kind kind)
     {
         SymtabEntry entry = new SymtabEntry(name, kind, this);
-        put(name, entry);
+        put(entry);
 
         return entry;
     }
 
+    /**
+     * Enter all the entries of another symbol table, which remain
+     * the entries of that symbol table.
+     * @param symtab the other symbol table.
+     */
+    public void enterAll(Symtab symtab)
+    {
+        for (SymtabEntry entry : symtab.entries()) put(entry);
+    }
+
+    /**
+     * Enter an entry by its name. If the symbol table is on a stack,
+     * also bind the name in the stack's scopes.
+     * @param entry the entry.
+     */
+    private void put(SymtabEntry entry)
+    {
+        entries.put(entry.getName(), entry);
+        sorted = null;
+
+        if (stack != null) stack.bind(entry, this);
+    }
+
     /**
      * Look up an existing symbol table entry.
      * @param name the name of the entry.
      * @return the entry, or null if it does not exist.
      */
-    public SymtabEntry lookup(String name) { return get(name); }
+    public SymtabEntry lookup(String name) { return entries.get(name); }
+
+    /**
+     * Set the stack that this symbol table is on.
+     * @param stack the stack, or null if it was popped.
+     */
+    void setStack(SymtabStack stack) { this.stack = stack; }
 
     /**
-     * Return an arraylist of entries sorted by name.
+     * Return an arraylist of entries sorted by name. The list is built
+     * when first asked for after a change and then shared, so it must
+     * not be modified.
      * @return the sorted arraylist.
      */
     public ArrayList<SymtabEntry> sortedEntries()
     {
-        Collection<SymtabEntry> entries = values();
-        Iterator<SymtabEntry> iter = entries.iterator();
-        ArrayList<SymtabEntry> list = new ArrayList<SymtabEntry>(size());
+        ArrayList<SymtabEntry> list = sorted;
 
-        // Iterate over the sorted entries and append them to the list.
-        while (iter.hasNext()) list.add(iter.next());
+        if (list == null)
+        {
+            list = new ArrayList<SymtabEntry>(entries.values());
+            list.sort(Comparator.comparing(SymtabEntry::getName));
+            sorted = list;
+        }
 
         return list;  // sorted list of entries
     }
@@ -127,13 +166,9 @@ public class Symtab
      */
     public void resetVariables(Kind kind)
     {
-        Collection<SymtabEntry> entries = values();
-        Iterator<SymtabEntry> it = entries.iterator();
-
         // Iterate over the entries and reset their kind.
-        while (it.hasNext()) 
+        for (SymtabEntry entry : entries.values())
         {
-            SymtabEntry entry = it.next();
             if (entry.getKind() == VARIABLE) entry.setKind(kind);
         }
     }
@@ -1,6 +1,7 @@
 package intermediate.symtab;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import intermediate.type.*;
 
@@ -19,7 +20,8 @@ public class SymtabEntry
     private Symtab symtab;                   // parent symbol table
     private Typespec typespec;               // type specification
     private int slotNumber;                  // local variables array slot number
-    private ArrayList<Integer> lineNumbers;  // source line numbers
+    private int[] lineNumbers;               // source line numbers, or null
+    private int lineCount;                   // count of source line numbers
     private EntryInfo info;                  // entry information
     
     /**
@@ -38,7 +40,18 @@ public class SymtabEntry
      */
     public enum Routine
     {
-        DECLARED, PRINT
+        DECLARED(false), PRINT(false),
+        READ_INT(true), READ_DOUBLE(true), READ_CHAR(true), READ_LINE(true);
+        
+        private boolean input;  // true if the routine reads input
+        
+        Routine(boolean input) { this.input = input; }
+        
+        /**
+         * Return whether or not the routine reads input.
+         * @return true if it does, else false.
+         */
+        public boolean readsInput() { return input; }
     }
     
 
@@ -78,7 +91,8 @@ public class SymtabEntry
         this.name = name;
         this.kind = kind;
         this.symtab = symtab;
-        this.lineNumbers = new ArrayList<Integer>();
+        this.lineNumbers = null;
+        this.lineCount = 0;
 
         // Initialize the appropriate entry information.
         switch (kind)
@@ -148,18 +162,39 @@ public class SymtabEntry
     public void setType(Typespec typespec) { this.typespec = typespec; }
 
     /**
-     * Get the arraylist of source line numbers for the entry.
-     * @return the arraylist.
+     * Get the source line numbers for the entry.
+     * @return a new array of the line numbers.
      */
-    public ArrayList<Integer> getLineNumbers() { return lineNumbers; }
+    public int[] getLineNumbers()
+    {
+        return lineCount > 0 ? Arrays.copyOf(lineNumbers, lineCount)
+                             : new int[0];
+    }
 
     /**
-     * Append a source line number to the entry.
+     * Append a source line number to the entry. The line numbers are
+     * kept unboxed in an array that grows as needed. Since they're
+     * appended in source order, a line number that's the same as the
+     * last one is a repeated reference on the same line and is skipped.
      * @param lineNumber the line number to append.
      */
     public void appendLineNumber(int lineNumber)
     {
-        lineNumbers.add(lineNumber);
+        if ((lineCount > 0) && (lineNumbers[lineCount - 1] == lineNumber))
+        {
+            return;
+        }
+
+        if (lineNumbers == null)
+        {
+            lineNumbers = new int[4];
+        }
+        else if (lineCount == lineNumbers.length)
+        {
+            lineNumbers = Arrays.copyOf(lineNumbers, 2*lineCount);
+        }
+
+        lineNumbers[lineCount++] = lineNumber;
     }
     
     /**
@@ -1,13 +1,18 @@
 package intermediate.symtab;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import intermediate.symtab.SymtabEntry.Kind;
 
 /**
  * <h1>SymtabStack</h1>
  *
- * <p>The symbol table stack.</p>
+ * <p>The symbol table stack. Each name is bound to a chain of the
+ * entries of that name in the symbol tables on the stack, innermost
+ * first, so a lookup through all the scopes is a single hash lookup.
+ * Pushing a symbol table binds its names, and popping it undoes
+ * those bindings.</p>
  *
  * <p>Copyright (c) 2020 by Ronald Mak</p>
  * <p>For instructional purposes only.  No warranties.</p>
@@ -19,6 +24,25 @@ public class SymtabStack
 
     private int currentNestingLevel;  // current scope nesting level
     private SymtabEntry programId;    // entry for the main program id
+    private int unnamedIndex;         // index for generating unnamed names
+    private HashMap<String, Binding> bindings;  // innermost binding by name
+
+    /**
+     * The binding of a name to an entry of a symbol table on the stack.
+     */
+    private static class Binding
+    {
+        private SymtabEntry entry;   // the bound entry
+        private Symtab symtab;       // the symbol table of the binding
+        private Binding next;        // the shadowed outer binding, or null
+
+        private Binding(SymtabEntry entry, Symtab symtab, Binding next)
+        {
+            this.entry  = entry;
+            this.symtab = symtab;
+            this.next   = next;
+        }
+    }
 
     /**
      * Constructor.
@@ -26,7 +50,9 @@ public class SymtabStack
     public SymtabStack()
     {
         this.currentNestingLevel = 0;
-        add(new Symtab(currentNestingLevel));
+        this.unnamedIndex = 0;
+        this.bindings = new HashMap<String, Binding>();
+        add(bindAll(new Symtab(currentNestingLevel)));
     }
 
     /**
@@ -47,6 +73,16 @@ public class SymtabStack
      */
     public void setProgramId(SymtabEntry id) { this.programId = id; }
 
+    /**
+     * Generate a name for an unnamed type.
+     * @return the name;
+     */
+    public String generateUnnamedName()
+    {
+        unnamedIndex++;
+        return Symtab.UNNAMED_PREFIX + unnamedIndex;
+    }
+
     /**
      * Return the local symbol table which is at the top of the stack.
      * @return the local symbol table.
@@ -60,7 +96,7 @@ public class SymtabStack
     public Symtab push()
     {
         Symtab symtab = new Symtab(++currentNestingLevel);
-        add(symtab);
+        add(bindAll(symtab));
 
         return symtab;
     }
@@ -72,7 +108,20 @@ public class SymtabStack
     public Symtab push(Symtab symtab)
     {
         ++currentNestingLevel;
-        add(symtab);
+        add(bindAll(symtab));
+
+        return symtab;
+    }
+
+    /**
+     * Bind the names of a symbol table that is pushed onto the stack.
+     * @param symtab the symbol table.
+     * @return the symbol table.
+     */
+    private Symtab bindAll(Symtab symtab)
+    {
+        symtab.setStack(this);
+        for (SymtabEntry entry : symtab.entries()) bind(entry, symtab);
 
         return symtab;
     }
@@ -86,6 +135,17 @@ public class SymtabStack
         Symtab symtab = get(currentNestingLevel);
         remove(currentNestingLevel--);
 
+        // Undo the bindings of the popped symbol table's names.
+        symtab.setStack(null);
+        for (SymtabEntry entry : symtab.entries())
+        {
+            String name = entry.getName();
+            Binding binding = bindings.get(name);
+
+            if (binding.next != null) bindings.put(name, binding.next);
+            else                      bindings.remove(name);
+        }
+
         return symtab;
     }
 
@@ -107,7 +167,10 @@ public class SymtabStack
      */
     public SymtabEntry lookupLocal(String name)
     {
-        return get(currentNestingLevel).lookup(name);
+        Binding binding = bindings.get(name);
+
+        return (binding != null) && (binding.symtab == getLocalSymtab())
+                    ? binding.entry : null;
     }
 
     /**
@@ -117,14 +180,30 @@ public class SymtabStack
      */
     public SymtabEntry lookup(String name)
     {
-        SymtabEntry foundEntry = null;
+        Binding binding = bindings.get(name);
 
-        // Search the current and enclosing scopes.
-        for (int i = currentNestingLevel; (i >= 0) && (foundEntry == null); --i)
+        return binding != null ? binding.entry : null;
+    }
+
+    /**
+     * Bind a name to an entry of a symbol table on the stack. An entry
+     * of the same name in the same symbol table is replaced, and one
+     * in an enclosing symbol table is shadowed.
+     * @param entry the entry.
+     * @param symtab the symbol table of the entry.
+     */
+    void bind(SymtabEntry entry, Symtab symtab)
+    {
+        String name = entry.getName();
+        Binding binding = bindings.get(name);
+
+        if ((binding != null) && (binding.symtab == symtab))
         {
-            foundEntry = get(i).lookup(name);
+            binding.entry = entry;
+        }
+        else
+        {
+            bindings.put(name, new Binding(entry, symtab, binding));
         }
-
-        return foundEntry;
     }
 }
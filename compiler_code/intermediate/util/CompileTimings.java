@@ -0,0 +1,283 @@
+package intermediate.util;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <h1>CompileTimings</h1>
+ *
+ * <p>The wall time, CPU time, and allocated bytes of each pass of a
+ * compilation, with counts of what the passes processed and of the
+ * instructions emitted per function. CPU time and allocations come
+ * from the ThreadMXBean. They are those of the compiling thread, plus
+ * those of the worker threads that compile functions in parallel.</p>
+ *
+ * <p>When timing is off, the methods do nothing.</p>
+ */
+public class CompileTimings
+{
+    private static final ThreadMXBean THREADS =
+                                        ManagementFactory.getThreadMXBean();
+
+    private boolean enabled;   // true if timing
+    private Thread owner;      // the compiling thread
+
+    private ArrayList<Pass> passes;             // the timed passes
+    private Pass current;                       // the running pass, or null
+    private LinkedHashMap<String, Long> counts; // counts by name
+    private TreeMap<String, Integer> functions; // instructions by function
+
+    /**
+     * The measurements of a pass.
+     */
+    private static class Pass
+    {
+        private String name;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        private Pass(String name) { this.name = name; }
+    }
+
+    /**
+     * Constructor.
+     * @param enabled true to time, false for no timing.
+     */
+    public CompileTimings(boolean enabled)
+    {
+        this.enabled   = enabled;
+        this.owner     = Thread.currentThread();
+        this.passes    = new ArrayList<Pass>();
+        this.current   = null;
+        this.counts    = new LinkedHashMap<String, Long>();
+        this.functions = new TreeMap<String, Integer>();
+    }
+
+    /**
+     * Return whether or not timing is on.
+     * @return true if timing.
+     */
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Start timing a pass. Called by the compiling thread.
+     * @param name the name of the pass.
+     */
+    public void start(String name)
+    {
+        if (!enabled) return;
+
+        stop();
+        current = new Pass(name);
+        current.wallNanos      = -System.nanoTime();
+        current.cpuNanos       = -cpuNanos();
+        current.allocatedBytes = -allocatedBytes();
+    }
+
+    /**
+     * Stop timing the running pass, if any.
+     */
+    public void stop()
+    {
+        if (!enabled || (current == null)) return;
+
+        synchronized (this)
+        {
+            current.wallNanos      += System.nanoTime();
+            current.cpuNanos       += cpuNanos();
+            current.allocatedBytes += allocatedBytes();
+            passes.add(current);
+            current = null;
+        }
+    }
+
+    /**
+     * Get the CPU time and allocated bytes of the current thread,
+     * to pass to addThreadUsage() after a piece of work.
+     * @return the usage so far.
+     */
+    public long[] threadUsage()
+    {
+        return enabled ? new long[] { cpuNanos(), allocatedBytes() } : null;
+    }
+
+    /**
+     * Add to the running pass the CPU time and allocated bytes of a
+     * worker thread since threadUsage() was called. The compiling
+     * thread's own work is already in the pass.
+     * @param start the usage returned by threadUsage().
+     */
+    public synchronized void addThreadUsage(long[] start)
+    {
+        if (   !enabled || (current == null)
+            || (Thread.currentThread() == owner)) return;
+
+        current.cpuNanos       += cpuNanos() - start[0];
+        current.allocatedBytes += allocatedBytes() - start[1];
+    }
+
+    /**
+     * Set a count.
+     * @param name the name of what was counted.
+     * @param count the count.
+     */
+    public synchronized void count(String name, long count)
+    {
+        if (enabled) counts.put(name, count);
+    }
+
+    /**
+     * Set the number of instructions emitted for a function.
+     * @param name the function name.
+     * @param count the number, or -1 if the function's code was reused.
+     */
+    public synchronized void countFunction(String name, int count)
+    {
+        if (enabled) functions.put(name, count);
+    }
+
+    /**
+     * Print the report.
+     * @param out the output stream.
+     * @param json true for JSON, false for a table.
+     */
+    public synchronized void print(PrintStream out, boolean json)
+    {
+        if (!enabled) return;
+
+        stop();
+        if (json) printJson(out);
+        else      printTable(out);
+    }
+
+    /**
+     * Print the report as tables.
+     * @param out the output stream.
+     */
+    private void printTable(PrintStream out)
+    {
+        out.println("\n===== COMPILE TIMINGS =====\n");
+        out.printf("%-12s %10s %10s %14s\n",
+                   "Pass", "Wall ms", "CPU ms", "Allocated KB");
+        out.printf("%-12s %10s %10s %14s\n",
+                   "----", "-------", "------", "------------");
+
+        Pass total = new Pass("total");
+        for (Pass pass : passes)
+        {
+            printPass(out, pass);
+            total.wallNanos      += pass.wallNanos;
+            total.cpuNanos       += pass.cpuNanos;
+            total.allocatedBytes += pass.allocatedBytes;
+        }
+        printPass(out, total);
+
+        out.println();
+        for (Map.Entry<String, Long> entry : counts.entrySet())
+        {
+            out.printf("%-24s %10d\n", entry.getKey() + ":", entry.getValue());
+        }
+
+        if (!functions.isEmpty())
+        {
+            out.printf("\n%-24s %10s\n", "Function", "Instructions");
+            out.printf("%-24s %10s\n", "--------", "------------");
+
+            for (Map.Entry<String, Integer> entry : functions.entrySet())
+            {
+                int count = entry.getValue();
+                out.printf("%-24s %10s\n", entry.getKey(),
+                           count >= 0 ? Integer.toString(count) : "reused");
+            }
+        }
+    }
+
+    /**
+     * Print a row of the pass table.
+     * @param out the output stream.
+     * @param pass the pass.
+     */
+    private void printPass(PrintStream out, Pass pass)
+    {
+        out.printf("%-12s %10.2f %10.2f %14d\n", pass.name,
+                   pass.wallNanos/1e6, pass.cpuNanos/1e6,
+                   pass.allocatedBytes/1024);
+    }
+
+    /**
+     * Print the report as a JSON object on one line.
+     * @param out the output stream.
+     */
+    private void printJson(PrintStream out)
+    {
+        StringBuilder json = new StringBuilder("{\"passes\":[");
+
+        for (int i = 0; i < passes.size(); i++)
+        {
+            Pass pass = passes.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"name\":\"").append(pass.name)
+                .append("\",\"wallNanos\":").append(pass.wallNanos)
+                .append(",\"cpuNanos\":").append(pass.cpuNanos)
+                .append(",\"allocatedBytes\":").append(pass.allocatedBytes)
+                .append('}');
+        }
+
+        json.append("],\"counts\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : counts.entrySet())
+        {
+            if (!first) json.append(',');
+            json.append('"').append(entry.getKey()).append("\":")
+                .append(entry.getValue());
+            first = false;
+        }
+
+        json.append("},\"functions\":{");
+        first = true;
+        for (Map.Entry<String, Integer> entry : functions.entrySet())
+        {
+            int count = entry.getValue();
+            if (!first) json.append(',');
+            json.append('"').append(entry.getKey()).append("\":")
+                .append(count >= 0 ? Integer.toString(count) : "null");
+            first = false;
+        }
+
+        json.append("}}");
+        out.println(json);
+    }
+
+    /**
+     * Get the CPU time of the current thread.
+     * @return the time in nanoseconds, or 0 if not supported.
+     */
+    private static long cpuNanos()
+    {
+        return THREADS.isCurrentThreadCpuTimeSupported()
+                    ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Get the bytes allocated so far by the current thread.
+     * @return the bytes, or 0 if not supported.
+     */
+    private static long allocatedBytes()
+    {
+        if (THREADS instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean threads =
+                                    (com.sun.management.ThreadMXBean) THREADS;
+            return threads.getThreadAllocatedBytes(
+                                    Thread.currentThread().getId());
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,271 @@
+package intermediate.util;
+
+import java.io.File;
+
+/**
+ * <h1>CompilerOptions</h1>
+ *
+ * <p>The command-line flags that control code generation.</p>
+ */
+public class CompilerOptions
+{
+    public static final int DEFAULT_MEMO_CACHE_SIZE = 1024;
+    public static final int DEFAULT_EVAL_STEP_BUDGET = 1000000;
+
+    private boolean optimize;    // true to generate code from the SSA form
+    private boolean profile;     // true to generate runtime profiling code
+    private boolean listing;     // true to print the source listing
+    private boolean xref;        // true to print the cross-reference table
+    private boolean timing;      // true to report the passes' timings
+    private boolean timingJson;  // true to report the timings as JSON
+    private boolean incremental; // true to reuse unchanged functions' code
+    private int memoCacheSize;   // cache entries per memoized function
+    private int evalStepBudget;  // steps per compile-time function call
+    private int jobs;            // source files compiled at once in a batch
+    private File directory;      // directory of the output files, or null
+
+    /**
+     * Constructor for the default options.
+     */
+    public CompilerOptions()
+    {
+        this.optimize      = false;
+        this.profile       = false;
+        this.listing       = true;
+        this.xref          = false;
+        this.timing        = false;
+        this.timingJson    = false;
+        this.incremental   = false;
+        this.memoCacheSize  = DEFAULT_MEMO_CACHE_SIZE;
+        this.evalStepBudget = DEFAULT_EVAL_STEP_BUDGET;
+        this.jobs           = Runtime.getRuntime().availableProcessors();
+        this.directory      = null;
+    }
+
+    /**
+     * Set an option from a command-line flag:
+     * -O, -profile, -nolist, -xref, -timings, -timings=json, -incremental, -memo=size where size 0 turns memoization off,
+     * -eval=steps where steps 0 turns compile-time evaluation off,
+     * or -jobs=count of source files compiled at once in a batch.
+     * @param flag the flag.
+     * @return true if the flag is valid, else false.
+     */
+    public boolean parseFlag(String flag)
+    {
+        if (flag.equals("-O"))
+        {
+            optimize = true;
+        }
+        else if (flag.equalsIgnoreCase("-profile"))
+        {
+            profile = true;
+        }
+        else if (flag.equalsIgnoreCase("-nolist"))
+        {
+            listing = false;
+        }
+        else if (flag.equalsIgnoreCase("-xref"))
+        {
+            xref = true;
+        }
+        else if (flag.equalsIgnoreCase("-timings"))
+        {
+            timing = true;
+        }
+        else if (flag.equalsIgnoreCase("-timings=json"))
+        {
+            timing = true;
+            timingJson = true;
+        }
+        else if (flag.equalsIgnoreCase("-incremental"))
+        {
+            incremental = true;
+        }
+        else if (flag.toLowerCase().startsWith("-memo="))
+        {
+            memoCacheSize = parseCount(flag.substring(6));
+            if (memoCacheSize < 0) return false;
+        }
+        else if (flag.toLowerCase().startsWith("-eval="))
+        {
+            evalStepBudget = parseCount(flag.substring(6));
+            if (evalStepBudget < 0) return false;
+        }
+        else if (flag.toLowerCase().startsWith("-jobs="))
+        {
+            jobs = parseCount(flag.substring(6));
+            if (jobs < 1) return false;
+        }
+        else
+        {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Parse the count of a flag.
+     * @param text the text of the count.
+     * @return the count, or -1 if invalid.
+     */
+    private int parseCount(String text)
+    {
+        try
+        {
+            return Math.max(-1, Integer.parseInt(text));
+        }
+        catch (NumberFormatException ex)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * Return whether or not code is generated from the SSA form.
+     * @return true if optimizing, else false.
+     */
+    public boolean isOptimizing() { return optimize; }
+
+    /**
+     * Set whether or not code is generated from the SSA form.
+     * @param optimize true to optimize.
+     */
+    public void setOptimizing(boolean optimize) { this.optimize = optimize; }
+
+    /**
+     * Return whether or not the generated code collects runtime statistics.
+     * @return true if profiling, else false.
+     */
+    public boolean isProfiling() { return profile; }
+
+    /**
+     * Set whether or not the generated code collects runtime statistics.
+     * @param profile true to profile.
+     */
+    public void setProfiling(boolean profile) { this.profile = profile; }
+
+    /**
+     * Return whether or not the source listing is printed.
+     * @return true if listing, else false.
+     */
+    public boolean isListing() { return listing; }
+
+    /**
+     * Set whether or not the source listing is printed.
+     * @param listing true to print the listing.
+     */
+    public void setListing(boolean listing) { this.listing = listing; }
+
+    /**
+     * Return whether or not the cross-reference table is printed.
+     * @return true if cross-referencing, else false.
+     */
+    public boolean isCrossReferencing() { return xref; }
+
+    /**
+     * Set whether or not the cross-reference table is printed.
+     * @param xref true to print the cross-reference table.
+     */
+    public void setCrossReferencing(boolean xref) { this.xref = xref; }
+
+    /**
+     * Return whether or not the timings of the passes are reported.
+     * @return true if timing, else false.
+     */
+    public boolean isTiming() { return timing; }
+
+    /**
+     * Return whether or not the timings are reported as JSON.
+     * @return true for JSON, false for tables.
+     */
+    public boolean isTimingJson() { return timingJson; }
+
+    /**
+     * Set whether or not the timings of the passes are reported.
+     * @param timing true to report the timings.
+     * @param json true to report them as JSON.
+     */
+    public void setTiming(boolean timing, boolean json)
+    {
+        this.timing = timing;
+        this.timingJson = json;
+    }
+
+    /**
+     * Return whether or not the code of unchanged functions is reused
+     * from the previous compilation.
+     * @return true if compiling incrementally, else false.
+     */
+    public boolean isIncremental() { return incremental; }
+
+    /**
+     * Set whether or not the code of unchanged functions is reused.
+     * @param incremental true to compile incrementally.
+     */
+    public void setIncremental(boolean incremental)
+    {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Get the number of cache entries of each memoized function.
+     * @return the size, 0 if memoization is off.
+     */
+    public int getMemoCacheSize() { return memoCacheSize; }
+
+    /**
+     * Set the number of cache entries of each memoized function.
+     * @param memoCacheSize the size, 0 to turn memoization off.
+     */
+    public void setMemoCacheSize(int memoCacheSize)
+    {
+        this.memoCacheSize = memoCacheSize;
+    }
+
+    /**
+     * Get the step budget of each function call evaluated at compile time.
+     * @return the budget, 0 if compile-time evaluation is off.
+     */
+    public int getEvalStepBudget() { return evalStepBudget; }
+
+    /**
+     * Set the step budget of each function call evaluated at compile time.
+     * @param evalStepBudget the budget, 0 to turn compile-time evaluation off.
+     */
+    public void setEvalStepBudget(int evalStepBudget)
+    {
+        this.evalStepBudget = evalStepBudget;
+    }
+
+    /**
+     * Get the number of source files of a batch compiled at once.
+     * @return the number.
+     */
+    public int getJobs() { return jobs; }
+
+    /**
+     * Set the number of source files of a batch compiled at once.
+     * @param jobs the number, at least 1.
+     */
+    public void setJobs(int jobs) { this.jobs = jobs; }
+
+    /**
+     * Get the directory of the object and cache files.
+     * @return the directory, or null for the current directory.
+     */
+    public File getDirectory() { return directory; }
+
+    /**
+     * Set the directory of the object and cache files.
+     * @param directory the directory, or null for the current directory.
+     */
+    public void setDirectory(File directory) { this.directory = directory; }
+
+    /**
+     * Get an output file in the directory of the output files.
+     * @param name the file name.
+     * @return the file.
+     */
+    public File outputFile(String name) { return new File(directory, name); }
+}
@@ -1,5 +1,6 @@
 package intermediate.util;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 
 import intermediate.symtab.*;
@@ -35,13 +36,26 @@ public class CrossReferencer
         for (int i = 0; i < INDENT_WIDTH; ++i) INDENT.append(" ");
     }
 
+    private PrintStream out;  // the stream for the table
+
+    /**
+     * Constructor.
+     */
+    public CrossReferencer() { this(System.out); }
+
+    /**
+     * Constructor.
+     * @param out the stream for the table.
+     */
+    public CrossReferencer(PrintStream out) { this.out = out; }
+
     /**
      * Print the cross-reference table.
      * @param symtabStack the symbol table stack.
      */
     public void print(SymtabStack symtabStack)
     {
-        System.out.println("\n===== CROSS-REFERENCE TABLE =====");
+        out.println("\n===== CROSS-REFERENCE TABLE =====");
 
         SymtabEntry programId = symtabStack.getProgramId();
         printRoutine(programId);
@@ -54,7 +68,7 @@ public class CrossReferencer
     private void printRoutine(SymtabEntry routineId)
     {
         Kind kind = routineId.getKind();
-        System.out.println("\n*** " + kind.toString().toUpperCase() +
+        out.println("\n*** " + kind.toString().toUpperCase() +
                            " " + routineId.getName() + " ***");
         printColumnHeadings();
 
@@ -75,10 +89,10 @@ public class CrossReferencer
      */
     private void printColumnHeadings()
     {
-        System.out.println();
-        System.out.println(String.format(NAME_FORMAT, "Identifier")
+        out.println();
+        out.println(String.format(NAME_FORMAT, "Identifier")
                            + NUMBERS_LABEL +     "Type specification");
-        System.out.println(String.format(NAME_FORMAT, "----------")
+        out.println(String.format(NAME_FORMAT, "----------")
                            + NUMBERS_UNDERLINE + "------------------");
     }
 
@@ -95,21 +109,21 @@ public class CrossReferencer
         // to print each entry of this symbol table.
         for (SymtabEntry entry : sorted) 
         {
-            ArrayList<Integer> lineNumbers = entry.getLineNumbers();
+            int[] lineNumbers = entry.getLineNumbers();
 
             // For each entry, print the identifier name
             // followed by the line numbers.
-            System.out.print(String.format(NAME_FORMAT, entry.getName()));
+            out.print(String.format(NAME_FORMAT, entry.getName()));
             if (lineNumbers != null) 
             {
-                for (Integer lineNumber : lineNumbers) 
+                for (int lineNumber : lineNumbers) 
                 {
-                    System.out.print(String.format(NUMBER_FORMAT, lineNumber));
+                    out.print(String.format(NUMBER_FORMAT, lineNumber));
                 }
             }
 
             // Print the symbol table entry.
-            System.out.println();
+            out.println();
             printEntry(entry);
         }
         
@@ -123,8 +137,8 @@ public class CrossReferencer
     {
         Kind kind = entry.getKind();
         int nestingLevel = entry.getSymtab().getNestingLevel();
-        System.out.println(INDENT + "Kind: " + kind.toString().replace("_", " "));
-        System.out.println(INDENT + "Scope nesting level: " + nestingLevel);
+        out.println(INDENT + "Kind: " + kind.toString().replace("_", " "));
+        out.println(INDENT + "Scope nesting level: " + nestingLevel);
 
         // Print the type specification.
         Typespec type = entry.getType();
@@ -135,7 +149,7 @@ public class CrossReferencer
             case CONSTANT: 
             {
                 Object value = entry.getValue();
-                System.out.println(INDENT + "Value: " + toString(value, type));
+                out.println(INDENT + "Value: " + toString(value, type));
 
                 // Print the type details only if the type is unnamed.
                 if (type.getIdentifier() == null) 
@@ -185,7 +199,7 @@ public class CrossReferencer
             SymtabEntry typeId = type.getIdentifier();
             String typeName = typeId != null ? typeId.getName() : "<unnamed>";
 
-            System.out.println(INDENT + "Type form: " + form +
+            out.println(INDENT + "Type form: " + form +
                                ", Type id: " + typeName);
         }
     }
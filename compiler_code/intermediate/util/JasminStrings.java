@@ -0,0 +1,74 @@
+package intermediate.util;
+
+/**
+ * <h1>JasminStrings</h1>
+ *
+ * <p>Convert between the Jasmin-ready text of a string constant,
+ * with its escape sequences, and the string that it is at run time.</p>
+ */
+public class JasminStrings
+{
+    private static final String ESCAPED   = "ntrbf\"'\\";
+    private static final String UNESCAPED = "\n\t\r\b\f\"'\\";
+
+    /**
+     * Convert the Jasmin-ready text of a string constant to the runtime string.
+     * @param text the text.
+     * @return the string, or null if there is an unknown escape sequence.
+     */
+    public static String unescape(String text)
+    {
+        StringBuilder buffer = new StringBuilder();
+
+        for (int i = 0; i < text.length(); i++)
+        {
+            char ch = text.charAt(i);
+
+            if (ch == '\\')
+            {
+                if (++i == text.length()) return null;
+
+                int index = ESCAPED.indexOf(text.charAt(i));
+                if (index < 0) return null;
+
+                ch = UNESCAPED.charAt(index);
+            }
+
+            buffer.append(ch);
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * Convert a runtime string to the Jasmin-ready text of a string constant.
+     * @param string the string.
+     * @return the text, or null if there is a character
+     * without an escape sequence.
+     */
+    public static String escape(String string)
+    {
+        StringBuilder buffer = new StringBuilder();
+
+        for (int i = 0; i < string.length(); i++)
+        {
+            char ch = string.charAt(i);
+            int index = UNESCAPED.indexOf(ch);
+
+            if ((index >= 0) && (ch != '\''))
+            {
+                buffer.append('\\').append(ESCAPED.charAt(index));
+            }
+            else if ((ch < ' ') || (ch > '~'))
+            {
+                return null;
+            }
+            else
+            {
+                buffer.append(ch);
+            }
+        }
+
+        return buffer.toString();
+    }
+}
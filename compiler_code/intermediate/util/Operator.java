@@ -0,0 +1,60 @@
+package intermediate.util;
+
+/**
+ * <h1>Operator</h1>
+ *
+ * <p>The relational, additive, and multiplicative operators. Semantics
+ * sets the operator of each operator context, so that the later passes
+ * compare enum values instead of the operators' source texts.</p>
+ */
+public enum Operator
+{
+    EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">="),
+    ADD("+"), SUB("-"), OR("||"),
+    MUL("*"), DIV("/"), MOD("%"), AND("&&");
+
+    private String text;
+
+    /**
+     * Constructor.
+     * @param text the source text of the operator.
+     */
+    Operator(String text) { this.text = text; }
+
+    /**
+     * Get the operator of a source text.
+     * @param text the source text.
+     * @return the operator, or null if none.
+     */
+    public static Operator of(String text)
+    {
+        for (Operator op : values())
+        {
+            if (op.text.equals(text)) return op;
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the relational operator that is true exactly when this one
+     * is false.
+     * @return the negated operator, or null if this one isn't relational.
+     */
+    public Operator negate()
+    {
+        switch (this)
+        {
+            case EQ: return NE;
+            case NE: return EQ;
+            case LT: return GE;
+            case LE: return GT;
+            case GT: return LE;
+            case GE: return LT;
+            default: return null;
+        }
+    }
+
+    @Override
+    public String toString() { return text; }
+}